@@ -14,7 +14,10 @@
  */
 package org.codice.imaging.nitf.core.common;
 
+import java.util.Collections;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
 import org.codice.imaging.nitf.core.tre.TreCollection;
 
 /**
@@ -29,6 +32,35 @@ public interface TaggedRecordExtensionHandler {
      */
     Map<String, String> getTREsFlat();
 
+    /**
+     * Return the TREs for this segment in a flattened, read-only Map structure.
+     *
+     * The keys are the same as for getTREsFlat(). The default implementation
+     * copies getTREsFlat() on each call; TaggedRecordExtensionHandlerImpl
+     * builds the map once and caches it until TREs are added to or removed
+     * from the segment, or entries within them are added or changed (see
+     * TreCollection.getModificationStamp()).
+     *
+     * @return an unmodifiable, sorted java.util.Map containing the TREs.
+     */
+    default Map<String, String> getFlattenedTREs() {
+        return Collections.unmodifiableMap(new TreeMap<>(getTREsFlat()));
+    }
+
+    /**
+     * Pass each flattened TRE key and value to a consumer, without building a Map.
+     *
+     * The keys and values are the same as for getFlattenedTREs(), but are
+     * provided in TRE order rather than sorted order. The default
+     * implementation walks getFlattenedTREs(), so provides them in sorted
+     * order.
+     *
+     * @param consumer the consumer to pass each key and value to.
+     */
+    default void forEachFlattenedTRE(final BiConsumer<String, String> consumer) {
+        getFlattenedTREs().forEach(consumer);
+    }
+
     /**
     Return the TREs for this segment, in raw form.
     @return TRE collection
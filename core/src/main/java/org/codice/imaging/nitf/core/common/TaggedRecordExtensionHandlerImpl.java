@@ -14,9 +14,12 @@
  */
 package org.codice.imaging.nitf.core.common;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.function.BiConsumer;
 import org.codice.imaging.nitf.core.tre.Tre;
 import org.codice.imaging.nitf.core.tre.TreCollection;
 import org.codice.imaging.nitf.core.tre.TreEntry;
@@ -29,6 +32,8 @@ public abstract class TaggedRecordExtensionHandlerImpl implements TaggedRecordEx
 
     private final TreCollection treCollection = new TreCollection();
 
+    private volatile FlattenedTres flattenedTres = null;
+
     /**
      * {@inheritDoc}
      */
@@ -49,84 +54,135 @@ public abstract class TaggedRecordExtensionHandlerImpl implements TaggedRecordEx
     @Deprecated
     @Override
     public final Map<String, String> getTREsFlat() {
-        Map<String, String> tresFlat = new TreeMap<>();
+        return new TreeMap<>(getFlattenedTREs());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final Map<String, String> getFlattenedTREs() {
+        List<Tre> tres = treCollection.getTREs();
+        long modificationStamp = treCollection.getModificationStamp();
+        FlattenedTres flattened = flattenedTres;
+        if ((flattened == null) || (flattened.modificationStamp != modificationStamp) || !isSameTres(tres, flattened.source)) {
+            Map<String, String> tresFlat = new TreeMap<>();
+            forEachFlattenedTRE(tresFlat::put);
+            flattened = new FlattenedTres(Collections.unmodifiableMap(tresFlat), new ArrayList<>(tres), modificationStamp);
+            flattenedTres = flattened;
+        }
+        return flattened.tres;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void forEachFlattenedTRE(final BiConsumer<String, String> consumer) {
+        TreFlattener flattener = new TreFlattener(consumer);
         for (String treName : treCollection.getUniqueNamesOfTRE()) {
             List<Tre> tresWithName = treCollection.getTREsWithName(treName);
             if (tresWithName.size() == 1) {
-                flattenOnlyTre(tresWithName.get(0), tresFlat);
+                flattener.flattenTre(tresWithName.get(0), -1);
             } else {
                 for (int i = 0; i < tresWithName.size(); ++i) {
-                    flattenThisTre(tresWithName.get(i), i, tresFlat);
+                    flattener.flattenTre(tresWithName.get(i), i);
                 }
             }
         }
-        return tresFlat;
     }
 
-    /**
-        Flatten out a single TRE.
-
-        @param onlyTre the TRE to flatten.
-        @param tresFlat the map to flatten the TRE into.
-    */
-    private void flattenOnlyTre(final Tre onlyTre, final Map<String, String> tresFlat) {
-        List<TreEntry> treEntries = onlyTre.getEntries();
-        for (TreEntry treEntry : treEntries) {
-            String label = String.format("%s_%s", onlyTre.getName(), treEntry.getName());
-            flattenOneTreEntry(tresFlat, treEntry, label);
+    private static boolean isSameTres(final List<Tre> tres, final List<Tre> previousTres) {
+        if (tres.size() != previousTres.size()) {
+            return false;
         }
+        for (int i = 0; i < tres.size(); ++i) {
+            if (tres.get(i) != previousTres.get(i)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
-        Flatten out a single TRE, where other TREs have the same name.
-
-        @param thisTre the TRE to flatten.
-        @param i the index of this TRE (zero base), required for namespacing.
-        @param tresFlat the map to flatten the TRE into.
+        Flattened TREs, together with the TREs and the modification stamp they were built from.
     */
-    private void flattenThisTre(final Tre thisTre, final int i, final Map<String, String> tresFlat) {
-        List<TreEntry> treEntries = thisTre.getEntries();
-        for (TreEntry treEntry : treEntries) {
-            tresFlat.put(String.format("%s_%d_%s", thisTre.getName(), i, treEntry.getName()), treEntry.getFieldValue().trim());
+    private static final class FlattenedTres {
+
+        private final Map<String, String> tres;
+
+        private final List<Tre> source;
+
+        private final long modificationStamp;
+
+        FlattenedTres(final Map<String, String> flattenedTres, final List<Tre> sourceTres, final long stamp) {
+            tres = flattenedTres;
+            source = sourceTres;
+            modificationStamp = stamp;
         }
     }
 
     /**
-        Flatten out a TreEntry.
-
-        @param tresFlat the map to flatten into.
-        @param treEntry the TreEntry to flatten.
-        @param parentName the name of the parent, required for namespacing.
+        Flattens TREs into key / value pairs, building each key in a single reusable buffer.
     */
-    private void flattenOneTreEntry(final Map<String, String> tresFlat, final TreEntry treEntry, final String label) {
-        if (treEntry.isSimpleField()) {
-            addValueToMap(tresFlat, label, treEntry);
-        } else if (treEntry.hasGroups()) {
-            processTreGroups(treEntry, label, tresFlat);
+    private static final class TreFlattener {
+
+        private static final char SEPARATOR = '_';
+
+        private final StringBuilder key = new StringBuilder();
+
+        private final BiConsumer<String, String> consumer;
+
+        TreFlattener(final BiConsumer<String, String> treConsumer) {
+            consumer = treConsumer;
         }
-    }
 
-    private void processTreGroups(final TreEntry treEntry, final String parentName, final Map<String, String> tresFlat) {
-        int groupCounter = 0;
-        for (TreGroup group : treEntry.getGroups()) {
-            groupCounter++;
-            if (group.getEntries().size() > 1) {
-                for (int entryCounter = 0; entryCounter < group.getEntries().size(); ++entryCounter) {
-                    TreEntry entryInGroup = group.getEntries().get(entryCounter);
-                    String label = String.format("%s_%d_%s", parentName, groupCounter, entryInGroup.getName());
-                    flattenOneTreEntry(tresFlat, entryInGroup, label);
-                }
-            } else {
-                TreEntry entryInGroup = group.getEntries().get(0);
-                String label = String.format("%s_%d", parentName, groupCounter);
-                flattenOneTreEntry(tresFlat, entryInGroup, label);
+        /**
+            Flatten out a single TRE.
+
+            @param tre the TRE to flatten.
+            @param index the index of this TRE (zero base) where other TREs have the same name, or -1 if it is the only one.
+        */
+        void flattenTre(final Tre tre, final int index) {
+            key.setLength(0);
+            key.append(tre.getName());
+            if (index >= 0) {
+                key.append(SEPARATOR).append(index);
+            }
+            flattenEntries(tre.getEntries(), key.length());
+        }
+
+        private void flattenEntries(final List<TreEntry> treEntries, final int parentLength) {
+            for (TreEntry treEntry : treEntries) {
+                key.setLength(parentLength);
+                key.append(SEPARATOR).append(treEntry.getName());
+                flattenOneTreEntry(treEntry);
+            }
+        }
+
+        private void flattenOneTreEntry(final TreEntry treEntry) {
+            if (treEntry.isSimpleField()) {
+                consumer.accept(key.toString(), treEntry.getFieldValue().trim());
+            } else if (treEntry.hasGroups()) {
+                processTreGroups(treEntry);
             }
         }
-    }
 
-    private void addValueToMap(final Map<String, String> tresFlat, final String key, final TreEntry treEntry) {
-        String value = treEntry.getFieldValue().trim();
-        tresFlat.put(key, value);
+        private void processTreGroups(final TreEntry treEntry) {
+            int parentLength = key.length();
+            int groupCounter = 0;
+            for (TreGroup group : treEntry.getGroups()) {
+                groupCounter++;
+                key.setLength(parentLength);
+                key.append(SEPARATOR).append(groupCounter);
+                List<TreEntry> entriesInGroup = group.getEntries();
+                if (entriesInGroup.size() == 1) {
+                    flattenOneTreEntry(entriesInGroup.get(0));
+                } else {
+                    flattenEntries(entriesInGroup, key.length());
+                }
+            }
+        }
     }
 
     /**
@@ -23,6 +23,8 @@ import java.util.List;
 public class TreCollection {
     private final List<Tre> treCollectionEntries = new ArrayList<>();
 
+    private volatile long modification = TreModifications.next();
+
     /**
         Return the TREs.
 
@@ -39,6 +41,7 @@ public class TreCollection {
     */
     public final void add(final Tre tre) {
         treCollectionEntries.add(tre);
+        modification = TreModifications.next();
     }
 
     /**
@@ -49,6 +52,7 @@ public class TreCollection {
     public final void add(final TreCollection collectionToAdd) {
         if (collectionToAdd != null) {
             treCollectionEntries.addAll(collectionToAdd.getTREs());
+            modification = TreModifications.next();
         }
     }
 
@@ -59,7 +63,30 @@ public class TreCollection {
      * @return true if the TRE was removed, otherwise false.
      */
     public final boolean remove(final Tre tre) {
-        return treCollectionEntries.remove(tre);
+        boolean removed = treCollectionEntries.remove(tre);
+        if (removed) {
+            modification = TreModifications.next();
+        }
+        return removed;
+    }
+
+    /**
+     * Get a stamp that changes whenever this collection, or any TRE in it, is changed.
+     * <p>
+     * This covers TREs being added or removed, and entries being added, renamed or given new values at any level of
+     * nesting. Changes made directly to the lists returned by getTREs(), TreGroup.getEntries() or
+     * TreEntry.getGroups() are not tracked. Getting the stamp visits every entry, but does not copy anything.
+     *
+     * @return the modification stamp, which only ever increases.
+     */
+    public final long getModificationStamp() {
+        long lastModification = modification;
+        for (Tre tre : treCollectionEntries) {
+            if (tre instanceof TreGroupImpl) {
+                lastModification = Math.max(lastModification, ((TreGroupImpl) tre).getLastModification());
+            }
+        }
+        return lastModification;
     }
 
     /**
@@ -32,6 +32,7 @@ public class TreEntry {
     private String value = null;
     private String dataType = null;
     private List<TreGroup> groups = null;
+    private volatile long modification = TreModifications.next();
 
     /**
      * Construct a TRE entry with a specific field name, field value and parent.
@@ -67,6 +68,7 @@ public class TreEntry {
     */
     public final void setName(final String fieldName) {
         name = fieldName;
+        modification = TreModifications.next();
     }
 
     /**
@@ -85,6 +87,7 @@ public class TreEntry {
     */
     public final void setFieldValue(final String fieldValue) {
         value = fieldValue;
+        modification = TreModifications.next();
     }
 
     /**
@@ -102,6 +105,7 @@ public class TreEntry {
     public final void initGroups() {
         if (groups == null) {
             groups = new ArrayList<TreGroup>();
+            modification = TreModifications.next();
         }
     }
 
@@ -139,6 +143,26 @@ public class TreEntry {
     */
     public final void addGroup(final TreGroup group) {
         groups.add(group);
+        modification = TreModifications.next();
+    }
+
+    /**
+        Get the stamp of the most recent change to this entry or the groups within it.
+        <p>
+        Changes made directly to the list returned by getGroups() are not tracked.
+
+        @return the most recent modification stamp.
+    */
+    final long getLastModification() {
+        long lastModification = modification;
+        if (groups != null) {
+            for (TreGroup group : groups) {
+                if (group instanceof TreGroupImpl) {
+                    lastModification = Math.max(lastModification, ((TreGroupImpl) group).getLastModification());
+                }
+            }
+        }
+        return lastModification;
     }
 
     /**
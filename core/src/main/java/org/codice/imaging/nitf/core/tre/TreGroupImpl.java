@@ -32,6 +32,8 @@ class TreGroupImpl implements TreGroup {
 
     private List<TreEntry> entries = new ArrayList<>();
 
+    private volatile long modification = TreModifications.next();
+
     /**
      * {@inheritDoc}
      */
@@ -47,6 +49,7 @@ class TreGroupImpl implements TreGroup {
     public final void add(final TreEntry entry) {
         if (entry != null) {
             entries.add(entry);
+            modification = TreModifications.next();
         }
     }
 
@@ -57,6 +60,7 @@ class TreGroupImpl implements TreGroup {
     public final void addAll(final TreGroup group) {
         if (group != null) {
             entries.addAll(group.getEntries());
+            modification = TreModifications.next();
         }
     }
 
@@ -67,6 +71,22 @@ class TreGroupImpl implements TreGroup {
     public final void setEntries(final List<TreEntry> treEntries) {
         entries = new ArrayList<>();
         entries.addAll(treEntries);
+        modification = TreModifications.next();
+    }
+
+    /**
+        Get the stamp of the most recent change to this group or the entries within it.
+        <p>
+        Changes made directly to the list returned by getEntries() are not tracked.
+
+        @return the most recent modification stamp.
+    */
+    final long getLastModification() {
+        long lastModification = modification;
+        for (TreEntry entry : entries) {
+            lastModification = Math.max(lastModification, entry.getLastModification());
+        }
+        return lastModification;
     }
 
     /**
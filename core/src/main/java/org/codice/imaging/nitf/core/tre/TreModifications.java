@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.imaging.nitf.core.tre;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+    Source of modification stamps for TRE structures.
+    <p>
+    Every change to a TRE entry, group or collection takes a new stamp from a single sequence, so the most recent
+    stamp within a TRE structure increases whenever any part of that structure changes.
+*/
+final class TreModifications {
+
+    private static final AtomicLong LAST_MODIFICATION = new AtomicLong();
+
+    private TreModifications() {
+    }
+
+    /**
+        Get the next modification stamp.
+
+        @return a stamp greater than any stamp returned before.
+    */
+    static long next() {
+        return LAST_MODIFICATION.incrementAndGet();
+    }
+}
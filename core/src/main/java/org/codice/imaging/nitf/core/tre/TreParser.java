@@ -15,11 +15,9 @@
 package org.codice.imaging.nitf.core.tre;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigInteger;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -126,6 +124,60 @@ public class TreParser {
         return tre;
     }
 
+    /**
+     * Walk the content of one TRE, reporting fields and loops to a visitor.
+     * <p>
+     * This is a forward-only alternative to normal TRE parsing. No TreEntry or
+     * TreGroup instances are created, which keeps memory use low for TREs with
+     * large loops (e.g. grids or covariance blocks).
+     *
+     * @param tag the name of the TRE (i.e. the six letter tag).
+     * @param treBytes the TRE data (not including the tag or length).
+     * @param visitor the visitor to report fields and loops to.
+     * @throws NitfFormatException if the tag is unknown, the data cannot be
+     * parsed, or the visitor aborts the traversal.
+     */
+    public final void visit(final String tag, final byte[] treBytes, final TreVisitor visitor) throws NitfFormatException {
+        TreType treType = getTreTypeForTag(tag);
+        if (treType == null) {
+            throw new NitfFormatException("No TRE descriptor available for " + tag);
+        }
+        NitfReader treReader = new NitfInputStreamReader(new ByteArrayInputStream(treBytes));
+        try {
+            visitTreComponents(treType.getFieldOrLoopOrIf(), treReader, new TreParams(), visitor);
+        } catch (UnsupportedOperationException | NumberFormatException ex) {
+            throw new NitfFormatException("Failed to visit TRE " + tag + ": " + ex.getMessage());
+        }
+    }
+
+    private void visitTreComponents(final List<Object> fieldOrLoopOrIf, final NitfReader reader,
+            final TreParams params, final TreVisitor visitor) throws NitfFormatException {
+        for (Object fieldLoopIf : fieldOrLoopOrIf) {
+            if (fieldLoopIf instanceof FieldType) {
+                TreEntry entry = parseField((FieldType) fieldLoopIf, reader, params);
+                if (entry != null) {
+                    visitor.onField(entry.getName(), entry.getFieldValue(), entry.getDataType());
+                }
+            } else if (fieldLoopIf instanceof LoopType) {
+                LoopType loopType = (LoopType) fieldLoopIf;
+                int numRepetitions = getLoopRepetitions(loopType, params);
+                visitor.onLoopStart(loopType.getName(), numRepetitions);
+                for (int i = 0; i < numRepetitions; ++i) {
+                    visitor.onLoopIteration(loopType.getName(), i);
+                    visitTreComponents(loopType.getFieldOrLoopOrIf(), reader, params, visitor);
+                }
+                visitor.onLoopEnd(loopType.getName());
+            } else if (fieldLoopIf instanceof IfType) {
+                IfType ifType = (IfType) fieldLoopIf;
+                if (evaluateCondition(ifType.getCond(), params)) {
+                    visitTreComponents(ifType.getFieldOrLoopOrIf(), reader, params, visitor);
+                }
+            } else {
+                throw new NitfFormatException("Unhandled fieldLoopIf type parsing problem");
+            }
+        }
+    }
+
     private TreGroupImpl parseTreComponents(final List<Object> fieldOrLoopOrIf,
             final NitfReader reader, final TreParams params) throws NitfFormatException {
         TreGroupImpl group = new TreGroupImpl();
@@ -241,6 +293,17 @@ public class TreParser {
     }
 
     private TreEntry parseLoop(final LoopType loopType, final NitfReader reader, final TreParams params) throws NitfFormatException {
+        int numRepetitions = getLoopRepetitions(loopType, params);
+        TreEntry treEntry = new TreEntry(loopType.getName());
+        for (int i = 0; i < numRepetitions; ++i) {
+            TreGroupImpl subGroup = parseTreComponents(loopType.getFieldOrLoopOrIf(),
+                    reader, params);
+            treEntry.addGroup(subGroup);
+        }
+        return treEntry;
+    }
+
+    private int getLoopRepetitions(final LoopType loopType, final TreParams params) throws NitfFormatException {
         int numRepetitions = 0;
         if (loopType.getIterations() != null) {
             numRepetitions = loopType.getIterations().intValue();
@@ -252,13 +315,7 @@ public class TreParser {
         } else {
             throw new UnsupportedOperationException("Need to implement other loop type");
         }
-        TreEntry treEntry = new TreEntry(loopType.getName());
-        for (int i = 0; i < numRepetitions; ++i) {
-            TreGroupImpl subGroup = parseTreComponents(loopType.getFieldOrLoopOrIf(),
-                    reader, params);
-            treEntry.addGroup(subGroup);
-        }
-        return treEntry;
+        return numRepetitions;
     }
 
     private TreGroupImpl parseIf(final IfType ifType, final NitfReader reader, final TreParams params) throws NitfFormatException {
@@ -330,25 +387,22 @@ public class TreParser {
      * @throws IOException on reading or writing problems.
      */
     public final byte[] getTREs(final TaggedRecordExtensionHandler handler, final TreSource source) throws NitfFormatException, IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        TreWriteBuffer buffer = new TreWriteBuffer();
         for (Tre tre : handler.getTREsRawStructure().getTREsForSource(source)) {
-            String name = padStringToLength(tre.getName(), TAG_LENGTH);
-            baos.write(name.getBytes(StandardCharsets.ISO_8859_1));
+            buffer.writePaddedString(tre.getName(), TAG_LENGTH);
+            int tagLenOffset = buffer.reserve(TAGLEN_LENGTH);
+            int dataOffset = buffer.size();
             if (tre.getRawData() != null) {
-                String tagLen = padIntegerToLength(tre.getRawData().length, TAGLEN_LENGTH);
-                baos.write(tagLen.getBytes(StandardCharsets.ISO_8859_1));
-                baos.write(tre.getRawData());
+                buffer.write(tre.getRawData());
             } else {
-                byte[] treData = serializeTRE(tre);
-                baos.write(padIntegerToLength(treData.length, TAGLEN_LENGTH).getBytes(StandardCharsets.ISO_8859_1));
-                baos.write(treData);
+                serializeTRE(tre, buffer);
+            }
+            int treDataLength = buffer.size() - dataOffset;
+            if (!buffer.fillZeroPaddedInteger(tagLenOffset, treDataLength, TAGLEN_LENGTH)) {
+                throw new NitfFormatException(String.format("TRE %s is too long to serialise: %d bytes", tre.getName(), treDataLength));
             }
         }
-        return baos.toByteArray();
-    }
-
-    private String padIntegerToLength(final long number, final int length) {
-        return String.format("%0" + length + "d", number);
+        return buffer.toByteArray();
     }
 
     private String padStringToLength(final String s, final int length) {
@@ -373,55 +427,55 @@ public class TreParser {
      * @throws NitfFormatException if TRE serialisation fails.
      */
     public final byte[] serializeTRE(final Tre tre) throws NitfFormatException {
+        TreWriteBuffer buffer = new TreWriteBuffer();
+        serializeTRE(tre, buffer);
+        return buffer.toByteArray();
+    }
+
+    private void serializeTRE(final Tre tre, final TreWriteBuffer buffer) throws NitfFormatException {
         TreType treType = getTreTypeForTag(tre.getName());
         checkTreLocationMatchesTreSource(treType.getLocation(), tre.getSource());
         TreParams parameters = new TreParams();
-        ByteArrayOutputStream output = new ByteArrayOutputStream();
-        serializeFieldOrLoopOrIf(treType.getFieldOrLoopOrIf(), tre, output, parameters);
-        return output.toByteArray();
+        serializeFieldOrLoopOrIf(treType.getFieldOrLoopOrIf(), tre, buffer, parameters);
     }
 
     private void serializeFieldOrLoopOrIf(final List<Object> fieldOrLoopOrIf,
             final TreGroup treGroup,
-            final ByteArrayOutputStream baos,
+            final TreWriteBuffer buffer,
             final TreParams params) throws NitfFormatException {
-        try {
-            for (Object fieldLoopIf : fieldOrLoopOrIf) {
-                if (fieldLoopIf instanceof FieldType) {
-                    byte[] field = getFieldValue((FieldType) fieldLoopIf, treGroup, params);
-                    baos.write(field);
-                } else if (fieldLoopIf instanceof LoopType) {
-                    LoopType loopType = (LoopType) fieldLoopIf;
-                    TreEntry loopDataEntry = treGroup.getEntry(loopType.getName());
-                    for (TreGroup subGroup : loopDataEntry.getGroups()) {
-                        serializeFieldOrLoopOrIf(loopType.getFieldOrLoopOrIf(), subGroup, baos, params);
-                    }
-                } else if (fieldLoopIf instanceof IfType) {
-                    IfType ifType = (IfType) fieldLoopIf;
-                    if (evaluateCondition(ifType.getCond(), params)) {
-                        serializeFieldOrLoopOrIf(ifType.getFieldOrLoopOrIf(), treGroup, baos, params);
-                    }
-                } else {
-                    throw new NitfFormatException("Unexpected TRE structure type");
+        for (Object fieldLoopIf : fieldOrLoopOrIf) {
+            if (fieldLoopIf instanceof FieldType) {
+                writeFieldValue((FieldType) fieldLoopIf, treGroup, buffer, params);
+            } else if (fieldLoopIf instanceof LoopType) {
+                LoopType loopType = (LoopType) fieldLoopIf;
+                TreEntry loopDataEntry = treGroup.getEntry(loopType.getName());
+                for (TreGroup subGroup : loopDataEntry.getGroups()) {
+                    serializeFieldOrLoopOrIf(loopType.getFieldOrLoopOrIf(), subGroup, buffer, params);
+                }
+            } else if (fieldLoopIf instanceof IfType) {
+                IfType ifType = (IfType) fieldLoopIf;
+                if (evaluateCondition(ifType.getCond(), params)) {
+                    serializeFieldOrLoopOrIf(ifType.getFieldOrLoopOrIf(), treGroup, buffer, params);
                 }
+            } else {
+                throw new NitfFormatException("Unexpected TRE structure type");
             }
-        } catch (IOException ex) {
-            throw new NitfFormatException("Failed to write TRE:" + ex.getMessage());
         }
     }
 
-    private byte[] getFieldValue(final FieldType fieldType, final TreGroup treGroup, final TreParams params) throws NitfFormatException {
+    private void writeFieldValue(final FieldType fieldType, final TreGroup treGroup, final TreWriteBuffer buffer, final TreParams params)
+            throws NitfFormatException {
         String fieldTypeName = getFieldTypeName(fieldType);
         if (fieldTypeName != null) {
             TreEntry entry = treGroup.getEntry(fieldTypeName);
-            return getValueForEntry(params, fieldType, entry);
+            writeValueForEntry(params, fieldType, entry, buffer);
         } else {
             // This is a pad field
             String value = fieldType.getFixedValue();
             if ((value != null) && (!value.isEmpty())) {
-                return value.getBytes(StandardCharsets.ISO_8859_1);
+                buffer.writePaddedString(value, 0);
             } else {
-                return padStringToLength("", fieldType.getLength().intValueExact()).getBytes(StandardCharsets.ISO_8859_1);
+                buffer.writePaddedString("", fieldType.getLength().intValueExact());
             }
         }
     }
@@ -434,7 +488,7 @@ public class TreParser {
         return fieldTypeName;
     }
 
-    private byte[] getValueForEntry(final TreParams params, final FieldType fieldType, final TreEntry entry)
+    private void writeValueForEntry(final TreParams params, final FieldType fieldType, final TreEntry entry, final TreWriteBuffer buffer)
             throws NitfFormatException {
         String value = entry.getFieldValue();
         if (value == null) {
@@ -451,7 +505,8 @@ public class TreParser {
         }
         if ((fieldType.getLength() == null) || (fieldType.getLength().intValueExact() == value.length())) {
             params.addParameter(getFieldTypeName(fieldType), value, entry.getDataType());
-            return value.getBytes(StandardCharsets.ISO_8859_1);
+            buffer.writePaddedString(value, 0);
+            return;
         }
         // Try to pad out to the required length.
         if (fieldType.getType() == null) {
@@ -459,51 +514,50 @@ public class TreParser {
             LOG.error(err);
             throw new NitfFormatException(err);
         }
+        int valueOffset = buffer.size();
         if (fieldType.getType().equals("integer")) {
-            value = getValidatedIntegerValue(value, fieldType);
-            params.addParameter(getFieldTypeName(fieldType), value, entry.getDataType());
-            return value.getBytes(StandardCharsets.ISO_8859_1);
+            writeValidatedIntegerValue(value, fieldType, buffer);
+            params.addParameter(getFieldTypeName(fieldType), buffer.toString(valueOffset), entry.getDataType());
+            return;
         }
 
         if (fieldType.getType().equals("string")) {
-            value = padStringToLength(value, fieldType.getLength().intValue());
             if (value.length() > fieldType.getLength().intValue()) {
                throw new NitfFormatException("Incorrect length serialising out: " + fieldType.getName());
             }
-            params.addParameter(getFieldTypeName(fieldType), value, entry.getDataType());
-            return value.getBytes(StandardCharsets.ISO_8859_1);
+            buffer.writePaddedString(value, fieldType.getLength().intValue());
+            params.addParameter(getFieldTypeName(fieldType), buffer.toString(valueOffset), entry.getDataType());
+            return;
         }
 
         if (fieldType.getType().equals("real")) {
             value = getValidatedRealValue(value, fieldType);
             params.addParameter(getFieldTypeName(fieldType), value, entry.getDataType());
-            return value.getBytes(StandardCharsets.ISO_8859_1);
+            buffer.writePaddedString(value, 0);
+            return;
         }
         if (fieldType.getType().equals("UINT")) {
-            byte[] result = getValidatedUINTValue(entry.getFieldValue().getBytes(StandardCharsets.ISO_8859_1), fieldType);
+            writeValidatedUINTValue(value, fieldType, buffer);
             params.addParameter(getFieldTypeName(fieldType), value, entry.getDataType());
-            // params.addUintParameter(getFieldTypeName(fieldType), result);
-            return result;
+            return;
         }
         throw new UnsupportedOperationException("Unsupported field type for serialisation:" + fieldType.getType());
     }
 
 
-    private String getValidatedIntegerValue(final String value, final FieldType fieldType) throws NitfFormatException {
-        String paddedValue;
+    private void writeValidatedIntegerValue(final String value, final FieldType fieldType, final TreWriteBuffer buffer) throws NitfFormatException {
         if (value.length() > fieldType.getLength().intValue()) {
             throw new NitfFormatException("Incorrect length serialising out: " + fieldType.getName());
         }
         try {
             int intValue = Integer.parseInt(value);
             validateIntegerValueRange(intValue, fieldType);
-            paddedValue = padIntegerToLength(intValue, fieldType.getLength().intValue());
+            buffer.writeZeroPaddedInteger(intValue, fieldType.getLength().intValue());
         } catch (NumberFormatException ex) {
             String err = "Could not parse " + fieldType.getName() + " value " + value + " as a number.";
             LOG.error(err);
             throw new NitfFormatException(err);
         }
-        return paddedValue;
     }
 
     private void validateIntegerValueRange(final int intValue, final FieldType fieldType) throws NitfFormatException {
@@ -550,21 +604,12 @@ public class TreParser {
         }
     }
 
-    private byte[] getValidatedUINTValue(final byte[] value, final FieldType fieldType) {
+    private void writeValidatedUINTValue(final String value, final FieldType fieldType, final TreWriteBuffer buffer) {
         // TODO: validate range properly
         int requiredLength = fieldType.getLength().intValueExact();
-        if (requiredLength > value.length) {
-            byte[] paddedResult = new byte[requiredLength];
-            int numPadBytes = requiredLength - value.length;
-            for (int i = 0; i < numPadBytes; ++i) {
-                paddedResult[i] = 0;
-            }
-            for (int i = 0; i < value.length; ++i) {
-                paddedResult[i + numPadBytes] = value[i];
-            }
-            return paddedResult;
-        }
-        return value;
+        int numPadBytes = requiredLength - value.length();
+        buffer.writeZeroBytes(numPadBytes);
+        buffer.writePaddedString(value, 0);
     }
 
     private void checkTreLocationMatchesTreSource(final String location, final TreSource source) throws NitfFormatException {
@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.imaging.nitf.core.tre;
+
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+
+/**
+ * Callback interface for forward-only traversal of TRE data.
+ * <p>
+ * This is used with TreParser.visit(), which walks the TRE descriptor and the
+ * TRE bytes together, and reports each field as it is read. Unlike normal
+ * parsing, no TreEntry / TreGroup structure is built, so this is suitable for
+ * TREs with very large loops where only a few fields are of interest.
+ */
+public interface TreVisitor {
+
+    /**
+     * Called for each named field, in the order the fields occur in the TRE.
+     *
+     * @param fieldName the name of the field.
+     * @param fieldValue the value of the field, as read from the TRE.
+     * @param fieldType the data type ("string", "real", "UINT", "integer") for
+     * the field, which may be null if the descriptor does not specify it.
+     * @throws NitfFormatException if the visitor wants to abort the traversal.
+     */
+    void onField(String fieldName, String fieldValue, String fieldType) throws NitfFormatException;
+
+    /**
+     * Called at the start of a loop, before any iteration is read.
+     *
+     * @param loopName the name of the loop.
+     * @param numRepetitions the number of iterations that will follow.
+     * @throws NitfFormatException if the visitor wants to abort the traversal.
+     */
+    void onLoopStart(String loopName, int numRepetitions) throws NitfFormatException;
+
+    /**
+     * Called at the start of each iteration of a loop.
+     *
+     * @param loopName the name of the loop.
+     * @param iteration the zero-based index of the iteration.
+     * @throws NitfFormatException if the visitor wants to abort the traversal.
+     */
+    void onLoopIteration(String loopName, int iteration) throws NitfFormatException;
+
+    /**
+     * Called after the last iteration of a loop.
+     *
+     * @param loopName the name of the loop.
+     * @throws NitfFormatException if the visitor wants to abort the traversal.
+     */
+    void onLoopEnd(String loopName) throws NitfFormatException;
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.imaging.nitf.core.tre;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer for TRE serialisation.
+ * <p>
+ * Padded ASCII fields are written directly into the buffer, which avoids
+ * String.format() and the intermediate arrays that a ByteArrayOutputStream
+ * based approach needs. Length fields can be reserved and filled in once the
+ * length is known, so TAG / TAGLEN / data can be written in one pass.
+ * <p>
+ * A buffer is created for each serialisation call and passed down to the
+ * field writers, so nothing is retained between calls. This class is not
+ * thread safe.
+ */
+final class TreWriteBuffer {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final int DECIMAL_BASE = 10;
+
+    private static final byte SPACE = ' ';
+
+    private static final byte ZERO = '0';
+
+    private static final byte MINUS = '-';
+
+    private static final byte UNMAPPABLE = '?';
+
+    private static final int MAX_ISO_8859_1 = 0xFF;
+
+    private byte[] mBuffer = new byte[INITIAL_CAPACITY];
+
+    private int mSize = 0;
+
+    /**
+     * Create an empty buffer.
+     */
+    TreWriteBuffer() {
+    }
+
+    /**
+     * The number of bytes written so far.
+     *
+     * @return the number of bytes in the buffer.
+     */
+    int size() {
+        return mSize;
+    }
+
+    /**
+     * Copy the content of the buffer.
+     *
+     * @return a new array containing the buffer content.
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(mBuffer, mSize);
+    }
+
+    /**
+     * Copy part of the content of the buffer into a string.
+     *
+     * @param offset the offset of the first byte to copy.
+     * @return the buffer content from offset to the current end, as an ISO-8859-1 string.
+     */
+    String toString(final int offset) {
+        return new String(mBuffer, offset, mSize - offset, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Append raw bytes.
+     *
+     * @param bytes the bytes to append.
+     */
+    void write(final byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, mBuffer, mSize, bytes.length);
+        mSize += bytes.length;
+    }
+
+    /**
+     * Append zero (0x00) bytes.
+     *
+     * @param count the number of bytes to append, which may be zero or negative to append nothing.
+     */
+    void writeZeroBytes(final int count) {
+        if (count <= 0) {
+            return;
+        }
+        ensureCapacity(count);
+        Arrays.fill(mBuffer, mSize, mSize + count, (byte) 0);
+        mSize += count;
+    }
+
+    /**
+     * Append a string as ISO-8859-1, right padding with spaces if required.
+     * <p>
+     * A string longer than the specified length is written in full.
+     *
+     * @param s the string to append.
+     * @param length the minimum number of bytes to write.
+     */
+    void writePaddedString(final String s, final int length) {
+        int numChars = s.length();
+        ensureCapacity(Math.max(numChars, length));
+        for (int i = 0; i < numChars; ++i) {
+            char c = s.charAt(i);
+            if (c > MAX_ISO_8859_1) {
+                mBuffer[mSize++] = UNMAPPABLE;
+            } else {
+                mBuffer[mSize++] = (byte) c;
+            }
+        }
+        for (int i = numChars; i < length; ++i) {
+            mBuffer[mSize++] = SPACE;
+        }
+    }
+
+    /**
+     * Append an integer, left padding with zeros if required.
+     * <p>
+     * This matches String.format("%0[length]d"), including writing the value in
+     * full if it is longer than the specified length.
+     *
+     * @param number the number to append.
+     * @param length the minimum number of bytes to write.
+     */
+    void writeZeroPaddedInteger(final long number, final int length) {
+        int numDigits = countDigits(number);
+        int numChars = numDigits;
+        if (number < 0) {
+            numChars++;
+        }
+        ensureCapacity(Math.max(numChars, length));
+        if (number < 0) {
+            mBuffer[mSize++] = MINUS;
+        }
+        for (int i = numChars; i < length; ++i) {
+            mBuffer[mSize++] = ZERO;
+        }
+        writeDigits(number, mSize + numDigits - 1);
+        mSize += numDigits;
+    }
+
+    /**
+     * Reserve space for a value that will be filled in later.
+     *
+     * @param length the number of bytes to reserve.
+     * @return the offset of the reserved space.
+     */
+    int reserve(final int length) {
+        ensureCapacity(length);
+        int offset = mSize;
+        mSize += length;
+        return offset;
+    }
+
+    /**
+     * Fill in a previously reserved space with a zero padded, non-negative integer.
+     *
+     * @param offset the offset returned by reserve().
+     * @param number the number to write.
+     * @param length the length of the reserved space.
+     * @return true if the number fitted into the reserved space, otherwise false.
+     */
+    boolean fillZeroPaddedInteger(final int offset, final long number, final int length) {
+        if ((number < 0) || (countDigits(number) > length)) {
+            return false;
+        }
+        Arrays.fill(mBuffer, offset, offset + length, ZERO);
+        writeDigits(number, offset + length - 1);
+        return true;
+    }
+
+    private void writeDigits(final long number, final int lastDigitOffset) {
+        long remainder = Math.abs(number);
+        int position = lastDigitOffset;
+        do {
+            mBuffer[position--] = (byte) (ZERO + (remainder % DECIMAL_BASE));
+            remainder /= DECIMAL_BASE;
+        } while (remainder != 0);
+    }
+
+    private static int countDigits(final long number) {
+        long remainder = Math.abs(number);
+        int numDigits = 1;
+        while (remainder >= DECIMAL_BASE) {
+            remainder /= DECIMAL_BASE;
+            numDigits++;
+        }
+        return numDigits;
+    }
+
+    private void ensureCapacity(final int additionalBytes) {
+        int required = mSize + additionalBytes;
+        if (required > mBuffer.length) {
+            mBuffer = Arrays.copyOf(mBuffer, Math.max(required, mBuffer.length * 2));
+        }
+    }
+}
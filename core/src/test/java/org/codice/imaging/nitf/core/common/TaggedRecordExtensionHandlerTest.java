@@ -19,12 +19,16 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import org.codice.imaging.nitf.core.tre.Tre;
 import org.codice.imaging.nitf.core.tre.TreCollection;
 import org.codice.imaging.nitf.core.tre.TreCollectionParser;
+import org.codice.imaging.nitf.core.tre.TreEntry;
 import org.codice.imaging.nitf.core.tre.TreSource;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import org.junit.Test;
 
 /**
@@ -88,4 +92,85 @@ public class TaggedRecordExtensionHandlerTest {
         assertEquals("18310613", flatTres.get("PIAPEB_DOB"));
         assertEquals("UK", flatTres.get(("PIAPEB_ASSOCTRY")));
     }
+
+    @Test
+    public void testFlattenedTresCached() throws NitfFormatException {
+        String testData = "MSTGTA0010100006ABC123DEF456789XYZ654321POI002The Boss.   2018111623591490231084632Z+01634m+30.482261-086.503262MSTGTA0010100000                                                       3                   +42.462679-071.281274";
+        TreCollection parseResult = parse(testData, 202);
+        TaggedRecordExtensionHandlerImpl treHandler = new TaggedRecordExtensionHandlerTestClass();
+        treHandler.mergeTREs(parseResult);
+
+        Map<String, String> flatTres = treHandler.getFlattenedTREs();
+        assertSame(flatTres, treHandler.getFlattenedTREs());
+        assertEquals(flatTres, treHandler.getTREsFlat());
+        assertEquals("+30.482261-086.503262", flatTres.get("MSTGTA_0_TGT_LOC"));
+
+        Map<String, String> streamed = new LinkedHashMap<>();
+        treHandler.forEachFlattenedTRE(streamed::put);
+        assertEquals(flatTres, streamed);
+
+        treHandler.getTREsRawStructure().remove(parseResult.getTREs().get(1));
+        Map<String, String> updatedFlatTres = treHandler.getFlattenedTREs();
+        assertNotSame(flatTres, updatedFlatTres);
+        assertEquals("+30.482261-086.503262", updatedFlatTres.get("MSTGTA_TGT_LOC"));
+        assertEquals(null, updatedFlatTres.get("MSTGTA_0_TGT_LOC"));
+    }
+
+    @Test
+    public void testFlattenedTresSeeEntryChanges() throws NitfFormatException {
+        String testData = "MSTGTA0010100006ABC123DEF456789XYZ654321POI002The Boss.   2018111623591490231084632Z+01634m+30.482261-086.503262";
+        TreCollection parseResult = parse(testData, 112);
+        TaggedRecordExtensionHandlerImpl treHandler = new TaggedRecordExtensionHandlerTestClass();
+        treHandler.mergeTREs(parseResult);
+        Tre mstgta = parseResult.getTREs().get(0);
+
+        Map<String, String> flatTres = treHandler.getFlattenedTREs();
+        assertEquals("+30.482261-086.503262", flatTres.get("MSTGTA_TGT_LOC"));
+
+        mstgta.getEntry("TGT_LOC").setFieldValue("+42.462679-071.281274");
+        Map<String, String> updatedFlatTres = treHandler.getFlattenedTREs();
+        assertNotSame(flatTres, updatedFlatTres);
+        assertEquals("+42.462679-071.281274", updatedFlatTres.get("MSTGTA_TGT_LOC"));
+        assertSame(updatedFlatTres, treHandler.getFlattenedTREs());
+
+        mstgta.add(new TreEntry("EXTRA", "VALUE", "string"));
+        assertEquals("VALUE", treHandler.getFlattenedTREs().get("MSTGTA_EXTRA"));
+    }
+
+    @Test
+    public void testDefaultFlattenedTres() throws NitfFormatException {
+        String testData = "MSTGTA0010100006ABC123DEF456789XYZ654321POI002The Boss.   2018111623591490231084632Z+01634m+30.482261-086.503262MSTGTA0010100000                                                       3                   +42.462679-071.281274";
+        TaggedRecordExtensionHandlerImpl source = new TaggedRecordExtensionHandlerTestClass();
+        source.mergeTREs(parse(testData, 202));
+        TaggedRecordExtensionHandler treHandler = new TaggedRecordExtensionHandler() {
+            @Override
+            public Map<String, String> getTREsFlat() {
+                return source.getTREsFlat();
+            }
+
+            @Override
+            public TreCollection getTREsRawStructure() {
+                return source.getTREsRawStructure();
+            }
+        };
+
+        Map<String, String> flatTres = treHandler.getFlattenedTREs();
+        assertEquals(source.getFlattenedTREs(), flatTres);
+        Map<String, String> streamed = new LinkedHashMap<>();
+        treHandler.forEachFlattenedTRE(streamed::put);
+        assertEquals(flatTres, streamed);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testFlattenedTresReadOnly() throws NitfFormatException {
+        TaggedRecordExtensionHandlerImpl treHandler = new TaggedRecordExtensionHandlerTestClass();
+        treHandler.getFlattenedTREs().put("KEY", "VALUE");
+    }
+
+    private TreCollection parse(final String testData, final int length) throws NitfFormatException {
+        InputStream inputStream = new ByteArrayInputStream(testData.getBytes(StandardCharsets.ISO_8859_1));
+        NitfReader nitfReader = new NitfInputStreamReader(new BufferedInputStream(inputStream));
+        TreCollectionParser parser = new TreCollectionParser();
+        return parser.parse(nitfReader, length, TreSource.ImageExtendedSubheaderData);
+    }
 }
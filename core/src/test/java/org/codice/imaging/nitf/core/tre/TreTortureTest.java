@@ -444,6 +444,74 @@ public class TreTortureTest {
         assertEquals("0029", coef5.getFieldValue("VALUE"));
     }
 
+    @Test
+    public void visitTST06A_Valid() throws NitfFormatException {
+        TreParser parser = new TreParser();
+        parser.registerAdditionalTREdescriptor(sourceTREs);
+        final StringBuilder events = new StringBuilder();
+        parser.visit("TST06A", "Key 1  0001Key 2  0008Key 3  0015Key 4  0022Key 5  0029".getBytes(), new TreVisitor() {
+            @Override
+            public void onField(String fieldName, String fieldValue, String fieldType) {
+                events.append(fieldName).append('=').append(fieldValue).append(';');
+            }
+
+            @Override
+            public void onLoopStart(String loopName, int numRepetitions) {
+                events.append('[').append(loopName).append(':').append(numRepetitions).append(';');
+            }
+
+            @Override
+            public void onLoopIteration(String loopName, int iteration) {
+                events.append('#').append(iteration).append(';');
+            }
+
+            @Override
+            public void onLoopEnd(String loopName) {
+                events.append(']');
+            }
+        });
+        assertEquals("[COEFFICIENTS:5;"
+                + "#0;CONCEPT=Key 1  ;VALUE=0001;"
+                + "#1;CONCEPT=Key 2  ;VALUE=0008;"
+                + "#2;CONCEPT=Key 3  ;VALUE=0015;"
+                + "#3;CONCEPT=Key 4  ;VALUE=0022;"
+                + "#4;CONCEPT=Key 5  ;VALUE=0029;]", events.toString());
+    }
+
+    @Test
+    public void visitTST05A_ConditionalField() throws NitfFormatException {
+        TreParser parser = new TreParser();
+        parser.registerAdditionalTREdescriptor(sourceTREs);
+        final StringBuilder events = new StringBuilder();
+        parser.visit("TST05A", "Y02Some text here      ".getBytes(), new TreVisitor() {
+            @Override
+            public void onField(String fieldName, String fieldValue, String fieldType) {
+                events.append(fieldName).append('=').append(fieldValue).append(';');
+            }
+
+            @Override
+            public void onLoopStart(String loopName, int numRepetitions) {
+            }
+
+            @Override
+            public void onLoopIteration(String loopName, int iteration) {
+            }
+
+            @Override
+            public void onLoopEnd(String loopName) {
+            }
+        });
+        assertEquals("FLAG=Y;NUMB=02;TEXT=Some text here      ;", events.toString());
+    }
+
+    @Test
+    public void visitUnknownTre() throws NitfFormatException {
+        TreParser parser = new TreParser();
+        exception.expect(NitfFormatException.class);
+        exception.expectMessage("No TRE descriptor available for XXXXXX");
+        parser.visit("XXXXXX", "12345".getBytes(), null);
+    }
+
     // "TST07A00001"
     static final String TST07A_ONE = "5453543037413030303031";
     // "TST08A00002"
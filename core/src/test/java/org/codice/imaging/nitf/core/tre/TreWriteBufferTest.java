@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.core.tre;
+
+import java.nio.charset.StandardCharsets;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests for the TRE serialisation buffer.
+ */
+public class TreWriteBufferTest {
+
+    @Test
+    public void checkIntegerPaddingMatchesFormat() {
+        long[] values = {0, 7, 42, 99999, 123456, -5, -1234};
+        for (long value : values) {
+            for (int length = 1; length < 8; ++length) {
+                TreWriteBuffer buffer = new TreWriteBuffer();
+                buffer.writeZeroPaddedInteger(value, length);
+                assertEquals(String.format("%0" + length + "d", value), buffer.toString(0));
+            }
+        }
+    }
+
+    @Test
+    public void checkStringPaddingMatchesFormat() {
+        String[] values = {"", "A", "ABCDEF", "ABCDEFGH"};
+        for (String value : values) {
+            TreWriteBuffer buffer = new TreWriteBuffer();
+            buffer.writePaddedString(value, 6);
+            assertEquals(String.format("%1$-6s", value), buffer.toString(0));
+        }
+    }
+
+    @Test
+    public void checkUnmappableCharacter() {
+        TreWriteBuffer buffer = new TreWriteBuffer();
+        buffer.writePaddedString("aé€", 0);
+        assertArrayEquals("aé€".getBytes(StandardCharsets.ISO_8859_1), buffer.toByteArray());
+    }
+
+    @Test
+    public void checkReserveAndFill() {
+        TreWriteBuffer buffer = new TreWriteBuffer();
+        buffer.writePaddedString("TAG", 6);
+        int offset = buffer.reserve(5);
+        buffer.writeZeroBytes(2);
+        buffer.write(new byte[]{'x', 'y'});
+        assertTrue(buffer.fillZeroPaddedInteger(offset, 4, 5));
+        assertArrayEquals(new byte[]{'T', 'A', 'G', ' ', ' ', ' ', '0', '0', '0', '0', '4', 0, 0, 'x', 'y'}, buffer.toByteArray());
+        assertFalse(buffer.fillZeroPaddedInteger(offset, 100000, 5));
+        assertFalse(buffer.fillZeroPaddedInteger(offset, -1, 5));
+    }
+
+    @Test
+    public void checkGrowth() {
+        TreWriteBuffer buffer = new TreWriteBuffer();
+        for (int i = 0; i < 1000; ++i) {
+            buffer.writePaddedString("", 10);
+        }
+        assertEquals(10000, buffer.size());
+    }
+}
@@ -15,32 +15,42 @@
 package org.codice.imaging.nitf.render;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.MultiPixelPackedSampleModel;
 import java.awt.image.WritableRaster;
+import java.io.EOFException;
 import java.io.IOException;
+import java.util.Arrays;
 import javax.imageio.stream.ImageInputStream;
 import org.codice.imaging.nitf.core.image.ImageSegment;
 
+/**
+ * Block renderer for bilevel (C1, ITU-T T.4) compressed images.
+ *
+ * Both one dimensional (MH) and two dimensional (MR) coding are supported.
+ * Codewords are decoded with lookup tables indexed by the next 13 bits of the
+ * image data (or 7 bits for two dimensional mode codes), rather than being
+ * built up a bit at a time. Each row is decoded into a list of changing
+ * elements (the columns where the colour changes), which is also what two
+ * dimensional coding uses as the reference line. White runs are then written
+ * into the packed 1 bit raster a byte at a time.
+ */
 class BilevelBlockRenderer implements BlockRenderer {
 
     private ImageSegment mImageSegment = null;
     private ImageInputStream mImageData = null;
-    private WritableRaster imgRaster = null;
     private boolean lineMode2D = false;
 
-    private static final int EOL = 0b000000000001;
     private static final int EOL_LENGTH_IN_BITS = 12;
-    private static final int MAX_VALID_BITLENGTH_WHITE = 12;
-    private static final int MAX_VALID_BITLENGTH_BLACK = 13;
-    private static final int MAX_VALID_2D_CODEWORD_LENGTH = 7;
     private static final int MAX_TERMINATING_RUN_LENGTH = 63;
     private static final String TWOD_S_ENCODING = "2DS";
     private static final String TWOD_H_ENCODING = "2DH";
-    private static final int INITIAL_WHITE_BITRUN_LENGTH = 4;
 
     private static final int VERTICAL_OFFSET_ONE_PIXEL = 1;
     private static final int VERTICAL_OFFSET_TWO_PIXELS = 2;
     private static final int VERTICAL_OFFSET_THREE_PIXELS = 3;
 
+    private static final int VERTICAL_ZERO = 0b1;
     private static final int VERTICAL_THREE_LEFT = 0b0000010;
     private static final int VERTICAL_THREE_RIGHT = 0b0000011;
     private static final int VERTICAL_TWO_LEFT = 0b000010;
@@ -53,17 +63,51 @@ class BilevelBlockRenderer implements BlockRenderer {
     private static final int WHITE = 0x1;
     private static final int BLACK = 0x0;
 
+    private static final int ALL_WHITE_BYTE = 0xFF;
+
+    private static final int READ_BUFFER_SIZE = 4096;
+
+    /**
+     * The number of bits used to index the run length tables, which is the longest codeword length.
+     */
+    private static final int RUN_LOOKUP_BITS = 13;
+
+    /**
+     * The number of bits used to index the two dimensional mode table, which is the longest mode codeword length.
+     */
+    private static final int MODE_LOOKUP_BITS = 7;
+
+    /**
+     * Run length table entries hold the run length above this many bits, and the codeword length in them.
+     */
+    private static final int CODE_LENGTH_BITS = 4;
+
+    private static final int CODE_LENGTH_MASK = (1 << CODE_LENGTH_BITS) - 1;
+
+    /**
+     * Spare changing element entries, for the end of row markers used when searching the reference row.
+     */
+    private static final int NUM_END_OF_ROW_MARKERS = 3;
+
     private enum TwoDmode {
-        Unknown,
-        Pass,
-        Horizontal,
-        Vertical0,
-        Vertical1Right,
-        Vertical2Right,
-        Vertical3Right,
-        Vertical1Left,
-        Vertical2Left,
-        Vertical3Left
+        Unknown(0, 0),
+        Pass(PASS, 4),
+        Horizontal(HORIZONTAL, 3),
+        Vertical0(VERTICAL_ZERO, 1),
+        Vertical1Right(VERTICAL_ONE_RIGHT, 3),
+        Vertical2Right(VERTICAL_TWO_RIGHT, 6),
+        Vertical3Right(VERTICAL_THREE_RIGHT, 7),
+        Vertical1Left(VERTICAL_ONE_LEFT, 3),
+        Vertical2Left(VERTICAL_TWO_LEFT, 6),
+        Vertical3Left(VERTICAL_THREE_LEFT, 7);
+
+        private final int codeWord;
+        private final int codeWordLength;
+
+        TwoDmode(final int code, final int codelength) {
+            codeWord = code;
+            codeWordLength = codelength;
+        }
     }
 
     private static final class CodebookEntry {
@@ -78,13 +122,6 @@ class BilevelBlockRenderer implements BlockRenderer {
         private final int runLength;
     }
 
-    private static final int ONE_BIT = 1;
-    private static final int THREE_BITS = 3;
-    private static final int FOUR_BITS = 4;
-    private static final int SIX_BITS = 6;
-    private static final int SEVEN_BITS = 7;
-
-
     private static final CodebookEntry[] WHITE_CODE_BOOK = {
         new CodebookEntry(8, 0b00110101, 0),
         new CodebookEntry(6, 0b000111, 1),
@@ -299,6 +336,53 @@ class BilevelBlockRenderer implements BlockRenderer {
         new CodebookEntry(12, 0b000000011111, 2560),
     };
 
+    private static final int[] WHITE_RUN_TABLE = buildRunTable(WHITE_CODE_BOOK);
+
+    private static final int[] BLACK_RUN_TABLE = buildRunTable(BLACK_CODE_BOOK);
+
+    private static final TwoDmode[] MODE_TABLE = buildModeTable();
+
+    private final byte[] mReadBuffer = new byte[READ_BUFFER_SIZE];
+    private int mReadBufferLength = 0;
+    private int mReadBufferPosition = 0;
+
+    /**
+     * Bits read ahead from the image data, left aligned, so the next bit is the most significant bit.
+     */
+    private long mBits = 0;
+    private int mNumBits = 0;
+
+    /**
+     * The number of zero bits at the end of mBits that were added after the end of the image data.
+     */
+    private int mNumPaddingBits = 0;
+
+    private long mStartBitPosition = 0;
+    private long mNumBitsConsumed = 0;
+
+    private static int[] buildRunTable(final CodebookEntry[] codeBook) {
+        int[] table = new int[1 << RUN_LOOKUP_BITS];
+        for (CodebookEntry entry : codeBook) {
+            int unusedBits = RUN_LOOKUP_BITS - entry.codeWordLength;
+            int first = entry.codeWord << unusedBits;
+            Arrays.fill(table, first, first + (1 << unusedBits), (entry.runLength << CODE_LENGTH_BITS) | entry.codeWordLength);
+        }
+        return table;
+    }
+
+    private static TwoDmode[] buildModeTable() {
+        TwoDmode[] table = new TwoDmode[1 << MODE_LOOKUP_BITS];
+        Arrays.fill(table, TwoDmode.Unknown);
+        for (TwoDmode mode : TwoDmode.values()) {
+            if (mode != TwoDmode.Unknown) {
+                int unusedBits = MODE_LOOKUP_BITS - mode.codeWordLength;
+                int first = mode.codeWord << unusedBits;
+                Arrays.fill(table, first, first + (1 << unusedBits), mode);
+            }
+        }
+        return table;
+    }
+
     @Override
     public final void setImageSegment(final ImageSegment imageSegment, final ImageInputStream imageInputStream) throws IOException {
         mImageSegment = imageSegment;
@@ -313,10 +397,33 @@ class BilevelBlockRenderer implements BlockRenderer {
         BufferedImage img = new BufferedImage((int) mImageSegment.getNumberOfPixelsPerBlockHorizontal(),
                                               (int) mImageSegment.getNumberOfPixelsPerBlockVertical(),
                                               BufferedImage.TYPE_BYTE_BINARY);
-        imgRaster = img.getRaster();
-        for (int blockRow = 0; blockRow < mImageSegment.getNumberOfPixelsPerBlockVertical(); ++blockRow) {
-            readScanline(blockRow);
+        WritableRaster imgRaster = img.getRaster();
+        byte[] pixels = ((DataBufferByte) imgRaster.getDataBuffer()).getData();
+        int scanlineStride = ((MultiPixelPackedSampleModel) imgRaster.getSampleModel()).getScanlineStride();
+        int width = img.getWidth();
+        boolean twoDimensionalCoding = TWOD_S_ENCODING.equals(mImageSegment.getCompressionRate())
+                || TWOD_H_ENCODING.equals(mImageSegment.getCompressionRate());
+        // The reference row for the first row is an imaginary white row.
+        int[] referenceRow = new int[width + NUM_END_OF_ROW_MARKERS + 1];
+        int[] codingRow = new int[width + NUM_END_OF_ROW_MARKERS + 1];
+        int numReferenceChanges = 0;
+        startReading();
+        for (int blockRow = 0; blockRow < img.getHeight(); ++blockRow) {
+            readEOL(twoDimensionalCoding);
+            markEndOfRow(referenceRow, numReferenceChanges, width);
+            int numCodingChanges;
+            if (lineMode2D) {
+                numCodingChanges = readScanline2D(blockRow, width, referenceRow, codingRow);
+            } else {
+                numCodingChanges = readScanline1D(width, codingRow);
+            }
+            writeRow(pixels, blockRow * scanlineStride, width, codingRow, numCodingChanges);
+            int[] previousRow = referenceRow;
+            referenceRow = codingRow;
+            codingRow = previousRow;
+            numReferenceChanges = numCodingChanges;
         }
+        finishReading();
         return img;
     }
 
@@ -326,107 +433,105 @@ class BilevelBlockRenderer implements BlockRenderer {
         return getNextImageBlock();
     }
 
-    private void readScanline(final int blockRow) throws IOException {
-        readEOL();
-        if (lineMode2D) {
-            readScanline2D(blockRow);
-        } else {
-            readScanline1D(blockRow);
-        }
+    private static void markEndOfRow(final int[] changes, final int numChanges, final int width) {
+        Arrays.fill(changes, numChanges, numChanges + NUM_END_OF_ROW_MARKERS, width);
     }
 
-    private void readScanline2D(final int blockRow) throws IOException {
-        int referenceRow = blockRow - 1;
+    private int readScanline2D(final int blockRow, final int width, final int[] referenceRow, final int[] codingRow) throws IOException {
+        int numChanges = 0;
         int a0colour = WHITE;
         int a0 = -1;
-        int a0prime = 0;
-        while (a0 < mImageSegment.getNumberOfPixelsPerBlockHorizontal()) {
-            TwoDmode mode = getTwoDmode();
+        int referenceIndex = 0;
+        while (a0 < width) {
+            TwoDmode mode = MODE_TABLE[peekBits(MODE_LOOKUP_BITS)];
+            if (mode == TwoDmode.Unknown) {
+                throw new IOException("Unsupported 2D BilevelBlockRenderer encoding at row" + blockRow);
+            }
+            consumeBits(mode.codeWordLength);
+            // b1 is the first changing element on the reference row to the right of a0 with the opposite colour to a0,
+            // which is at an even index (white to black) if a0 is white, and an odd index (black to white) otherwise.
+            while ((referenceIndex > 0) && (referenceRow[referenceIndex - 1] > a0)) {
+                referenceIndex--;
+            }
+            while (referenceRow[referenceIndex] <= a0) {
+                referenceIndex++;
+            }
+            if ((referenceIndex % 2 == 0) != (a0colour == WHITE)) {
+                referenceIndex++;
+            }
+            int b1 = referenceRow[referenceIndex];
             int a1;
-            int b1 = getBindex(referenceRow, a0colour, a0);
             switch (mode) {
                 case Pass:
-                    int b2 = getBindex(referenceRow, flipColour(a0colour), b1);
-                    writeRunFromTo(blockRow, a0, b2, a0colour);
-                    a0prime = b2;
+                    a0 = referenceRow[referenceIndex + 1];
                     break;
                 case Horizontal:
-                    if (a0 < 0) {
-                        a0 = 0;
-                    }
-                    if (a0colour == WHITE) {
-                        int whiteRun = readWhiteRunLength();
-                        writeRun(blockRow, a0, whiteRun, WHITE);
-                        int blackRun = readBlackRunLength();
-                        writeRun(blockRow, a0 + whiteRun, blackRun, BLACK);
-                        a0prime += whiteRun;
-                        a0prime += blackRun;
-                    } else {
-                        int blackRun = readBlackRunLength();
-                        writeRun(blockRow, a0, blackRun, BLACK);
-                        int whiteRun = readWhiteRunLength();
-                        writeRun(blockRow, a0 + blackRun, whiteRun, WHITE);
-                        a0prime += blackRun;
-                        a0prime += whiteRun;
-                    }
+                    a1 = Math.max(a0, 0) + readNextRun(a0colour);
+                    int a2 = a1 + readNextRun(flipColour(a0colour));
+                    checkChangingElement(a1, a0, width, blockRow);
+                    checkChangingElement(a2, a1, width, blockRow);
+                    codingRow[numChanges++] = a1;
+                    codingRow[numChanges++] = a2;
+                    a0 = a2;
                     break;
                 case Vertical0:
                     a1 = b1;
-                    writeRunFromTo(blockRow, a0, a1, a0colour);
-                    a0prime = a1;
+                    codingRow[numChanges++] = checkChangingElement(a1, a0, width, blockRow);
+                    a0 = a1;
                     a0colour = flipColour(a0colour);
                     break;
                 case Vertical1Left:
                     a1 = b1 - VERTICAL_OFFSET_ONE_PIXEL;
-                    writeRunFromTo(blockRow, a0, a1, a0colour);
-                    a0prime = a1;
+                    codingRow[numChanges++] = checkChangingElement(a1, a0, width, blockRow);
+                    a0 = a1;
                     a0colour = flipColour(a0colour);
                     break;
                 case Vertical2Left:
                     a1 = b1 - VERTICAL_OFFSET_TWO_PIXELS;
-                    writeRunFromTo(blockRow, a0, a1, a0colour);
-                    a0prime = a1;
+                    codingRow[numChanges++] = checkChangingElement(a1, a0, width, blockRow);
+                    a0 = a1;
                     a0colour = flipColour(a0colour);
                     break;
                 case Vertical3Left:
                     a1 = b1 - VERTICAL_OFFSET_THREE_PIXELS;
-                    writeRunFromTo(blockRow, a0, a1, a0colour);
-                    a0prime = a1;
+                    codingRow[numChanges++] = checkChangingElement(a1, a0, width, blockRow);
+                    a0 = a1;
                     a0colour = flipColour(a0colour);
                     break;
                 case Vertical1Right:
                     a1 = b1 + VERTICAL_OFFSET_ONE_PIXEL;
-                    writeRunFromTo(blockRow, a0, a1, a0colour);
-                    a0prime = a1;
+                    codingRow[numChanges++] = checkChangingElement(a1, a0, width, blockRow);
+                    a0 = a1;
                     a0colour = flipColour(a0colour);
                     break;
                 case Vertical2Right:
                     a1 = b1 + VERTICAL_OFFSET_TWO_PIXELS;
-                    writeRunFromTo(blockRow, a0, a1, a0colour);
-                    a0prime = a1;
+                    codingRow[numChanges++] = checkChangingElement(a1, a0, width, blockRow);
+                    a0 = a1;
                     a0colour = flipColour(a0colour);
                     break;
                 case Vertical3Right:
                     a1 = b1 + VERTICAL_OFFSET_THREE_PIXELS;
-                    writeRunFromTo(blockRow, a0, a1, a0colour);
-                    a0prime = a1;
+                    codingRow[numChanges++] = checkChangingElement(a1, a0, width, blockRow);
+                    a0 = a1;
                     a0colour = flipColour(a0colour);
                     break;
                 default:
                     throw new IOException("Unsupported 2D BilevelBlockRenderer encoding at row" + blockRow);
             }
-            a0 = a0prime;
+            if (numChanges > width) {
+                throw new IOException("Too many changing elements at row" + blockRow);
+            }
         }
+        return numChanges;
     }
 
-    private void writeRunFromTo(final int blockRow, final int startColumn, final int endColumn, final int colour) {
-        int start = startColumn;
-        if (start < 0) {
-            start = 0;
-        }
-        for (int i = start; i < endColumn; ++i) {
-            imgRaster.setSample(i, blockRow, 0, colour);
+    private static int checkChangingElement(final int position, final int previousPosition, final int width, final int blockRow)
+            throws IOException {
+        if ((position < Math.max(previousPosition, 0)) || (position > width)) {
+            throw new IOException("Bad changing element at row" + blockRow + ": " + position);
         }
+        return position;
     }
 
     private int flipColour(final int colour) {
@@ -437,187 +542,159 @@ class BilevelBlockRenderer implements BlockRenderer {
         }
     }
 
-    private TwoDmode getTwoDmode() throws IOException {
-        TwoDmode mode = TwoDmode.Unknown;
-        int numberOfCodewordBits = 1;
-        int codeWord = (int) mImageData.readBits(numberOfCodewordBits);
-        do {
-            mode = lookupMode(codeWord, numberOfCodewordBits);
-            if (mode == TwoDmode.Unknown) {
-                numberOfCodewordBits++;
-                codeWord = (codeWord << 1) + (int) mImageData.readBits(1);
-            }
-        } while ((mode == TwoDmode.Unknown) && (numberOfCodewordBits <= MAX_VALID_2D_CODEWORD_LENGTH));
-        return mode;
-    }
-
-    private TwoDmode lookupMode(final int codeWord, final int numberOfCodewordBits) {
-        switch (numberOfCodewordBits) {
-            case ONE_BIT:
-                if (codeWord == 1) {
-                    return TwoDmode.Vertical0;
-                } else {
-                    return TwoDmode.Unknown;
-                }
-            case THREE_BITS:
-                if (codeWord == VERTICAL_ONE_RIGHT) {
-                    return TwoDmode.Vertical1Right;
-                } else if (codeWord == VERTICAL_ONE_LEFT) {
-                    return TwoDmode.Vertical1Left;
-                } else if (codeWord == HORIZONTAL) {
-                    return TwoDmode.Horizontal;
-                } else {
-                    return TwoDmode.Unknown;
-                }
-            case FOUR_BITS:
-                if (codeWord == PASS) {
-                    return TwoDmode.Pass;
-                } else {
-                    return TwoDmode.Unknown;
-                }
-            case SIX_BITS:
-                if (codeWord == VERTICAL_TWO_RIGHT) {
-                    return TwoDmode.Vertical2Right;
-                } else if (codeWord == VERTICAL_TWO_LEFT) {
-                    return TwoDmode.Vertical2Left;
-                } else {
-                    return TwoDmode.Unknown;
-                }
-            case SEVEN_BITS:
-                if (codeWord == VERTICAL_THREE_RIGHT) {
-                    return TwoDmode.Vertical3Right;
-                } else if (codeWord == VERTICAL_THREE_LEFT) {
-                    return TwoDmode.Vertical3Left;
-                } else {
-                    return TwoDmode.Unknown;
-                }
-            default:
-                return TwoDmode.Unknown;
-        }
-    }
-
+    private int readScanline1D(final int width, final int[] codingRow) throws IOException {
+        int numChanges = 0;
+        int blockColumn = 0;
+        int colour = WHITE;
 
-    private int getBindex(final int referenceRow, final int refcolour, final int refposition) {
-        // First find a changing pixel
-        int pixelAboveRefPosition;
-        if (refposition == -1) {
-            pixelAboveRefPosition = WHITE;
-        } else {
-            pixelAboveRefPosition = imgRaster.getSample(refposition, referenceRow, 0);
-        }
-        for (int i = refposition + 1; i < mImageSegment.getNumberOfPixelsPerBlockHorizontal(); ++i) {
-            int sampleValue = imgRaster.getSample(i, referenceRow, 0);
-            if (sampleValue != pixelAboveRefPosition) {
-                // This is a changing pixel
-                if (sampleValue != refcolour) {
-                    // opposite colour to the reference colour, so this is the one we want
-                    return i;
-                } else {
-                    // Look for another changing pixel
-                    pixelAboveRefPosition = sampleValue;
-                }
+        while (blockColumn < width) {
+            blockColumn += readNextRun(colour);
+            if (blockColumn > width) {
+                throw new IOException("Mismatched number of pixels: " + blockColumn);
+            }
+            if (numChanges > width) {
+                throw new IOException("Too many runs: " + numChanges);
             }
+            codingRow[numChanges++] = blockColumn;
+            colour = flipColour(colour);
         }
-        return (int) mImageSegment.getNumberOfPixelsPerBlockHorizontal();
+        return numChanges;
     }
 
-    private void readScanline1D(final int blockRow) throws IOException {
-        int blockColumn = 0;
+    /**
+     * Write a decoded row into the packed raster data.
+     *
+     * The raster data starts as all black, so only white runs need to be written.
+     */
+    private static void writeRow(final byte[] pixels, final int rowOffset, final int width, final int[] changes, final int numChanges) {
         int colour = WHITE;
-
-        while (blockColumn < mImageSegment.getNumberOfPixelsPerBlockHorizontal()) {
-            int runLength = readNextRun(colour);
-            writeRun(blockRow, blockColumn, runLength, colour);
-            blockColumn += runLength;
-            colour = flipColour(colour);
+        int runStart = 0;
+        for (int i = 0; i < numChanges; ++i) {
+            if (colour == WHITE) {
+                writeWhiteRun(pixels, rowOffset, runStart, changes[i]);
+            }
+            runStart = changes[i];
+            colour = WHITE - colour;
         }
-        if (blockColumn != mImageSegment.getNumberOfPixelsPerBlockHorizontal()) {
-            throw new IOException("Mismatched number of pixels: " + blockColumn);
+        if (colour == WHITE) {
+            writeWhiteRun(pixels, rowOffset, runStart, width);
         }
     }
 
-    private void writeRun(final int blockRow, final int blockColumn, final int runLength, final int colour) {
-        for (int i = 0; i < runLength; ++i) {
-            imgRaster.setSample(blockColumn + i, blockRow, 0, colour);
+    private static void writeWhiteRun(final byte[] pixels, final int rowOffset, final int startColumn, final int endColumn) {
+        if (startColumn >= endColumn) {
+            return;
+        }
+        int firstByte = rowOffset + startColumn / Byte.SIZE;
+        int lastByte = rowOffset + (endColumn - 1) / Byte.SIZE;
+        int firstMask = ALL_WHITE_BYTE >> (startColumn % Byte.SIZE);
+        int lastMask = (ALL_WHITE_BYTE << (Byte.SIZE - 1 - (endColumn - 1) % Byte.SIZE)) & ALL_WHITE_BYTE;
+        if (firstByte == lastByte) {
+            pixels[firstByte] |= firstMask & lastMask;
+            return;
         }
+        pixels[firstByte] |= firstMask;
+        Arrays.fill(pixels, firstByte + 1, lastByte, (byte) ALL_WHITE_BYTE);
+        pixels[lastByte] |= lastMask;
     }
 
-    private void readEOL() throws IOException {
-        int eol = (int) mImageData.readBits(EOL_LENGTH_IN_BITS);
-        // check for fill, and keep reading bits until we get something that isn't all fill bits
-        while (eol == 0) {
-            eol = (eol << 1) + (int) mImageData.readBits(1);
+    private void readEOL(final boolean twoDimensionalCoding) throws IOException {
+        // EOL is eleven zero bits then a one bit, and may be preceded by any number of zero fill bits.
+        int numZeroBits = 0;
+        while (peekBits(1) == 0) {
+            consumeBits(1);
+            numZeroBits++;
         }
-        if (EOL != eol) {
-            throw new IOException(String.format("Expected EOL, but got 0x%04d", eol));
+        consumeBits(1);
+        if (numZeroBits < EOL_LENGTH_IN_BITS - 1) {
+            throw new IOException("Expected EOL, but got " + numZeroBits + " zero bits before a one bit");
         }
-        if (TWOD_S_ENCODING.equals(mImageSegment.getCompressionRate()) || TWOD_H_ENCODING.equals(mImageSegment.getCompressionRate())) {
-            lineMode2D = (mImageData.readBits(1) != 0x01);
+        if (twoDimensionalCoding) {
+            lineMode2D = (peekBits(1) != 0x01);
+            consumeBits(1);
         }
     }
 
     private int readNextRun(final int colour) throws IOException {
-        int cumulativeLengthOfThisRun = 0;
+        int[] runTable = BLACK_RUN_TABLE;
         if (colour == WHITE) {
-            int whiteRunLength;
-            do {
-                whiteRunLength = readWhiteRunLength();
-                if (whiteRunLength == -1) {
-                    throw new IOException("Bad run length");
-                }
-                cumulativeLengthOfThisRun += whiteRunLength;
-            } while (whiteRunLength > MAX_TERMINATING_RUN_LENGTH);
-        } else {
-            int blackRunLength;
-            do {
-                blackRunLength = readBlackRunLength();
-                if (blackRunLength == -1) {
-                    throw new IOException("Bad run length");
-                }
-                cumulativeLengthOfThisRun += blackRunLength;
-            } while (blackRunLength > MAX_TERMINATING_RUN_LENGTH);
+            runTable = WHITE_RUN_TABLE;
         }
+        int cumulativeLengthOfThisRun = 0;
+        int runLength;
+        do {
+            int entry = runTable[peekBits(RUN_LOOKUP_BITS)];
+            if (entry == 0) {
+                throw new IOException("Bad run length");
+            }
+            consumeBits(entry & CODE_LENGTH_MASK);
+            runLength = entry >> CODE_LENGTH_BITS;
+            cumulativeLengthOfThisRun += runLength;
+        } while (runLength > MAX_TERMINATING_RUN_LENGTH);
         if (cumulativeLengthOfThisRun > mImageSegment.getNumberOfPixelsPerBlockHorizontal()) {
             throw new IOException("Bad run length: " + cumulativeLengthOfThisRun);
         }
         return cumulativeLengthOfThisRun;
     }
 
-    private int readWhiteRunLength() throws IOException {
-        int numberOfCodewordBits = INITIAL_WHITE_BITRUN_LENGTH;
-        int codeWord = (int) mImageData.readBits(numberOfCodewordBits);
-        int runLength = 0;
-        do {
-            runLength = lookupRunLength(WHITE_CODE_BOOK, codeWord, numberOfCodewordBits);
-            if (runLength == -1) {
-                codeWord = (codeWord << 1) + (int) mImageData.readBits(1);
-                ++numberOfCodewordBits;
-            }
-        } while ((runLength == -1) && (numberOfCodewordBits <= MAX_VALID_BITLENGTH_WHITE));
-        return runLength;
+    /**
+     * Start reading bits from the current position in the image data.
+     */
+    private void startReading() throws IOException {
+        mReadBufferLength = 0;
+        mReadBufferPosition = 0;
+        mNumPaddingBits = 0;
+        mNumBitsConsumed = 0;
+        int bitOffset = mImageData.getBitOffset();
+        mStartBitPosition = mImageData.getStreamPosition() * Byte.SIZE + bitOffset;
+        if (bitOffset != 0) {
+            mNumBits = Byte.SIZE - bitOffset;
+            mBits = mImageData.readBits(mNumBits) << (Long.SIZE - mNumBits);
+        } else {
+            mNumBits = 0;
+            mBits = 0;
+        }
     }
 
-    private int readBlackRunLength() throws IOException {
-        int numberOfCodewordBits = 2;
-        int codeWord = (int) mImageData.readBits(numberOfCodewordBits);
-        int runLength = 0;
-        do {
-            runLength = lookupRunLength(BLACK_CODE_BOOK, codeWord, numberOfCodewordBits);
-            if (runLength == -1) {
-                codeWord = (codeWord << 1) + (int) mImageData.readBits(1);
-                ++numberOfCodewordBits;
-            }
-        } while ((runLength == -1) && (numberOfCodewordBits <= MAX_VALID_BITLENGTH_BLACK));
-        return runLength;
+    /**
+     * Leave the image data positioned at the bit after the last one consumed, which undoes any read-ahead.
+     */
+    private void finishReading() throws IOException {
+        long bitPosition = mStartBitPosition + mNumBitsConsumed;
+        mImageData.seek(bitPosition / Byte.SIZE);
+        mImageData.setBitOffset((int) (bitPosition % Byte.SIZE));
     }
 
-    private int lookupRunLength(final CodebookEntry[] codeBook, final int codeWord, final int numberOfCodewordBits) throws IOException {
-        for (int i = 0; i < codeBook.length; ++i) {
-            CodebookEntry entry = codeBook[i];
-            if ((entry.codeWordLength == numberOfCodewordBits) && (entry.codeWord == codeWord)) {
-                return entry.runLength;
+    private int peekBits(final int numBits) throws IOException {
+        if (mNumBits < numBits) {
+            fillBits();
+        }
+        return (int) (mBits >>> (Long.SIZE - numBits));
+    }
+
+    private void consumeBits(final int numBits) throws EOFException {
+        mBits <<= numBits;
+        mNumBits -= numBits;
+        mNumBitsConsumed += numBits;
+        if (mNumBits < mNumPaddingBits) {
+            throw new EOFException();
+        }
+    }
+
+    private void fillBits() throws IOException {
+        while (mNumBits <= Long.SIZE - Byte.SIZE) {
+            if (mReadBufferPosition == mReadBufferLength) {
+                mReadBufferPosition = 0;
+                mReadBufferLength = Math.max(mImageData.read(mReadBuffer), 0);
+                if (mReadBufferLength == 0) {
+                    // Past the end of the data, so pad with zero bits, which are an error if they are used.
+                    mNumBits += Byte.SIZE;
+                    mNumPaddingBits += Byte.SIZE;
+                    continue;
+                }
             }
+            mBits |= (long) (mReadBuffer[mReadBufferPosition++] & ALL_WHITE_BYTE) << (Long.SIZE - Byte.SIZE - mNumBits);
+            mNumBits += Byte.SIZE;
         }
-        return -1;
     }
 }
@@ -36,7 +36,7 @@ public interface BlockRenderer {
     /**
      * Render the next available image block.
      *
-     * @return image for the specified block
+     * @return image for the specified block, or null if the block is not recorded (masked)
      * @throws java.io.IOException if the data source is not readable
      */
     BufferedImage getNextImageBlock() throws IOException;
@@ -48,8 +48,20 @@ public interface BlockRenderer {
      *
      * @param rowIndex the row of the image block to be read
      * @param columnIndex the column of the image block to be read
-     * @return image for the specified block
+     * @return image for the specified block, or null if the block is not recorded (masked)
      * @throws java.io.IOException if the data source is not readable
      */
     BufferedImage getImageBlock(int rowIndex, int columnIndex) throws IOException;
+
+    /**
+     * Check whether blocks can be rendered in any order.
+     *
+     * If this is false, getImageBlock() needs to be called for each block in turn, even if only later blocks are
+     * wanted.
+     *
+     * @return true if getImageBlock() can be called for any block at any time, otherwise false.
+     */
+    default boolean supportsRandomAccess() {
+        return false;
+    }
 }
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Receiver for the rows of blocks of an image that is rendered one block row at a time.
+ *
+ * See NitfRenderer.renderBlockRows().
+ */
+@FunctionalInterface
+public interface BlockRowConsumer {
+
+    /**
+     * Accept one rendered row of blocks.
+     *
+     * @param blockRow the zero-based index of the row of blocks.
+     * @param firstRow the image row (ignoring the image location) that the first row of the strip corresponds to.
+     * @param strip the rendered pixels, which is the width of the image, and the height of one block (or less, for the
+     * last row of blocks).
+     * @throws IOException if the strip could not be handled (e.g. written out), which stops the rendering.
+     */
+    void accept(int blockRow, int firstRow, BufferedImage strip) throws IOException;
+}
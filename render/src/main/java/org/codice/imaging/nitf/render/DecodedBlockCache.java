@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+
+/**
+ * A bounded cache of decoded image blocks.
+ *
+ * Blocks are keyed by image segment (by identity), block row, block column and the set of bands that were decoded.
+ * The cache is sized by the number of bytes in the decoded block data, and evicts the least recently used blocks when
+ * it is full. A cached block keeps a reference to its image segment until it is evicted or invalidated.
+ *
+ * The cached images are shared, and must not be modified. All methods are thread safe.
+ */
+public final class DecodedBlockCache {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final long mMaxSizeInBytes;
+
+    private final LinkedHashMap<BlockKey, BufferedImage> mBlocks = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+
+    private long mSizeInBytes = 0;
+
+    private long mHits = 0;
+
+    private long mMisses = 0;
+
+    private long mEvictions = 0;
+
+    /**
+     * Create a cache.
+     *
+     * @param maxSizeInBytes the maximum total size of the cached block data, in bytes.
+     */
+    public DecodedBlockCache(final long maxSizeInBytes) {
+        if (maxSizeInBytes < 0) {
+            throw new IllegalArgumentException("DecodedBlockCache: maximum size must not be negative.");
+        }
+        mMaxSizeInBytes = maxSizeInBytes;
+    }
+
+    /**
+     * Look up a decoded block.
+     *
+     * @param imageSegment the image segment that the block belongs to.
+     * @param blockRow the row index of the block.
+     * @param blockColumn the column index of the block.
+     * @param bands the zero-based indexes of the bands that were decoded, or null if all bands were decoded.
+     * @return the decoded block image, or null if the block is not in the cache.
+     */
+    public synchronized BufferedImage get(final ImageSegment imageSegment, final int blockRow, final int blockColumn, final int[] bands) {
+        BufferedImage image = mBlocks.get(new BlockKey(imageSegment, blockRow, blockColumn, bands));
+        if (image == null) {
+            mMisses++;
+        } else {
+            mHits++;
+        }
+        return image;
+    }
+
+    /**
+     * Add a decoded block.
+     *
+     * Least recently used blocks are evicted to make space for the new block. A block that is larger than the maximum
+     * size of the cache is not added.
+     *
+     * @param imageSegment the image segment that the block belongs to.
+     * @param blockRow the row index of the block.
+     * @param blockColumn the column index of the block.
+     * @param bands the zero-based indexes of the bands that were decoded, or null if all bands were decoded.
+     * @param image the decoded block image, which must not be modified after it is added.
+     */
+    public synchronized void put(final ImageSegment imageSegment, final int blockRow, final int blockColumn, final int[] bands,
+            final BufferedImage image) {
+        long imageSize = getSizeInBytes(image);
+        if (imageSize > mMaxSizeInBytes) {
+            return;
+        }
+        BufferedImage previous = mBlocks.put(new BlockKey(imageSegment, blockRow, blockColumn, bands), image);
+        if (previous != null) {
+            mSizeInBytes -= getSizeInBytes(previous);
+        }
+        mSizeInBytes += imageSize;
+        Iterator<BufferedImage> eldest = mBlocks.values().iterator();
+        while (mSizeInBytes > mMaxSizeInBytes) {
+            mSizeInBytes -= getSizeInBytes(eldest.next());
+            eldest.remove();
+            mEvictions++;
+        }
+    }
+
+    /**
+     * Remove all the blocks for an image segment.
+     *
+     * @param imageSegment the image segment to remove blocks for.
+     */
+    public synchronized void invalidate(final ImageSegment imageSegment) {
+        Iterator<Map.Entry<BlockKey, BufferedImage>> entries = mBlocks.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<BlockKey, BufferedImage> entry = entries.next();
+            if (entry.getKey().mImageSegment == imageSegment) {
+                mSizeInBytes -= getSizeInBytes(entry.getValue());
+                entries.remove();
+            }
+        }
+    }
+
+    /**
+     * Remove all the blocks.
+     *
+     * The hit, miss and eviction counts are not reset.
+     */
+    public synchronized void clear() {
+        mBlocks.clear();
+        mSizeInBytes = 0;
+    }
+
+    /**
+     * Get the maximum size of the cache.
+     *
+     * @return the maximum total size of the cached block data, in bytes.
+     */
+    public long getMaxSizeInBytes() {
+        return mMaxSizeInBytes;
+    }
+
+    /**
+     * Get the current size of the cache.
+     *
+     * @return the total size of the cached block data, in bytes.
+     */
+    public synchronized long getSizeInBytes() {
+        return mSizeInBytes;
+    }
+
+    /**
+     * Get the number of blocks in the cache.
+     *
+     * @return the number of cached blocks.
+     */
+    public synchronized int getNumberOfBlocks() {
+        return mBlocks.size();
+    }
+
+    /**
+     * Get the number of lookups that found a block.
+     *
+     * @return the hit count.
+     */
+    public synchronized long getHits() {
+        return mHits;
+    }
+
+    /**
+     * Get the number of lookups that did not find a block.
+     *
+     * @return the miss count.
+     */
+    public synchronized long getMisses() {
+        return mMisses;
+    }
+
+    /**
+     * Get the number of blocks that have been evicted to make space for other blocks.
+     *
+     * @return the eviction count.
+     */
+    public synchronized long getEvictions() {
+        return mEvictions;
+    }
+
+    private static long getSizeInBytes(final BufferedImage image) {
+        DataBuffer data = image.getRaster().getDataBuffer();
+        return (long) data.getSize() * data.getNumBanks() * DataBuffer.getDataTypeSize(data.getDataType()) / Byte.SIZE;
+    }
+
+    private static final class BlockKey {
+        private final ImageSegment mImageSegment;
+        private final int mBlockRow;
+        private final int mBlockColumn;
+        private final int[] mBands;
+
+        BlockKey(final ImageSegment imageSegment, final int blockRow, final int blockColumn, final int[] bands) {
+            mImageSegment = imageSegment;
+            mBlockRow = blockRow;
+            mBlockColumn = blockColumn;
+            if (bands == null) {
+                mBands = null;
+            } else {
+                mBands = bands.clone();
+            }
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof BlockKey)) {
+                return false;
+            }
+            BlockKey other = (BlockKey) obj;
+            return (mImageSegment == other.mImageSegment) && (mBlockRow == other.mBlockRow) && (mBlockColumn == other.mBlockColumn)
+                    && Arrays.equals(mBands, other.mBands);
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int hash = System.identityHashCode(mImageSegment);
+            hash = prime * hash + mBlockRow;
+            hash = prime * hash + mBlockColumn;
+            return prime * hash + Arrays.hashCode(mBands);
+        }
+    }
+}
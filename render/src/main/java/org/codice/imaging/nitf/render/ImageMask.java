@@ -15,8 +15,6 @@
 package org.codice.imaging.nitf.render;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 import javax.imageio.stream.ImageInputStream;
 import org.codice.imaging.nitf.core.image.ImageMode;
 import org.codice.imaging.nitf.core.image.ImageSegment;
@@ -38,11 +36,37 @@ public final class ImageMask {
 
     private ImageSegment mImageSegment = null;
 
-    private int[][] bmrnbndm = null;
-    private final List<Integer> tmrnbndm = new ArrayList<>();
+    private final int mNumBlocks;
+
+    /**
+     * The number of bands that have their own block offsets (all bands for band sequential, otherwise one).
+     */
+    private final int mNumMaskBands;
+
+    /**
+     * Block offsets (BMRnBNDm), indexed by band * number of blocks + block, or null if there is no block mask record.
+     */
+    private long[] mBlockOffsets = null;
+
+    /**
+     * The number of bits in each unit of block data (a band of a block for band sequential, otherwise a whole block).
+     */
+    private final long mBitsPerBlockBand;
+
+    /**
+     * Pad pixel mask offsets (TMRnBNDm), indexed in the same way as the block offsets, or null if there is no pad pixel
+     * mask record.
+     */
+    private long[] mPadPixelOffsets = null;
+
     private int tpxcd = -1;
 
-    private static final int BLOCK_NOT_RECORDED = 0xFFFFFFFF;
+    /**
+     * The offset of the blocked image data from the start of the mask (IMDATOFF).
+     */
+    private long mBlockDataOffset = 0;
+
+    private static final long BLOCK_NOT_RECORDED = 0xFFFFFFFFL;
 
     /**
      * Create an image mask based on reading from an image segment and associated stream.
@@ -53,6 +77,9 @@ public final class ImageMask {
      */
     public ImageMask(final ImageSegment imageSegment, final ImageInputStream imageStream) throws IOException {
         mImageSegment = imageSegment;
+        mNumBlocks = getNumBlocks(imageSegment);
+        mNumMaskBands = getNumMaskBands(imageSegment);
+        mBitsPerBlockBand = getBitsPerBlockBand(imageSegment, mNumMaskBands);
         readImageMask(imageStream);
     }
 
@@ -66,27 +93,33 @@ public final class ImageMask {
      */
     public ImageMask(final ImageSegment imageSegment) {
         mImageSegment = imageSegment;
-        bmrnbndm = new int[mImageSegment.getNumberOfBlocksPerRow() * mImageSegment.getNumberOfBlocksPerColumn()][mImageSegment.getNumBands()];
-        int numBandsToRead = 1;
-        if (mImageSegment.getImageMode() == ImageMode.BANDSEQUENTIAL) {
-            numBandsToRead = mImageSegment.getNumBands();
-        }
-        int bytesPerPixel = (int) mImageSegment.getNumberOfBytesPerBlock();
-        int blockCounter = 0;
-        for (int m = 0; m < numBandsToRead; ++m) {
-            for (int n = 0; n < mImageSegment.getNumberOfBlocksPerRow() * mImageSegment.getNumberOfBlocksPerColumn(); ++n) {
-                bmrnbndm[n][m] = bytesPerPixel * blockCounter;
-                blockCounter++;
-            }
+        mNumBlocks = getNumBlocks(imageSegment);
+        mNumMaskBands = getNumMaskBands(imageSegment);
+        mBitsPerBlockBand = getBitsPerBlockBand(imageSegment, mNumMaskBands);
+    }
+
+    private static int getNumBlocks(final ImageSegment imageSegment) {
+        return imageSegment.getNumberOfBlocksPerRow() * imageSegment.getNumberOfBlocksPerColumn();
+    }
+
+    private static int getNumMaskBands(final ImageSegment imageSegment) {
+        if (imageSegment.getImageMode() == ImageMode.BANDSEQUENTIAL) {
+            return imageSegment.getNumBands();
         }
+        return 1;
+    }
+
+    private static long getBitsPerBlockBand(final ImageSegment imageSegment, final int numMaskBands) {
+        return imageSegment.getNumberOfPixelsPerBlockHorizontal() * imageSegment.getNumberOfPixelsPerBlockVertical()
+                * imageSegment.getNumberOfBitsPerPixelPerBand() * imageSegment.getNumBands() / numMaskBands;
     }
 
     private void readImageMask(final ImageInputStream imageInputStream) throws IOException {
-        int imdatoff = imageInputStream.readInt();
-        int bmrlnth = imageInputStream.readShort();
-        int tmrlnth = imageInputStream.readShort();
-        int tpxcdlnth = imageInputStream.readShort();
-        LOGGER.debug(String.format("Blocked image data offset: 0x%08x", imdatoff));
+        mBlockDataOffset = imageInputStream.readUnsignedInt();
+        int bmrlnth = imageInputStream.readUnsignedShort();
+        int tmrlnth = imageInputStream.readUnsignedShort();
+        int tpxcdlnth = imageInputStream.readUnsignedShort();
+        LOGGER.debug(String.format("Blocked image data offset: 0x%08x", mBlockDataOffset));
         LOGGER.debug(String.format("Block mask record length: 0x%04x", bmrlnth));
         LOGGER.debug(String.format("Pad Pixel Mask Record Length: 0x%04x", tmrlnth));
         LOGGER.debug(String.format("Pad Output pixel code length: 0x%04x", tpxcdlnth));
@@ -100,28 +133,26 @@ public final class ImageMask {
             }
             LOGGER.debug(String.format("Pad Output pixel code : 0x%08x", tpxcd));
         }
-        int numBandsToRead = 1;
-        if (mImageSegment.getImageMode() == ImageMode.BANDSEQUENTIAL) {
-            numBandsToRead = mImageSegment.getNumBands();
-        }
         if (bmrlnth > 0) {
-            bmrnbndm = new int[mImageSegment.getNumberOfBlocksPerRow() * mImageSegment.getNumberOfBlocksPerColumn()][mImageSegment.getNumBands()];
-            for (int m = 0; m < numBandsToRead; ++m) {
-                for (int n = 0; n < mImageSegment.getNumberOfBlocksPerRow() * mImageSegment.getNumberOfBlocksPerColumn(); ++n) {
-                    bmrnbndm[n][m] = imageInputStream.readInt();
-                    LOGGER.debug(String.format("mask blocks (band %d) %d: 0x%08x", m, n, bmrnbndm[n][m]));
-                }
-            }
+            mBlockOffsets = readOffsets(imageInputStream);
         }
         if (tmrlnth > 0) {
-            for (int m = 0; m < numBandsToRead; ++m) {
-                for (int n = 0; n < mImageSegment.getNumberOfBlocksPerRow() * mImageSegment.getNumberOfBlocksPerColumn(); ++n) {
-                    int val = imageInputStream.readInt();
-                    tmrnbndm.add(val);
-                    LOGGER.debug(String.format("mask pixel (band %d) %d: 0x%08x", m, n, val));
-                }
-            }
+            mPadPixelOffsets = readOffsets(imageInputStream);
+        }
+    }
+
+    private long[] readOffsets(final ImageInputStream imageInputStream) throws IOException {
+        long[] offsets = new long[mNumMaskBands * mNumBlocks];
+        int[] values = new int[offsets.length];
+        imageInputStream.readFully(values, 0, values.length);
+        for (int i = 0; i < offsets.length; ++i) {
+            offsets[i] = values[i] & BLOCK_NOT_RECORDED;
         }
+        return offsets;
+    }
+
+    private boolean isInMask(final int blockNumber, final int bandNumber) {
+        return (blockNumber >= 0) && (blockNumber < mNumBlocks) && (bandNumber >= 0) && (bandNumber < mNumMaskBands);
     }
 
     /**
@@ -140,15 +171,84 @@ public final class ImageMask {
      * false.
      */
     public boolean isMaskedBlock(final int blockNumber, final int bandNumber) {
-        if (bmrnbndm == null) {
+        if ((mBlockOffsets == null) || !isInMask(blockNumber, bandNumber)) {
             return false;
         }
+        return (BLOCK_NOT_RECORDED == mBlockOffsets[bandNumber * mNumBlocks + blockNumber]);
+    }
 
-        if (blockNumber >= bmrnbndm.length || bandNumber >= bmrnbndm[blockNumber].length) {
-            return false;
+    /**
+     * Test if the specified block is recorded in the file.
+     *
+     * This is the opposite of isMaskedBlock() for blocks in the image, and is false for block or band numbers outside
+     * the image. It takes constant time.
+     *
+     * @param blockNumber the block number, counted in row-major order.
+     * @param bandNumber the band (only used for Band Sequential).
+     * @return true if the block is recorded, otherwise false.
+     */
+    public boolean isBlockPresent(final int blockNumber, final int bandNumber) {
+        return isInMask(blockNumber, bandNumber) && !isMaskedBlock(blockNumber, bandNumber);
+    }
+
+    /**
+     * Check whether the mask has a block mask record, giving the offset of each block.
+     *
+     * @return true if there is a block mask record, otherwise false.
+     */
+    public boolean hasBlockOffsets() {
+        return mBlockOffsets != null;
+    }
+
+    /**
+     * Get the offset of the specified block from the start of the blocked image data.
+     *
+     * The offsets are read from the block mask record (BMRnBNDm) as unsigned values, so offsets past 2 GB are
+     * supported. If there is no block mask record, every block is recorded, and the offset is worked out from a regular
+     * layout where each band (for Band Sequential) or block follows the one before without gaps. That is only
+     * meaningful for uncompressed images.
+     *
+     * @param blockNumber the block number, counted in row-major order.
+     * @param bandNumber the band (only used for Band Sequential).
+     * @return the offset of the block in bytes, or -1 if the block is not recorded.
+     */
+    public long getBlockOffset(final int blockNumber, final int bandNumber) {
+        long bitOffset = getBlockBitOffset(blockNumber, bandNumber);
+        if (bitOffset < 0) {
+            return -1;
         }
+        return bitOffset / Byte.SIZE;
+    }
 
-        return (BLOCK_NOT_RECORDED == bmrnbndm[blockNumber][bandNumber]);
+    /**
+     * Get the offset of the specified block from the start of the blocked image data, in bits.
+     *
+     * This is the same as getBlockOffset(), except that it also locates blocks in a regular layout that do not start
+     * on a byte boundary.
+     *
+     * @param blockNumber the block number, counted in row-major order.
+     * @param bandNumber the band (only used for Band Sequential).
+     * @return the offset of the block in bits, or -1 if the block is not recorded.
+     */
+    public long getBlockBitOffset(final int blockNumber, final int bandNumber) {
+        if (!isBlockPresent(blockNumber, bandNumber)) {
+            return -1;
+        }
+        if (mBlockOffsets == null) {
+            return ((long) bandNumber * mNumBlocks + blockNumber) * mBitsPerBlockBand;
+        }
+        return mBlockOffsets[bandNumber * mNumBlocks + blockNumber] * Byte.SIZE;
+    }
+
+    /**
+     * Get the offset of the blocked image data from the start of the image data.
+     *
+     * This is the blocked image data offset (IMDATOFF) from the mask, which block offsets are relative to.
+     *
+     * @return the offset in bytes of the blocked image data, which is 0 if the image data has no mask.
+     */
+    public long getBlockDataOffset() {
+        return mBlockDataOffset;
     }
 
     /**
@@ -167,6 +267,39 @@ public final class ImageMask {
         return (tpxcd == value);
     }
 
+    /**
+     * Get the pad pixel value (TPXCD).
+     *
+     * @return the pad pixel value, or -1 if there is no per-pixel masking.
+     */
+    public int getPadPixelValue() {
+        return tpxcd;
+    }
+
+    /**
+     * Check whether a block might contain pad pixels.
+     *
+     * If the mask has a pad pixel mask record, blocks with no pad pixels are recorded there, and this is false for
+     * them, so the block does not need to be scanned. This takes constant time.
+     *
+     * @param blockNumber the block number, counted in row-major order.
+     * @return false if the block is known to have no pad pixels, otherwise true.
+     */
+    public boolean hasPadPixels(final int blockNumber) {
+        if (!hasPixelMasks()) {
+            return false;
+        }
+        if ((mPadPixelOffsets == null) || (blockNumber < 0) || (blockNumber >= mNumBlocks)) {
+            return true;
+        }
+        for (int band = 0; band < mNumMaskBands; ++band) {
+            if (mPadPixelOffsets[band * mNumBlocks + blockNumber] != BLOCK_NOT_RECORDED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Check whether this image mask has valid per-pixel masking.
      *
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.spi.ImageReaderSpi;
+
+/**
+ * Bounded pool of ImageReaders, keyed by media type.
+ *
+ * Looking up an ImageReader through the ImageIO registry, and creating it, costs more than decoding a small JPEG
+ * image, so readers are reset and kept for re-use after each image segment or block. At most a fixed number of idle
+ * readers are kept for each media type; readers released when the pool is full are disposed.
+ *
+ * This class is thread safe. A reader must only be used by one thread between acquire() and release().
+ */
+final class ImageReaderPool {
+
+    private final int mMaxIdleReaders;
+
+    private final ConcurrentMap<String, BlockingQueue<ImageReader>> mIdleReaders = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, ImageReaderSpi> mProviders = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param maxIdleReaders the maximum number of idle readers to keep for each media type.
+     */
+    ImageReaderPool(final int maxIdleReaders) {
+        mMaxIdleReaders = maxIdleReaders;
+    }
+
+    /**
+     * Get a reader for a media type, re-using an idle reader if there is one.
+     *
+     * @param mediaType the MIME type of the image data (e.g. "image/jpeg").
+     * @return a reader with no input set.
+     * @throws UnsupportedOperationException if there is no ImageReader for the media type.
+     */
+    ImageReader acquire(final String mediaType) {
+        ImageReader reader = getIdleReaders(mediaType).poll();
+        if (reader != null) {
+            return reader;
+        }
+        ImageReaderSpi provider = mProviders.get(mediaType);
+        if (provider != null) {
+            try {
+                return provider.createReaderInstance();
+            } catch (IOException e) {
+                // Fall back to the registry lookup, which reports a missing reader.
+                mProviders.remove(mediaType, provider);
+            }
+        }
+        reader = lookupReader(mediaType);
+        if (reader.getOriginatingProvider() != null) {
+            mProviders.putIfAbsent(mediaType, reader.getOriginatingProvider());
+        }
+        return reader;
+    }
+
+    /**
+     * Return a reader to the pool.
+     *
+     * The reader is reset, which removes its input, so it does not hold on to the image data.
+     *
+     * @param mediaType the media type the reader was acquired for.
+     * @param reader the reader, which must not be used by the caller after it is released.
+     */
+    void release(final String mediaType, final ImageReader reader) {
+        reader.reset();
+        if (!getIdleReaders(mediaType).offer(reader)) {
+            reader.dispose();
+        }
+    }
+
+    /**
+     * The number of idle readers kept for a media type.
+     *
+     * @param mediaType the media type.
+     * @return the number of readers that are ready to be re-used.
+     */
+    int getNumIdleReaders(final String mediaType) {
+        return getIdleReaders(mediaType).size();
+    }
+
+    private BlockingQueue<ImageReader> getIdleReaders(final String mediaType) {
+        BlockingQueue<ImageReader> idleReaders = mIdleReaders.get(mediaType);
+        if (idleReaders == null) {
+            mIdleReaders.putIfAbsent(mediaType, new ArrayBlockingQueue<ImageReader>(mMaxIdleReaders));
+            idleReaders = mIdleReaders.get(mediaType);
+        }
+        return idleReaders;
+    }
+
+    private static ImageReader lookupReader(final String mediaType) {
+        Iterator<ImageReader> imageReaders = ImageIO.getImageReadersByMIMEType(mediaType);
+
+        if (imageReaders == null || !imageReaders.hasNext()) {
+            throw new UnsupportedOperationException(
+                    String.format("NitfRenderer.render(): no ImageReader found for media type '%s'.", mediaType));
+        }
+
+        return imageReaders.next();
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Composite of the image segments of a NITF file, laid out in the common coordinate system.
+ *
+ * Each segment is placed at its image location (ILOC). Where a segment is attached to another image segment (its
+ * attachment level matches the display level of the other segment), the image location is relative to the location of
+ * that segment, and attachments are followed to the unattached segment at the bottom of the chain. Segments that are
+ * attached to something other than an image segment, or whose attachments form a loop, are placed relative to the
+ * origin of the common coordinate system.
+ *
+ * Segments are drawn in increasing display level order, so segments with a higher display level are drawn on top.
+ * Segments with the same display level are drawn in the order they were provided.
+ *
+ * Rendering a viewport only renders the segments that intersect it, and only the part of each segment that is inside
+ * the viewport, so only the blocks that intersect the viewport are decoded.
+ */
+public class ImageSegmentMosaic {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImageSegmentMosaic.class);
+
+    private final NitfRenderer mRenderer;
+
+    private final List<ImageSegment> mSegments;
+
+    private final Map<ImageSegment, Point> mLocations = new IdentityHashMap<>();
+
+    private final Rectangle mBounds = new Rectangle();
+
+    /**
+     * Create a mosaic of image segments.
+     *
+     * @param renderer the renderer used to render each segment
+     * @param imageSegments the image segments to lay out, typically all the image segments in a file
+     */
+    public ImageSegmentMosaic(final NitfRenderer renderer, final List<ImageSegment> imageSegments) {
+        if (renderer == null) {
+            throw new IllegalArgumentException("ImageSegmentMosaic: renderer must not be null.");
+        }
+        if ((imageSegments == null) || imageSegments.isEmpty()) {
+            throw new IllegalArgumentException("ImageSegmentMosaic: at least one image segment is required.");
+        }
+        mRenderer = renderer;
+        List<ImageSegment> segments = new ArrayList<>(imageSegments);
+        segments.sort(Comparator.comparingInt(ImageSegment::getImageDisplayLevel));
+        mSegments = Collections.unmodifiableList(segments);
+        layOut();
+    }
+
+    /**
+     * Get the image segments, in the order they are drawn.
+     *
+     * @return the image segments, sorted by increasing display level
+     */
+    public final List<ImageSegment> getImageSegments() {
+        return mSegments;
+    }
+
+    /**
+     * Get the location of the first pixel of an image segment in the common coordinate system.
+     *
+     * @param imageSegment the image segment, which must be one of the segments in this mosaic
+     * @return the location of the segment, with attachments resolved
+     */
+    public final Point getLocation(final ImageSegment imageSegment) {
+        Point location = mLocations.get(imageSegment);
+        if (location == null) {
+            throw new IllegalArgumentException("ImageSegmentMosaic.getLocation(): image segment is not part of the mosaic.");
+        }
+        return new Point(location);
+    }
+
+    /**
+     * Get the bounds of the image segments in the common coordinate system.
+     *
+     * @return the smallest rectangle that contains all of the image segments
+     */
+    public final Rectangle getBounds() {
+        return new Rectangle(mBounds);
+    }
+
+    /**
+     * Render the whole mosaic.
+     *
+     * @return rendered image, covering getBounds()
+     * @throws IOException if the source data could not be read from
+     */
+    public final BufferedImage render() throws IOException {
+        return render(mBounds, 1);
+    }
+
+    /**
+     * Render part of the mosaic, keeping only every n'th pixel in each direction.
+     *
+     * The viewport is in common coordinate system coordinates, and does not need to be inside getBounds(). The returned
+     * image is ceil(width / n) by ceil(height / n) pixels, and pixel (x, y) of the returned image corresponds to
+     * (viewport.x + x * n, viewport.y + y * n). Pixels that are not covered by any segment are transparent.
+     *
+     * @param viewport the region of the common coordinate system to render
+     * @param subsampling the subsampling factor (n), where 1 renders every pixel
+     * @return rendered image
+     * @throws IOException if the source data could not be read from
+     */
+    public final BufferedImage render(final Rectangle viewport, final int subsampling) throws IOException {
+        if ((viewport == null) || viewport.isEmpty()) {
+            throw new IllegalArgumentException("ImageSegmentMosaic.render(): viewport must not be null or empty.");
+        }
+        if (subsampling < 1) {
+            throw new IllegalArgumentException("ImageSegmentMosaic.render(): subsampling must be at least 1, got " + subsampling);
+        }
+        BufferedImage img = new BufferedImage(ceilDiv(viewport.width, subsampling), ceilDiv(viewport.height, subsampling),
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D targetGraphic = img.createGraphics();
+        try {
+            for (ImageSegment imageSegment : mSegments) {
+                renderSegment(imageSegment, viewport, subsampling, targetGraphic);
+            }
+        } finally {
+            targetGraphic.dispose();
+        }
+        return img;
+    }
+
+    private void renderSegment(final ImageSegment imageSegment, final Rectangle viewport, final int subsampling,
+            final Graphics2D targetGraphic) throws IOException {
+        Point location = mLocations.get(imageSegment);
+        Rectangle segmentBounds = new Rectangle(location.x, location.y, (int) imageSegment.getNumberOfColumns(),
+                (int) imageSegment.getNumberOfRows());
+        Rectangle overlap = segmentBounds.intersection(viewport);
+        if (overlap.isEmpty()) {
+            return;
+        }
+        // The first sample of the segment has to fall on the viewport sampling grid.
+        int firstX = viewport.x + ceilDiv(overlap.x - viewport.x, subsampling) * subsampling;
+        int firstY = viewport.y + ceilDiv(overlap.y - viewport.y, subsampling) * subsampling;
+        int endX = overlap.x + overlap.width;
+        int endY = overlap.y + overlap.height;
+        if ((firstX >= endX) || (firstY >= endY)) {
+            return;
+        }
+        Rectangle region = new Rectangle(firstX - location.x, firstY - location.y, endX - firstX, endY - firstY);
+        imageSegment.getData().seek(0);
+        BufferedImage segmentImage = mRenderer.renderRegion(imageSegment, region, subsampling);
+        targetGraphic.drawImage(segmentImage, (firstX - viewport.x) / subsampling, (firstY - viewport.y) / subsampling, null);
+    }
+
+    private void layOut() {
+        Map<Integer, ImageSegment> segmentsByDisplayLevel = new HashMap<>();
+        for (ImageSegment imageSegment : mSegments) {
+            segmentsByDisplayLevel.putIfAbsent(imageSegment.getImageDisplayLevel(), imageSegment);
+        }
+        for (ImageSegment imageSegment : mSegments) {
+            Point location = resolveLocation(imageSegment, segmentsByDisplayLevel);
+            mLocations.put(imageSegment, location);
+            Rectangle segmentBounds = new Rectangle(location.x, location.y, (int) imageSegment.getNumberOfColumns(),
+                    (int) imageSegment.getNumberOfRows());
+            if (mBounds.isEmpty()) {
+                mBounds.setBounds(segmentBounds);
+            } else {
+                mBounds.add(segmentBounds);
+            }
+        }
+    }
+
+    private Point resolveLocation(final ImageSegment imageSegment, final Map<Integer, ImageSegment> segmentsByDisplayLevel) {
+        Point location = new Point(imageSegment.getImageLocationColumn(), imageSegment.getImageLocationRow());
+        Set<ImageSegment> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        ImageSegment current = imageSegment;
+        while (current.getAttachmentLevel() != 0) {
+            visited.add(current);
+            ImageSegment parent = segmentsByDisplayLevel.get(current.getAttachmentLevel());
+            if (parent == null) {
+                break;
+            }
+            if (visited.contains(parent)) {
+                LOGGER.warn("Image segment attachments form a loop, ignoring attachment level {}", imageSegment.getAttachmentLevel());
+                return new Point(imageSegment.getImageLocationColumn(), imageSegment.getImageLocationRow());
+            }
+            location.translate(parent.getImageLocationColumn(), parent.getImageLocationRow());
+            current = parent;
+        }
+        return location;
+    }
+
+    private static int ceilDiv(final int numerator, final int denominator) {
+        return -Math.floorDiv(-numerator, denominator);
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+import javax.imageio.stream.ImageInputStream;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+
+/**
+ * The main header of the JPEG 2000 codestream for a C8 / M8 image segment.
+ *
+ * The image data is either a raw codestream, or a JP2 file containing the codestream in a contiguous codestream box.
+ * Only the image and tile size (SIZ) and the number of decomposition levels (COD) are read. These describe the
+ * codestream's own tiling, which need not match the NITF blocking, and the reduced resolution levels that the
+ * codestream holds. Whether a reduced level is decoded without decoding the full resolution depends on the JPEG 2000
+ * image reader that is plugged in.
+ */
+final class Jpeg2000Codestream {
+
+    private static final int START_OF_CODESTREAM = 0xFF4F;
+
+    private static final int IMAGE_AND_TILE_SIZE = 0xFF51;
+
+    private static final int CODING_STYLE_DEFAULT = 0xFF52;
+
+    private static final int START_OF_TILE_PART = 0xFF90;
+
+    private static final int CONTIGUOUS_CODESTREAM_BOX = 0x6A703263;
+
+    private static final int BOX_HEADER_LENGTH = 8;
+
+    private static final int EXTENDED_BOX_HEADER_LENGTH = 16;
+
+    private static final int EXTENDED_BOX_LENGTH = 1;
+
+    private static final int MARKER_LENGTH = 2;
+
+    /**
+     * Bytes in the COD marker segment before the number of decomposition levels (Scod, progression order, number of
+     * layers and multiple component transform).
+     */
+    private static final int COD_BYTES_BEFORE_LEVELS = 5;
+
+    private final Rectangle mImageBounds;
+
+    private final Rectangle mTileGrid;
+
+    private final int mNumComponents;
+
+    private final int mNumDecompositionLevels;
+
+    private Jpeg2000Codestream(final Rectangle imageBounds, final Rectangle tileGrid, final int numComponents,
+            final int numDecompositionLevels) {
+        mImageBounds = imageBounds;
+        mTileGrid = tileGrid;
+        mNumComponents = numComponents;
+        mNumDecompositionLevels = numDecompositionLevels;
+    }
+
+    /**
+     * Read the codestream main header for an image segment.
+     *
+     * The shared image data stream is locked while the header is read, and its position is restored afterwards.
+     *
+     * @param imageSegment the JPEG 2000 compressed image segment.
+     * @return the codestream header information.
+     * @throws IOException if the image data could not be read, or is not a JPEG 2000 codestream or JP2 file.
+     */
+    static Jpeg2000Codestream read(final ImageSegment imageSegment) throws IOException {
+        ImageInputStream data = imageSegment.getData();
+        synchronized (data) {
+            long position = data.getStreamPosition();
+            try {
+                data.seek(0);
+                if (data.readUnsignedShort() != START_OF_CODESTREAM) {
+                    data.seek(0);
+                    skipToCodestreamBox(data);
+                    if (data.readUnsignedShort() != START_OF_CODESTREAM) {
+                        throw new IOException("JPEG 2000 codestream does not start with SOC marker");
+                    }
+                }
+                return readMainHeader(data);
+            } finally {
+                data.seek(position);
+            }
+        }
+    }
+
+    private static void skipToCodestreamBox(final ImageInputStream data) throws IOException {
+        while (true) {
+            long boxStart = data.getStreamPosition();
+            long boxLength = data.readUnsignedInt();
+            int boxType = data.readInt();
+            if (boxType == CONTIGUOUS_CODESTREAM_BOX) {
+                if (boxLength == EXTENDED_BOX_LENGTH) {
+                    data.skipBytes(EXTENDED_BOX_HEADER_LENGTH - BOX_HEADER_LENGTH);
+                }
+                return;
+            }
+            if (boxLength == EXTENDED_BOX_LENGTH) {
+                boxLength = data.readLong();
+            }
+            if (boxLength < BOX_HEADER_LENGTH) {
+                // A zero length box extends to the end of the file, so there is no codestream box after it.
+                throw new IOException(String.format("No JPEG 2000 codestream box found before offset %d", boxStart));
+            }
+            data.seek(boxStart + boxLength);
+        }
+    }
+
+    private static Jpeg2000Codestream readMainHeader(final ImageInputStream data) throws IOException {
+        Rectangle imageBounds = null;
+        Rectangle tileGrid = null;
+        int numComponents = 0;
+        int marker = data.readUnsignedShort();
+        while (marker != START_OF_TILE_PART) {
+            long segmentStart = data.getStreamPosition();
+            int segmentLength = data.readUnsignedShort();
+            if (segmentLength < MARKER_LENGTH) {
+                throw new IOException(String.format("Bad JPEG 2000 marker segment length at offset %d", segmentStart));
+            }
+            if (marker == IMAGE_AND_TILE_SIZE) {
+                data.readUnsignedShort(); // Rsiz, capabilities
+                int width = (int) data.readUnsignedInt();
+                int height = (int) data.readUnsignedInt();
+                int offsetX = (int) data.readUnsignedInt();
+                int offsetY = (int) data.readUnsignedInt();
+                int tileWidth = (int) data.readUnsignedInt();
+                int tileHeight = (int) data.readUnsignedInt();
+                int tileOffsetX = (int) data.readUnsignedInt();
+                int tileOffsetY = (int) data.readUnsignedInt();
+                numComponents = data.readUnsignedShort();
+                imageBounds = new Rectangle(offsetX, offsetY, width - offsetX, height - offsetY);
+                tileGrid = new Rectangle(tileOffsetX, tileOffsetY, tileWidth, tileHeight);
+            } else if (marker == CODING_STYLE_DEFAULT) {
+                data.skipBytes(COD_BYTES_BEFORE_LEVELS);
+                if (imageBounds == null) {
+                    throw new IOException("JPEG 2000 COD marker found before SIZ marker");
+                }
+                return new Jpeg2000Codestream(imageBounds, tileGrid, numComponents, data.readUnsignedByte());
+            }
+            data.seek(segmentStart + segmentLength);
+            marker = data.readUnsignedShort();
+        }
+        throw new IOException("JPEG 2000 main header has no COD marker");
+    }
+
+    /**
+     * The width of the image, in samples of the full resolution image.
+     *
+     * @return the image width.
+     */
+    int getWidth() {
+        return mImageBounds.width;
+    }
+
+    /**
+     * The height of the image, in samples of the full resolution image.
+     *
+     * @return the image height.
+     */
+    int getHeight() {
+        return mImageBounds.height;
+    }
+
+    /**
+     * The number of components (bands) in the codestream.
+     *
+     * @return the number of components.
+     */
+    int getNumComponents() {
+        return mNumComponents;
+    }
+
+    /**
+     * The number of resolution levels in the codestream.
+     *
+     * Resolution level r (from 0) is the full resolution image reduced by a factor of 2^r in each direction.
+     *
+     * @return the number of decomposition levels plus one.
+     */
+    int getNumResolutionLevels() {
+        return mNumDecompositionLevels + 1;
+    }
+
+    /**
+     * The number of codestream tiles across the image.
+     *
+     * @return the number of tile columns.
+     */
+    int getNumTilesHorizontal() {
+        return ceilDivide(mImageBounds.x + mImageBounds.width - mTileGrid.x, mTileGrid.width);
+    }
+
+    /**
+     * The number of codestream tiles down the image.
+     *
+     * @return the number of tile rows.
+     */
+    int getNumTilesVertical() {
+        return ceilDivide(mImageBounds.y + mImageBounds.height - mTileGrid.y, mTileGrid.height);
+    }
+
+    /**
+     * The area of a codestream tile, clipped to the image.
+     *
+     * @param tileRow the zero-based row of the tile.
+     * @param tileColumn the zero-based column of the tile.
+     * @return the area of the tile, in full resolution image coordinates.
+     */
+    Rectangle getTileRectangle(final int tileRow, final int tileColumn) {
+        Rectangle tile = new Rectangle(mTileGrid.x + tileColumn * mTileGrid.width, mTileGrid.y + tileRow * mTileGrid.height,
+                mTileGrid.width, mTileGrid.height);
+        Rectangle clipped = tile.intersection(mImageBounds);
+        clipped.translate(-mImageBounds.x, -mImageBounds.y);
+        return clipped;
+    }
+
+    private static int ceilDivide(final int numerator, final int denominator) {
+        return (numerator + denominator - 1) / denominator;
+    }
+}
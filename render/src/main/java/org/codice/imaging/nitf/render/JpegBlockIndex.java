@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import org.codice.imaging.nitf.core.image.ImageCompression;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+
+/**
+ * Index of the JPEG image for each block of a blocked JPEG (C3 / M3 / I1) image segment.
+ *
+ * The image data for these segments is a sequence of complete JPEG images (SOI to EOI), one for each recorded block,
+ * in block order. The index is built by scanning the JPEG markers once, so that any block can then be decoded on its
+ * own, without reading the blocks before it. Masked (not recorded) blocks are taken from the image mask.
+ *
+ * The index is immutable, so it can be shared between threads.
+ */
+final class JpegBlockIndex {
+
+    private static final int BYTE_MASK = 0xFF;
+
+    private static final int MARKER_PREFIX = 0xFF;
+
+    private static final int STUFFED_ZERO = 0x00;
+
+    private static final int TEMPORARY = 0x01;
+
+    private static final int START_OF_IMAGE = JpegMarkerCode.START_OF_IMAGE.getValue() & BYTE_MASK;
+
+    private static final int END_OF_IMAGE = JpegMarkerCode.END_OF_IMAGE.getValue() & BYTE_MASK;
+
+    private static final int START_OF_SCAN = JpegMarkerCode.START_OF_SCAN.getValue() & BYTE_MASK;
+
+    private static final int FIRST_RESTART = JpegMarkerCode.RESTART_WITH_MODULO_8_COUNT_0.getValue() & BYTE_MASK;
+
+    private static final int LAST_RESTART = JpegMarkerCode.RESTART_WITH_MODULO_8_COUNT_7.getValue() & BYTE_MASK;
+
+    private static final int MARKER_LENGTH = 2;
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private static final long BLOCK_NOT_RECORDED = -1;
+
+    /**
+     * The offset of the SOI marker of each block, or BLOCK_NOT_RECORDED for masked blocks.
+     */
+    private final long[] mBlockStarts;
+
+    /**
+     * The offset of the byte after the EOI marker of each block.
+     */
+    private final long[] mBlockEnds;
+
+    private JpegBlockIndex(final long[] blockStarts, final long[] blockEnds) {
+        mBlockStarts = blockStarts;
+        mBlockEnds = blockEnds;
+    }
+
+    /**
+     * Build the index for an image segment.
+     *
+     * This reads all of the image data, from the start. The shared image data stream is locked while it is read, and
+     * its position is restored afterwards.
+     *
+     * @param imageSegment the JPEG compressed image segment.
+     * @return the index of the JPEG image for each block.
+     * @throws IOException if the image data could not be read, or is not a sequence of JPEG images.
+     */
+    static JpegBlockIndex build(final ImageSegment imageSegment) throws IOException {
+        int numBlocks = imageSegment.getNumberOfBlocksPerRow() * imageSegment.getNumberOfBlocksPerColumn();
+        long[] blockStarts = new long[numBlocks];
+        long[] blockEnds = new long[numBlocks];
+        ImageInputStream data = imageSegment.getData();
+        synchronized (data) {
+            long position = data.getStreamPosition();
+            try {
+                data.seek(0);
+                ImageMask imageMask = null;
+                if (ImageCompression.JPEGMASK.equals(imageSegment.getImageCompression())) {
+                    imageMask = new ImageMask(imageSegment, data);
+                }
+                MarkerScanner scanner = new MarkerScanner(data, getReadBufferSize(imageSegment));
+                for (int blockIndex = 0; blockIndex < numBlocks; ++blockIndex) {
+                    if ((imageMask != null) && imageMask.isMaskedBlock(blockIndex, 0)) {
+                        blockStarts[blockIndex] = BLOCK_NOT_RECORDED;
+                        blockEnds[blockIndex] = BLOCK_NOT_RECORDED;
+                    } else {
+                        blockStarts[blockIndex] = scanner.findStartOfImage();
+                        blockEnds[blockIndex] = scanner.findEndOfImage();
+                    }
+                }
+            } finally {
+                data.seek(position);
+            }
+        }
+        return new JpegBlockIndex(blockStarts, blockEnds);
+    }
+
+    /**
+     * Small segments are common (e.g. thumbnails and chips), so the buffer is no larger than the image data.
+     */
+    private static int getReadBufferSize(final ImageSegment imageSegment) {
+        long dataLength = imageSegment.getDataLength();
+        if ((dataLength <= 0) || (dataLength > READ_BUFFER_SIZE)) {
+            return READ_BUFFER_SIZE;
+        }
+        return (int) dataLength;
+    }
+
+    /**
+     * Check whether a block is recorded in the image data.
+     *
+     * @param blockIndex the index of the block, in row-major order.
+     * @return true if the block has a JPEG image, or false if the block is masked.
+     */
+    boolean isRecorded(final int blockIndex) {
+        return mBlockStarts[blockIndex] != BLOCK_NOT_RECORDED;
+    }
+
+    /**
+     * Read the JPEG image for a block into memory, so it can be decoded independently of the shared stream.
+     *
+     * This is a positioned read: the shared stream is locked while the block is read, and its position is restored
+     * afterwards.
+     *
+     * @param data the image data stream for the segment.
+     * @param blockIndex the index of the block, in row-major order, which must be recorded.
+     * @return a stream containing just the JPEG image for the block.
+     * @throws IOException if the image data could not be read.
+     */
+    ImageInputStream readBlock(final ImageInputStream data, final int blockIndex) throws IOException {
+        byte[] bytes = new byte[(int) (mBlockEnds[blockIndex] - mBlockStarts[blockIndex])];
+        synchronized (data) {
+            long position = data.getStreamPosition();
+            try {
+                data.seek(mBlockStarts[blockIndex]);
+                data.readFully(bytes);
+            } finally {
+                data.seek(position);
+            }
+        }
+        return new MemoryCacheImageInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * Forward-only scanner for JPEG markers, which reads the image data in large chunks.
+     */
+    private static final class MarkerScanner {
+
+        private final ImageInputStream mData;
+
+        private final byte[] mBuffer;
+
+        private int mBufferLength = 0;
+
+        private int mBufferPosition = 0;
+
+        /**
+         * The offset in the image data of the first byte in the buffer.
+         */
+        private long mBufferStart;
+
+        MarkerScanner(final ImageInputStream data, final int bufferSize) throws IOException {
+            mData = data;
+            mBuffer = new byte[bufferSize];
+            mBufferStart = data.getStreamPosition();
+        }
+
+        /**
+         * Skip to the next SOI marker.
+         *
+         * @return the offset of the SOI marker.
+         * @throws IOException if there is no SOI marker.
+         */
+        long findStartOfImage() throws IOException {
+            while (true) {
+                if ((readByte() == MARKER_PREFIX) && (readMarker() == START_OF_IMAGE)) {
+                    return getPosition() - MARKER_LENGTH;
+                }
+            }
+        }
+
+        /**
+         * Skip over the marker segments and entropy coded data of the current image, up to its EOI marker.
+         *
+         * @return the offset of the byte after the EOI marker.
+         * @throws IOException if the image is truncated.
+         */
+        long findEndOfImage() throws IOException {
+            int marker = readNextMarker();
+            while (marker != END_OF_IMAGE) {
+                if (!isStandaloneMarker(marker)) {
+                    int length = readUnsignedShort();
+                    if (length < MARKER_LENGTH) {
+                        throw new IOException(String.format("Bad JPEG marker segment length at offset %d", getPosition() - MARKER_LENGTH));
+                    }
+                    skip(length - MARKER_LENGTH);
+                }
+                if (marker == START_OF_SCAN) {
+                    marker = skipEntropyCodedData();
+                } else {
+                    marker = readNextMarker();
+                }
+            }
+            return getPosition();
+        }
+
+        private static boolean isStandaloneMarker(final int marker) {
+            return (marker == TEMPORARY) || ((marker >= FIRST_RESTART) && (marker <= LAST_RESTART));
+        }
+
+        /**
+         * Skip entropy coded data, where 0xFF is followed by a stuffed zero byte, and restart markers can occur.
+         *
+         * @return the marker that ends the entropy coded data.
+         */
+        private int skipEntropyCodedData() throws IOException {
+            while (true) {
+                if (readByte() == MARKER_PREFIX) {
+                    int marker = readMarker();
+                    if ((marker != STUFFED_ZERO) && !isStandaloneMarker(marker)) {
+                        return marker;
+                    }
+                }
+            }
+        }
+
+        private int readNextMarker() throws IOException {
+            if (readByte() != MARKER_PREFIX) {
+                throw new IOException(String.format("Expected JPEG marker at offset %d", getPosition() - 1));
+            }
+            return readMarker();
+        }
+
+        /**
+         * Read the second byte of a marker, skipping any 0xFF fill bytes.
+         */
+        private int readMarker() throws IOException {
+            int marker = readByte();
+            while (marker == MARKER_PREFIX) {
+                marker = readByte();
+            }
+            return marker;
+        }
+
+        private int readUnsignedShort() throws IOException {
+            return (readByte() << Byte.SIZE) | readByte();
+        }
+
+        private int readByte() throws IOException {
+            if (mBufferPosition == mBufferLength) {
+                fillBuffer();
+            }
+            return mBuffer[mBufferPosition++] & BYTE_MASK;
+        }
+
+        private void skip(final int numBytes) throws IOException {
+            int remaining = numBytes;
+            while (remaining > mBufferLength - mBufferPosition) {
+                remaining -= mBufferLength - mBufferPosition;
+                mBufferPosition = mBufferLength;
+                fillBuffer();
+            }
+            mBufferPosition += remaining;
+        }
+
+        private long getPosition() {
+            return mBufferStart + mBufferPosition;
+        }
+
+        private void fillBuffer() throws IOException {
+            mBufferStart += mBufferLength;
+            mBufferPosition = 0;
+            mBufferLength = mData.read(mBuffer);
+            if (mBufferLength <= 0) {
+                mBufferLength = 0;
+                throw new EOFException("Unexpected end of JPEG image data");
+            }
+        }
+    }
+}
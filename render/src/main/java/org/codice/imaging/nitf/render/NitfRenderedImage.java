@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Vector;
+
+import org.codice.imaging.nitf.core.image.ImageCompression;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.render.imagerep.ImageRepresentationHandler;
+import org.codice.imaging.nitf.render.imagerep.ImageRepresentationHandlerFactory;
+
+/**
+ * A RenderedImage view of an image segment, which decodes each tile when it is requested.
+ *
+ * The tile grid is the NITF block grid, so each tile is one block, decoded with NitfRenderer.getTile(). This lets
+ * Java2D, ImageIO writers and other RenderedImage consumers work with images that are too big to decode in full. Tiles
+ * are not retained by this class: construct the renderer with a DecodedBlockCache if tiles are likely to be requested
+ * more than once.
+ *
+ * For uncompressed images, tiles use the same data model as NitfRenderer.renderToClosestDataModel(). For other
+ * compression types, tiles use the data model of the first block, which is decoded the first time the colour model or
+ * sample model is needed, and any block that is decoded into a different data model is converted. Tiles at the right
+ * and bottom edges are full sized, and extend past the image.
+ *
+ * Raster accessors report read errors as an UncheckedIOException, because RenderedImage methods can't throw an
+ * IOException. The tiles may be shared with the renderer's block cache, so they must not be modified.
+ */
+public class NitfRenderedImage implements RenderedImage {
+
+    private final NitfRenderer mRenderer;
+
+    private final ImageSegment mImageSegment;
+
+    private final int mTileWidth;
+
+    private final int mTileHeight;
+
+    private ColorModel mColorModel = null;
+
+    private SampleModel mSampleModel = null;
+
+    /**
+     * Create a RenderedImage for an image segment.
+     *
+     * No image data is decoded until a tile, or the data model of a compressed image, is requested.
+     *
+     * @param renderer the renderer used to decode tiles
+     * @param imageSegment the image segment
+     */
+    public NitfRenderedImage(final NitfRenderer renderer, final ImageSegment imageSegment) {
+        if (renderer == null) {
+            throw new IllegalArgumentException("NitfRenderedImage: renderer must not be null.");
+        }
+        if (imageSegment == null) {
+            throw new IllegalArgumentException("NitfRenderedImage: image segment must not be null.");
+        }
+        mRenderer = renderer;
+        mImageSegment = imageSegment;
+        mTileWidth = (int) imageSegment.getNumberOfPixelsPerBlockHorizontal();
+        mTileHeight = (int) imageSegment.getNumberOfPixelsPerBlockVertical();
+    }
+
+    private synchronized void initDataModel() {
+        if (mSampleModel != null) {
+            return;
+        }
+        BufferedImage modelImage = null;
+        ImageCompression compression = mImageSegment.getImageCompression();
+        if ((compression == ImageCompression.NOTCOMPRESSED) || (compression == ImageCompression.NOTCOMPRESSEDMASK)) {
+            ImageRepresentationHandler handler = ImageRepresentationHandlerFactory.forImageSegment(mImageSegment);
+            if (handler != null) {
+                modelImage = handler.createBufferedImage(mTileWidth, mTileHeight);
+            }
+        } else {
+            modelImage = decodeBlock(0, 0);
+        }
+        if (modelImage == null) {
+            modelImage = new BufferedImage(mTileWidth, mTileHeight, BufferedImage.TYPE_INT_ARGB);
+        }
+        mColorModel = modelImage.getColorModel();
+        mSampleModel = modelImage.getSampleModel().createCompatibleSampleModel(mTileWidth, mTileHeight);
+    }
+
+    private BufferedImage decodeBlock(final int tileX, final int tileY) {
+        try {
+            return mRenderer.getTileImage(mImageSegment, tileY, tileX);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Get the image segment that this image decodes.
+     *
+     * @return the image segment
+     */
+    public final ImageSegment getImageSegment() {
+        return mImageSegment;
+    }
+
+    @Override
+    public final Vector<RenderedImage> getSources() {
+        return null;
+    }
+
+    @Override
+    public final Object getProperty(final String name) {
+        return Image.UndefinedProperty;
+    }
+
+    @Override
+    public final String[] getPropertyNames() {
+        return null;
+    }
+
+    @Override
+    public final ColorModel getColorModel() {
+        initDataModel();
+        return mColorModel;
+    }
+
+    @Override
+    public final SampleModel getSampleModel() {
+        initDataModel();
+        return mSampleModel;
+    }
+
+    @Override
+    public final int getWidth() {
+        return (int) mImageSegment.getNumberOfColumns();
+    }
+
+    @Override
+    public final int getHeight() {
+        return (int) mImageSegment.getNumberOfRows();
+    }
+
+    @Override
+    public final int getMinX() {
+        return 0;
+    }
+
+    @Override
+    public final int getMinY() {
+        return 0;
+    }
+
+    @Override
+    public final int getNumXTiles() {
+        return mImageSegment.getNumberOfBlocksPerRow();
+    }
+
+    @Override
+    public final int getNumYTiles() {
+        return mImageSegment.getNumberOfBlocksPerColumn();
+    }
+
+    @Override
+    public final int getMinTileX() {
+        return 0;
+    }
+
+    @Override
+    public final int getMinTileY() {
+        return 0;
+    }
+
+    @Override
+    public final int getTileWidth() {
+        return mTileWidth;
+    }
+
+    @Override
+    public final int getTileHeight() {
+        return mTileHeight;
+    }
+
+    @Override
+    public final int getTileGridXOffset() {
+        return 0;
+    }
+
+    @Override
+    public final int getTileGridYOffset() {
+        return 0;
+    }
+
+    @Override
+    public final Raster getTile(final int tileX, final int tileY) {
+        initDataModel();
+        BufferedImage block = decodeBlock(tileX, tileY);
+        Raster raster = block.getRaster();
+        if (!mSampleModel.equals(raster.getSampleModel()) || !mColorModel.equals(block.getColorModel())) {
+            raster = convertTile(block);
+        }
+        return raster.createTranslatedChild(tileX * mTileWidth, tileY * mTileHeight);
+    }
+
+    private Raster convertTile(final BufferedImage block) {
+        WritableRaster raster = Raster.createWritableRaster(mSampleModel, null);
+        BufferedImage tile = new BufferedImage(mColorModel, raster, mColorModel.isAlphaPremultiplied(), null);
+        Graphics2D graphics = tile.createGraphics();
+        try {
+            graphics.drawImage(block, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        return raster;
+    }
+
+    @Override
+    public final Raster getData() {
+        return getData(getBounds());
+    }
+
+    @Override
+    public final Raster getData(final Rectangle rect) {
+        SampleModel sampleModel = getSampleModel().createCompatibleSampleModel(rect.width, rect.height);
+        WritableRaster raster = Raster.createWritableRaster(sampleModel, new Point(rect.x, rect.y));
+        copyTiles(raster);
+        return raster;
+    }
+
+    @Override
+    public final WritableRaster copyData(final WritableRaster raster) {
+        if (raster == null) {
+            return (WritableRaster) getData();
+        }
+        copyTiles(raster);
+        return raster;
+    }
+
+    /**
+     * Copy the tiles that intersect a raster into it, decoding only those tiles.
+     */
+    private void copyTiles(final WritableRaster raster) {
+        Rectangle region = raster.getBounds().intersection(getBounds());
+        if (region.isEmpty()) {
+            return;
+        }
+        int firstTileX = region.x / mTileWidth;
+        int lastTileX = (region.x + region.width - 1) / mTileWidth;
+        int firstTileY = region.y / mTileHeight;
+        int lastTileY = (region.y + region.height - 1) / mTileHeight;
+        for (int tileY = firstTileY; tileY <= lastTileY; tileY++) {
+            for (int tileX = firstTileX; tileX <= lastTileX; tileX++) {
+                Raster tile = getTile(tileX, tileY);
+                Rectangle overlap = tile.getBounds().intersection(region);
+                raster.setRect(tile.createChild(overlap.x, overlap.y, overlap.width, overlap.height, overlap.x, overlap.y, null));
+            }
+        }
+    }
+
+    private Rectangle getBounds() {
+        return new Rectangle(getMinX(), getMinY(), getWidth(), getHeight());
+    }
+}
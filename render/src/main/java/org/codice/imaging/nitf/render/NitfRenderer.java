@@ -15,19 +15,28 @@
 package org.codice.imaging.nitf.render;
 
 import java.awt.Graphics2D;
+import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
-import javax.imageio.ImageIO;
 import javax.imageio.ImageReadParam;
 import javax.imageio.ImageReader;
 import javax.imageio.stream.ImageInputStream;
 
 import org.codice.imaging.nitf.core.image.ImageBand;
+import org.codice.imaging.nitf.core.image.ImageCompression;
 import org.codice.imaging.nitf.core.image.ImageRepresentation;
 import org.codice.imaging.nitf.core.image.ImageSegment;
 import org.codice.imaging.nitf.render.imagemode.ImageModeHandler;
@@ -40,12 +49,69 @@ import org.codice.imaging.nitf.render.imagerep.ImageRepresentationHandlerFactory
  */
 public class NitfRenderer {
 
-    private static final int BYTE_MASK = 0xFF;
+    private static final String JPEG_MEDIA_TYPE = "image/jpeg";
+
+    private static final String JPEG2000_MEDIA_TYPE = "image/jp2";
+
+    /**
+     * Readers for compressed images are shared by all renderers, because creating a reader costs more than decoding a
+     * small image.
+     */
+    private static final ImageReaderPool READER_POOL = new ImageReaderPool(Runtime.getRuntime().availableProcessors());
+
+    private final Executor blockExecutor;
+
+    private final DecodedBlockCache blockCache;
+
+    private final Map<ImageSegment, JpegBlockIndex> jpegBlockIndexes =
+            Collections.synchronizedMap(new WeakHashMap<ImageSegment, JpegBlockIndex>());
+
+    private final Map<ImageSegment, Jpeg2000Codestream> jpeg2000Codestreams =
+            Collections.synchronizedMap(new WeakHashMap<ImageSegment, Jpeg2000Codestream>());
+
+    private final Map<ImageSegment, ImageMask> imageMasks =
+            Collections.synchronizedMap(new WeakHashMap<ImageSegment, ImageMask>());
+
+    private final Map<ImageSegment, VectorQuantizationCodebook> vectorQuantizationCodebooks =
+            Collections.synchronizedMap(new WeakHashMap<ImageSegment, VectorQuantizationCodebook>());
 
     /**
      * Constructor.
      */
     public NitfRenderer() {
+        this(null);
+    }
+
+    /**
+     * Constructor for a renderer that decodes image blocks in parallel.
+     *
+     * Blocks of uncompressed (NC / NM) images are read from the source with positioned reads, and decoded by tasks
+     * run on the specified executor (e.g. a ForkJoinPool). Blocks of JPEG (C3 / M3 / I1) images are located with a
+     * JPEG marker index, and the blocks in each block row are decoded in parallel. The output is identical to
+     * sequential rendering. Other compression types, and uncompressed images where blocks do not start on a byte
+     * boundary, are rendered sequentially on the calling thread.
+     *
+     * @param executor the executor to decode blocks with, or null to decode blocks on the calling thread.
+     */
+    public NitfRenderer(final Executor executor) {
+        this(executor, null);
+    }
+
+    /**
+     * Constructor for a renderer that caches decoded image blocks.
+     *
+     * Full resolution blocks are looked up in the cache before they are decoded, and added to the cache after they are
+     * decoded, so a cache shared between renders (e.g. by an interactive viewer) avoids decoding the same block again.
+     * Blocks of uncompressed, JPEG and JPEG 2000 images that are in the cache are not decoded. Bi-level and VQ blocks
+     * can only be decoded in order, so they are only taken from the cache if every block that is needed is cached.
+     * Subsampled rendering does not use the cache.
+     *
+     * @param executor the executor to decode blocks with, or null to decode blocks on the calling thread.
+     * @param cache the cache of decoded blocks, or null to decode every block.
+     */
+    public NitfRenderer(final Executor executor, final DecodedBlockCache cache) {
+        this.blockExecutor = executor;
+        this.blockCache = cache;
     }
 
     /**
@@ -56,16 +122,22 @@ public class NitfRenderer {
      * @throws IOException if the source data could not be read from
      */
     public final void render(final ImageSegment imageSegment, final Graphics2D targetGraphic) throws IOException {
+        render(imageSegment, targetGraphic, (SampleGrid) null, null);
+    }
+
+    private void render(final ImageSegment imageSegment, final Graphics2D targetGraphic, final SampleGrid grid, final int[] bands)
+            throws IOException {
+        checkBandSelectionSupported(imageSegment, bands);
         switch (imageSegment.getImageCompression()) {
         case BILEVEL:
-            render(new BilevelBlockRenderer(), imageSegment, targetGraphic);
+            render(new BilevelBlockRenderer(), imageSegment, targetGraphic, grid);
             break;
         case NOTCOMPRESSED:
         case NOTCOMPRESSEDMASK:
-            ImageModeHandler modeHandler = ImageModeHandlerFactory.forImageSegment(imageSegment);
+            ImageModeHandler modeHandler = ImageModeHandlerFactory.forImageSegment(imageSegment, blockExecutor, blockCache, bands);
 
             if (modeHandler != null) {
-                modeHandler.handleImage(imageSegment, targetGraphic);
+                modeHandler.handleImage(imageSegment, targetGraphic, grid);
             } else {
                 throw new UnsupportedOperationException("Unhandled NC/NM format");
             }
@@ -73,21 +145,18 @@ public class NitfRenderer {
             break;
         case DOWNSAMPLEDJPEG:
         case JPEG:
-            skipToMarker(imageSegment.getData(), JpegMarkerCode.START_OF_IMAGE);
-            renderJPEG(imageSegment, targetGraphic, null);
+        case JPEGMASK:
+            renderJPEG(imageSegment, targetGraphic, grid);
             break;
         case VECTORQUANTIZATION:
         case VECTORQUANTIZATIONMASK:
             render(new VectorQuantizationBlockRenderer(),
                     imageSegment,
-                    targetGraphic);
-            break;
-        case JPEGMASK:
-            ImageMask imageMask = new ImageMask(imageSegment, imageSegment.getData());
-            renderJPEG(imageSegment, targetGraphic, imageMask);
+                    targetGraphic,
+                    grid);
             break;
         case JPEG2000:
-            renderJPEG2k(imageSegment, targetGraphic);
+            renderJPEG2k(imageSegment, targetGraphic, grid, bands);
             break;
         default:
             throw new UnsupportedOperationException("Unhandled image compression format: "
@@ -117,6 +186,9 @@ public class NitfRenderer {
     /**
      * Render the segment as a BufferedImage using a data model that matches the NITF data as close as possible.
      *
+     * For uncompressed images, each block is decoded directly into the raster of the returned image, rather than into
+     * an image of its own that is then drawn, unless the renderer caches decoded blocks.
+     *
      * @param imageSegment the image segment header for the segment to be rendered
      * @return rendered image
      * @throws IOException if the source data could not be read from
@@ -130,73 +202,897 @@ public class NitfRenderer {
                 imageSegment.getImageLocationRow()
                         + (int) imageSegment.getNumberOfRows());
 
+        ImageModeHandler modeHandler = getRasterModeHandler(imageSegment, null);
+        if (modeHandler != null) {
+            // Blocks are placed in the same way as render(ImageSegment, Graphics2D).
+            modeHandler.handleImage(imageSegment, img.getRaster());
+            return img;
+        }
+
         Graphics2D targetGraphic = img.createGraphics();
 
         render(imageSegment, targetGraphic);
         return img;
     }
 
-    private void render(final BlockRenderer renderer, final ImageSegment imageSegment, final Graphics2D target) throws IOException {
-        renderer.setImageSegment(imageSegment, imageSegment.getData());
+    /**
+     * Render part of the segment as a BufferedImage.
+     *
+     * The region is in image pixel coordinates (i.e. relative to the first pixel of the segment, ignoring the image
+     * location), and is clipped to the image. The returned image is the size of the clipped region, and only the blocks
+     * that intersect the region are decoded. For uncompressed images, the other blocks are not read at all, where the
+     * block data starts on a byte boundary.
+     *
+     * @param imageSegment the image segment header for the segment to be rendered
+     * @param region the region of the image to render, or null for the whole image
+     * @return rendered image
+     * @throws IOException if the source data could not be read from
+     */
+    public final BufferedImage renderRegion(final ImageSegment imageSegment, final Rectangle region) throws IOException {
+        return renderRegion(imageSegment, region, 1);
+    }
 
-        processBlocks(imageSegment, (rowIndex, columnIndex) -> {
-            BufferedImage img = renderer.getImageBlock(rowIndex, columnIndex);
-            target.drawImage(img,
-                    imageSegment.getImageLocationColumn() + columnIndex
-                            * (int) imageSegment.getNumberOfPixelsPerBlockHorizontal(),
-                    imageSegment.getImageLocationRow()
-                            + rowIndex * (int) imageSegment.getNumberOfPixelsPerBlockVertical(),
-                    null);
-        });
+    /**
+     * Render part of the segment as a BufferedImage, keeping only every n'th pixel in each direction.
+     *
+     * This is equivalent to rendering the region and then taking every n'th pixel in each row and column, starting
+     * with the top left pixel of the region (like ImageReadParam.setSourceSubsampling()). The returned image is
+     * ceil(width / n) by ceil(height / n) pixels. For uncompressed images, only the rows that are sampled are decoded.
+     * For JPEG and JPEG 2000 images, the subsampling is passed to the image reader, which may use it to avoid decoding
+     * at full resolution. JPEG 2000 images are decoded one codestream tile at a time, and only the tiles that intersect
+     * the region are decoded. A power of two subsampling factor that is no more than 2^(getNumberOfResolutionLevels()
+     * - 1) matches a reduced resolution level in the codestream. Whether that level is decoded directly, rather than
+     * decoding at full resolution and then subsampling, depends on the JPEG 2000 image reader that is plugged in, since
+     * this library does not provide one.
+     *
+     * @param imageSegment the image segment header for the segment to be rendered
+     * @param region the region of the image to render, or null for the whole image
+     * @param subsampling the subsampling factor (n), where 1 renders every pixel
+     * @return rendered image
+     * @throws IOException if the source data could not be read from
+     */
+    public final BufferedImage renderRegion(final ImageSegment imageSegment, final Rectangle region, final int subsampling) throws IOException {
+        return renderRegion(imageSegment, region, subsampling, null);
+    }
+
+    /**
+     * Get the number of resolution levels in the image data.
+     *
+     * For JPEG 2000 images this is the number of wavelet decomposition levels in the codestream plus one, where
+     * resolution level r is the full resolution image reduced by 2^r in each direction. Whether a reduced level can be
+     * decoded without decoding the full resolution image depends on the JPEG 2000 image reader. Other compression types
+     * only have the full resolution level.
+     *
+     * @param imageSegment the image segment header for the segment
+     * @return the number of resolution levels, which is at least 1
+     * @throws IOException if the source data could not be read from
+     */
+    public final int getNumberOfResolutionLevels(final ImageSegment imageSegment) throws IOException {
+        if (!ImageCompression.JPEG2000.equals(imageSegment.getImageCompression())) {
+            return 1;
+        }
+        return getJpeg2000Codestream(imageSegment).getNumResolutionLevels();
+    }
+
+    /**
+     * Render selected bands of part of the segment as a BufferedImage, keeping only every n'th pixel in each direction.
+     *
+     * The region and subsampling are handled in the same way as for renderRegion(ImageSegment, Rectangle, int). A single band
+     * is rendered as greyscale (or through its lookup table), and three bands are rendered as red, green and blue, in
+     * that order, e.g. for a false colour composite of a multiband image. Only the selected bands are decoded: the
+     * data for other bands is skipped, and for band sequential images it is not read at all, where the block data
+     * starts on a byte boundary. Band selection is supported for uncompressed and JPEG 2000 images.
+     *
+     * @param imageSegment the image segment header for the segment to be rendered
+     * @param region the region of the image to render, or null for the whole image
+     * @param subsampling the subsampling factor (n), where 1 renders every pixel
+     * @param bands the zero-based indexes of the one or three bands to render, or null to choose the bands from the
+     * image representation
+     * @return rendered image
+     * @throws IOException if the source data could not be read from
+     */
+    public final BufferedImage renderRegion(final ImageSegment imageSegment, final Rectangle region, final int subsampling, final int[] bands)
+            throws IOException {
+        SampleGrid grid = getSampleGrid(imageSegment, region, subsampling);
+        BufferedImage img = new BufferedImage(grid.getWidth(), grid.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        renderSamples(imageSegment, img, grid, bands);
+        return img;
+    }
+
+    /**
+     * Render part of the segment as a BufferedImage using a data model that matches the NITF data as close as possible.
+     *
+     * The region is handled in the same way as for renderRegion(ImageSegment, Rectangle).
+     *
+     * @param imageSegment the image segment header for the segment to be rendered
+     * @param region the region of the image to render, or null for the whole image
+     * @return rendered image
+     * @throws IOException if the source data could not be read from
+     */
+    public final BufferedImage renderToClosestDataModel(final ImageSegment imageSegment, final Rectangle region) throws IOException {
+        return renderToClosestDataModel(imageSegment, region, 1);
+    }
+
+    /**
+     * Render part of the segment as a BufferedImage using a data model that matches the NITF data as close as possible,
+     * keeping only every n'th pixel in each direction.
+     *
+     * The region and subsampling are handled in the same way as for renderRegion(ImageSegment, Rectangle, int). Without
+     * subsampling, blocks of uncompressed images are decoded directly into the returned image, as for
+     * renderToClosestDataModel(ImageSegment).
+     *
+     * @param imageSegment the image segment header for the segment to be rendered
+     * @param region the region of the image to render, or null for the whole image
+     * @param subsampling the subsampling factor (n), where 1 renders every pixel
+     * @return rendered image
+     * @throws IOException if the source data could not be read from
+     */
+    public final BufferedImage renderToClosestDataModel(final ImageSegment imageSegment, final Rectangle region, final int subsampling)
+            throws IOException {
+        return renderToClosestDataModel(imageSegment, region, subsampling, null);
+    }
+
+    /**
+     * Render selected bands of part of the segment as a BufferedImage using a data model that matches the NITF data as
+     * close as possible, keeping only every n'th pixel in each direction.
+     *
+     * The region, subsampling and bands are handled in the same way as for renderRegion(ImageSegment, Rectangle, int, int[]).
+     * The data model is the one for the selected bands, e.g. greyscale for a single band of an RGB image.
+     *
+     * @param imageSegment the image segment header for the segment to be rendered
+     * @param region the region of the image to render, or null for the whole image
+     * @param subsampling the subsampling factor (n), where 1 renders every pixel
+     * @param bands the zero-based indexes of the one or three bands to render, or null to choose the bands from the
+     * image representation
+     * @return rendered image
+     * @throws IOException if the source data could not be read from
+     */
+    public final BufferedImage renderToClosestDataModel(final ImageSegment imageSegment, final Rectangle region, final int subsampling,
+            final int[] bands) throws IOException {
+        SampleGrid grid = getSampleGrid(imageSegment, region, subsampling);
+        checkBandSelectionSupported(imageSegment, bands);
+        ImageRepresentationHandler handler =
+                ImageRepresentationHandlerFactory.forImageSegment(imageSegment, bands);
+        if (handler == null) {
+            throw new UnsupportedOperationException("Unhandled band selection for this image format");
+        }
+        BufferedImage img = handler.createBufferedImage(grid.getWidth(), grid.getHeight());
+        ImageModeHandler modeHandler = getRasterModeHandler(imageSegment, bands);
+        if ((modeHandler != null) && (subsampling == 1)) {
+            Rectangle area = grid.getRegion();
+            modeHandler.handleImage(imageSegment, img.getRaster().createWritableChild(0, 0, area.width, area.height, area.x, area.y, null));
+            return img;
+        }
+        renderSamples(imageSegment, img, grid, bands);
+        return img;
+    }
+
+    /**
+     * Render the segment one row of blocks at a time, using a data model that matches the NITF data as close as possible.
+     *
+     * This is for images that are too big to render as a single BufferedImage. Each row of blocks is rendered into a
+     * new strip image, the width of the image and the height of one block, which is passed to the consumer before the
+     * next row of blocks is decoded, so the renderer holds at most one row of blocks. The strips are in image pixel
+     * coordinates (i.e. the image location is ignored), and pixels past the edge of the image are not included.
+     *
+     * The image data is read from the current stream position. Bi-level and VQ blocks are decoded in a single pass.
+     * JPEG blocks are read using the JPEG block index for the segment (see getTile()), which is built from the start of
+     * the image data if it has not been built already, and the stream position is not changed. Uncompressed blocks in
+     * each row are read from computed offsets (so band sequential images do not need to be held in memory), or by
+     * reading from the start of the image data again for each row where the blocks do not start on a byte boundary.
+     * The block cache is not used.
+     *
+     * @param imageSegment the image segment header for the segment to be rendered
+     * @param consumer the receiver for each row of blocks, in order
+     * @throws IOException if the source data could not be read from, or the consumer failed
+     */
+    public final void renderBlockRows(final ImageSegment imageSegment, final BlockRowConsumer consumer) throws IOException {
+        final ImageInputStream data = imageSegment.getData();
+        final ImageReader reader;
+        switch (imageSegment.getImageCompression()) {
+        case NOTCOMPRESSED:
+        case NOTCOMPRESSEDMASK:
+            ImageModeHandler modeHandler = ImageModeHandlerFactory.forImageSegment(imageSegment, blockExecutor, null);
+            if (modeHandler == null) {
+                throw new UnsupportedOperationException("Unhandled NC/NM format");
+            }
+            final long dataStart = data.getStreamPosition();
+            for (int rowIndex = 0; rowIndex < imageSegment.getNumberOfBlocksPerColumn(); ++rowIndex) {
+                BufferedImage strip = createStrip(imageSegment, rowIndex);
+                int firstRow = rowIndex * (int) imageSegment.getNumberOfPixelsPerBlockVertical();
+                data.seek(dataStart);
+                modeHandler.handleImage(imageSegment,
+                        strip.getRaster().createWritableChild(0, 0, strip.getWidth(), strip.getHeight(), 0, firstRow, null));
+                consumer.accept(rowIndex, firstRow, strip);
+            }
+            break;
+        case BILEVEL:
+            final BlockRenderer bilevelRenderer = new BilevelBlockRenderer();
+            bilevelRenderer.setImageSegment(imageSegment, data);
+            renderBlockRows(imageSegment, consumer, bilevelRenderer::getImageBlock);
+            break;
+        case VECTORQUANTIZATION:
+        case VECTORQUANTIZATIONMASK:
+            final BlockRenderer vqRenderer = new VectorQuantizationBlockRenderer();
+            vqRenderer.setImageSegment(imageSegment, data);
+            renderBlockRows(imageSegment, consumer, vqRenderer::getImageBlock);
+            break;
+        case DOWNSAMPLEDJPEG:
+        case JPEG:
+        case JPEGMASK:
+            final JpegBlockIndex index = getJpegBlockIndex(imageSegment);
+            renderBlockRows(imageSegment, consumer, (rowIndex, columnIndex) -> {
+                int blockIndex = getBlockIndex(imageSegment, rowIndex, columnIndex);
+                if (!index.isRecorded(blockIndex)) {
+                    return null;
+                }
+                return readJPEGBlock(imageSegment, index, blockIndex, null);
+            });
+            break;
+        case JPEG2000:
+            reader = getImageReader(JPEG2000_MEDIA_TYPE);
+            try {
+                reader.setInput(data, true, true);
+                final ImageReadParam param = reader.getDefaultReadParam();
+                if (ImageRepresentation.MULTIBAND.equals(imageSegment.getImageRepresentation())) {
+                    param.setSourceBands(getSourceBands(imageSegment));
+                }
+                renderBlockRows(imageSegment, consumer, (rowIndex, columnIndex) -> {
+                    param.setSourceRegion(getBlockRectangle(imageSegment, rowIndex, columnIndex));
+                    return reader.read(0, param);
+                });
+            } finally {
+                releaseImageReader(JPEG2000_MEDIA_TYPE, reader);
+            }
+            break;
+        default:
+            throw new UnsupportedOperationException("Unhandled image compression format: "
+                    + imageSegment.getImageCompression());
+        }
     }
 
-    private void renderJPEG(final ImageSegment imageSegment, final Graphics2D targetGraphic, final ImageMask imageMask) throws IOException {
-        ImageReader reader = getImageReader("image/jpeg");
-        reader.setInput(imageSegment.getData());
-        ThreadLocal<Integer> maskedBlocks = new ThreadLocal<Integer>();
-        maskedBlocks.set(0);
+    private void renderBlockRows(final ImageSegment imageSegment, final BlockRowConsumer consumer, final BlockSource source)
+            throws IOException {
+        final int blockWidth = (int) imageSegment.getNumberOfPixelsPerBlockHorizontal();
+        final int blockHeight = (int) imageSegment.getNumberOfPixelsPerBlockVertical();
+        for (int rowIndex = 0; rowIndex < imageSegment.getNumberOfBlocksPerColumn(); ++rowIndex) {
+            BufferedImage strip = createStrip(imageSegment, rowIndex);
+            Graphics2D targetGraphic = strip.createGraphics();
+            try {
+                for (int columnIndex = 0; columnIndex < imageSegment.getNumberOfBlocksPerRow(); ++columnIndex) {
+                    BufferedImage img = source.getBlock(rowIndex, columnIndex);
+                    if (img != null) {
+                        targetGraphic.drawImage(img, columnIndex * blockWidth, 0, null);
+                    }
+                }
+            } finally {
+                targetGraphic.dispose();
+            }
+            consumer.accept(rowIndex, rowIndex * blockHeight, strip);
+        }
+    }
+
+    private BufferedImage createStrip(final ImageSegment imageSegment, final int rowIndex) {
+        int blockHeight = (int) imageSegment.getNumberOfPixelsPerBlockVertical();
+        int stripHeight = Math.min(blockHeight, (int) imageSegment.getNumberOfRows() - rowIndex * blockHeight);
+        ImageRepresentationHandler handler = ImageRepresentationHandlerFactory.forImageSegment(imageSegment);
+        return handler.createBufferedImage((int) imageSegment.getNumberOfColumns(), stripHeight);
+    }
+
+    @FunctionalInterface
+    private interface BlockSource {
+        BufferedImage getBlock(int rowIndex, int columnIndex) throws IOException;
+    }
+
+    /**
+     * Decode a single block of the segment as a Raster.
+     *
+     * This decodes exactly one NITF block (tile), without rendering the rest of the image, which suits tile based
+     * viewers and servers. The raster uses the data model that the block is decoded into (for uncompressed images,
+     * the same data model as renderToClosestDataModel()), and its origin is the position of the block in the image,
+     * in image pixel coordinates. Blocks at the right and bottom edges include any pad pixels past the end of the
+     * image, except for JPEG 2000, where the block is clipped to the image. A masked (not recorded) block is blank.
+     *
+     * The block is located from the start of the image data, so tiles can be requested in any order, and the
+     * position of the image data stream is restored afterwards, so a tile can be read between renders of the segment.
+     * Uncompressed blocks are read with positioned reads, so they can be decoded concurrently, and the image mask is
+     * read the first time a block of the segment is requested. JPEG blocks are located with an index of the JPEG
+     * markers, which is built the first time a block of the segment is requested, and only the read of the block holds
+     * a lock on the image data stream. Vector quantization lookup tables are likewise read once for each segment. Other
+     * compression types are decoded while holding a lock on the image data stream. Bi-level images can only be
+     * decoded in order, so every block up to the requested block is decoded. If the renderer has a block cache, it is
+     * used for the tile.
+     *
+     * @param imageSegment the image segment header for the segment to be decoded
+     * @param blockRow the zero-based row index of the block
+     * @param blockColumn the zero-based column index of the block
+     * @return the decoded block
+     * @throws IOException if the source data could not be read from
+     */
+    public final Raster getTile(final ImageSegment imageSegment, final int blockRow, final int blockColumn) throws IOException {
+        BufferedImage img = getTileImage(imageSegment, blockRow, blockColumn);
+        Rectangle blockRect = getBlockRectangle(imageSegment, blockRow, blockColumn);
+        return img.getRaster().createChild(0, 0, Math.min(img.getWidth(), blockRect.width), Math.min(img.getHeight(), blockRect.height),
+                blockRect.x, blockRect.y, null);
+    }
+
+    /**
+     * Decode a single block of the segment, in the same way as getTile(), but as the decoded block image.
+     *
+     * The image is at the origin rather than the position of the block, and is not clipped. It may be shared with the
+     * block cache, so it must not be modified.
+     *
+     * @param imageSegment the image segment header for the segment to be decoded
+     * @param blockRow the zero-based row index of the block
+     * @param blockColumn the zero-based column index of the block
+     * @return the decoded block image
+     * @throws IOException if the source data could not be read from
+     */
+    final BufferedImage getTileImage(final ImageSegment imageSegment, final int blockRow, final int blockColumn) throws IOException {
+        if ((blockRow < 0) || (blockRow >= imageSegment.getNumberOfBlocksPerColumn())
+                || (blockColumn < 0) || (blockColumn >= imageSegment.getNumberOfBlocksPerRow())) {
+            throw new IllegalArgumentException(String.format("NitfRenderer.getTile(): block (%d, %d) is not in the image.",
+                    blockRow, blockColumn));
+        }
+        return getBlock(imageSegment, blockRow, blockColumn, getCacheBands(imageSegment),
+                () -> decodeTile(imageSegment, blockRow, blockColumn));
+    }
+
+    /**
+     * Decode a single block of the segment as a Raster, asynchronously.
+     *
+     * This is the same as getTile(), except that the block is decoded by the executor that the renderer was
+     * constructed with, or by the common fork-join pool if there is no executor. An IOException is reported as an
+     * UncheckedIOException.
+     *
+     * @param imageSegment the image segment header for the segment to be decoded
+     * @param blockRow the zero-based row index of the block
+     * @param blockColumn the zero-based column index of the block
+     * @return a future for the decoded block
+     */
+    public final CompletableFuture<Raster> getTileAsync(final ImageSegment imageSegment, final int blockRow, final int blockColumn) {
+        Supplier<Raster> tileSupplier = () -> {
+            try {
+                return getTile(imageSegment, blockRow, blockColumn);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        if (blockExecutor == null) {
+            return CompletableFuture.supplyAsync(tileSupplier);
+        }
+        return CompletableFuture.supplyAsync(tileSupplier, blockExecutor);
+    }
 
+    private BufferedImage decodeTile(final ImageSegment imageSegment, final int blockRow, final int blockColumn) throws IOException {
+        switch (imageSegment.getImageCompression()) {
+        case NOTCOMPRESSED:
+        case NOTCOMPRESSEDMASK:
+            ImageModeHandler modeHandler = ImageModeHandlerFactory.forImageSegment(imageSegment, null, null);
+            if (modeHandler == null) {
+                throw new UnsupportedOperationException("Unhandled NC/NM format");
+            }
+            return modeHandler.decodeBlock(imageSegment, getImageMask(imageSegment), blockRow, blockColumn);
+        case DOWNSAMPLEDJPEG:
+        case JPEG:
+        case JPEGMASK:
+            return decodeJPEGTile(imageSegment, blockRow, blockColumn);
+        case JPEG2000:
+            return decodeJPEG2kTile(imageSegment, blockRow, blockColumn);
+        case BILEVEL:
+            return decodeBlockRendererTile(new BilevelBlockRenderer(), imageSegment, blockRow, blockColumn);
+        case VECTORQUANTIZATION:
+        case VECTORQUANTIZATIONMASK:
+            return decodeVectorQuantizationTile(imageSegment, blockRow, blockColumn);
+        default:
+            throw new UnsupportedOperationException("Unhandled image compression format: "
+                    + imageSegment.getImageCompression());
+        }
+    }
+
+    private BufferedImage decodeJPEGTile(final ImageSegment imageSegment, final int blockRow, final int blockColumn) throws IOException {
+        JpegBlockIndex index = getJpegBlockIndex(imageSegment);
+        int blockIndex = getBlockIndex(imageSegment, blockRow, blockColumn);
+        if (!index.isRecorded(blockIndex)) {
+            return createBlankTile(imageSegment);
+        }
+        return readJPEGBlock(imageSegment, index, blockIndex, null);
+    }
+
+    /**
+     * Get the JPEG block index for a segment, building it on first use.
+     *
+     * Indexes are kept for as long as the segment is in use, so repeated renders and tile reads of the same segment
+     * only scan the JPEG markers once.
+     */
+    private JpegBlockIndex getJpegBlockIndex(final ImageSegment imageSegment) throws IOException {
+        JpegBlockIndex index = jpegBlockIndexes.get(imageSegment);
+        if (index == null) {
+            index = JpegBlockIndex.build(imageSegment);
+            jpegBlockIndexes.put(imageSegment, index);
+        }
+        return index;
+    }
+
+    /**
+     * Get the JPEG 2000 codestream header for a segment, reading it on first use.
+     */
+    private Jpeg2000Codestream getJpeg2000Codestream(final ImageSegment imageSegment) throws IOException {
+        Jpeg2000Codestream codestream = jpeg2000Codestreams.get(imageSegment);
+        if (codestream == null) {
+            codestream = Jpeg2000Codestream.read(imageSegment);
+            jpeg2000Codestreams.put(imageSegment, codestream);
+        }
+        return codestream;
+    }
+
+    /**
+     * Get the vector quantization codebook for a segment, reading it on first use.
+     *
+     * The codebook is read from the start of the image data, and the position of the image data stream is restored
+     * afterwards.
+     */
+    private VectorQuantizationCodebook getVectorQuantizationCodebook(final ImageSegment imageSegment) throws IOException {
+        VectorQuantizationCodebook codebook = vectorQuantizationCodebooks.get(imageSegment);
+        if (codebook == null) {
+            final ImageInputStream data = imageSegment.getData();
+            synchronized (data) {
+                long position = data.getStreamPosition();
+                try {
+                    data.seek(0);
+                    codebook = VectorQuantizationCodebook.read(imageSegment, data);
+                } finally {
+                    data.seek(position);
+                }
+            }
+            vectorQuantizationCodebooks.put(imageSegment, codebook);
+        }
+        return codebook;
+    }
+
+    /**
+     * Get the image mask for an uncompressed segment, reading it on first use.
+     *
+     * The mask is read from the start of the image data, and the position of the image data stream is restored
+     * afterwards.
+     */
+    private ImageMask getImageMask(final ImageSegment imageSegment) throws IOException {
+        ImageMask imageMask = imageMasks.get(imageSegment);
+        if (imageMask == null) {
+            if (ImageCompression.NOTCOMPRESSEDMASK.equals(imageSegment.getImageCompression())) {
+                final ImageInputStream data = imageSegment.getData();
+                synchronized (data) {
+                    long position = data.getStreamPosition();
+                    try {
+                        data.seek(0);
+                        imageMask = new ImageMask(imageSegment, data);
+                    } finally {
+                        data.seek(position);
+                    }
+                }
+            } else {
+                imageMask = new ImageMask(imageSegment);
+            }
+            imageMasks.put(imageSegment, imageMask);
+        }
+        return imageMask;
+    }
+
+    private BufferedImage readJPEGBlock(final ImageSegment imageSegment, final JpegBlockIndex index, final int blockIndex,
+            final ImageReadParam param) throws IOException {
+        ImageReader reader = getImageReader(JPEG_MEDIA_TYPE);
+        try (ImageInputStream blockData = index.readBlock(imageSegment.getData(), blockIndex)) {
+            reader.setInput(blockData);
+            return reader.read(0, param);
+        } finally {
+            releaseImageReader(JPEG_MEDIA_TYPE, reader);
+        }
+    }
+
+    private BufferedImage decodeJPEG2kTile(final ImageSegment imageSegment, final int blockRow, final int blockColumn) throws IOException {
+        final ImageInputStream data = imageSegment.getData();
+        synchronized (data) {
+            long position = data.getStreamPosition();
+            ImageReader reader = getImageReader(JPEG2000_MEDIA_TYPE);
+            try {
+                data.seek(0);
+                reader.setInput(data, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (ImageRepresentation.MULTIBAND.equals(imageSegment.getImageRepresentation())) {
+                    param.setSourceBands(getSourceBands(imageSegment));
+                }
+                param.setSourceRegion(getBlockRectangle(imageSegment, blockRow, blockColumn));
+                return reader.read(0, param);
+            } finally {
+                releaseImageReader(JPEG2000_MEDIA_TYPE, reader);
+                data.seek(position);
+            }
+        }
+    }
+
+    private BufferedImage decodeVectorQuantizationTile(final ImageSegment imageSegment, final int blockRow, final int blockColumn)
+            throws IOException {
+        final ImageInputStream data = imageSegment.getData();
+        VectorQuantizationBlockRenderer renderer = new VectorQuantizationBlockRenderer();
+        renderer.setImageSegment(imageSegment, data, getVectorQuantizationCodebook(imageSegment));
+        synchronized (data) {
+            long position = data.getStreamPosition();
+            try {
+                BufferedImage img = renderer.getImageBlock(blockRow, blockColumn);
+                if (img == null) {
+                    // The block is not recorded, so there is nothing to decode.
+                    return createBlankTile(imageSegment);
+                }
+                return img;
+            } finally {
+                data.seek(position);
+            }
+        }
+    }
+
+    private BufferedImage decodeBlockRendererTile(final BlockRenderer renderer, final ImageSegment imageSegment, final int blockRow,
+            final int blockColumn) throws IOException {
+        final ImageInputStream data = imageSegment.getData();
+        final int blockIndex = getBlockIndex(imageSegment, blockRow, blockColumn);
+        synchronized (data) {
+            long position = data.getStreamPosition();
+            try {
+                data.seek(0);
+                renderer.setImageSegment(imageSegment, data);
+                for (int i = 0; (i < blockIndex) && !renderer.supportsRandomAccess(); ++i) {
+                    renderer.getImageBlock(i / imageSegment.getNumberOfBlocksPerRow(), i % imageSegment.getNumberOfBlocksPerRow());
+                }
+                BufferedImage img = renderer.getImageBlock(blockRow, blockColumn);
+                if (img == null) {
+                    // The renderer did not decode this block, because it is not recorded.
+                    return createBlankTile(imageSegment);
+                }
+                return img;
+            } finally {
+                data.seek(position);
+            }
+        }
+    }
+
+    private BufferedImage createBlankTile(final ImageSegment imageSegment) {
+        int blockWidth = (int) imageSegment.getNumberOfPixelsPerBlockHorizontal();
+        int blockHeight = (int) imageSegment.getNumberOfPixelsPerBlockVertical();
+        ImageRepresentationHandler handler = ImageRepresentationHandlerFactory.forImageSegment(imageSegment);
+        if (handler == null) {
+            return new BufferedImage(blockWidth, blockHeight, BufferedImage.TYPE_INT_ARGB);
+        }
+        return handler.createBufferedImage(blockWidth, blockHeight);
+    }
+
+    private int[] getCacheBands(final ImageSegment imageSegment) {
+        if (ImageCompression.JPEG2000.equals(imageSegment.getImageCompression())
+                && ImageRepresentation.MULTIBAND.equals(imageSegment.getImageRepresentation())) {
+            return getSourceBands(imageSegment);
+        }
+        return null;
+    }
+
+    /**
+     * Get the mode handler to decode blocks directly into the raster of the rendered image.
+     *
+     * This is used for uncompressed images, unless decoded blocks are cached (which needs an image for each block).
+     *
+     * @param imageSegment the image segment to be rendered.
+     * @param bands the bands to render, or null for the default bands.
+     * @return the mode handler, or null if the image should be rendered block by block.
+     */
+    private ImageModeHandler getRasterModeHandler(final ImageSegment imageSegment, final int[] bands) {
+        switch (imageSegment.getImageCompression()) {
+        case NOTCOMPRESSED:
+        case NOTCOMPRESSEDMASK:
+            if (blockCache != null) {
+                return null;
+            }
+            return ImageModeHandlerFactory.forImageSegment(imageSegment, blockExecutor, null, bands);
+        default:
+            return null;
+        }
+    }
+
+    private void checkBandSelectionSupported(final ImageSegment imageSegment, final int[] bands) {
+        if (bands == null) {
+            return;
+        }
+        switch (imageSegment.getImageCompression()) {
+        case NOTCOMPRESSED:
+        case NOTCOMPRESSEDMASK:
+        case JPEG2000:
+            break;
+        default:
+            throw new UnsupportedOperationException("Band selection is not supported for image compression format: "
+                    + imageSegment.getImageCompression());
+        }
+    }
+
+    private SampleGrid getSampleGrid(final ImageSegment imageSegment, final Rectangle region, final int subsampling) {
+        Rectangle imageBounds = new Rectangle(0, 0, (int) imageSegment.getNumberOfColumns(), (int) imageSegment.getNumberOfRows());
+        if (region == null) {
+            return new SampleGrid(imageBounds, subsampling);
+        }
+        Rectangle clippedRegion = region.intersection(imageBounds);
+        if (clippedRegion.isEmpty()) {
+            throw new IllegalArgumentException(String.format("NitfRenderer.renderRegion(): region %s does not intersect the image.", region));
+        }
+        return new SampleGrid(clippedRegion, subsampling);
+    }
+
+    private void renderSamples(final ImageSegment imageSegment, final BufferedImage img, final SampleGrid grid, final int[] bands)
+            throws IOException {
+        Graphics2D targetGraphic = img.createGraphics();
+        try {
+            render(imageSegment, targetGraphic, grid, bands);
+        } finally {
+            targetGraphic.dispose();
+        }
+    }
+
+    private void render(final BlockRenderer renderer, final ImageSegment imageSegment, final Graphics2D target, final SampleGrid grid)
+            throws IOException {
+        final int blockWidth = (int) imageSegment.getNumberOfPixelsPerBlockHorizontal();
+        final int blockHeight = (int) imageSegment.getNumberOfPixelsPerBlockVertical();
+        final int lastBlockIndex = getLastBlockIndex(imageSegment, grid);
+        final boolean caching = isCaching(grid);
+
+        // These renderers can only read blocks in order, so only use cached blocks if nothing needs to be decoded.
+        final BufferedImage[] cachedBlocks = new BufferedImage[imageSegment.getNumberOfBlocksPerRow()
+                * imageSegment.getNumberOfBlocksPerColumn()];
+        boolean allCached = caching;
+        if (caching) {
+            for (int rowIndex = 0; rowIndex < imageSegment.getNumberOfBlocksPerColumn(); ++rowIndex) {
+                for (int columnIndex = 0; columnIndex < imageSegment.getNumberOfBlocksPerRow(); ++columnIndex) {
+                    if (blockIntersects(imageSegment, rowIndex, columnIndex, grid)) {
+                        int blockIndex = getBlockIndex(imageSegment, rowIndex, columnIndex);
+                        cachedBlocks[blockIndex] = blockCache.get(imageSegment, rowIndex, columnIndex, null);
+                        allCached = allCached && (cachedBlocks[blockIndex] != null);
+                    }
+                }
+            }
+        }
+        if (!allCached) {
+            renderer.setImageSegment(imageSegment, imageSegment.getData());
+        }
+        final boolean decoding = !allCached;
+
+        // Otherwise, decode up to the last block that is needed.
         processBlocks(imageSegment, (rowIndex, columnIndex) -> {
-            if (imageMask != null && imageMask.isMaskedBlock((rowIndex * imageSegment.getNumberOfBlocksPerRow() + columnIndex), 0)) {
-                maskedBlocks.set(maskedBlocks.get() + 1);
+            int blockIndex = getBlockIndex(imageSegment, rowIndex, columnIndex);
+            if (blockIndex > lastBlockIndex) {
                 return;
             }
+            boolean intersects = blockIntersects(imageSegment, rowIndex, columnIndex, grid);
+            if (!intersects && renderer.supportsRandomAccess()) {
+                return;
+            }
+            BufferedImage img = cachedBlocks[blockIndex];
+            if (decoding) {
+                img = renderer.getImageBlock(rowIndex, columnIndex);
+            }
+            if (!intersects || (img == null)) {
+                return;
+            }
+            if (decoding && caching) {
+                blockCache.put(imageSegment, rowIndex, columnIndex, null, img);
+            }
+            if (grid == null) {
+                target.drawImage(img,
+                        imageSegment.getImageLocationColumn() + columnIndex * blockWidth,
+                        imageSegment.getImageLocationRow() + rowIndex * blockHeight,
+                        null);
+            } else {
+                grid.draw(target, img, columnIndex * blockWidth, rowIndex * blockHeight);
+            }
+        });
+    }
 
-            BufferedImage img = reader.read(
-                    (columnIndex + rowIndex * imageSegment.getNumberOfBlocksPerRow()) - maskedBlocks.get());
+    private void renderJPEG(final ImageSegment imageSegment, final Graphics2D targetGraphic, final SampleGrid grid)
+            throws IOException {
+        final JpegBlockIndex index = getJpegBlockIndex(imageSegment);
+        final boolean sampled = (grid != null) && !isCaching(grid);
 
-            targetGraphic.drawImage(img,
-                    columnIndex * (int) imageSegment.getNumberOfPixelsPerBlockHorizontal(),
-                    rowIndex * (int) imageSegment.getNumberOfPixelsPerBlockVertical(),
-                    null);
-        });
+        // The blocks in each row are decoded independently (in parallel if there is an executor), then drawn in order.
+        for (int rowIndex = 0; rowIndex < imageSegment.getNumberOfBlocksPerColumn(); ++rowIndex) {
+            List<Rectangle> blockRects = new ArrayList<>();
+            List<Point> firstSamples = new ArrayList<>();
+            List<CompletableFuture<BufferedImage>> blocks = new ArrayList<>();
+            for (int columnIndex = 0; columnIndex < imageSegment.getNumberOfBlocksPerRow(); ++columnIndex) {
+                final int blockIndex = getBlockIndex(imageSegment, rowIndex, columnIndex);
+                if (!index.isRecorded(blockIndex) || !blockIntersects(imageSegment, rowIndex, columnIndex, grid)) {
+                    continue;
+                }
+                Rectangle blockRect = getBlockRectangle(imageSegment, rowIndex, columnIndex);
+                blockRects.add(blockRect);
+                if (sampled) {
+                    // Each JPEG image is one block, so the source region is relative to the block.
+                    final ImageReadParam param = new ImageReadParam();
+                    firstSamples.add(setSampledRegion(param, grid, blockRect, blockRect.getLocation()));
+                    blocks.add(decodeBlockAsync(() -> readJPEGBlock(imageSegment, index, blockIndex, param)));
+                } else {
+                    final int row = rowIndex;
+                    final int column = columnIndex;
+                    blocks.add(decodeBlockAsync(() -> getBlock(imageSegment, row, column, null,
+                            () -> readJPEGBlock(imageSegment, index, blockIndex, null))));
+                }
+            }
+            for (int i = 0; i < blocks.size(); ++i) {
+                BufferedImage img = joinBlock(blocks.get(i));
+                Rectangle blockRect = blockRects.get(i);
+                if (grid == null) {
+                    targetGraphic.drawImage(img, blockRect.x, blockRect.y, null);
+                } else if (sampled) {
+                    grid.drawSampled(targetGraphic, img, firstSamples.get(i).x, firstSamples.get(i).y);
+                } else {
+                    grid.draw(targetGraphic, img, blockRect.x, blockRect.y);
+                }
+            }
+        }
     }
 
-    private void renderJPEG2k(final ImageSegment imageSegment, final Graphics2D targetGraphic) throws IOException {
-        final ImageReader reader = getImageReader("image/jp2");
-        reader.setInput(imageSegment.getData(), true, true);
-        final ImageReadParam param = reader.getDefaultReadParam();
+    /**
+     * Decode a block on the block executor, or on the calling thread if there is no executor.
+     */
+    private CompletableFuture<BufferedImage> decodeBlockAsync(final BlockDecoder decoder) throws IOException {
+        if (blockExecutor == null) {
+            return CompletableFuture.completedFuture(decoder.decode());
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return decoder.decode();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, blockExecutor);
+    }
 
-        if (ImageRepresentation.MULTIBAND.equals(imageSegment.getImageRepresentation())) {
-            final int[] sourceBands = getSourceBands(imageSegment);
-            param.setSourceBands(sourceBands);
+    private static BufferedImage joinBlock(final CompletableFuture<BufferedImage> block) throws IOException {
+        try {
+            return block.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
         }
+    }
 
-        processBlocks(imageSegment, (r, c) -> {
-                    Rectangle rect = new Rectangle((int) (c * imageSegment.getNumberOfPixelsPerBlockHorizontal()),
-                            (int) (r * imageSegment.getNumberOfPixelsPerBlockVertical()),
-                            (int) imageSegment.getNumberOfPixelsPerBlockHorizontal(),
-                            (int) imageSegment.getNumberOfPixelsPerBlockVertical());
-                    param.setSourceRegion(rect);
+    private void renderJPEG2k(final ImageSegment imageSegment, final Graphics2D targetGraphic, final SampleGrid grid, final int[] bands)
+            throws IOException {
+        if ((grid != null) && !isCaching(grid)) {
+            renderJPEG2kSampled(imageSegment, targetGraphic, grid, bands);
+            return;
+        }
+        final ImageReader reader = getImageReader(JPEG2000_MEDIA_TYPE);
+        try {
+            reader.setInput(imageSegment.getData(), true, true);
+            final ImageReadParam param = reader.getDefaultReadParam();
+            final int[] cacheBands = getJPEG2kSourceBands(imageSegment, bands);
+            if (cacheBands != null) {
+                param.setSourceBands(cacheBands);
+            }
+
+            processBlocks(imageSegment, (r, c) -> {
+                        if (!blockIntersects(imageSegment, r, c, grid)) {
+                            return;
+                        }
+                        Rectangle rect = getBlockRectangle(imageSegment, r, c);
+
+                        if ((grid == null) && (blockCache == null)) {
+                            param.setSourceRegion(rect);
+                            BufferedImage renderedBlock = reader.read(0, param);
+                            param.setDestination(renderedBlock);
+                            targetGraphic.drawImage(renderedBlock, rect.x, rect.y, null);
+                        } else {
+                            // Cached blocks are shared, so each block is read into a new image.
+                            BufferedImage renderedBlock = getBlock(imageSegment, r, c, cacheBands, () -> {
+                                param.setSourceRegion(rect);
+                                return reader.read(0, param);
+                            });
+                            if (grid == null) {
+                                targetGraphic.drawImage(renderedBlock, rect.x, rect.y, null);
+                            } else {
+                                grid.draw(targetGraphic, renderedBlock, rect.x, rect.y);
+                            }
+                        }
+                    }
+            );
+        } finally {
+            releaseImageReader(JPEG2000_MEDIA_TYPE, reader);
+        }
+    }
 
-                    BufferedImage renderedBlock = reader.read(0, param);
-                    param.setDestination(renderedBlock);
-                    targetGraphic.drawImage(renderedBlock, (int) (c * imageSegment.getNumberOfPixelsPerBlockVertical()),
-                            (int) (r * imageSegment.getNumberOfPixelsPerBlockHorizontal()),
-                            null);
+    private int[] getJPEG2kSourceBands(final ImageSegment imageSegment, final int[] bands) {
+        if ((bands == null) && ImageRepresentation.MULTIBAND.equals(imageSegment.getImageRepresentation())) {
+            return getSourceBands(imageSegment);
+        }
+        return bands;
+    }
+
+    /**
+     * Render a subsampled region of a JPEG 2000 image.
+     *
+     * The codestream is read from the start of the image data, and the position of the image data stream is restored
+     * afterwards.
+     */
+    private void renderJPEG2kSampled(final ImageSegment imageSegment, final Graphics2D targetGraphic, final SampleGrid grid,
+            final int[] bands) throws IOException {
+        final Jpeg2000Codestream codestream = getJpeg2000Codestream(imageSegment);
+        final ImageInputStream data = imageSegment.getData();
+        synchronized (data) {
+            long position = data.getStreamPosition();
+            ImageReader reader = getImageReader(JPEG2000_MEDIA_TYPE);
+            try {
+                data.seek(0);
+                reader.setInput(data, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                int[] sourceBands = getJPEG2kSourceBands(imageSegment, bands);
+                if (sourceBands != null) {
+                    param.setSourceBands(sourceBands);
+                }
+                renderJPEG2kTiles(codestream, reader, param, targetGraphic, grid);
+            } finally {
+                releaseImageReader(JPEG2000_MEDIA_TYPE, reader);
+                data.seek(position);
+            }
+        }
+    }
 
+    /**
+     * Render a subsampled region of a JPEG 2000 image, one codestream tile at a time.
+     *
+     * Each read only covers one codestream tile, so the reader does not need to decode the packets of other tiles. The
+     * subsampling is passed to the reader, which may use it to decode a lower resolution level of the tile, if the
+     * reader supports that.
+     */
+    private void renderJPEG2kTiles(final Jpeg2000Codestream codestream, final ImageReader reader, final ImageReadParam param,
+            final Graphics2D targetGraphic, final SampleGrid grid) throws IOException {
+        for (int tileRow = 0; tileRow < codestream.getNumTilesVertical(); ++tileRow) {
+            for (int tileColumn = 0; tileColumn < codestream.getNumTilesHorizontal(); ++tileColumn) {
+                Rectangle tileRect = codestream.getTileRectangle(tileRow, tileColumn);
+                if (!tileRect.intersects(grid.getRegion())) {
+                    continue;
                 }
-        );
+                Point firstSample = setSampledRegion(param, grid, tileRect, new Point(0, 0));
+                grid.drawSampled(targetGraphic, reader.read(0, param), firstSample.x, firstSample.y);
+            }
+        }
+    }
+
+    private boolean isCaching(final SampleGrid grid) {
+        return (blockCache != null) && ((grid == null) || (grid.getSubsampling() == 1));
+    }
+
+    private BufferedImage getBlock(final ImageSegment imageSegment, final int rowIndex, final int columnIndex, final int[] bands,
+            final BlockDecoder decoder) throws IOException {
+        if (blockCache == null) {
+            return decoder.decode();
+        }
+        BufferedImage img = blockCache.get(imageSegment, rowIndex, columnIndex, bands);
+        if (img == null) {
+            img = decoder.decode();
+            if (img != null) {
+                blockCache.put(imageSegment, rowIndex, columnIndex, bands, img);
+            }
+        }
+        return img;
+    }
+
+    @FunctionalInterface
+    private interface BlockDecoder {
+        BufferedImage decode() throws IOException;
+    }
+
+    private Point setSampledRegion(final ImageReadParam param, final SampleGrid grid, final Rectangle area, final Point sourceOrigin) {
+        Rectangle sampledArea = area.intersection(grid.getRegion());
+        Point firstSample = new Point(grid.getFirstSampleColumn(sampledArea.x), grid.getFirstSampleRow(sampledArea.y));
+        param.setSourceRegion(new Rectangle(sampledArea.x - sourceOrigin.x, sampledArea.y - sourceOrigin.y,
+                sampledArea.width, sampledArea.height));
+        param.setSourceSubsampling(grid.getSubsampling(), grid.getSubsampling(),
+                firstSample.x - sampledArea.x, firstSample.y - sampledArea.y);
+        return firstSample;
     }
 
     private int[] getSourceBands(final ImageSegment imageSegment) {
@@ -236,35 +1132,39 @@ public class NitfRenderer {
         }
     }
 
-    private void skipToMarker(final ImageInputStream imageInputStream, final JpegMarkerCode markerCode) throws IOException {
-        imageInputStream.mark();
-        byte fillByte = (byte) ((markerCode.getValue() >> Byte.SIZE) & BYTE_MASK);
-        byte markerByte = (byte) (markerCode.getValue() & BYTE_MASK);
-
-        int i = 0;
-        byte a = imageInputStream.readByte();
-
-        while (a == fillByte) {
-            i++;
-            a = imageInputStream.readByte();
+    private boolean blockIntersects(final ImageSegment imageSegment, final int rowIndex, final int columnIndex, final SampleGrid grid) {
+        if (grid == null) {
+            return true;
         }
+        Rectangle blockRect = getBlockRectangle(imageSegment, rowIndex, columnIndex);
+        return grid.intersects(blockRect.x, blockRect.y, blockRect.width, blockRect.height);
+    }
 
-        imageInputStream.reset();
+    private Rectangle getBlockRectangle(final ImageSegment imageSegment, final int rowIndex, final int columnIndex) {
+        int blockWidth = (int) imageSegment.getNumberOfPixelsPerBlockHorizontal();
+        int blockHeight = (int) imageSegment.getNumberOfPixelsPerBlockVertical();
+        return new Rectangle(columnIndex * blockWidth, rowIndex * blockHeight, blockWidth, blockHeight);
+    }
 
-        if (a == markerByte) {
-            imageInputStream.skipBytes(i - 1);
-        }
+    private int getBlockIndex(final ImageSegment imageSegment, final int rowIndex, final int columnIndex) {
+        return rowIndex * imageSegment.getNumberOfBlocksPerRow() + columnIndex;
     }
 
+    private int getLastBlockIndex(final ImageSegment imageSegment, final SampleGrid grid) {
+        if (grid == null) {
+            return Integer.MAX_VALUE;
+        }
+        Rectangle region = grid.getRegion();
+        int lastRow = (region.y + region.height - 1) / (int) imageSegment.getNumberOfPixelsPerBlockVertical();
+        int lastColumn = (region.x + region.width - 1) / (int) imageSegment.getNumberOfPixelsPerBlockHorizontal();
+        return getBlockIndex(imageSegment, lastRow, lastColumn);
+    }
 
     private ImageReader getImageReader(final String mediaType) {
-        Iterator<ImageReader> imageReaders = ImageIO.getImageReadersByMIMEType(mediaType);
-
-        if (imageReaders == null || !imageReaders.hasNext()) {
-            throw new UnsupportedOperationException(
-                    String.format("NitfRenderer.render(): no ImageReader found for media type '%s'.", mediaType));
-        }
+        return READER_POOL.acquire(mediaType);
+    }
 
-        return imageReaders.next();
+    private void releaseImageReader(final String mediaType, final ImageReader reader) {
+        READER_POOL.release(mediaType, reader);
     }
 }
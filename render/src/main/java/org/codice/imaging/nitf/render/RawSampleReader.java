@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.function.IntFunction;
+
+import javax.imageio.stream.ImageInputStream;
+
+import org.codice.imaging.nitf.core.image.ImageCompression;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.image.PixelValueType;
+
+/**
+ * Reader for the raw sample values of an uncompressed image segment.
+ *
+ * This reads the samples as they are stored in the file, without any look up table, colour model or pad pixel
+ * processing, so it is suitable for analysis of 16 bit, 32 bit, floating point (PVTYPE=R) and complex (PVTYPE=C)
+ * images that can't be represented in a BufferedImage. Each row of samples in a block is read straight from the image
+ * data into the returned array with a single bulk read, in the big-endian byte order that NITF uses.
+ *
+ * Samples are returned in the Java type that has the same size as the stored sample, so unsigned integer samples
+ * (PVTYPE=INT) that have the top bit set appear to be negative, and need to be masked (for example, with
+ * Short.toUnsignedInt()). Samples with fewer actual bits per pixel than the number of bits per pixel are returned as
+ * stored, without shifting. Samples in blocks that are masked (not recorded in the file) are returned as zero.
+ *
+ * Where more than one band is read, the result is plane interleaved: all of the samples for the first requested band,
+ * in row-major order, then all of the samples for the second requested band, and so on. Complex samples are returned
+ * as two consecutive floats (real, then imaginary) per sample.
+ *
+ * Only uncompressed images (IC=NC or NM) with 8, 16, 32 or 64 bits per pixel per band are supported. The image data
+ * stream is locked while it is read, so one reader can be used from several threads.
+ */
+public class RawSampleReader {
+
+    /**
+     * Read a run of consecutive values from a stream into an array.
+     *
+     * @param <T> the array type.
+     */
+    @FunctionalInterface
+    private interface ArrayReader<T> {
+        void read(ImageInputStream imageInputStream, T array, int offset, int length) throws IOException;
+    }
+
+    private static final int BITS_PER_INT = 32;
+
+    private static final int BITS_PER_LONG = 64;
+
+    private final ImageSegment mImageSegment;
+
+    private final int mBytesPerSample;
+
+    private final int mBlockWidth;
+
+    private final int mBlockHeight;
+
+    private final int mNumBands;
+
+    private ImageMask mImageMask = null;
+
+    private long mBlockDataStart = 0;
+
+    /**
+     * Create a reader for an image segment.
+     *
+     * @param imageSegment the image segment to read samples from
+     */
+    public RawSampleReader(final ImageSegment imageSegment) {
+        if (imageSegment == null) {
+            throw new IllegalArgumentException("RawSampleReader: image segment must not be null.");
+        }
+        ImageCompression compression = imageSegment.getImageCompression();
+        if ((compression != ImageCompression.NOTCOMPRESSED) && (compression != ImageCompression.NOTCOMPRESSEDMASK)) {
+            throw new UnsupportedOperationException("Raw sample access is not supported for image compression format: " + compression);
+        }
+        int numBitsPerPixelPerBand = imageSegment.getNumberOfBitsPerPixelPerBand();
+        if ((numBitsPerPixelPerBand != Byte.SIZE) && (numBitsPerPixelPerBand != Short.SIZE) && (numBitsPerPixelPerBand != BITS_PER_INT)
+                && (numBitsPerPixelPerBand != BITS_PER_LONG)) {
+            throw new UnsupportedOperationException("Raw sample access is not supported for " + numBitsPerPixelPerBand
+                    + " bits per pixel per band");
+        }
+        mImageSegment = imageSegment;
+        mBytesPerSample = numBitsPerPixelPerBand / Byte.SIZE;
+        mBlockWidth = (int) imageSegment.getNumberOfPixelsPerBlockHorizontal();
+        mBlockHeight = (int) imageSegment.getNumberOfPixelsPerBlockVertical();
+        mNumBands = imageSegment.getNumBands();
+    }
+
+    /**
+     * Read 8 bit samples.
+     *
+     * @param region the region to read, in image pixel coordinates, which must be inside the image, or null for the
+     * whole image
+     * @param bands the zero-based indexes of the bands to read, or no bands to read every band
+     * @return the samples, region.width * region.height for each band
+     * @throws IOException if the image data could not be read from
+     */
+    public final byte[] readBytes(final Rectangle region, final int... bands) throws IOException {
+        checkSampleType("readBytes", Byte.SIZE, PixelValueType.INTEGER, PixelValueType.SIGNEDINTEGER);
+        return read(region, bands, 1, byte[]::new, ImageInputStream::readFully);
+    }
+
+    /**
+     * Read 16 bit samples.
+     *
+     * @param region the region to read, in image pixel coordinates, which must be inside the image, or null for the
+     * whole image
+     * @param bands the zero-based indexes of the bands to read, or no bands to read every band
+     * @return the samples, region.width * region.height for each band
+     * @throws IOException if the image data could not be read from
+     */
+    public final short[] readShorts(final Rectangle region, final int... bands) throws IOException {
+        checkSampleType("readShorts", Short.SIZE, PixelValueType.INTEGER, PixelValueType.SIGNEDINTEGER);
+        return read(region, bands, 1, short[]::new, ImageInputStream::readFully);
+    }
+
+    /**
+     * Read 32 bit integer samples.
+     *
+     * @param region the region to read, in image pixel coordinates, which must be inside the image, or null for the
+     * whole image
+     * @param bands the zero-based indexes of the bands to read, or no bands to read every band
+     * @return the samples, region.width * region.height for each band
+     * @throws IOException if the image data could not be read from
+     */
+    public final int[] readInts(final Rectangle region, final int... bands) throws IOException {
+        checkSampleType("readInts", BITS_PER_INT, PixelValueType.INTEGER, PixelValueType.SIGNEDINTEGER);
+        return read(region, bands, 1, int[]::new, ImageInputStream::readFully);
+    }
+
+    /**
+     * Read 32 bit floating point samples, or 64 bit complex samples.
+     *
+     * @param region the region to read, in image pixel coordinates, which must be inside the image, or null for the
+     * whole image
+     * @param bands the zero-based indexes of the bands to read, or no bands to read every band
+     * @return the samples, region.width * region.height for each band, or twice that for complex samples
+     * @throws IOException if the image data could not be read from
+     */
+    public final float[] readFloats(final Rectangle region, final int... bands) throws IOException {
+        if (mImageSegment.getPixelValueType() == PixelValueType.COMPLEX) {
+            checkSampleType("readFloats", BITS_PER_LONG, PixelValueType.COMPLEX);
+            return read(region, bands, 2, float[]::new, ImageInputStream::readFully);
+        }
+        checkSampleType("readFloats", BITS_PER_INT, PixelValueType.REAL);
+        return read(region, bands, 1, float[]::new, ImageInputStream::readFully);
+    }
+
+    /**
+     * Read 64 bit floating point samples.
+     *
+     * @param region the region to read, in image pixel coordinates, which must be inside the image, or null for the
+     * whole image
+     * @param bands the zero-based indexes of the bands to read, or no bands to read every band
+     * @return the samples, region.width * region.height for each band
+     * @throws IOException if the image data could not be read from
+     */
+    public final double[] readDoubles(final Rectangle region, final int... bands) throws IOException {
+        checkSampleType("readDoubles", BITS_PER_LONG, PixelValueType.REAL);
+        return read(region, bands, 1, double[]::new, ImageInputStream::readFully);
+    }
+
+    private void checkSampleType(final String methodName, final int numBitsPerPixelPerBand, final PixelValueType... pixelValueTypes) {
+        if (mImageSegment.getNumberOfBitsPerPixelPerBand() == numBitsPerPixelPerBand) {
+            for (PixelValueType pixelValueType : pixelValueTypes) {
+                if (mImageSegment.getPixelValueType() == pixelValueType) {
+                    return;
+                }
+            }
+        }
+        throw new UnsupportedOperationException(String.format("RawSampleReader.%s(): not supported for %d bit %s samples", methodName,
+                mImageSegment.getNumberOfBitsPerPixelPerBand(), mImageSegment.getPixelValueType()));
+    }
+
+    private <T> T read(final Rectangle region, final int[] bands, final int valuesPerSample, final IntFunction<T> arrayFactory,
+            final ArrayReader<T> arrayReader) throws IOException {
+        final Rectangle imageBounds = new Rectangle(0, 0, (int) mImageSegment.getNumberOfColumns(), (int) mImageSegment.getNumberOfRows());
+        final Rectangle readRegion = getRegion(region, imageBounds);
+        final int[] readBands = getBands(bands);
+        final int valuesPerPlane = readRegion.width * readRegion.height * valuesPerSample;
+        final T samples = arrayFactory.apply(valuesPerPlane * readBands.length);
+
+        // Within a block row of a pixel interleaved image, the samples for one band are spaced by the number of bands.
+        final int valueStride = getSampleStride() * valuesPerSample;
+        T scratch = null;
+        if (valueStride > valuesPerSample) {
+            scratch = arrayFactory.apply((readRegion.width - 1) * valueStride + valuesPerSample);
+        }
+
+        final ImageInputStream data = mImageSegment.getData();
+        synchronized (data) {
+            // The stream is shared with the renderer, so leave it as it was found.
+            final long position = data.getStreamPosition();
+            final ByteOrder byteOrder = data.getByteOrder();
+            try {
+                data.setByteOrder(ByteOrder.BIG_ENDIAN);
+                loadImageMask(data);
+                final int firstBlockRow = readRegion.y / mBlockHeight;
+                final int lastBlockRow = (readRegion.y + readRegion.height - 1) / mBlockHeight;
+                final int firstBlockColumn = readRegion.x / mBlockWidth;
+                final int lastBlockColumn = (readRegion.x + readRegion.width - 1) / mBlockWidth;
+                for (int blockRow = firstBlockRow; blockRow <= lastBlockRow; blockRow++) {
+                    for (int blockColumn = firstBlockColumn; blockColumn <= lastBlockColumn; blockColumn++) {
+                        final Rectangle span = readRegion.intersection(new Rectangle(blockColumn * mBlockWidth, blockRow * mBlockHeight,
+                                mBlockWidth, mBlockHeight));
+                        final int blockIndex = blockRow * mImageSegment.getNumberOfBlocksPerRow() + blockColumn;
+                        for (int bandPosition = 0; bandPosition < readBands.length; bandPosition++) {
+                            final int maskBand = getMaskBand(readBands[bandPosition]);
+                            if (!mImageMask.isBlockPresent(blockIndex, maskBand)) {
+                                continue;
+                            }
+                            final long blockStart = mImageMask.getBlockOffset(blockIndex, maskBand);
+                            for (int row = span.y; row < span.y + span.height; row++) {
+                                final long sampleIndex = getSampleIndex(readBands[bandPosition], row % mBlockHeight, span.x % mBlockWidth);
+                                data.seek(mBlockDataStart + blockStart + sampleIndex * mBytesPerSample);
+                                final int offset = bandPosition * valuesPerPlane
+                                        + ((row - readRegion.y) * readRegion.width + (span.x - readRegion.x)) * valuesPerSample;
+                                if (scratch == null) {
+                                    arrayReader.read(data, samples, offset, span.width * valuesPerSample);
+                                } else {
+                                    final int numValues = (span.width - 1) * valueStride + valuesPerSample;
+                                    arrayReader.read(data, scratch, 0, numValues);
+                                    for (int i = 0; i < span.width; i++) {
+                                        System.arraycopy(scratch, i * valueStride, samples, offset + i * valuesPerSample, valuesPerSample);
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            } finally {
+                data.setByteOrder(byteOrder);
+                data.seek(position);
+            }
+        }
+        return samples;
+    }
+
+    private static Rectangle getRegion(final Rectangle region, final Rectangle imageBounds) {
+        if (region == null) {
+            return imageBounds;
+        }
+        if (region.isEmpty() || !imageBounds.contains(region)) {
+            throw new IllegalArgumentException(String.format("RawSampleReader: region %s is not inside the image.", region));
+        }
+        return new Rectangle(region);
+    }
+
+    private int[] getBands(final int[] bands) {
+        if ((bands == null) || (bands.length == 0)) {
+            int[] allBands = new int[mNumBands];
+            for (int i = 0; i < mNumBands; i++) {
+                allBands[i] = i;
+            }
+            return allBands;
+        }
+        for (int band : bands) {
+            if ((band < 0) || (band >= mNumBands)) {
+                throw new IllegalArgumentException(String.format("RawSampleReader: band %d is not in the image.", band));
+            }
+        }
+        return bands.clone();
+    }
+
+    /**
+     * Read the image mask the first time it is needed. The caller holds the lock on the stream, and restores the
+     * stream position afterwards.
+     */
+    private void loadImageMask(final ImageInputStream data) throws IOException {
+        if (mImageMask != null) {
+            return;
+        }
+        if (ImageCompression.NOTCOMPRESSEDMASK.equals(mImageSegment.getImageCompression())) {
+            data.seek(0);
+            mImageMask = new ImageMask(mImageSegment, data);
+            mBlockDataStart = mImageMask.getBlockDataOffset();
+        } else {
+            mImageMask = new ImageMask(mImageSegment);
+            mBlockDataStart = 0;
+        }
+    }
+
+    /**
+     * Get the number of samples between one pixel and the next in the same band and row of a block.
+     */
+    private int getSampleStride() {
+        if (mImageSegment.getImageMode() == ImageMode.PIXELINTERLEVE) {
+            return mNumBands;
+        }
+        return 1;
+    }
+
+    /**
+     * Get the band that the image mask records block offsets for.
+     *
+     * For band sequential images each band of a block has its own offset, otherwise there is one offset for the whole
+     * block, which contains every band.
+     */
+    private int getMaskBand(final int band) {
+        if (mImageSegment.getImageMode() == ImageMode.BANDSEQUENTIAL) {
+            return band;
+        }
+        return 0;
+    }
+
+    /**
+     * Get the index of a sample within the data for a block (or the band of a block, for band sequential images).
+     */
+    private long getSampleIndex(final int band, final int row, final int column) {
+        switch (mImageSegment.getImageMode()) {
+            case BLOCKINTERLEVE:
+                return ((long) band * mBlockHeight + row) * mBlockWidth + column;
+            case PIXELINTERLEVE:
+                return ((long) row * mBlockWidth + column) * mNumBands + band;
+            case ROWINTERLEVE:
+                return ((long) row * mNumBands + band) * mBlockWidth + column;
+            case BANDSEQUENTIAL:
+                return (long) row * mBlockWidth + column;
+            default:
+                throw new UnsupportedOperationException("Unhandled image mode: " + mImageSegment.getImageMode());
+        }
+    }
+}
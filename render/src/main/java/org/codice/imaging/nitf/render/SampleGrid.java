@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+
+/**
+ * The grid of source pixels that are rendered for a region of an image.
+ *
+ * The grid starts at the top left pixel of the region, and includes every n'th pixel horizontally and vertically,
+ * where n is the subsampling factor. This matches ImageReadParam.setSourceSubsampling() with zero offsets. The sample
+ * at image position (region.x + i * n, region.y + j * n) is rendered at position (i, j) in the output.
+ *
+ * All positions are in image pixel coordinates (i.e. relative to the first pixel of the image segment, ignoring the
+ * image location).
+ */
+public final class SampleGrid {
+
+    private final Rectangle mRegion;
+
+    private final int mSubsampling;
+
+    /**
+     * Create a sample grid.
+     *
+     * @param region the region of the image to sample, which must not be empty.
+     * @param subsampling the subsampling factor, where 1 means every pixel in the region is sampled.
+     */
+    public SampleGrid(final Rectangle region, final int subsampling) {
+        if ((region == null) || region.isEmpty()) {
+            throw new IllegalArgumentException("SampleGrid: region must not be null or empty.");
+        }
+        if (subsampling < 1) {
+            throw new IllegalArgumentException("SampleGrid: subsampling must be at least 1, got " + subsampling);
+        }
+        mRegion = new Rectangle(region);
+        mSubsampling = subsampling;
+    }
+
+    /**
+     * Get the region of the image that is sampled.
+     *
+     * @return copy of the region.
+     */
+    public Rectangle getRegion() {
+        return new Rectangle(mRegion);
+    }
+
+    /**
+     * Get the subsampling factor.
+     *
+     * @return the distance in pixels between samples, in each direction.
+     */
+    public int getSubsampling() {
+        return mSubsampling;
+    }
+
+    /**
+     * Get the width of the rendered output.
+     *
+     * @return the number of samples in each row of the grid.
+     */
+    public int getWidth() {
+        return (mRegion.width + mSubsampling - 1) / mSubsampling;
+    }
+
+    /**
+     * Get the height of the rendered output.
+     *
+     * @return the number of samples in each column of the grid.
+     */
+    public int getHeight() {
+        return (mRegion.height + mSubsampling - 1) / mSubsampling;
+    }
+
+    /**
+     * Get the first sampled column at or after a position.
+     *
+     * @param x the column position to start from.
+     * @return the column position of the first sample, which may be beyond the region.
+     */
+    public int getFirstSampleColumn(final int x) {
+        return getFirstSample(mRegion.x, x);
+    }
+
+    /**
+     * Get the first sampled row at or after a position.
+     *
+     * @param y the row position to start from.
+     * @return the row position of the first sample, which may be beyond the region.
+     */
+    public int getFirstSampleRow(final int y) {
+        return getFirstSample(mRegion.y, y);
+    }
+
+    /**
+     * Count the sampled columns in a range of columns.
+     *
+     * @param x the first column in the range.
+     * @param width the number of columns in the range.
+     * @return the number of columns in the range that are sampled.
+     */
+    public int countSampleColumns(final int x, final int width) {
+        return countSamples(mRegion.x, mRegion.width, x, width);
+    }
+
+    /**
+     * Count the sampled rows in a range of rows.
+     *
+     * @param y the first row in the range.
+     * @param height the number of rows in the range.
+     * @return the number of rows in the range that are sampled.
+     */
+    public int countSampleRows(final int y, final int height) {
+        return countSamples(mRegion.y, mRegion.height, y, height);
+    }
+
+    /**
+     * Check whether a row is sampled.
+     *
+     * @param y the row position.
+     * @return true if the row contains samples, otherwise false.
+     */
+    public boolean isSampleRow(final int y) {
+        return (y >= mRegion.y) && (y < mRegion.y + mRegion.height) && ((y - mRegion.y) % mSubsampling == 0);
+    }
+
+    /**
+     * Check whether any samples fall inside an area of the image.
+     *
+     * @param x the first column of the area.
+     * @param y the first row of the area.
+     * @param width the width of the area.
+     * @param height the height of the area.
+     * @return true if at least one sample is in the area, otherwise false.
+     */
+    public boolean intersects(final int x, final int y, final int width, final int height) {
+        return (countSampleColumns(x, width) > 0) && (countSampleRows(y, height) > 0);
+    }
+
+    /**
+     * Draw the samples from a full resolution image.
+     *
+     * @param target the output to draw to.
+     * @param image the image to sample from.
+     * @param x the column position of the image.
+     * @param y the row position of the image.
+     */
+    public void draw(final Graphics2D target, final BufferedImage image, final int x, final int y) {
+        int firstColumn = getFirstSampleColumn(x);
+        int firstRow = getFirstSampleRow(y);
+        int numColumns = countSampleColumns(x, image.getWidth());
+        int numRows = countSampleRows(y, image.getHeight());
+        if ((numColumns > 0) && (numRows > 0)) {
+            BufferedImage samples = pick(image, firstColumn - x, firstRow - y, numColumns, numRows, mSubsampling, mSubsampling);
+            drawSampled(target, samples, firstColumn, firstRow);
+        }
+    }
+
+    /**
+     * Draw the samples from an image where the rows have already been sampled, but the columns have not.
+     *
+     * @param target the output to draw to.
+     * @param image the image to sample from, which contains one row for each sampled row.
+     * @param x the column position of the image.
+     * @param y the row position of the first image row, which must be a sampled row.
+     */
+    public void drawSampledRows(final Graphics2D target, final BufferedImage image, final int x, final int y) {
+        int firstColumn = getFirstSampleColumn(x);
+        int numColumns = countSampleColumns(x, image.getWidth());
+        if ((numColumns > 0) && (image.getHeight() > 0)) {
+            BufferedImage samples = pick(image, firstColumn - x, 0, numColumns, image.getHeight(), mSubsampling, 1);
+            drawSampled(target, samples, firstColumn, y);
+        }
+    }
+
+    /**
+     * Draw an image that has already been sampled.
+     *
+     * @param target the output to draw to.
+     * @param samples the sampled image.
+     * @param x the column position of the first sample, which must be a sampled column.
+     * @param y the row position of the first sample, which must be a sampled row.
+     */
+    public void drawSampled(final Graphics2D target, final BufferedImage samples, final int x, final int y) {
+        target.drawImage(samples, (x - mRegion.x) / mSubsampling, (y - mRegion.y) / mSubsampling, null);
+    }
+
+    private int getFirstSample(final int origin, final int position) {
+        if (position <= origin) {
+            return origin;
+        }
+        return origin + ((position - origin + mSubsampling - 1) / mSubsampling) * mSubsampling;
+    }
+
+    private int countSamples(final int origin, final int length, final int position, final int size) {
+        int first = getFirstSample(origin, position);
+        int end = Math.min(origin + length, position + size);
+        if (first >= end) {
+            return 0;
+        }
+        return (end - first + mSubsampling - 1) / mSubsampling;
+    }
+
+    private static BufferedImage pick(final BufferedImage image, final int x, final int y, final int numColumns, final int numRows,
+            final int columnStep, final int rowStep) {
+        if ((columnStep == 1) && (rowStep == 1)) {
+            return image.getSubimage(x, y, numColumns, numRows);
+        }
+        WritableRaster source = image.getRaster();
+        WritableRaster raster = source.createCompatibleWritableRaster(numColumns, numRows);
+        Object pixel = null;
+        for (int row = 0; row < numRows; ++row) {
+            for (int column = 0; column < numColumns; ++column) {
+                pixel = source.getDataElements(x + column * columnStep, y + row * rowStep, pixel);
+                raster.setDataElements(column, row, pixel);
+            }
+        }
+        return new BufferedImage(image.getColorModel(), raster, image.isAlphaPremultiplied(), null);
+    }
+}
@@ -15,199 +15,95 @@
 package org.codice.imaging.nitf.render;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
 import java.awt.image.IndexColorModel;
 import java.awt.image.WritableRaster;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 import javax.imageio.stream.ImageInputStream;
-import org.codice.imaging.nitf.core.image.ImageCompression;
 import org.codice.imaging.nitf.core.image.ImageRepresentation;
 import org.codice.imaging.nitf.core.image.ImageSegment;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+/**
+ * Block renderer for vector quantization (C4 and M4) compressed images, such as CADRG and ECRG.
+ *
+ * Each block (RPF subframe) is a fixed size run of image codes after the compression lookup tables, so any block can
+ * be decoded without decoding the blocks before it. The lookup tables and block positions are read into a
+ * VectorQuantizationCodebook, which can be shared between renderers for the same segment.
+ */
 class VectorQuantizationBlockRenderer implements BlockRenderer {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(VectorQuantizationBlockRenderer.class);
     private ImageSegment mImageSegment = null;
     private ImageInputStream mImageData = null;
-    private ImageMask mMask = null;
-
-    private int mNumberOfImageRows = 0;
-    private int mNumberOfImageCodesPerRow = 0;
-    private int mImageCodeBitLength = 0;
-    private int mCompressionAlgorithmId = 0;
-    private int mNumberOfCompressionLookupOffsetRecords = 0;
-    private int mNumberOfCompressionParameterOffsetRecords = 0;
-    private int mCompressionLookupOffsetTableOffset = 0;
-    private int mCompressionLookupTableOffsetRecordLength = 0;
+    private VectorQuantizationCodebook mCodebook = null;
 
     private int nextImageBlockToRead = 0;
 
-    private final List<VQCompressionLookupOffsetRecord> mCompressionLookupOffsetRecords = new ArrayList<>();
-
-    private int[][][] mCodebook;
-
     @Override
     public final void setImageSegment(final ImageSegment imageSegment, final ImageInputStream imageInputStream) throws IOException {
+        setImageSegment(imageSegment, imageInputStream, VectorQuantizationCodebook.read(imageSegment, imageInputStream));
+    }
+
+    /**
+     * Configure the renderer with a codebook that has already been read, so blocks can be rendered without reading
+     * the lookup tables again.
+     *
+     * @param imageSegment the image segment to be read
+     * @param imageInputStream the source data to be read from
+     * @param codebook the codebook for the image segment
+     */
+    final void setImageSegment(final ImageSegment imageSegment, final ImageInputStream imageInputStream,
+            final VectorQuantizationCodebook codebook) {
         mImageSegment = imageSegment;
         mImageData = imageInputStream;
-
-        if (mImageSegment.getImageCompression() == ImageCompression.VECTORQUANTIZATIONMASK) {
-            mMask = new ImageMask(mImageSegment, mImageData);
-        }
-        readVQHeader();
+        mCodebook = codebook;
     }
 
     @Override
     public final BufferedImage getNextImageBlock() throws IOException {
-        if ((mImageSegment.getActualBitsPerPixelPerBand() == Byte.SIZE)
-                && (mImageSegment.getNumberOfBitsPerPixelPerBand() == Byte.SIZE)) {
-            if (mImageSegment.getImageRepresentation() == ImageRepresentation.MONOCHROME) {
-                if ((mMask != null) && (mMask.isMaskedBlock(nextImageBlockToRead++, 0))) {
-                   return null;
-                }
-                return getNextImageBlockMono8();
-            } else if (mImageSegment.getImageRepresentation() == ImageRepresentation.RGBLUT) {
-                if ((mMask != null) && (mMask.isMaskedBlock(nextImageBlockToRead++, 0))) {
-                    return null;
-                }
-                return getNextImageBlockRgbLut8();
-            } else {
-                throw new UnsupportedOperationException("Unhandled image representation:" + mImageSegment.getImageRepresentation());
-            }
-        } else {
-            throw new UnsupportedOperationException("Unhandled BitsPerPixelPerBand: "
-                    + mImageSegment.getActualBitsPerPixelPerBand() + " / " + mImageSegment.getNumberOfBitsPerPixelPerBand());
-        }
+        int blockIndex = nextImageBlockToRead++;
+        return getImageBlock(blockIndex / mImageSegment.getNumberOfBlocksPerRow(), blockIndex % mImageSegment.getNumberOfBlocksPerRow());
     }
 
     @Override
     public final BufferedImage getImageBlock(final int rowIndex, final int columnIndex) throws IOException {
-        // TODO: seek to image block location
-        return getNextImageBlock();
+        if ((mImageSegment.getActualBitsPerPixelPerBand() != Byte.SIZE)
+                || (mImageSegment.getNumberOfBitsPerPixelPerBand() != Byte.SIZE)) {
+            throw new UnsupportedOperationException("Unhandled BitsPerPixelPerBand: "
+                    + mImageSegment.getActualBitsPerPixelPerBand() + " / " + mImageSegment.getNumberOfBitsPerPixelPerBand());
+        }
+        int blockIndex = rowIndex * mImageSegment.getNumberOfBlocksPerRow() + columnIndex;
+        if (!mCodebook.isRecorded(blockIndex)) {
+            // Masked blocks are not drawn, so they stay transparent.
+            return null;
+        }
+        BufferedImage img;
+        if (mImageSegment.getImageRepresentation() == ImageRepresentation.MONOCHROME) {
+            img = new BufferedImage((int) mImageSegment.getNumberOfPixelsPerBlockHorizontal(),
+                    (int) mImageSegment.getNumberOfPixelsPerBlockVertical(), BufferedImage.TYPE_BYTE_GRAY);
+        } else if (mImageSegment.getImageRepresentation() == ImageRepresentation.RGBLUT) {
+            img = createRgbLut8Image();
+        } else {
+            throw new UnsupportedOperationException("Unhandled image representation:" + mImageSegment.getImageRepresentation());
+        }
+        WritableRaster imgRaster = img.getRaster();
+        mCodebook.decodeBlock(mImageData, blockIndex, ((DataBufferByte) imgRaster.getDataBuffer()).getData(),
+                ((ComponentSampleModel) imgRaster.getSampleModel()).getScanlineStride(), img.getWidth(), img.getHeight());
+        return img;
     }
 
-    private BufferedImage getNextImageBlockMono8() throws IOException {
-        BufferedImage img = new BufferedImage((int) mImageSegment.getNumberOfPixelsPerBlockHorizontal(),
-                (int) mImageSegment.getNumberOfPixelsPerBlockVertical(), BufferedImage.TYPE_BYTE_GRAY);
-        renderToImage(img);
-        return img;
+    @Override
+    public final boolean supportsRandomAccess() {
+        return true;
     }
 
-    private BufferedImage getNextImageBlockRgbLut8() throws IOException {
+    private BufferedImage createRgbLut8Image() {
         IndexColorModel colourModel = new IndexColorModel(mImageSegment.getActualBitsPerPixelPerBand(),
                                                           mImageSegment.getImageBandZeroBase(0).getNumLUTEntries(),
                                                           mImageSegment.getImageBandZeroBase(0).getLUTZeroBase(0).getEntries(),
                                                           mImageSegment.getImageBandZeroBase(0).getLUTZeroBase(1).getEntries(),
                                                           mImageSegment.getImageBandZeroBase(0).getLUTZeroBase(2).getEntries());
-        BufferedImage img = new BufferedImage((int) mImageSegment.getNumberOfColumns(),
-                (int) mImageSegment.getNumberOfRows(), BufferedImage.TYPE_BYTE_INDEXED, colourModel);
-        renderToImage(img);
-        return img;
+        return new BufferedImage((int) mImageSegment.getNumberOfPixelsPerBlockHorizontal(),
+                (int) mImageSegment.getNumberOfPixelsPerBlockVertical(), BufferedImage.TYPE_BYTE_INDEXED, colourModel);
     }
-
-    private void renderToImage(final BufferedImage img) throws IOException {
-        WritableRaster imgRaster = img.getRaster();
-        for (int r = 0; r < mNumberOfImageRows; ++r) {
-            for (int c = 0; c < mNumberOfImageCodesPerRow; ++c) {
-                int codebookEntry = (int) mImageData.readBits(mImageCodeBitLength);
-                for (int tableIndex = 0; tableIndex < mNumberOfCompressionLookupOffsetRecords; ++tableIndex) {
-                    VQCompressionLookupOffsetRecord record = mCompressionLookupOffsetRecords.get(tableIndex);
-                    int[] codebookValues = mCodebook[tableIndex][codebookEntry];
-                    imgRaster.setPixels(c * mNumberOfCompressionLookupOffsetRecords,
-                            (r * record.getNumberOfValuesPerCompressionLookupRecord()) + tableIndex,
-                            mNumberOfCompressionLookupOffsetRecords,
-                            1,
-                            codebookValues);
-                }
-            }
-        }
-    }
-
-    private void readVQHeader() throws IOException {
-        readImageDisplayParameterSubheader();
-        readCompressionSection();
-    }
-
-    private void readImageDisplayParameterSubheader() throws IOException {
-        mNumberOfImageRows = mImageData.readInt();
-        LOGGER.debug("mNumberOfImageRows:" + mNumberOfImageRows);
-        mNumberOfImageCodesPerRow = mImageData.readInt();
-        LOGGER.debug("mNumberOfImageCodesPerRow: " + mNumberOfImageCodesPerRow);
-        mImageCodeBitLength = mImageData.readUnsignedByte();
-        LOGGER.debug("mImageCodeBitLength:" + mImageCodeBitLength);
-    }
-
-    private void readCompressionSection() throws IOException {
-        readCompressionSectionSubheader();
-        readCompressionLookupSubsection();
-    }
-
-    private void readCompressionSectionSubheader() throws IOException {
-        mCompressionAlgorithmId = mImageData.readUnsignedShort();
-        LOGGER.debug("mCompressionAlgorithmId:" + mCompressionAlgorithmId);
-        mNumberOfCompressionLookupOffsetRecords = mImageData.readUnsignedShort();
-        LOGGER.debug("mNumberOfCompressionLookupOffsetRecords:" + mNumberOfCompressionLookupOffsetRecords);
-        mNumberOfCompressionParameterOffsetRecords = mImageData.readUnsignedShort();
-        LOGGER.debug("mNumberOfCompressionParameterOffsetRecords:" + mNumberOfCompressionParameterOffsetRecords);
-    }
-
-    private void readCompressionLookupSubsection() throws IOException {
-        mCompressionLookupOffsetTableOffset = mImageData.readInt();
-        LOGGER.debug("mCompressionLookupOffsetTableOffset:" + mCompressionLookupOffsetTableOffset);
-        mCompressionLookupTableOffsetRecordLength = mImageData.readUnsignedShort();
-        LOGGER.debug("mCompressionLookupTableOffsetRecordLength:" + mCompressionLookupTableOffsetRecordLength);
-        readCompressionLookupOffsetTable();
-        readCompressionLookupTables();
-    }
-
-    private void readCompressionLookupOffsetTable() throws IOException {
-        readCompressionLookupOffsetRecords();
-    }
-
-    private void readCompressionLookupOffsetRecords() throws IOException {
-        LOGGER.debug("mNumberOfCompressionLookupOffsetRecords:" + mNumberOfCompressionLookupOffsetRecords);
-        for (int i = 0; i < mNumberOfCompressionLookupOffsetRecords; ++i) {
-            VQCompressionLookupOffsetRecord record = new VQCompressionLookupOffsetRecord();
-            record.setCompressionLookupTableId(mImageData.readUnsignedShort());
-            record.setNumberOfCompressionLookupRecords(mImageData.readInt());
-            LOGGER.debug("numberOfCompressionLookupRecords:" + record.getNumberOfCompressionLookupRecords());
-            record.setNumberOfValuesPerCompressionLookupRecord(mImageData.readUnsignedShort());
-            LOGGER.debug("numberOfValuesPerCompressionLookupRecord:" + record.getNumberOfValuesPerCompressionLookupRecord());
-            record.setCompressionLookupValueBitLength(mImageData.readUnsignedShort());
-            LOGGER.debug("compressionLookupValueBitLength:" + record.getCompressionLookupValueBitLength());
-            record.setCompressionLookupTableOffset(mImageData.readInt());
-            mCompressionLookupOffsetRecords.add(record);
-        }
-    }
-
-    private void readCompressionLookupTables() throws IOException {
-        mCodebook = new int[mNumberOfCompressionLookupOffsetRecords][][];
-        for (int compressionLookupTableIndex = 0;
-                compressionLookupTableIndex < mNumberOfCompressionLookupOffsetRecords;
-                ++compressionLookupTableIndex) {
-            VQCompressionLookupOffsetRecord record = mCompressionLookupOffsetRecords.get(compressionLookupTableIndex);
-
-            // Dimension this codebook entry based on the lookup offset record entry
-            mCodebook[compressionLookupTableIndex]
-                    = new int[record.getNumberOfCompressionLookupRecords()][record.getNumberOfValuesPerCompressionLookupRecord()];
-
-            // Read record entries
-            for (int compressionLookupRecordIndex = 0;
-                    compressionLookupRecordIndex < record.getNumberOfCompressionLookupRecords();
-                    ++compressionLookupRecordIndex) {
-                // Read values for this record entry
-                for (int compressionLookupValueIndex = 0;
-                        compressionLookupValueIndex < record.getNumberOfValuesPerCompressionLookupRecord();
-                        ++compressionLookupValueIndex) {
-                    // Stuff it into the codebook.
-                    mCodebook[compressionLookupTableIndex][compressionLookupRecordIndex][compressionLookupValueIndex] =
- (int) mImageData.readBits(record.getCompressionLookupValueBitLength());
-                }
-            }
-        }
-    }
-
 }
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.imageio.stream.ImageInputStream;
+import org.codice.imaging.nitf.core.image.ImageCompression;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.render.datareader.PackedSampleUnpacker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The lookup tables and block positions of a vector quantization (C4 and M4) compressed image segment.
+ *
+ * This is everything in the image data apart from the image codes, so once it has been read, any block can be decoded
+ * by reading just the image codes for that block. Block positions are taken from the image mask, if the mask has a
+ * block mask record, and otherwise the blocks follow the lookup tables in block order.
+ *
+ * The codebook is immutable, so it can be shared between threads.
+ */
+final class VectorQuantizationCodebook {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VectorQuantizationCodebook.class);
+
+    private static final int TWELVE_BIT_CODES = 12;
+
+    private static final int CODE_MASK = 0xFFFF;
+
+    private static final long BLOCK_NOT_RECORDED = -1;
+
+    private final int mNumberOfImageRows;
+    private final int mNumberOfImageCodesPerRow;
+    private final int mImageCodeBitLength;
+
+    /**
+     * The kernel height, which is the number of lookup tables, since each table provides one row of the kernel.
+     */
+    private final int mKernelHeight;
+
+    private final int mKernelWidth;
+
+    /**
+     * The lookup table values, table by table, each table being the values for each record in turn.
+     */
+    private final byte[] mCodebook;
+
+    /**
+     * The index of the first value of each lookup table in mCodebook.
+     */
+    private final int[] mCodebookTableStarts;
+
+    /**
+     * The position of each block in the image data, in bits, or BLOCK_NOT_RECORDED for masked blocks.
+     */
+    private final long[] mBlockBitPositions;
+
+    private VectorQuantizationCodebook(final ImageSegment imageSegment, final ImageInputStream imageData) throws IOException {
+        ImageMask mask = null;
+        if (imageSegment.getImageCompression() == ImageCompression.VECTORQUANTIZATIONMASK) {
+            mask = new ImageMask(imageSegment, imageData);
+        }
+        mNumberOfImageRows = imageData.readInt();
+        LOGGER.debug("numberOfImageRows:" + mNumberOfImageRows);
+        mNumberOfImageCodesPerRow = imageData.readInt();
+        LOGGER.debug("numberOfImageCodesPerRow: " + mNumberOfImageCodesPerRow);
+        mImageCodeBitLength = imageData.readUnsignedByte();
+        LOGGER.debug("imageCodeBitLength:" + mImageCodeBitLength);
+        List<VQCompressionLookupOffsetRecord> records = readCompressionSection(imageData);
+        if (records.isEmpty()) {
+            throw new IOException("VQ image data has no compression lookup tables");
+        }
+        mKernelHeight = records.size();
+        mKernelWidth = records.get(0).getNumberOfValuesPerCompressionLookupRecord();
+        mCodebookTableStarts = new int[records.size()];
+        int codebookLength = 0;
+        for (int i = 0; i < records.size(); ++i) {
+            mCodebookTableStarts[i] = codebookLength;
+            codebookLength += getTableLength(records.get(i));
+        }
+        mCodebook = new byte[codebookLength];
+        readCompressionLookupTables(imageData, records);
+        mBlockBitPositions = calculateBlockPositions(imageSegment, imageData, mask);
+    }
+
+    /**
+     * Read the codebook for an image segment, from the current position in the image data.
+     *
+     * The image data is left positioned after the lookup tables, at the image codes for the first recorded block.
+     *
+     * @param imageSegment the vector quantization compressed image segment.
+     * @param imageData the image data, positioned at the start of the image mask (if any) or the VQ header.
+     * @return the codebook.
+     * @throws IOException if the image data could not be read.
+     */
+    static VectorQuantizationCodebook read(final ImageSegment imageSegment, final ImageInputStream imageData) throws IOException {
+        return new VectorQuantizationCodebook(imageSegment, imageData);
+    }
+
+    /**
+     * Check whether a block is recorded in the image data.
+     *
+     * @param blockIndex the index of the block, in row-major order.
+     * @return true if the block has image codes, or false if the block is masked.
+     */
+    boolean isRecorded(final int blockIndex) {
+        return mBlockBitPositions[blockIndex] != BLOCK_NOT_RECORDED;
+    }
+
+    /**
+     * Decode the image codes for a block into 8 bit pixels.
+     *
+     * @param imageData the image data, which is moved to the block, and is not locked, so the caller must hold the lock.
+     * @param blockIndex the index of the block, in row-major order, which must be recorded.
+     * @param pixels the pixel data of the block image.
+     * @param scanlineStride the number of pixels from one row of the block image to the next.
+     * @param blockWidth the width of the block image.
+     * @param blockHeight the height of the block image.
+     * @throws IOException if the image data could not be read, or the image codes do not fit in the block.
+     */
+    void decodeBlock(final ImageInputStream imageData, final int blockIndex, final byte[] pixels, final int scanlineStride,
+            final int blockWidth, final int blockHeight) throws IOException {
+        if ((mNumberOfImageRows * mKernelHeight > blockHeight) || (mNumberOfImageCodesPerRow * mKernelWidth > blockWidth)) {
+            throw new IOException("VQ image codes do not fit in the image block");
+        }
+        long blockBitPosition = mBlockBitPositions[blockIndex];
+        imageData.seek(blockBitPosition / Byte.SIZE);
+        imageData.setBitOffset((int) (blockBitPosition % Byte.SIZE));
+        short[] imageCodes = readImageCodes(imageData);
+        int codeIndex = 0;
+        for (int r = 0; r < mNumberOfImageRows; ++r) {
+            for (int c = 0; c < mNumberOfImageCodesPerRow; ++c) {
+                int codebookEntry = imageCodes[codeIndex++] & CODE_MASK;
+                int pixelIndex = r * mKernelHeight * scanlineStride + c * mKernelWidth;
+                for (int tableIndex = 0; tableIndex < mKernelHeight; ++tableIndex) {
+                    System.arraycopy(mCodebook, mCodebookTableStarts[tableIndex] + codebookEntry * mKernelWidth,
+                            pixels, pixelIndex, mKernelWidth);
+                    pixelIndex += scanlineStride;
+                }
+            }
+        }
+    }
+
+    private short[] readImageCodes(final ImageInputStream imageData) throws IOException {
+        short[] imageCodes = new short[mNumberOfImageRows * mNumberOfImageCodesPerRow];
+        if (mImageCodeBitLength == TWELVE_BIT_CODES) {
+            PackedSampleUnpacker.read12(imageData, imageCodes, 0, imageCodes.length);
+        } else {
+            for (int i = 0; i < imageCodes.length; ++i) {
+                imageCodes[i] = (short) imageData.readBits(mImageCodeBitLength);
+            }
+        }
+        return imageCodes;
+    }
+
+    /**
+     * Work out where each block starts.
+     *
+     * The image mask block offsets are from the end of the lookup tables. Without a block mask record, every block is
+     * recorded, and each block has the same number of image codes, so the blocks follow each other in block order.
+     */
+    private long[] calculateBlockPositions(final ImageSegment imageSegment, final ImageInputStream imageData, final ImageMask mask)
+            throws IOException {
+        long firstBlockPosition = imageData.getStreamPosition() * Byte.SIZE + imageData.getBitOffset();
+        long blockLengthInBits = (long) mNumberOfImageRows * mNumberOfImageCodesPerRow * mImageCodeBitLength;
+        long[] blockBitPositions = new long[imageSegment.getNumberOfBlocksPerRow() * imageSegment.getNumberOfBlocksPerColumn()];
+        for (int blockIndex = 0; blockIndex < blockBitPositions.length; ++blockIndex) {
+            if ((mask == null) || !mask.hasBlockOffsets()) {
+                blockBitPositions[blockIndex] = firstBlockPosition + blockIndex * blockLengthInBits;
+            } else if (mask.isMaskedBlock(blockIndex, 0)) {
+                blockBitPositions[blockIndex] = BLOCK_NOT_RECORDED;
+            } else {
+                blockBitPositions[blockIndex] = firstBlockPosition + mask.getBlockOffset(blockIndex, 0) * Byte.SIZE;
+            }
+        }
+        return blockBitPositions;
+    }
+
+    private static List<VQCompressionLookupOffsetRecord> readCompressionSection(final ImageInputStream imageData) throws IOException {
+        int compressionAlgorithmId = imageData.readUnsignedShort();
+        LOGGER.debug("compressionAlgorithmId:" + compressionAlgorithmId);
+        int numberOfCompressionLookupOffsetRecords = imageData.readUnsignedShort();
+        LOGGER.debug("numberOfCompressionLookupOffsetRecords:" + numberOfCompressionLookupOffsetRecords);
+        int numberOfCompressionParameterOffsetRecords = imageData.readUnsignedShort();
+        LOGGER.debug("numberOfCompressionParameterOffsetRecords:" + numberOfCompressionParameterOffsetRecords);
+        int compressionLookupOffsetTableOffset = imageData.readInt();
+        LOGGER.debug("compressionLookupOffsetTableOffset:" + compressionLookupOffsetTableOffset);
+        int compressionLookupTableOffsetRecordLength = imageData.readUnsignedShort();
+        LOGGER.debug("compressionLookupTableOffsetRecordLength:" + compressionLookupTableOffsetRecordLength);
+        List<VQCompressionLookupOffsetRecord> records = new ArrayList<>();
+        for (int i = 0; i < numberOfCompressionLookupOffsetRecords; ++i) {
+            VQCompressionLookupOffsetRecord record = new VQCompressionLookupOffsetRecord();
+            record.setCompressionLookupTableId(imageData.readUnsignedShort());
+            record.setNumberOfCompressionLookupRecords(imageData.readInt());
+            LOGGER.debug("numberOfCompressionLookupRecords:" + record.getNumberOfCompressionLookupRecords());
+            record.setNumberOfValuesPerCompressionLookupRecord(imageData.readUnsignedShort());
+            LOGGER.debug("numberOfValuesPerCompressionLookupRecord:" + record.getNumberOfValuesPerCompressionLookupRecord());
+            record.setCompressionLookupValueBitLength(imageData.readUnsignedShort());
+            LOGGER.debug("compressionLookupValueBitLength:" + record.getCompressionLookupValueBitLength());
+            record.setCompressionLookupTableOffset(imageData.readInt());
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static int getTableLength(final VQCompressionLookupOffsetRecord record) {
+        return record.getNumberOfCompressionLookupRecords() * record.getNumberOfValuesPerCompressionLookupRecord();
+    }
+
+    private void readCompressionLookupTables(final ImageInputStream imageData, final List<VQCompressionLookupOffsetRecord> records)
+            throws IOException {
+        for (int tableIndex = 0; tableIndex < records.size(); ++tableIndex) {
+            VQCompressionLookupOffsetRecord record = records.get(tableIndex);
+            int tableStart = mCodebookTableStarts[tableIndex];
+            int tableLength = getTableLength(record);
+            if ((record.getCompressionLookupValueBitLength() == Byte.SIZE) && (imageData.getBitOffset() == 0)) {
+                imageData.readFully(mCodebook, tableStart, tableLength);
+            } else {
+                for (int i = 0; i < tableLength; ++i) {
+                    mCodebook[tableStart + i] = (byte) imageData.readBits(record.getCompressionLookupValueBitLength());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.datareader;
+
+import java.io.IOException;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * IOBulkReaderFunction for 8 and 16 bit samples, optionally shifted left.
+ *
+ * The samples are read with ImageInputStream.readFully(), which is much faster
+ * than reading one sample at a time. If the stream is not at a byte boundary,
+ * this falls back to reading one sample at a time.
+ */
+class ByteAlignedBulkReaderFunction implements IOBulkReaderFunction {
+
+    private static final int BYTE_MASK = 0xFF;
+
+    private static final int SHORT_MASK = 0xFFFF;
+
+    private final int bitsPerSample;
+    private final int bitShift;
+
+    /**
+     * Constructor.
+     *
+     * @param numBitsPerSample the number of bits per sample, which must be 8 or 16.
+     * @param shift the number of bits to shift each sample value to the left.
+     */
+    ByteAlignedBulkReaderFunction(final int numBitsPerSample, final int shift) {
+        this.bitsPerSample = numBitsPerSample;
+        this.bitShift = shift;
+    }
+
+    @Override
+    public void apply(final ImageInputStream imageInputStream, final int[] samples, final int numSamples) throws IOException {
+        if (imageInputStream.getBitOffset() != 0) {
+            for (int i = 0; i < numSamples; ++i) {
+                samples[i] = (int) (imageInputStream.readBits(bitsPerSample) << bitShift);
+            }
+        } else if (bitsPerSample == Byte.SIZE) {
+            byte[] bytes = new byte[numSamples];
+            imageInputStream.readFully(bytes);
+            for (int i = 0; i < numSamples; ++i) {
+                samples[i] = (bytes[i] & BYTE_MASK) << bitShift;
+            }
+        } else {
+            short[] shorts = new short[numSamples];
+            imageInputStream.readFully(shorts, 0, numSamples);
+            for (int i = 0; i < numSamples; ++i) {
+                samples[i] = (shorts[i] & SHORT_MASK) << bitShift;
+            }
+        }
+    }
+}
@@ -40,8 +40,7 @@ public final class DataReaderFactory {
      * reader could not be found.
      */
     public static IOReaderFunction forImageSegment(final ImageSegment segment) {
-        if ((segment.getActualBitsPerPixelPerBand() != segment.getNumberOfBitsPerPixelPerBand())
-                && (segment.getPixelJustification() == PixelJustification.RIGHT)) {
+        if (requiresBitShift(segment)) {
             return getBitshiftReader(segment);
         }
         switch (segment.getNumberOfBitsPerPixelPerBand()) {
@@ -58,6 +57,66 @@ public final class DataReaderFactory {
         }
     }
 
+    /**
+     * Get an appropriate bulk data reader function for the specified image segment.
+     *
+     * In this context, the reader gets the data values for a run of consecutive
+     * samples, where each sample is the value for a single pixel for a single band.
+     *
+     * @param segment the image segment specifying the image characteristics to
+     * be read.
+     * @return a bulk reader for the segment data pixels, or null if an appropriate
+     * reader could not be found.
+     */
+    public static IOBulkReaderFunction bulkForImageSegment(final ImageSegment segment) {
+        int numBitsPerPixelPerBand = segment.getNumberOfBitsPerPixelPerBand();
+        if ((numBitsPerPixelPerBand == Byte.SIZE) || (numBitsPerPixelPerBand == Short.SIZE)) {
+            return new ByteAlignedBulkReaderFunction(numBitsPerPixelPerBand, getBitShift(segment, numBitsPerPixelPerBand));
+        } else if (numBitsPerPixelPerBand == 1) {
+            return new PackedBulkReaderFunction(1, 0);
+        } else if (numBitsPerPixelPerBand == TWELVE_BIT_IMAGE) {
+            // Same scaling as Bitshift16IOReaderFunction, so values are in the top bits of a 16 bit sample.
+            return new PackedBulkReaderFunction(TWELVE_BIT_IMAGE, getSixteenBitScalingShift(segment));
+        }
+        IOReaderFunction readerFunction = forImageSegment(segment);
+        if (readerFunction == null) {
+            return null;
+        }
+        return (imageInputStream, samples, numSamples) -> {
+            for (int i = 0; i < numSamples; ++i) {
+                samples[i] = (Integer) readerFunction.apply(imageInputStream);
+            }
+        };
+    }
+
+    /**
+     * Check whether the sample values for the specified image segment need to be shifted after reading.
+     *
+     * This is the case where the actual bits per pixel is less than the number of bits per pixel, and the pixel values
+     * are right justified. Otherwise the sample values can be used as they are read.
+     *
+     * @param segment the image segment specifying the image characteristics to be read.
+     * @return true if the sample values need to be shifted, otherwise false.
+     */
+    public static boolean requiresBitShift(final ImageSegment segment) {
+        return (segment.getActualBitsPerPixelPerBand() != segment.getNumberOfBitsPerPixelPerBand())
+                && (segment.getPixelJustification() == PixelJustification.RIGHT);
+    }
+
+    private static int getBitShift(final ImageSegment segment, final int numBitsPerSample) {
+        if (requiresBitShift(segment)) {
+            return numBitsPerSample - segment.getActualBitsPerPixelPerBand();
+        }
+        return 0;
+    }
+
+    private static int getSixteenBitScalingShift(final ImageSegment segment) {
+        if (segment.getPixelJustification() == PixelJustification.RIGHT) {
+            return Short.SIZE - segment.getActualBitsPerPixelPerBand();
+        }
+        return Short.SIZE - segment.getNumberOfBitsPerPixelPerBand();
+    }
+
     private static IOReaderFunction getBitshiftReader(final ImageSegment segment) {
         if (segment.getNumberOfBitsPerPixelPerBand() <= Byte.SIZE) {
             return new Bitshift8IOReaderFunction(segment);
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.datareader;
+
+import java.io.IOException;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Interface for reading a run of samples from an ImageInputStream.
+ *
+ * This is the bulk equivalent of IOReaderFunction. Implementations read a
+ * number of consecutive samples (each being the data for a single pixel for a
+ * single band), and store the values in a caller-provided array, avoiding the
+ * per-sample method call and boxing.
+ */
+@FunctionalInterface
+public interface IOBulkReaderFunction {
+
+    /**
+     * Read consecutive pixel band samples.
+     *
+     * @param imageInputStream the ImageInputStream to read from.
+     * @param samples the array to store the sample values into, starting at index 0.
+     * @param numSamples the number of samples to read.
+     * @throws IOException if reading fails.
+     */
+    void apply(ImageInputStream imageInputStream, int[] samples, int numSamples) throws IOException;
+}
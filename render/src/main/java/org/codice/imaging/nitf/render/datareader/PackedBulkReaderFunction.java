@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.datareader;
+
+import java.io.IOException;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * IOBulkReaderFunction for packed 1 and 12 bit samples, optionally shifted left.
+ *
+ * The samples are read and converted in bulk using PackedSampleUnpacker.
+ */
+class PackedBulkReaderFunction implements IOBulkReaderFunction {
+
+    private static final int TWELVE_BIT_MASK = 0xFFF;
+
+    private final int bitsPerSample;
+    private final int bitShift;
+
+    /**
+     * Constructor.
+     *
+     * @param numBitsPerSample the number of bits per sample, which must be 1 or 12.
+     * @param shift the number of bits to shift each sample value to the left.
+     */
+    PackedBulkReaderFunction(final int numBitsPerSample, final int shift) {
+        this.bitsPerSample = numBitsPerSample;
+        this.bitShift = shift;
+    }
+
+    @Override
+    public void apply(final ImageInputStream imageInputStream, final int[] samples, final int numSamples) throws IOException {
+        if (bitsPerSample == 1) {
+            byte[] bits = new byte[numSamples];
+            PackedSampleUnpacker.read1(imageInputStream, bits, 0, numSamples);
+            for (int i = 0; i < numSamples; ++i) {
+                samples[i] = bits[i] << bitShift;
+            }
+        } else {
+            short[] shorts = new short[numSamples];
+            PackedSampleUnpacker.read12(imageInputStream, shorts, 0, numSamples);
+            for (int i = 0; i < numSamples; ++i) {
+                samples[i] = (shorts[i] & TWELVE_BIT_MASK) << bitShift;
+            }
+        }
+    }
+}
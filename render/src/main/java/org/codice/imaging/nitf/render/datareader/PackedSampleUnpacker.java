@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.datareader;
+
+import java.io.IOException;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Bulk conversion of packed 1 bit and 12 bit samples.
+ *
+ * NITF packs samples that are not a multiple of 8 bits without padding, most
+ * significant bit first. Reading those samples with ImageInputStream.readBits()
+ * costs a method call and a bit of bookkeeping per sample. These methods work
+ * on a run of samples that has already been read into a byte array: 1 bit
+ * samples are expanded a byte at a time through a lookup table, and 12 bit
+ * samples are converted two at a time from each three bytes.
+ *
+ * The stream based methods read the packed bytes with a single readFully(),
+ * and leave the stream at the bit following the last sample, so they can be
+ * mixed with other reads.
+ */
+public final class PackedSampleUnpacker {
+
+    private static final int TWELVE_BITS = 12;
+
+    private static final int BYTE_MASK = 0xFF;
+
+    private static final int NIBBLE_MASK = 0x0F;
+
+    private static final int NIBBLE_SIZE = 4;
+
+    private static final int TWELVE_BIT_MASK = 0xFFF;
+
+    private static final int BYTES_PER_SAMPLE_PAIR = 3;
+
+    private static final int WINDOW_SIZE = BYTES_PER_SAMPLE_PAIR * Byte.SIZE;
+
+    private static final int NUM_BYTE_VALUES = 256;
+
+    /**
+     * The eight 1 bit samples for each possible byte value, most significant bit first.
+     */
+    private static final byte[] BIT_TABLE = new byte[NUM_BYTE_VALUES * Byte.SIZE];
+
+    static {
+        for (int value = 0; value < NUM_BYTE_VALUES; ++value) {
+            for (int bit = 0; bit < Byte.SIZE; ++bit) {
+                BIT_TABLE[value * Byte.SIZE + bit] = (byte) ((value >> (Byte.SIZE - 1 - bit)) & 1);
+            }
+        }
+    }
+
+    private PackedSampleUnpacker() {
+    }
+
+    /**
+     * Convert packed 1 bit samples into one byte per sample.
+     *
+     * @param packed the packed sample data.
+     * @param firstBit the offset in bits of the first sample in the packed data.
+     * @param samples the array to store the sample values (0 or 1) into.
+     * @param offset the index in samples to store the first value at.
+     * @param numSamples the number of samples to convert.
+     */
+    public static void unpack1(final byte[] packed, final int firstBit, final byte[] samples, final int offset, final int numSamples) {
+        int byteIndex = firstBit / Byte.SIZE;
+        int bitShift = firstBit % Byte.SIZE;
+        int sampleIndex = offset;
+        int remaining = numSamples;
+        while (remaining > 0) {
+            int value = (packed[byteIndex] << bitShift) & BYTE_MASK;
+            if ((bitShift != 0) && (remaining > Byte.SIZE - bitShift)) {
+                value |= (packed[byteIndex + 1] & BYTE_MASK) >> (Byte.SIZE - bitShift);
+            }
+            int count = Math.min(remaining, Byte.SIZE);
+            System.arraycopy(BIT_TABLE, value * Byte.SIZE, samples, sampleIndex, count);
+            sampleIndex += count;
+            remaining -= count;
+            byteIndex++;
+        }
+    }
+
+    /**
+     * Convert packed 12 bit samples into one short per sample.
+     *
+     * @param packed the packed sample data.
+     * @param firstBit the offset in bits of the first sample in the packed data.
+     * @param samples the array to store the sample values (0 to 4095) into.
+     * @param offset the index in samples to store the first value at.
+     * @param numSamples the number of samples to convert.
+     */
+    public static void unpack12(final byte[] packed, final int firstBit, final short[] samples, final int offset, final int numSamples) {
+        if (firstBit % Byte.SIZE != 0) {
+            unpackUnaligned12(packed, firstBit, samples, offset, numSamples);
+            return;
+        }
+        int byteIndex = firstBit / Byte.SIZE;
+        int sampleIndex = offset;
+        int end = offset + numSamples - 1;
+        while (sampleIndex < end) {
+            int b0 = packed[byteIndex] & BYTE_MASK;
+            int b1 = packed[byteIndex + 1] & BYTE_MASK;
+            int b2 = packed[byteIndex + 2] & BYTE_MASK;
+            samples[sampleIndex] = (short) ((b0 << NIBBLE_SIZE) | (b1 >> NIBBLE_SIZE));
+            samples[sampleIndex + 1] = (short) (((b1 & NIBBLE_MASK) << Byte.SIZE) | b2);
+            sampleIndex += 2;
+            byteIndex += BYTES_PER_SAMPLE_PAIR;
+        }
+        if (sampleIndex == end) {
+            samples[sampleIndex] = (short) (((packed[byteIndex] & BYTE_MASK) << NIBBLE_SIZE) | ((packed[byteIndex + 1] & BYTE_MASK) >> NIBBLE_SIZE));
+        }
+    }
+
+    private static void unpackUnaligned12(final byte[] packed, final int firstBit, final short[] samples, final int offset,
+            final int numSamples) {
+        int bit = firstBit;
+        for (int i = 0; i < numSamples; ++i) {
+            int byteIndex = bit / Byte.SIZE;
+            int window = ((packed[byteIndex] & BYTE_MASK) << Short.SIZE) | ((packed[byteIndex + 1] & BYTE_MASK) << Byte.SIZE);
+            if (byteIndex + 2 < packed.length) {
+                window |= packed[byteIndex + 2] & BYTE_MASK;
+            }
+            samples[offset + i] = (short) ((window >> (WINDOW_SIZE - TWELVE_BITS - bit % Byte.SIZE)) & TWELVE_BIT_MASK);
+            bit += TWELVE_BITS;
+        }
+    }
+
+    /**
+     * Read packed 1 bit samples from a stream, starting at the current bit offset.
+     *
+     * @param imageInputStream the stream to read from.
+     * @param samples the array to store the sample values (0 or 1) into.
+     * @param offset the index in samples to store the first value at.
+     * @param numSamples the number of samples to read.
+     * @throws IOException if the samples could not be read.
+     */
+    public static void read1(final ImageInputStream imageInputStream, final byte[] samples, final int offset, final int numSamples)
+            throws IOException {
+        int firstBit = imageInputStream.getBitOffset();
+        byte[] packed = readPacked(imageInputStream, firstBit, numSamples);
+        unpack1(packed, firstBit, samples, offset, numSamples);
+    }
+
+    /**
+     * Read packed 12 bit samples from a stream, starting at the current bit offset.
+     *
+     * @param imageInputStream the stream to read from.
+     * @param samples the array to store the sample values (0 to 4095) into.
+     * @param offset the index in samples to store the first value at.
+     * @param numSamples the number of samples to read.
+     * @throws IOException if the samples could not be read.
+     */
+    public static void read12(final ImageInputStream imageInputStream, final short[] samples, final int offset, final int numSamples)
+            throws IOException {
+        int firstBit = imageInputStream.getBitOffset();
+        byte[] packed = readPacked(imageInputStream, firstBit, (long) numSamples * TWELVE_BITS);
+        unpack12(packed, firstBit, samples, offset, numSamples);
+    }
+
+    private static byte[] readPacked(final ImageInputStream imageInputStream, final int firstBit, final long numBits) throws IOException {
+        long totalBits = firstBit + numBits;
+        byte[] packed = new byte[(int) ((totalBits + Byte.SIZE - 1) / Byte.SIZE)];
+        imageInputStream.readFully(packed);
+        int endBit = (int) (totalBits % Byte.SIZE);
+        if (endBit != 0) {
+            // The last byte is only partly used, so step back into it.
+            imageInputStream.seek(imageInputStream.getStreamPosition() - 1);
+            imageInputStream.setBitOffset(endBit);
+        }
+        return packed;
+    }
+}
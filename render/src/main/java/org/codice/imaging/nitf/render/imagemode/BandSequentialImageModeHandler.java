@@ -16,19 +16,29 @@
 package org.codice.imaging.nitf.render.imagemode;
 
 import java.awt.Graphics2D;
-import java.awt.image.DataBuffer;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
 import javax.imageio.stream.ImageInputStream;
 import org.codice.imaging.nitf.core.image.ImageMode;
 import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.render.DecodedBlockCache;
 import org.codice.imaging.nitf.render.ImageMask;
+import org.codice.imaging.nitf.render.SampleGrid;
 import org.codice.imaging.nitf.render.imagerep.ImageRepresentationHandler;
 
 class BandSequentialImageModeHandler extends BaseImageModeHandler implements ImageModeHandler {
 
-    BandSequentialImageModeHandler(final ImageRepresentationHandler imageRepresentationHandler) {
+    BandSequentialImageModeHandler(final ImageRepresentationHandler imageRepresentationHandler, final Executor blockExecutor,
+            final DecodedBlockCache cache, final int[] bands) {
         checkNull(imageRepresentationHandler, "imageRepresentationHandler");
         this.imageRepresentationHandler = imageRepresentationHandler;
+        this.executor = blockExecutor;
+        this.blockCache = cache;
+        this.selectedBands = bands;
     }
 
     /**
@@ -37,6 +47,14 @@ class BandSequentialImageModeHandler extends BaseImageModeHandler implements Ima
      */
     @Override
     public void handleImage(final ImageSegment imageSegment, final Graphics2D targetImage) throws IOException {
+        handleImage(imageSegment, targetImage, (SampleGrid) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void handleImage(final ImageSegment imageSegment, final Graphics2D targetImage, final SampleGrid grid) throws IOException {
 
         checkNull(imageSegment, "imageSegment");
         checkNull(targetImage, "targetImage");
@@ -44,34 +62,129 @@ class BandSequentialImageModeHandler extends BaseImageModeHandler implements Ima
 
         final ImageMask imageMask = getImageMask(imageSegment);
 
-        ImageBlockMatrix matrix = new ImageBlockMatrix(imageSegment, ()
-                -> imageRepresentationHandler.createBufferedImage((int) imageSegment.getNumberOfPixelsPerBlockHorizontal(),
-                (int) imageSegment.getNumberOfPixelsPerBlockVertical()));
+        final boolean caching = isCaching(grid);
+        ImageBlockMatrix matrix = new ImageBlockMatrix(imageSegment, imageRepresentationHandler::createBufferedImage, grid, caching);
 
-        for (int bandIndex = 0; bandIndex < imageSegment.getNumBands(); bandIndex++) {
-            final int index = bandIndex;
+        readBlocks(matrix, imageSegment, imageMask, caching, (executor != null) || (grid != null) || caching || (selectedBands != null));
 
-            matrix.forEachBlock(block -> {
-                if (!imageMask.isMaskedBlock(block.getBlockIndex(), index)) {
-                    readBlock(block, imageSegment.getData(), index);
-                    applyMask(block, imageMask);
+        matrix.forEachBlock((block) -> {
+            if (block.intersects()) {
+                if (caching) {
+                    cacheBlock(block, imageSegment);
                 }
-            });
+                block.render(targetImage, true);
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferedImage decodeBlock(final ImageSegment imageSegment, final ImageMask imageMask, final int blockRow,
+            final int blockColumn) throws IOException {
+        checkNull(imageSegment, "imageSegment");
+        checkNull(imageMask, "imageMask");
+        checkImageMode(imageSegment);
+
+        final ImageBlock block = createSingleBlock(imageSegment, blockRow, blockColumn);
+        final int blockIndex = block.getBlockIndex();
+        final long bitsPerBlockBand = imageSegment.getNumberOfPixelsPerBlockHorizontal() * imageSegment.getNumberOfPixelsPerBlockVertical()
+                * imageSegment.getNumberOfBitsPerPixelPerBand();
+
+        for (int bandIndex = 0; bandIndex < imageSegment.getNumBands(); bandIndex++) {
+            if (imageMask.isBlockPresent(blockIndex, bandIndex)) {
+                final long bitOffset = imageMask.getBlockBitOffset(blockIndex, bandIndex);
+                readBlock(block, imageSegment,
+                        readBitRange(imageSegment.getData(), imageMask.getBlockDataOffset(), bitOffset, bitsPerBlockBand), bandIndex);
+                applyMask(block, imageMask);
+            }
         }
+        return block.getOrCreateImage();
+    }
 
-        matrix.forEachBlock((block) -> block.render(targetImage, true));
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void handleImage(final ImageSegment imageSegment, final WritableRaster target) throws IOException {
+        checkNull(imageSegment, "imageSegment");
+        checkNull(target, "target");
+        checkImageMode(imageSegment);
+
+        final ImageMask imageMask = getImageMask(imageSegment);
+        ImageBlockMatrix matrix = new ImageBlockMatrix(imageSegment, imageRepresentationHandler::createBufferedImage, target);
+        readBlocks(matrix, imageSegment, imageMask, false,
+                (executor != null) || !coversImage(target, imageSegment) || (selectedBands != null));
     }
 
-    private void readBlock(final ImageBlock block, final ImageInputStream imageInputStream, final int bandIndex) {
+    private void readBlocks(final ImageBlockMatrix matrix, final ImageSegment imageSegment, final ImageMask imageMask,
+            final boolean caching, final boolean preferOffsets) throws IOException {
+        if (preferOffsets && canReadBlocksAtOffsets(imageSegment, 1)) {
+            readBlocksAtOffsets(matrix, imageSegment, imageMask, caching);
+        } else {
+            for (int bandIndex = 0; bandIndex < imageSegment.getNumBands(); bandIndex++) {
+                final int index = bandIndex;
+
+                matrix.forEachBlock(block -> {
+                    if (imageMask.isBlockPresent(block.getBlockIndex(), index)) {
+                        readBlock(block, imageSegment, imageSegment.getData(), index);
+                        if (block.intersects()) {
+                            applyMask(block, imageMask);
+                        } else {
+                            block.dispose();
+                        }
+                    }
+                });
+            }
+        }
+    }
 
-        final DataBuffer data = block.getDataBuffer();
+    private void readBlocksAtOffsets(final ImageBlockMatrix matrix, final ImageSegment imageSegment, final ImageMask imageMask,
+            final boolean caching) throws IOException {
+        final ImageInputStream data = imageSegment.getData();
+        final int numBands = imageSegment.getNumBands();
+        final int bytesPerBlockBand = (int) (imageSegment.getNumberOfPixelsPerBlockHorizontal()
+                * imageSegment.getNumberOfPixelsPerBlockVertical() * imageSegment.getNumberOfBitsPerPixelPerBand() / Byte.SIZE);
+        final List<ImageBlock> blocks = new ArrayList<>();
+        matrix.forEachBlock(blocks::add);
+        final long blockDataStart = data.getStreamPosition();
+        long blockDataEnd = blockDataStart;
+        for (ImageBlock block : blocks) {
+            for (int bandIndex = 0; bandIndex < numBands; bandIndex++) {
+                if (imageMask.isBlockPresent(block.getBlockIndex(), bandIndex)) {
+                    final long blockOffset = imageMask.getBlockOffset(block.getBlockIndex(), bandIndex);
+                    blockDataEnd = Math.max(blockDataEnd, blockDataStart + blockOffset + bytesPerBlockBand);
+                }
+            }
+        }
+        // All bands of one block are decoded by the same task, since they update the same pixels.
+        List<BlockTask> tasks = new ArrayList<>();
+        for (int i = 0; i < blocks.size(); i++) {
+            final ImageBlock block = blocks.get(i);
+            if (!block.intersects() || (caching && loadCachedBlock(block, imageSegment))) {
+                continue;
+            }
+            tasks.add(() -> {
+                for (int bandIndex = 0; bandIndex < numBands; bandIndex++) {
+                    // Band planes that are not rendered are not read at all.
+                    if (imageMask.isBlockPresent(block.getBlockIndex(), bandIndex) && imageRepresentationHandler.isBandUsed(bandIndex)) {
+                        final long blockOffset = imageMask.getBlockOffset(block.getBlockIndex(), bandIndex);
+                        readBlock(block, imageSegment, readRange(data, blockDataStart + blockOffset, bytesPerBlockBand), bandIndex);
+                        applyMask(block, imageMask);
+                    }
+                }
+            });
+        }
+        runBlockTasks(tasks);
+        data.seek(blockDataEnd);
+    }
 
+    private void readBlock(final ImageBlock block, final ImageSegment imageSegment, final ImageInputStream imageInputStream,
+            final int bandIndex) {
         try {
             for (int row = 0; row < block.getHeight(); row++) {
-                for (int column = 0; column < block.getWidth(); column++) {
-                    int i = row * block.getWidth() + column;
-                    imageRepresentationHandler.renderPixelBand(data, i, imageInputStream, bandIndex);
-                }
+                readRow(block, row, imageSegment, imageInputStream, bandIndex, 1);
             }
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -14,11 +14,27 @@
  */
 package org.codice.imaging.nitf.render.imagemode;
 
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
 import org.codice.imaging.nitf.core.image.ImageCompression;
 import org.codice.imaging.nitf.core.image.ImageMode;
 import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.render.DecodedBlockCache;
 import org.codice.imaging.nitf.render.ImageMask;
+import org.codice.imaging.nitf.render.SampleGrid;
 import org.codice.imaging.nitf.render.imagerep.ImageRepresentationHandler;
 
 abstract class BaseImageModeHandler implements ImageModeHandler {
@@ -26,6 +42,34 @@ abstract class BaseImageModeHandler implements ImageModeHandler {
 
     protected ImageRepresentationHandler imageRepresentationHandler;
 
+    /**
+     * The executor to decode blocks with, or null to decode blocks sequentially on the calling thread.
+     */
+    protected Executor executor;
+
+    /**
+     * The cache of decoded blocks, or null if blocks are not cached.
+     */
+    protected DecodedBlockCache blockCache;
+
+    /**
+     * The bands selected for rendering, which decoded blocks are cached under, or null for the default bands.
+     */
+    protected int[] selectedBands;
+
+    /**
+     * A unit of block decoding work.
+     */
+    @FunctionalInterface
+    protected interface BlockTask {
+        /**
+         * Decode the block.
+         *
+         * @throws IOException if the block data could not be read.
+         */
+        void run() throws IOException;
+    }
+
     abstract ImageMode getSupportedImageMode();
 
     abstract String getHandlerName();
@@ -47,19 +91,264 @@ abstract class BaseImageModeHandler implements ImageModeHandler {
 
     protected ImageMask getImageMask(final ImageSegment imageSegment) throws IOException {
         if (ImageCompression.NOTCOMPRESSEDMASK.equals(imageSegment.getImageCompression())) {
-            return new ImageMask(imageSegment, imageSegment.getData());
+            final ImageInputStream data = imageSegment.getData();
+            final long maskStart = data.getStreamPosition();
+            final ImageMask imageMask = new ImageMask(imageSegment, data);
+            data.seek(maskStart + imageMask.getBlockDataOffset());
+            return imageMask;
         } else {
             return new ImageMask(imageSegment);
         }
     }
 
     protected void applyMask(final ImageBlock block, final ImageMask imageMask) {
-        if ((imageMask != null) && (imageMask.hasPixelMasks())) {
-            final int dataSize = block.getWidth() * block.getHeight();
+        // The pad pixel mask records which blocks have no pad pixels, so those blocks are not scanned.
+        if ((imageMask != null) && imageMask.hasPadPixels(block.getBlockIndex())) {
+            final DataBuffer data = block.getDataBuffer();
+            final int firstColumn = block.getFirstDecodedColumn();
+            final int numColumns = block.getNumDecodedColumns();
+
+            for (int row = 0; row < block.getHeight(); ++row) {
+                final int decodedRow = block.getDecodedRow(row);
+                if (decodedRow < 0) {
+                    continue;
+                }
+                imageRepresentationHandler.renderPadPixels(imageMask, data, block.getPixelIndex(decodedRow, firstColumn), numColumns);
+            }
+        }
+    }
 
-            for (int pixelIndex = 0; pixelIndex < dataSize; ++pixelIndex) {
-                imageRepresentationHandler.renderPadPixel(imageMask, block.getDataBuffer(), pixelIndex);
+    /**
+     * Check whether decoded blocks should be looked up in, and added to, the block cache.
+     *
+     * Only full resolution blocks are cached, so subsampled rendering does not use the cache.
+     *
+     * @param grid the samples being rendered, or null if the whole image is being rendered.
+     * @return true if there is a block cache and the blocks will be decoded at full resolution, otherwise false.
+     */
+    protected boolean isCaching(final SampleGrid grid) {
+        return (blockCache != null) && ((grid == null) || (grid.getSubsampling() == 1));
+    }
+
+    /**
+     * Use the cached image for a block, if there is one.
+     *
+     * @param block the block to look up.
+     * @param imageSegment the image segment that the block is part of.
+     * @return true if the block image was found in the cache, otherwise false.
+     */
+    protected boolean loadCachedBlock(final ImageBlock block, final ImageSegment imageSegment) {
+        BufferedImage image = blockCache.get(imageSegment, block.getRowIndex(), block.getColumnIndex(), selectedBands);
+        if (image == null) {
+            return false;
+        }
+        block.setImage(image);
+        return true;
+    }
+
+    /**
+     * Add the decoded image for a block to the cache.
+     *
+     * @param block the decoded block, which is not added if it has no image (e.g. it was masked).
+     * @param imageSegment the image segment that the block is part of.
+     */
+    protected void cacheBlock(final ImageBlock block, final ImageSegment imageSegment) {
+        if (block.getImage() != null) {
+            blockCache.put(imageSegment, block.getRowIndex(), block.getColumnIndex(), selectedBands, block.getImage());
+        }
+    }
+
+    /**
+     * Read one row of pixels in a block.
+     *
+     * If the block does not need the row (because it is outside the sample grid), the row data is skipped over where
+     * it ends on a byte boundary, and otherwise decoded into a scratch buffer and discarded.
+     *
+     * @param block the block to read into.
+     * @param row the row within the block.
+     * @param imageSegment the image segment that the block is part of.
+     * @param imageInputStream the stream to read from, positioned at the start of the row data.
+     * @param firstBandIndex the index of the first band in the row data.
+     * @param numInterleavedBands the number of bands in the row data.
+     * @throws IOException if the row data could not be read.
+     */
+    protected void readRow(final ImageBlock block, final int row, final ImageSegment imageSegment, final ImageInputStream imageInputStream,
+            final int firstBandIndex, final int numInterleavedBands) throws IOException {
+        final int decodedRow = block.getDecodedRow(row);
+        if ((decodedRow >= 0) && isAnyBandUsed(firstBandIndex, numInterleavedBands)) {
+            // Pixels on either side of the decoded columns are read into the scratch buffer and discarded.
+            final int firstColumn = block.getFirstDecodedColumn();
+            final int endColumn = firstColumn + block.getNumDecodedColumns();
+            if (firstColumn > 0) {
+                imageRepresentationHandler.renderPixelBands(block.getScratchRowBuffer(), 0, firstColumn, imageInputStream,
+                        firstBandIndex, numInterleavedBands);
+            }
+            imageRepresentationHandler.renderPixelBands(block.getDataBuffer(), block.getPixelIndex(decodedRow, firstColumn),
+                    endColumn - firstColumn, imageInputStream, firstBandIndex, numInterleavedBands);
+            if (endColumn < block.getWidth()) {
+                imageRepresentationHandler.renderPixelBands(block.getScratchRowBuffer(), 0, block.getWidth() - endColumn, imageInputStream,
+                        firstBandIndex, numInterleavedBands);
+            }
+            return;
+        }
+        final long bitsPerRow = (long) block.getWidth() * numInterleavedBands * imageSegment.getNumberOfBitsPerPixelPerBand();
+        if ((bitsPerRow % Byte.SIZE == 0) && (imageInputStream.getBitOffset() == 0)) {
+            imageInputStream.skipBytes(bitsPerRow / Byte.SIZE);
+        } else {
+            long bitPosition = imageInputStream.getBitOffset() + bitsPerRow;
+            imageInputStream.seek(imageInputStream.getStreamPosition() + bitPosition / Byte.SIZE);
+            imageInputStream.setBitOffset((int) (bitPosition % Byte.SIZE));
+        }
+    }
+
+    /**
+     * Check whether any of a range of bands is rendered.
+     *
+     * @param firstBandIndex the index of the first band.
+     * @param numBands the number of bands.
+     * @return true if the image representation uses any of the bands, otherwise false.
+     */
+    protected boolean isAnyBandUsed(final int firstBandIndex, final int numBands) {
+        for (int bandIndex = firstBandIndex; bandIndex < firstBandIndex + numBands; bandIndex++) {
+            if (imageRepresentationHandler.isBandUsed(bandIndex)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check whether the blocks in this image segment can be read from computed offsets.
+     *
+     * This is required to decode blocks in parallel, or to decode only some of the blocks. It requires that each unit
+     * of block data starts on a byte boundary.
+     *
+     * @param imageSegment the image segment to check.
+     * @param numBandsPerUnit the number of bands in each separately stored unit of block data.
+     * @return true if blocks can be read from computed offsets, otherwise false.
+     */
+    protected boolean canReadBlocksAtOffsets(final ImageSegment imageSegment, final int numBandsPerUnit) {
+        long bitsPerUnit = imageSegment.getNumberOfPixelsPerBlockHorizontal() * imageSegment.getNumberOfPixelsPerBlockVertical()
+                * numBandsPerUnit * imageSegment.getNumberOfBitsPerPixelPerBand();
+        return (bitsPerUnit % Byte.SIZE == 0) && (bitsPerUnit / Byte.SIZE <= Integer.MAX_VALUE);
+    }
+
+    /**
+     * Check whether a target raster covers the whole image.
+     *
+     * @param target the raster, in image pixel coordinates.
+     * @param imageSegment the image segment being decoded.
+     * @return true if every pixel of the image is in the raster, otherwise false.
+     */
+    protected static boolean coversImage(final WritableRaster target, final ImageSegment imageSegment) {
+        return target.getBounds().contains(new Rectangle(0, 0, (int) imageSegment.getNumberOfColumns(),
+                (int) imageSegment.getNumberOfRows()));
+    }
+
+    /**
+     * Create a block that is decoded on its own, rather than as part of a block matrix.
+     *
+     * @param imageSegment the image segment that the block is part of.
+     * @param blockRow the zero-based row index of the block.
+     * @param blockColumn the zero-based column index of the block.
+     * @return a block that decodes every row.
+     */
+    protected ImageBlock createSingleBlock(final ImageSegment imageSegment, final int blockRow, final int blockColumn) {
+        Dimension blockSize = new Dimension((int) imageSegment.getNumberOfPixelsPerBlockHorizontal(),
+                (int) imageSegment.getNumberOfPixelsPerBlockVertical());
+        return new ImageBlock(blockRow, blockColumn, imageSegment.getNumberOfBlocksPerRow(), blockSize,
+                imageRepresentationHandler::createBufferedImage, null, true);
+    }
+
+    /**
+     * Read a range of bits from the image data into memory.
+     *
+     * @param source the shared image data stream.
+     * @param blockDataStart the position of the first block in the stream.
+     * @param bitOffset the offset in bits of the range from the first block.
+     * @param numBits the number of bits to read.
+     * @return a stream for the data, positioned at the first bit in the range.
+     * @throws IOException if the data could not be read.
+     */
+    protected static ImageInputStream readBitRange(final ImageInputStream source, final long blockDataStart, final long bitOffset,
+            final long numBits) throws IOException {
+        int firstBit = (int) (bitOffset % Byte.SIZE);
+        int numBytes = (int) ((firstBit + numBits + Byte.SIZE - 1) / Byte.SIZE);
+        ImageInputStream range = readRange(source, blockDataStart + bitOffset / Byte.SIZE, numBytes);
+        range.setBitOffset(firstBit);
+        return range;
+    }
+
+    /**
+     * Read part of the image data into memory, so it can be decoded independently of the shared stream.
+     *
+     * This is a positioned read: the shared stream is locked while the range is read, and its position is restored
+     * afterwards.
+     *
+     * @param source the shared image data stream.
+     * @param offset the offset of the data in the stream.
+     * @param length the number of bytes to read.
+     * @return a stream for the data in the specified range.
+     * @throws IOException if the data could not be read.
+     */
+    protected static ImageInputStream readRange(final ImageInputStream source, final long offset, final int length) throws IOException {
+        byte[] bytes = new byte[length];
+        synchronized (source) {
+            long position = source.getStreamPosition();
+            try {
+                source.seek(offset);
+                source.readFully(bytes);
+            } finally {
+                source.seek(position);
+            }
+        }
+        return new MemoryCacheImageInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * Run the block tasks using the executor, and wait for them to complete.
+     *
+     * If there is no executor, the tasks are run in order on the calling thread. Otherwise, if any task fails, the
+     * exception from the first failed task (in list order) is thrown after all the tasks have finished.
+     *
+     * @param tasks the tasks to run.
+     * @throws IOException if a task failed to read its block data.
+     */
+    protected void runBlockTasks(final List<BlockTask> tasks) throws IOException {
+        if (executor == null) {
+            for (BlockTask task : tasks) {
+                task.run();
+            }
+            return;
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>(tasks.size());
+        for (BlockTask task : tasks) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    task.run();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, executor));
+        }
+        RuntimeException firstFailure = null;
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                if (firstFailure == null) {
+                    firstFailure = e;
+                }
+            }
+        }
+        if (firstFailure != null) {
+            Throwable cause = firstFailure.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
             }
+            throw firstFailure;
         }
     }
 }
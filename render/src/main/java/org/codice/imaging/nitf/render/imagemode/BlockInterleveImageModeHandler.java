@@ -14,10 +14,12 @@
  */
 package org.codice.imaging.nitf.render.imagemode;
 
-import java.awt.image.DataBuffer;
 import java.io.IOException;
+import java.util.concurrent.Executor;
+import javax.imageio.stream.ImageInputStream;
 import org.codice.imaging.nitf.core.image.ImageMode;
 import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.render.DecodedBlockCache;
 import org.codice.imaging.nitf.render.imagerep.ImageRepresentationHandler;
 
 /**
@@ -25,8 +27,9 @@ import org.codice.imaging.nitf.render.imagerep.ImageRepresentationHandler;
  */
 class BlockInterleveImageModeHandler extends SharedImageModeHandler implements ImageModeHandler {
 
-    BlockInterleveImageModeHandler(final ImageRepresentationHandler imageRepresentationHandler) {
-        super(imageRepresentationHandler);
+    BlockInterleveImageModeHandler(final ImageRepresentationHandler imageRepresentationHandler, final Executor blockExecutor,
+            final DecodedBlockCache cache, final int[] bands) {
+        super(imageRepresentationHandler, blockExecutor, cache, bands);
     }
 
     @Override
@@ -41,17 +44,11 @@ class BlockInterleveImageModeHandler extends SharedImageModeHandler implements I
     }
 
     @Override
-    protected void readBlock(final ImageBlock block, final ImageSegment imageSegment) {
-
-        final DataBuffer data = block.getDataBuffer();
-
+    protected void readBlock(final ImageBlock block, final ImageSegment imageSegment, final ImageInputStream imageInputStream) {
         try {
             for (int bandIndex = 0; bandIndex < imageSegment.getNumBands(); bandIndex++) {
                 for (int row = 0; row < block.getHeight(); row++) {
-                    for (int column = 0; column < block.getWidth(); column++) {
-                        int i = row * block.getWidth() + column;
-                        imageRepresentationHandler.renderPixelBand(data, i, imageSegment.getData(), bandIndex);
-                    }
+                    readRow(block, row, imageSegment, imageInputStream, bandIndex, 1);
                 }
             }
         } catch (IOException e) {
@@ -14,10 +14,17 @@
  */
 package org.codice.imaging.nitf.render.imagemode;
 
+import java.awt.Dimension;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
 import java.awt.image.DataBuffer;
-import java.util.function.Supplier;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.function.BiFunction;
+import org.codice.imaging.nitf.render.SampleGrid;
 
 /**
  * An ImageBlock represents a single block of a larger image.
@@ -25,6 +32,12 @@ import java.util.function.Supplier;
  * The concept is that the ImageBlock provides access to part of an underlying
  * (supplied) image. The ImageBlock is effectively a window into an existing
  * BufferedImage.
+ *
+ * If a sample grid is specified, only the samples are rendered. Unless the whole block is needed (e.g. so that it can
+ * be cached), only the rows of the block that contain samples are decoded.
+ *
+ * If a target raster is specified, the block is decoded directly into the part of the target that it covers, rather
+ * than into an image of its own, and pixels outside the target are not kept.
  */
 class ImageBlock {
 
@@ -33,8 +46,17 @@ class ImageBlock {
     private final int blocksInOneRow;
     private final int blockWidth;
     private final int blockHeight;
-    private final Supplier<BufferedImage> supplier;
+    private final BiFunction<Integer, Integer, BufferedImage> imageFactory;
+    private final SampleGrid sampleGrid;
+    private final boolean decodeAllRows;
+    private final int firstDecodedRow;
+    private final int numDecodedRows;
     private BufferedImage blockImage;
+    private DataBuffer scratchRow;
+    private WritableRaster targetRaster;
+    private Rectangle targetArea;
+    private int targetOrigin;
+    private int targetStride;
 
     /**
      * Constructor.
@@ -44,31 +66,153 @@ class ImageBlock {
      * @param column the column position in blocks of this ImageBlock in the
      * larger image.
      * @param numColumns the number of columns in the larger image.
-     * @param width the width in pixels of this ImageBlock.
-     * @param height the height in pixels of this ImageBlock.
-     * @param imageSupplier the underlying image source.
+     * @param size the width and height in pixels of this ImageBlock.
+     * @param imageSupplier the underlying image source, which creates an image of the specified width and height.
+     * @param grid the samples to render, or null to render the whole block.
+     * @param allRows true if every row of the block should be decoded, even if the grid does not sample it.
      */
-    ImageBlock(final int row, final int column, final int numColumns, final int width, final int height,
-            final Supplier<BufferedImage> imageSupplier) {
+    ImageBlock(final int row, final int column, final int numColumns, final Dimension size,
+            final BiFunction<Integer, Integer, BufferedImage> imageSupplier, final SampleGrid grid, final boolean allRows) {
         this.blockRowIndex = row;
         this.blockColumnIndex = column;
         this.blocksInOneRow = numColumns;
-        this.blockWidth = width;
-        this.blockHeight = height;
-        this.supplier = imageSupplier;
+        this.blockWidth = size.width;
+        this.blockHeight = size.height;
+        this.imageFactory = imageSupplier;
+        this.sampleGrid = grid;
+        this.decodeAllRows = (grid == null) || allRows;
+        if (decodeAllRows) {
+            this.firstDecodedRow = getY();
+            this.numDecodedRows = size.height;
+        } else {
+            this.firstDecodedRow = grid.getFirstSampleRow(getY());
+            this.numDecodedRows = grid.countSampleRows(getY(), size.height);
+        }
     }
 
     /**
      * Get the data buffer for this block.
      *
+     * The buffer contains one row of pixels for each decoded row of the block (see getDecodedRow()), or is the data
+     * buffer of the target raster. Use getPixelIndex() to find a pixel in the buffer.
+     *
      * @return the DataBuffer that contains the data for this ImageBlock.
      */
     public DataBuffer getDataBuffer() {
-        if (blockImage == null) {
-            blockImage = supplier.get();
+        if (targetRaster != null) {
+            return targetRaster.getDataBuffer();
         }
+        return getOrCreateImage().getRaster().getDataBuffer();
+    }
 
-        return blockImage.getRaster().getDataBuffer();
+    /**
+     * Get a data buffer for one row of pixels that will not be rendered.
+     *
+     * This can be used to decode rows that cannot be skipped over in the source data.
+     *
+     * @return a DataBuffer with space for one row of this ImageBlock.
+     */
+    public DataBuffer getScratchRowBuffer() {
+        if (scratchRow == null) {
+            scratchRow = imageFactory.apply(blockWidth, 1).getRaster().getDataBuffer();
+        }
+        return scratchRow;
+    }
+
+    /**
+     * Get the position of a block row in the data buffer.
+     *
+     * @param row the row within the block.
+     * @return the row within the data buffer, or -1 if the row is not decoded.
+     */
+    public int getDecodedRow(final int row) {
+        if (targetRaster != null) {
+            if ((row < targetArea.y) || (row >= targetArea.y + targetArea.height)) {
+                return -1;
+            }
+            return row;
+        }
+        if (decodeAllRows) {
+            return row;
+        }
+        int y = getY() + row;
+        if (!sampleGrid.isSampleRow(y)) {
+            return -1;
+        }
+        return (y - firstDecodedRow) / sampleGrid.getSubsampling();
+    }
+
+    /**
+     * Get the first column of the block that is decoded.
+     *
+     * @return the zero-based column within the block, which is 0 unless part of the block is outside the target raster.
+     */
+    public int getFirstDecodedColumn() {
+        if (targetRaster != null) {
+            return targetArea.x;
+        }
+        return 0;
+    }
+
+    /**
+     * Get the number of columns of the block that are decoded.
+     *
+     * @return the number of columns, starting from getFirstDecodedColumn().
+     */
+    public int getNumDecodedColumns() {
+        if (targetRaster != null) {
+            return targetArea.width;
+        }
+        return blockWidth;
+    }
+
+    /**
+     * Get the position of a pixel in the data buffer.
+     *
+     * Pixels in the same row are at consecutive positions.
+     *
+     * @param decodedRow the row within the data buffer (see getDecodedRow()).
+     * @param column the column within the block.
+     * @return the index of the pixel in the data buffer.
+     */
+    public int getPixelIndex(final int decodedRow, final int column) {
+        if (targetRaster != null) {
+            return targetOrigin + decodedRow * targetStride + column;
+        }
+        return decodedRow * blockWidth + column;
+    }
+
+    /**
+     * Decode this block directly into a target raster.
+     *
+     * The raster coordinates are image pixel coordinates (e.g. a child raster created with createWritableChild()), and
+     * the raster must have one data element per pixel, in the data model of the image representation.
+     *
+     * @param raster the raster to decode into.
+     */
+    public void setTarget(final WritableRaster raster) {
+        Rectangle area = raster.getBounds().intersection(new Rectangle(getX(), getY(), blockWidth, blockHeight));
+        this.targetRaster = raster;
+        this.targetArea = new Rectangle(area.x - getX(), area.y - getY(), area.width, area.height);
+        if (area.isEmpty()) {
+            return;
+        }
+        SampleModel sampleModel = raster.getSampleModel();
+        int x = area.x - raster.getSampleModelTranslateX();
+        int y = area.y - raster.getSampleModelTranslateY();
+        int offset;
+        if (sampleModel instanceof SinglePixelPackedSampleModel) {
+            SinglePixelPackedSampleModel packedSampleModel = (SinglePixelPackedSampleModel) sampleModel;
+            targetStride = packedSampleModel.getScanlineStride();
+            offset = packedSampleModel.getOffset(x, y);
+        } else if ((sampleModel instanceof ComponentSampleModel) && (((ComponentSampleModel) sampleModel).getPixelStride() == 1)) {
+            ComponentSampleModel componentSampleModel = (ComponentSampleModel) sampleModel;
+            targetStride = componentSampleModel.getScanlineStride();
+            offset = componentSampleModel.getOffset(x, y);
+        } else {
+            throw new IllegalArgumentException("ImageBlock.setTarget(): unsupported sample model " + sampleModel);
+        }
+        targetOrigin = offset - targetArea.y * targetStride - targetArea.x;
     }
 
     /**
@@ -79,11 +223,90 @@ class ImageBlock {
      * after the rendering is complete.
      */
     public void render(final Graphics2D targetImage, final boolean disposeAfterRender) {
-        targetImage.drawImage(blockImage, this.blockColumnIndex * this.blockHeight, this.blockRowIndex * this.blockWidth, null);
+        if (sampleGrid == null) {
+            targetImage.drawImage(blockImage, getX(), getY(), null);
+        } else if (blockImage == null) {
+            return;
+        } else if (decodeAllRows) {
+            sampleGrid.draw(targetImage, blockImage, getX(), getY());
+        } else {
+            sampleGrid.drawSampledRows(targetImage, blockImage, getX(), firstDecodedRow);
+        }
 
         if (disposeAfterRender) {
-            this.blockImage = null;
+            dispose();
+        }
+    }
+
+    /**
+     * Get the image for this block, creating a blank image if nothing has been decoded (e.g. the block is masked).
+     *
+     * @return the block image.
+     */
+    public BufferedImage getOrCreateImage() {
+        if (blockImage == null) {
+            blockImage = imageFactory.apply(blockWidth, numDecodedRows);
         }
+        return blockImage;
+    }
+
+    /**
+     * Get the decoded image for this block.
+     *
+     * @return the block image, or null if nothing has been decoded.
+     */
+    public BufferedImage getImage() {
+        return blockImage;
+    }
+
+    /**
+     * Use an image that has already been decoded (e.g. from a cache) for this block.
+     *
+     * @param image the decoded block image, which will not be modified.
+     */
+    public void setImage(final BufferedImage image) {
+        this.blockImage = image;
+    }
+
+    /**
+     * Get the row position of this block.
+     *
+     * @return the zero-based row index of the block in the larger image.
+     */
+    public int getRowIndex() {
+        return blockRowIndex;
+    }
+
+    /**
+     * Get the column position of this block.
+     *
+     * @return the zero-based column index of the block in the larger image.
+     */
+    public int getColumnIndex() {
+        return blockColumnIndex;
+    }
+
+    /**
+     * Discard the decoded data for this block without rendering it.
+     */
+    public void dispose() {
+        this.blockImage = null;
+        this.scratchRow = null;
+    }
+
+    /**
+     * Check whether this image block contributes to the rendered output.
+     *
+     * @return true if the block contains any samples, or there is no sample grid, otherwise false.
+     */
+    public boolean intersects() {
+        if (targetRaster != null) {
+            return !targetArea.isEmpty();
+        }
+        if (sampleGrid == null) {
+            return true;
+        }
+        return sampleGrid.intersects(getX(), getY(), blockWidth, blockHeight);
     }
 
     /**
@@ -117,4 +340,12 @@ class ImageBlock {
     public int getBlockIndex() {
         return (this.blockRowIndex * this.blocksInOneRow) + this.blockColumnIndex;
     }
+
+    private int getX() {
+        return this.blockColumnIndex * this.blockWidth;
+    }
+
+    private int getY() {
+        return this.blockRowIndex * this.blockHeight;
+    }
 }
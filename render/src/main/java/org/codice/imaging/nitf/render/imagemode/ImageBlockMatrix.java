@@ -15,10 +15,13 @@
 
 package org.codice.imaging.nitf.render.imagemode;
 
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
-import java.util.function.Supplier;
 import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.render.SampleGrid;
 
 /**
  * The ImageMatrix represents image data stored in a rowcount x columncount matrix.
@@ -33,23 +36,39 @@ class ImageBlockMatrix {
      *
      * @param imageSegment the Image Segment that this matrix is being created
      * for.
-     * @param imageSupplier the underlying buffered image to store the data.
+     * @param imageSupplier the underlying buffered image to store the data, for a specified width and height.
+     * @param grid the samples to render, or null to render every block in full.
+     * @param decodeAllRows true if every row of each block should be decoded, even if the grid does not sample it.
      */
-    ImageBlockMatrix(final ImageSegment imageSegment, final Supplier<BufferedImage> imageSupplier) {
+    ImageBlockMatrix(final ImageSegment imageSegment, final BiFunction<Integer, Integer, BufferedImage> imageSupplier,
+            final SampleGrid grid, final boolean decodeAllRows) {
         this.matrixWidth = (int) imageSegment.getNumberOfBlocksPerColumn();
         this.matrixHeight = (int) imageSegment.getNumberOfBlocksPerRow();
-        int blockWidth = (int) imageSegment.getNumberOfPixelsPerBlockHorizontal();
-        int blockHeight = (int) imageSegment.getNumberOfPixelsPerBlockVertical();
+        Dimension blockSize = new Dimension((int) imageSegment.getNumberOfPixelsPerBlockHorizontal(),
+                (int) imageSegment.getNumberOfPixelsPerBlockVertical());
 
         blocks = new ImageBlock[matrixWidth][matrixHeight];
 
         for (int i = 0; i < this.getMatrixWidth(); i++) {
             for (int j = 0; j < this.getMatrixHeight(); j++) {
-                blocks[i][j] = new ImageBlock(i, j, getMatrixWidth(), blockWidth, blockHeight, imageSupplier);
+                blocks[i][j] = new ImageBlock(i, j, getMatrixHeight(), blockSize, imageSupplier, grid, decodeAllRows);
             }
         }
     }
 
+    /**
+     * Constructor for a matrix that decodes blocks directly into a target raster.
+     *
+     * @param imageSegment the Image Segment that this matrix is being created for.
+     * @param imageSupplier the image source for rows that are not kept, for a specified width and height.
+     * @param target the raster to decode into, in image pixel coordinates.
+     */
+    ImageBlockMatrix(final ImageSegment imageSegment, final BiFunction<Integer, Integer, BufferedImage> imageSupplier,
+            final WritableRaster target) {
+        this(imageSegment, imageSupplier, null, true);
+        forEachBlock(block -> block.setTarget(target));
+    }
+
     /**
      * Get a specific image block.
      *
@@ -15,8 +15,12 @@
 package org.codice.imaging.nitf.render.imagemode;
 
 import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
 import java.io.IOException;
 import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.render.ImageMask;
+import org.codice.imaging.nitf.render.SampleGrid;
 
 /**
  * An ImageModeHandler abstracts the processing of an ImageSegment based on the NITF Image Mode.
@@ -34,4 +38,53 @@ public interface ImageModeHandler {
      */
     void handleImage(ImageSegment imageSegment, Graphics2D targetImage)
             throws IOException;
+
+    /**
+     * Handle rendering of a region of this image segment, optionally subsampled, to the specified target.
+     *
+     * Only the blocks that contain samples are decoded, and only the rows of those blocks that contain samples.
+     * Where the block data layout allows it, the other blocks and rows are skipped over without being decoded. The
+     * samples are drawn at their output position (see SampleGrid), so the first sample is drawn at (0, 0).
+     *
+     * @param imageSegment the ImageSegment for the image being rendered.
+     * @param targetImage the Graphics2D that the image will be rendered to.
+     * @param grid the samples to render, or null to render the whole image at the position of each pixel.
+     * @throws IOException propagated from the ImageInputStream.
+     */
+    void handleImage(ImageSegment imageSegment, Graphics2D targetImage, SampleGrid grid)
+            throws IOException;
+
+    /**
+     * Decode this image segment directly into a raster.
+     *
+     * Each block is decoded straight into the part of the target that it covers, so no block images are created and
+     * nothing is drawn with Java2D. The raster coordinates are image pixel coordinates (ignoring the image location),
+     * so a region of the image can be decoded into a child raster (see WritableRaster.createWritableChild()); only the
+     * blocks that intersect the raster are decoded. The raster must be blank, and use the data model of the image
+     * representation (i.e. a raster of an image created by ImageRepresentationHandler.createBufferedImage()).
+     *
+     * @param imageSegment the ImageSegment for the image being decoded.
+     * @param target the raster that the image will be decoded into.
+     * @throws IOException propagated from the ImageInputStream.
+     */
+    void handleImage(ImageSegment imageSegment, WritableRaster target)
+            throws IOException;
+
+    /**
+     * Decode a single block of this image segment.
+     *
+     * The block is located from the start of the image data, using the image mask, rather than from the current stream
+     * position, and is read with a positioned read. This can be called from several threads at once, and the stream
+     * position is preserved.
+     *
+     * @param imageSegment the ImageSegment for the image being decoded.
+     * @param imageMask the image mask for the segment, read from the start of the image data (or the regular layout,
+     * if the segment has no mask), which can be shared by every block of the segment.
+     * @param blockRow the zero-based row index of the block.
+     * @param blockColumn the zero-based column index of the block.
+     * @return the decoded block, which is blank if the block is masked (not recorded).
+     * @throws IOException propagated from the ImageInputStream.
+     */
+    BufferedImage decodeBlock(ImageSegment imageSegment, ImageMask imageMask, int blockRow, int blockColumn)
+            throws IOException;
 }
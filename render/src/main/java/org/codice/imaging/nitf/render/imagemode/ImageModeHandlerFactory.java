@@ -1,6 +1,8 @@
 package org.codice.imaging.nitf.render.imagemode;
 
+import java.util.concurrent.Executor;
 import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.render.DecodedBlockCache;
 import org.codice.imaging.nitf.render.imagerep.ImageRepresentationHandler;
 import org.codice.imaging.nitf.render.imagerep.ImageRepresentationHandlerFactory;
 
@@ -21,8 +23,64 @@ public final class ImageModeHandlerFactory {
      * could not be found.
      */
     public static ImageModeHandler forImageSegment(final ImageSegment imageSegment) {
+        return forImageSegment(imageSegment, null);
+    }
+
+    /**
+     * Get an appropriate image mode handler for the specified image segment, which decodes blocks using an executor.
+     *
+     * Where the block data layout allows it, blocks are decoded in parallel by tasks run on the executor. Otherwise
+     * blocks are decoded sequentially on the calling thread. The rendered output is the same either way.
+     *
+     * @param imageSegment the image segment specifying the image
+     * characteristics.
+     * @param blockExecutor the executor to decode blocks with, or null to decode blocks on the calling thread.
+     * @return a handler for the image mode, or null if an appropriate reader
+     * could not be found.
+     */
+    public static ImageModeHandler forImageSegment(final ImageSegment imageSegment, final Executor blockExecutor) {
+        return forImageSegment(imageSegment, blockExecutor, null);
+    }
+
+    /**
+     * Get an appropriate image mode handler for the specified image segment, which decodes blocks using an executor
+     * and caches decoded blocks.
+     *
+     * Full resolution blocks are looked up in the cache before they are decoded, and added to the cache after they are
+     * decoded. Where the block data layout allows it, cached blocks are not read from the image data at all.
+     *
+     * @param imageSegment the image segment specifying the image
+     * characteristics.
+     * @param blockExecutor the executor to decode blocks with, or null to decode blocks on the calling thread.
+     * @param blockCache the cache of decoded blocks, or null to decode every block.
+     * @return a handler for the image mode, or null if an appropriate reader
+     * could not be found.
+     */
+    public static ImageModeHandler forImageSegment(final ImageSegment imageSegment, final Executor blockExecutor,
+            final DecodedBlockCache blockCache) {
+        return forImageSegment(imageSegment, blockExecutor, blockCache, null);
+    }
+
+    /**
+     * Get an appropriate image mode handler for the specified image segment, which only decodes selected bands.
+     *
+     * The bands are rendered as described for ImageRepresentationHandlerFactory.forImageSegment(ImageSegment, int[]).
+     * The data for other bands is skipped over rather than decoded, and for band sequential images where the blocks
+     * can be read from computed offsets, it is not read at all.
+     *
+     * @param imageSegment the image segment specifying the image
+     * characteristics.
+     * @param blockExecutor the executor to decode blocks with, or null to decode blocks on the calling thread.
+     * @param blockCache the cache of decoded blocks, or null to decode every block.
+     * @param bands the zero-based indexes of the bands to render, or null to choose the bands from the image
+     * representation.
+     * @return a handler for the image mode, or null if an appropriate reader
+     * could not be found.
+     */
+    public static ImageModeHandler forImageSegment(final ImageSegment imageSegment, final Executor blockExecutor,
+            final DecodedBlockCache blockCache, final int[] bands) {
         ImageRepresentationHandler imageRepresentationHandler =
-                ImageRepresentationHandlerFactory.forImageSegment(imageSegment);
+                ImageRepresentationHandlerFactory.forImageSegment(imageSegment, bands);
 
         if (imageRepresentationHandler == null) {
             return null;
@@ -30,16 +88,16 @@ public final class ImageModeHandlerFactory {
 
         switch (imageSegment.getImageMode()) {
             case BANDSEQUENTIAL:
-                return new BandSequentialImageModeHandler(imageRepresentationHandler);
+                return new BandSequentialImageModeHandler(imageRepresentationHandler, blockExecutor, blockCache, bands);
 
             case PIXELINTERLEVE:
-                return new PixelInterleveImageModeHandler(imageRepresentationHandler);
+                return new PixelInterleveImageModeHandler(imageRepresentationHandler, blockExecutor, blockCache, bands);
 
             case ROWINTERLEVE:
-                return new RowInterleveImageModeHandler(imageRepresentationHandler);
+                return new RowInterleveImageModeHandler(imageRepresentationHandler, blockExecutor, blockCache, bands);
 
             case BLOCKINTERLEVE:
-                return new BlockInterleveImageModeHandler(imageRepresentationHandler);
+                return new BlockInterleveImageModeHandler(imageRepresentationHandler, blockExecutor, blockCache, bands);
 
             default:
                 throw new UnsupportedOperationException("Unsupported Image Mode: "
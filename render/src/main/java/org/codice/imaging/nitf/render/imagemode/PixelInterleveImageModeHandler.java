@@ -14,10 +14,12 @@
  */
 package org.codice.imaging.nitf.render.imagemode;
 
-import java.awt.image.DataBuffer;
 import java.io.IOException;
+import java.util.concurrent.Executor;
+import javax.imageio.stream.ImageInputStream;
 import org.codice.imaging.nitf.core.image.ImageMode;
 import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.render.DecodedBlockCache;
 import org.codice.imaging.nitf.render.imagerep.ImageRepresentationHandler;
 
 /**
@@ -25,8 +27,9 @@ import org.codice.imaging.nitf.render.imagerep.ImageRepresentationHandler;
  */
 class PixelInterleveImageModeHandler extends SharedImageModeHandler implements ImageModeHandler {
 
-    PixelInterleveImageModeHandler(final ImageRepresentationHandler imageRepresentationHandler) {
-        super(imageRepresentationHandler);
+    PixelInterleveImageModeHandler(final ImageRepresentationHandler imageRepresentationHandler, final Executor blockExecutor,
+            final DecodedBlockCache cache, final int[] bands) {
+        super(imageRepresentationHandler, blockExecutor, cache, bands);
     }
 
     @Override
@@ -40,18 +43,10 @@ class PixelInterleveImageModeHandler extends SharedImageModeHandler implements I
     }
 
     @Override
-    protected void readBlock(final ImageBlock block, final ImageSegment imageSegment) {
-
-        final DataBuffer data = block.getDataBuffer();
-
+    protected void readBlock(final ImageBlock block, final ImageSegment imageSegment, final ImageInputStream imageInputStream) {
         try {
             for (int row = 0; row < block.getHeight(); row++) {
-                for (int column = 0; column < block.getWidth(); column++) {
-                    for (int bandIndex = 0; bandIndex < imageSegment.getNumBands(); bandIndex++) {
-                        int i = row * block.getWidth() + column;
-                        imageRepresentationHandler.renderPixelBand(data, i, imageSegment.getData(), bandIndex);
-                    }
-                }
+                readRow(block, row, imageSegment, imageInputStream, 0, imageSegment.getNumBands());
             }
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -15,9 +15,17 @@
 package org.codice.imaging.nitf.render.imagemode;
 
 import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import javax.imageio.stream.ImageInputStream;
 import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.render.DecodedBlockCache;
 import org.codice.imaging.nitf.render.ImageMask;
+import org.codice.imaging.nitf.render.SampleGrid;
 import org.codice.imaging.nitf.render.imagerep.ImageRepresentationHandler;
 
 /**
@@ -25,9 +33,13 @@ import org.codice.imaging.nitf.render.imagerep.ImageRepresentationHandler;
  */
 abstract class SharedImageModeHandler extends BaseImageModeHandler implements ImageModeHandler {
 
-    protected SharedImageModeHandler(final ImageRepresentationHandler imageRepresentationHandler) {
+    protected SharedImageModeHandler(final ImageRepresentationHandler imageRepresentationHandler, final Executor blockExecutor,
+            final DecodedBlockCache cache, final int[] bands) {
         checkNull(imageRepresentationHandler, "imageRepresentationHandler");
         this.imageRepresentationHandler = imageRepresentationHandler;
+        this.executor = blockExecutor;
+        this.blockCache = cache;
+        this.selectedBands = bands;
     }
 
     /**
@@ -35,26 +47,123 @@ abstract class SharedImageModeHandler extends BaseImageModeHandler implements Im
      */
     @Override
     public void handleImage(final ImageSegment imageSegment, final Graphics2D targetImage) throws IOException {
+        handleImage(imageSegment, targetImage, (SampleGrid) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void handleImage(final ImageSegment imageSegment, final Graphics2D targetImage, final SampleGrid grid) throws IOException {
         checkNull(imageSegment, "imageSegment");
         checkNull(targetImage, "targetImage");
         checkImageMode(imageSegment);
 
         final ImageMask imageMask = getImageMask(imageSegment);
 
-        ImageBlockMatrix matrix = new ImageBlockMatrix(imageSegment,
-                () -> imageRepresentationHandler.createBufferedImage((int) imageSegment.getNumberOfPixelsPerBlockHorizontal(),
-                        (int) imageSegment.getNumberOfPixelsPerBlockVertical()));
+        final boolean caching = isCaching(grid);
+        ImageBlockMatrix matrix = new ImageBlockMatrix(imageSegment, imageRepresentationHandler::createBufferedImage, grid, caching);
+
+        readBlocks(matrix, imageSegment, imageMask, caching, (executor != null) || (grid != null) || caching);
 
-        matrix.forEachBlock(block -> {
-            if (!imageMask.isMaskedBlock(block.getBlockIndex(), 0)) {
-                readBlock(block, imageSegment);
-                applyMask(block, imageMask);
+        matrix.forEachBlock((block) -> {
+            if (block.intersects()) {
+                if (caching) {
+                    cacheBlock(block, imageSegment);
+                }
+                block.render(targetImage, true);
             }
         });
+    }
 
-        matrix.forEachBlock((block) -> block.render(targetImage, true));
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void handleImage(final ImageSegment imageSegment, final WritableRaster target) throws IOException {
+        checkNull(imageSegment, "imageSegment");
+        checkNull(target, "target");
+        checkImageMode(imageSegment);
+
+        final ImageMask imageMask = getImageMask(imageSegment);
+        ImageBlockMatrix matrix = new ImageBlockMatrix(imageSegment, imageRepresentationHandler::createBufferedImage, target);
+        readBlocks(matrix, imageSegment, imageMask, false, (executor != null) || !coversImage(target, imageSegment));
     }
 
-    protected abstract void readBlock(final ImageBlock block, final ImageSegment imageSegment);
+    private void readBlocks(final ImageBlockMatrix matrix, final ImageSegment imageSegment, final ImageMask imageMask,
+            final boolean caching, final boolean preferOffsets) throws IOException {
+        if (preferOffsets && canReadBlocksAtOffsets(imageSegment, imageSegment.getNumBands())) {
+            readBlocksAtOffsets(matrix, imageSegment, imageMask, caching);
+        } else {
+            matrix.forEachBlock(block -> {
+                if (imageMask.isBlockPresent(block.getBlockIndex(), 0)) {
+                    readBlock(block, imageSegment, imageSegment.getData());
+                    if (block.intersects()) {
+                        applyMask(block, imageMask);
+                    } else {
+                        block.dispose();
+                    }
+                }
+            });
+        }
+    }
+
+    private void readBlocksAtOffsets(final ImageBlockMatrix matrix, final ImageSegment imageSegment, final ImageMask imageMask,
+            final boolean caching) throws IOException {
+        final ImageInputStream data = imageSegment.getData();
+        final int bytesPerBlock = (int) imageSegment.getNumberOfBytesPerBlock();
+        final long blockDataStart = data.getStreamPosition();
+        long blockDataEnd = blockDataStart;
+        List<BlockTask> tasks = new ArrayList<>();
+        for (int row = 0; row < matrix.getMatrixWidth(); row++) {
+            for (int column = 0; column < matrix.getMatrixHeight(); column++) {
+                final ImageBlock block = matrix.getImageBlock(row, column);
+                if (imageMask.isBlockPresent(block.getBlockIndex(), 0)) {
+                    final long blockOffset = imageMask.getBlockOffset(block.getBlockIndex(), 0);
+                    if (block.intersects() && !(caching && loadCachedBlock(block, imageSegment))) {
+                        tasks.add(() -> {
+                            readBlock(block, imageSegment, readRange(data, blockDataStart + blockOffset, bytesPerBlock));
+                            applyMask(block, imageMask);
+                        });
+                    }
+                    blockDataEnd = Math.max(blockDataEnd, blockDataStart + blockOffset + bytesPerBlock);
+                }
+            }
+        }
+        runBlockTasks(tasks);
+        data.seek(blockDataEnd);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferedImage decodeBlock(final ImageSegment imageSegment, final ImageMask imageMask, final int blockRow,
+            final int blockColumn) throws IOException {
+        checkNull(imageSegment, "imageSegment");
+        checkNull(imageMask, "imageMask");
+        checkImageMode(imageSegment);
+
+        final ImageBlock block = createSingleBlock(imageSegment, blockRow, blockColumn);
+        final int blockIndex = block.getBlockIndex();
+
+        if (imageMask.isBlockPresent(blockIndex, 0)) {
+            final long bitOffset = imageMask.getBlockBitOffset(blockIndex, 0);
+            final long bitsPerBlock = imageSegment.getNumberOfPixelsPerBlockHorizontal() * imageSegment.getNumberOfPixelsPerBlockVertical()
+                    * imageSegment.getNumBands() * imageSegment.getNumberOfBitsPerPixelPerBand();
+            readBlock(block, imageSegment, readBitRange(imageSegment.getData(), imageMask.getBlockDataOffset(), bitOffset, bitsPerBlock));
+            applyMask(block, imageMask);
+        }
+        return block.getOrCreateImage();
+    }
+
+    /**
+     * Read the data for one block.
+     *
+     * @param block the block to read into.
+     * @param imageSegment the image segment that the block is part of.
+     * @param imageInputStream the stream to read the block data from, positioned at the start of the block data.
+     */
+    protected abstract void readBlock(ImageBlock block, ImageSegment imageSegment, ImageInputStream imageInputStream);
 
 }
@@ -30,6 +30,10 @@ abstract class AbstractRgbImageRepresentationHandler implements ImageRepresentat
 
     protected static final int ALPHA_MASK = 0xFF000000;
 
+    private static final int BYTE_MASK = 0xFF;
+
+    private static final int END_OF_STREAM = -1;
+
     AbstractRgbImageRepresentationHandler(final Map<Integer, Integer> bandMap,
             final int actualBitsPerPixelPerBand) {
         this.bandMapping = bandMap;
@@ -40,15 +44,96 @@ abstract class AbstractRgbImageRepresentationHandler implements ImageRepresentat
     public abstract void renderPixelBand(final DataBuffer data, final int pixelIndex,
             final ImageInputStream imageInputStream, final int bandIndex) throws IOException;
 
+    @Override
+    public final void renderPixelBands(final DataBuffer data, final int firstPixelIndex, final int numPixels,
+            final ImageInputStream imageInputStream, final int firstBandIndex, final int numInterleavedBands) throws IOException {
+        int[] samples = new int[numPixels * numInterleavedBands];
+        readSamples(imageInputStream, samples, samples.length);
+        // Only the bands that are mapped to a colour are applied, which matters for images with many bands.
+        int[] usedBands = new int[numInterleavedBands];
+        int[] shifts = new int[numInterleavedBands];
+        int numUsedBands = 0;
+        for (int band = 0; band < numInterleavedBands; ++band) {
+            if (isBandUsed(firstBandIndex + band)) {
+                usedBands[numUsedBands] = band;
+                shifts[numUsedBands] = bandMapping.get(firstBandIndex + band);
+                numUsedBands++;
+            }
+        }
+        if (numUsedBands == 0) {
+            return;
+        }
+        int firstSampleIndex = 0;
+        for (int pixelIndex = firstPixelIndex; pixelIndex < firstPixelIndex + numPixels; ++pixelIndex) {
+            int value = data.getElem(pixelIndex);
+            for (int i = 0; i < numUsedBands; ++i) {
+                value |= samples[firstSampleIndex + usedBands[i]] << shifts[i];
+            }
+            data.setElem(pixelIndex, ALPHA_MASK | value);
+            firstSampleIndex += numInterleavedBands;
+        }
+    }
+
+    /**
+     * Read consecutive band values, converted to 8 bits.
+     *
+     * @param imageInputStream the stream that contains the image data.
+     * @param samples the array to store the band values into.
+     * @param numSamples the number of band values to read.
+     * @throws IOException if there is a problem reading from the imageInputStream
+     */
+    protected abstract void readSamples(ImageInputStream imageInputStream, int[] samples, int numSamples) throws IOException;
+
+    /**
+     * Read bytes from the stream, in bulk.
+     *
+     * Like ImageInputStream.read(), bytes beyond the end of the stream are
+     * reported as -1 rather than throwing an exception.
+     *
+     * @param imageInputStream the stream that contains the image data.
+     * @param values the array to store the unsigned byte values (or -1 for bytes beyond the end of the stream) into.
+     * @param numBytes the number of bytes to read.
+     * @throws IOException if there is a problem reading from the imageInputStream
+     */
+    protected static void readUnsignedBytes(final ImageInputStream imageInputStream, final int[] values, final int numBytes)
+            throws IOException {
+        byte[] bytes = new byte[numBytes];
+        int bytesRead = 0;
+        while (bytesRead < numBytes) {
+            int count = imageInputStream.read(bytes, bytesRead, numBytes - bytesRead);
+            if (count <= 0) {
+                break;
+            }
+            bytesRead += count;
+        }
+        for (int i = 0; i < bytesRead; ++i) {
+            values[i] = bytes[i] & BYTE_MASK;
+        }
+        for (int i = bytesRead; i < numBytes; ++i) {
+            values[i] = END_OF_STREAM;
+        }
+    }
+
     @Override
     public final BufferedImage createBufferedImage(final int blockWidth, final int blockHeight) {
         return new BufferedImage(blockWidth, blockHeight, BufferedImage.TYPE_INT_ARGB);
     }
 
+    @Override
+    public final boolean isBandUsed(final int bandIndex) {
+        Integer shift = bandMapping.get(bandIndex);
+        return (shift != null) && (shift >= 0);
+    }
+
     @Override
     public final void renderPadPixel(final ImageMask imageMask, final DataBuffer data, final int pixelIndex) {
         if (imageMask.isPadPixel(data.getElem(pixelIndex))) {
             data.setElem(pixelIndex, 0x00000000);
         }
     }
+
+    @Override
+    public final void renderPadPixels(final ImageMask imageMask, final DataBuffer data, final int firstPixelIndex, final int numPixels) {
+        PadPixels.replace(data, firstPixelIndex, numPixels, imageMask.getPadPixelValue(), 0x00000000);
+    }
 }
@@ -43,6 +43,33 @@ public interface ImageRepresentationHandler {
     void renderPixelBand(DataBuffer dataBuffer, int pixelIndex, ImageInputStream imageInputStream, int bandIndex)
             throws IOException;
 
+    /**
+     * Applies a run of band values to consecutive pixels.
+     *
+     * The run covers numPixels pixels. For each pixel, numInterleavedBands band
+     * values are read, starting from band firstBandIndex. This is equivalent to
+     * calling renderPixelBand() for each pixel and band in that order, which is
+     * what the default implementation does. Implementations can override it to
+     * read and apply the band values in bulk.
+     *
+     * @param dataBuffer the buffer that contains the pixel data.
+     * @param firstPixelIndex the index of the first pixel being rendered.
+     * @param numPixels the number of consecutive pixels being rendered.
+     * @param imageInputStream the stream that contains the image data.
+     * @param firstBandIndex the index of the first band being applied, zero-based.
+     * @param numInterleavedBands the number of bands for each pixel (1 unless the bands are pixel interleaved).
+     *
+     * @throws java.io.IOException if there is a problem reading from the imageInputStream
+     */
+    default void renderPixelBands(DataBuffer dataBuffer, int firstPixelIndex, int numPixels, ImageInputStream imageInputStream,
+            int firstBandIndex, int numInterleavedBands) throws IOException {
+        for (int i = 0; i < numPixels; ++i) {
+            for (int band = 0; band < numInterleavedBands; ++band) {
+                renderPixelBand(dataBuffer, firstPixelIndex + i, imageInputStream, firstBandIndex + band);
+            }
+        }
+    }
+
     /**
      * Create a new image of the right type for this image handler.
      *
@@ -61,4 +88,34 @@ public interface ImageRepresentationHandler {
      * @param pixelIndex the pixel index within the block to operate on
      */
     void renderPadPixel(ImageMask imageMask, DataBuffer data, int pixelIndex);
+
+    /**
+     * Apply image mask to a run of consecutive pixels within a block.
+     *
+     * This is equivalent to calling renderPadPixel() for each pixel, which is what the default implementation does.
+     * Implementations can override it to find and replace the pad pixels in bulk.
+     *
+     * @param imageMask the image mask information, which must have pixel masks
+     * @param data the data buffer (corresponding the BufferedImage) to mask
+     * @param firstPixelIndex the index of the first pixel within the block to operate on
+     * @param numPixels the number of consecutive pixels to operate on
+     */
+    default void renderPadPixels(ImageMask imageMask, DataBuffer data, int firstPixelIndex, int numPixels) {
+        for (int i = firstPixelIndex; i < firstPixelIndex + numPixels; ++i) {
+            renderPadPixel(imageMask, data, i);
+        }
+    }
+
+    /**
+     * Check whether a band contributes to the rendered pixels.
+     *
+     * Image mode handlers can skip over the data for bands that are not used, rather than decoding it. The default
+     * implementation treats every band as used, so every band value is passed to renderPixelBand().
+     *
+     * @param bandIndex the index of the band, zero-based.
+     * @return true if the band values are rendered, or false if they are ignored.
+     */
+    default boolean isBandUsed(int bandIndex) {
+        return true;
+    }
 }
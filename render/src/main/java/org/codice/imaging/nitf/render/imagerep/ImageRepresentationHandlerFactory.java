@@ -28,6 +28,7 @@ public final class ImageRepresentationHandlerFactory {
 
     private static final int NOT_VISIBLE_MAPPED = -1;
     private static final int BAND_NOT_FOUND = -2;
+    private static final int RGB_BANDS = 3;
 
     private ImageRepresentationHandlerFactory() {
     }
@@ -59,14 +60,66 @@ public final class ImageRepresentationHandlerFactory {
         }
     }
 
+    /**
+     * Get an ImageRepresentationHandler that renders selected bands of the specified image segment.
+     *
+     * A single band is rendered as greyscale (or through its lookup table, if it is a LU band). Three bands are
+     * rendered as red, green and blue, in that order, which allows false colour composites of multiband images. The
+     * other bands are not rendered, so image mode handlers can skip over them.
+     *
+     * @param segment the image segment specifying the image characteristics to
+     * be read.
+     * @param bands the zero-based indexes of the bands to render, or null to choose the bands from the image
+     * representation.
+     * @return a handler for the segment, or null if the selected bands cannot be rendered.
+     */
+    public static ImageRepresentationHandler forImageSegment(final ImageSegment segment, final int[] bands) {
+        if (bands == null) {
+            return forImageSegment(segment);
+        }
+        checkBandSelection(segment, bands);
+        if (bands.length == 1) {
+            if ("LU".equals(segment.getImageBandZeroBase(bands[0]).getImageRepresentation())) {
+                return getRgbLUTImageRepresentationHandler(segment, bands[0]);
+            }
+            return getMonoImageRepresentationHandler(segment, bands[0]);
+        }
+        Map<Integer, Integer> mapping = new HashMap<>();
+        for (int bandIndex = 0; bandIndex < segment.getNumBands(); bandIndex++) {
+            mapping.put(bandIndex, NOT_VISIBLE_MAPPED);
+        }
+        mapping.put(bands[0], 2 * Byte.SIZE);
+        mapping.put(bands[1], Byte.SIZE);
+        mapping.put(bands[2], 0);
+        return getRgbImageRepresentationHandler(segment, mapping);
+    }
+
+    private static void checkBandSelection(final ImageSegment segment, final int[] bands) {
+        if ((bands.length != 1) && (bands.length != RGB_BANDS)) {
+            throw new IllegalArgumentException("Band selection must have one or three bands, not " + bands.length);
+        }
+        for (int i = 0; i < bands.length; i++) {
+            if ((bands[i] < 0) || (bands[i] >= segment.getNumBands())) {
+                throw new IllegalArgumentException(String.format("Band %d is not in the image (%d bands)", bands[i], segment.getNumBands()));
+            }
+            for (int j = 0; j < i; j++) {
+                if (bands[i] == bands[j]) {
+                    throw new IllegalArgumentException(String.format("Band %d is selected more than once", bands[i]));
+                }
+            }
+        }
+    }
+
     private static ImageRepresentationHandler getRgbImageRepresentationHandler(final ImageSegment segment) {
-        Map<Integer, Integer> bandMapping;
+        return getRgbImageRepresentationHandler(segment, getRgbImageRepresentationMapping(segment));
+    }
+
+    private static ImageRepresentationHandler getRgbImageRepresentationHandler(final ImageSegment segment,
+            final Map<Integer, Integer> bandMapping) {
         switch (segment.getNumberOfBitsPerPixelPerBand()) {
         case Byte.SIZE:
-            bandMapping = getRgbImageRepresentationMapping(segment);
             return new Rgb24ImageRepresentationHandler(bandMapping, segment.getActualBitsPerPixelPerBand());
         case Short.SIZE:
-            bandMapping = getRgbImageRepresentationMapping(segment);
             return new Rgb48ImageRepresentationHandler(bandMapping,
                     segment.getActualBitsPerPixelPerBand(),
                     segment.getPixelJustification(),
@@ -185,14 +238,18 @@ public final class ImageRepresentationHandlerFactory {
         if (segment.getNumberOfBitsPerPixelPerBand() != 1) {
             throw new UnsupportedOperationException("Pixel Value of bilevel (B) must be 1 bit per pixel (NBPP = 1)");
         }
-        return new Mono1ImageRepresentationHandler(selectedBandZeroBase, DataReaderFactory.forImageSegment(segment));
+        return new Mono1ImageRepresentationHandler(selectedBandZeroBase, DataReaderFactory.forImageSegment(segment),
+                    DataReaderFactory.bulkForImageSegment(segment));
     }
 
     private static ImageRepresentationHandler getMonoIntegerImageRepresentationHandler(final ImageSegment segment, final int selectedBandZeroBase) {
         if (segment.getNumberOfBitsPerPixelPerBand() == Byte.SIZE) {
-            return new Mono8IntegerImageRepresentationHandler(selectedBandZeroBase, DataReaderFactory.forImageSegment(segment));
+            return new Mono8IntegerImageRepresentationHandler(selectedBandZeroBase, DataReaderFactory.forImageSegment(segment),
+                    DataReaderFactory.bulkForImageSegment(segment), !DataReaderFactory.requiresBitShift(segment));
         } else if (segment.getNumberOfBitsPerPixelPerBand() <= Short.SIZE) {
-            return new Mono16IntegerImageRepresentationHandler(selectedBandZeroBase, DataReaderFactory.forImageSegment(segment));
+            return new Mono16IntegerImageRepresentationHandler(selectedBandZeroBase, DataReaderFactory.forImageSegment(segment),
+                    DataReaderFactory.bulkForImageSegment(segment),
+                    (segment.getNumberOfBitsPerPixelPerBand() == Short.SIZE) && !DataReaderFactory.requiresBitShift(segment));
         } else {
             // TODO: add 32 [IMG-110] and 64 [IMG-111] NBPP cases
             return null;
@@ -202,7 +259,8 @@ public final class ImageRepresentationHandlerFactory {
     private static ImageRepresentationHandler getRgbLUTImageRepresentationHandler(final ImageSegment segment, final int selectedBandZeroBase) {
         IOReaderFunction readerFunc = DataReaderFactory.forImageSegment(segment);
         if (readerFunc != null) {
-            return new RGBLUTImageRepresentationHandler(selectedBandZeroBase, segment, readerFunc);
+            return new RGBLUTImageRepresentationHandler(selectedBandZeroBase, segment, readerFunc,
+                    DataReaderFactory.bulkForImageSegment(segment));
         } else {
             return null;
         }
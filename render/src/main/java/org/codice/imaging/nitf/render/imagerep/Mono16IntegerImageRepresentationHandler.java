@@ -16,8 +16,10 @@ package org.codice.imaging.nitf.render.imagerep;
 
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferUShort;
 import java.io.IOException;
 import javax.imageio.stream.ImageInputStream;
+import org.codice.imaging.nitf.render.datareader.IOBulkReaderFunction;
 import org.codice.imaging.nitf.render.datareader.IOReaderFunction;
 
 /**
@@ -25,8 +27,17 @@ import org.codice.imaging.nitf.render.datareader.IOReaderFunction;
  */
 class Mono16IntegerImageRepresentationHandler extends SharedMonoImageRepresentationHandler implements ImageRepresentationHandler {
 
-    Mono16IntegerImageRepresentationHandler(final int selectedBandZeroBase, final IOReaderFunction readerFunc) {
-        super(selectedBandZeroBase, readerFunc);
+    private final boolean directRead;
+
+    Mono16IntegerImageRepresentationHandler(final int selectedBandZeroBase, final IOReaderFunction readerFunc,
+            final IOBulkReaderFunction bulkReaderFunc, final boolean rawSamples) {
+        super(selectedBandZeroBase, readerFunc, bulkReaderFunc);
+        this.directRead = rawSamples;
+    }
+
+    @Override
+    protected int getPixelValue(final int sample) {
+        return sample;
     }
 
     @Override
@@ -39,6 +50,16 @@ class Mono16IntegerImageRepresentationHandler extends SharedMonoImageRepresentat
         }
     }
 
+    @Override
+    protected boolean readSelectedBandDirect(final DataBuffer dataBuffer, final int firstPixelIndex, final int numPixels,
+            final ImageInputStream imageInputStream) throws IOException {
+        if (!directRead || !(dataBuffer instanceof DataBufferUShort) || (imageInputStream.getBitOffset() != 0)) {
+            return false;
+        }
+        imageInputStream.readFully(((DataBufferUShort) dataBuffer).getData(), firstPixelIndex, numPixels);
+        return true;
+    }
+
     @Override
     public BufferedImage createBufferedImage(final int width, final int height) {
         return new BufferedImage(width, height, BufferedImage.TYPE_USHORT_GRAY);
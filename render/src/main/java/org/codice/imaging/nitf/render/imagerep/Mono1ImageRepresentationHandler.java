@@ -18,6 +18,7 @@ import java.awt.image.BufferedImage;
 import java.awt.image.DataBuffer;
 import java.io.IOException;
 import javax.imageio.stream.ImageInputStream;
+import org.codice.imaging.nitf.render.datareader.IOBulkReaderFunction;
 import org.codice.imaging.nitf.render.datareader.IOReaderFunction;
 
 /**
@@ -27,8 +28,17 @@ class Mono1ImageRepresentationHandler extends SharedMonoImageRepresentationHandl
 
     private static final int MAX_WHITE_BYTE_VALUE = 0xFF;
 
-    Mono1ImageRepresentationHandler(final int selectedBandZeroBase, final IOReaderFunction readerFunc) {
-        super(selectedBandZeroBase, readerFunc);
+    Mono1ImageRepresentationHandler(final int selectedBandZeroBase, final IOReaderFunction readerFunc,
+            final IOBulkReaderFunction bulkReaderFunc) {
+        super(selectedBandZeroBase, readerFunc, bulkReaderFunc);
+    }
+
+    @Override
+    protected int getPixelValue(final int sample) {
+        if (sample == 1) {
+            return MAX_WHITE_BYTE_VALUE;
+        }
+        return 0x00;
     }
 
     @Override
@@ -45,6 +55,12 @@ class Mono1ImageRepresentationHandler extends SharedMonoImageRepresentationHandl
         }
     }
 
+    @Override
+    protected boolean readSelectedBandDirect(final DataBuffer dataBuffer, final int firstPixelIndex, final int numPixels,
+            final ImageInputStream imageInputStream) throws IOException {
+        return false;
+    }
+
     @Override
     public BufferedImage createBufferedImage(final int width, final int height) {
         return new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
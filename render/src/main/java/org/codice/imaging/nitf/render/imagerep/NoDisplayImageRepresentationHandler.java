@@ -26,6 +26,11 @@ class NoDisplayImageRepresentationHandler implements ImageRepresentationHandler
             final ImageInputStream imageInputStream, final int bandIndex) throws IOException {
     }
 
+    @Override
+    public void renderPixelBands(final DataBuffer dataBuffer, final int firstPixelIndex, final int numPixels,
+            final ImageInputStream imageInputStream, final int firstBandIndex, final int numInterleavedBands) throws IOException {
+    }
+
     @Override
     public final BufferedImage createBufferedImage(final int width, final int height) {
         return new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
@@ -35,4 +40,14 @@ class NoDisplayImageRepresentationHandler implements ImageRepresentationHandler
     public final void renderPadPixel(final ImageMask imageMask, final DataBuffer data, final int pixelIndex) {
         return;
     }
+
+    @Override
+    public final void renderPadPixels(final ImageMask imageMask, final DataBuffer data, final int firstPixelIndex, final int numPixels) {
+        return;
+    }
+
+    @Override
+    public final boolean isBandUsed(final int bandIndex) {
+        return false;
+    }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render.imagerep;
+
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferUShort;
+
+/**
+ * Bulk replacement of pad pixel values in a decoded block.
+ *
+ * For the data buffer types that the image representation handlers create, the loops work directly on the backing
+ * primitive array, with a compare and a conditional store per pixel, which the JIT can unroll and vectorise. Other
+ * data buffers are handled one element at a time.
+ */
+final class PadPixels {
+
+    private static final int BYTE_MASK = 0xFF;
+
+    private static final int USHORT_MASK = 0xFFFF;
+
+    private PadPixels() {
+    }
+
+    /**
+     * Replace every pixel that has the pad value in a run of pixels.
+     *
+     * Pixels are compared as they would be returned by DataBuffer.getElem(), so byte and ushort values are unsigned.
+     *
+     * @param data the data buffer (single bank) of the decoded block.
+     * @param firstPixelIndex the index of the first pixel to check, as used for getElem().
+     * @param numPixels the number of consecutive pixels to check.
+     * @param padValue the pad pixel value.
+     * @param replacement the value to store in place of pad pixels (e.g. transparent).
+     */
+    static void replace(final DataBuffer data, final int firstPixelIndex, final int numPixels, final int padValue,
+            final int replacement) {
+        final int start = data.getOffset() + firstPixelIndex;
+        final int end = start + numPixels;
+        if ((data instanceof DataBufferByte) && (data.getNumBanks() == 1)) {
+            if ((padValue & ~BYTE_MASK) != 0) {
+                return;
+            }
+            replace(((DataBufferByte) data).getData(), start, end, (byte) padValue, (byte) replacement);
+        } else if ((data instanceof DataBufferUShort) && (data.getNumBanks() == 1)) {
+            if ((padValue & ~USHORT_MASK) != 0) {
+                return;
+            }
+            replace(((DataBufferUShort) data).getData(), start, end, (short) padValue, (short) replacement);
+        } else if ((data instanceof DataBufferInt) && (data.getNumBanks() == 1)) {
+            replace(((DataBufferInt) data).getData(), start, end, padValue, replacement);
+        } else {
+            for (int i = firstPixelIndex; i < firstPixelIndex + numPixels; ++i) {
+                if (data.getElem(i) == padValue) {
+                    data.setElem(i, replacement);
+                }
+            }
+        }
+    }
+
+    private static void replace(final byte[] pixels, final int start, final int end, final byte padValue, final byte replacement) {
+        for (int i = start; i < end; ++i) {
+            if (pixels[i] == padValue) {
+                pixels[i] = replacement;
+            }
+        }
+    }
+
+    private static void replace(final short[] pixels, final int start, final int end, final short padValue, final short replacement) {
+        for (int i = start; i < end; ++i) {
+            if (pixels[i] == padValue) {
+                pixels[i] = replacement;
+            }
+        }
+    }
+
+    private static void replace(final int[] pixels, final int start, final int end, final int padValue, final int replacement) {
+        for (int i = start; i < end; ++i) {
+            if (pixels[i] == padValue) {
+                pixels[i] = replacement;
+            }
+        }
+    }
+}
@@ -22,6 +22,7 @@ import javax.imageio.stream.ImageInputStream;
 import org.codice.imaging.nitf.core.image.ImageCompression;
 import org.codice.imaging.nitf.core.image.ImageSegment;
 import org.codice.imaging.nitf.render.ImageMask;
+import org.codice.imaging.nitf.render.datareader.IOBulkReaderFunction;
 import org.codice.imaging.nitf.render.datareader.IOReaderFunction;
 
 /**
@@ -31,9 +32,11 @@ class RGBLUTImageRepresentationHandler implements ImageRepresentationHandler {
 
     private final int selectedBand;
     private final IOReaderFunction reader;
+    private final IOBulkReaderFunction bulkReader;
     private final IndexColorModel colourModel;
 
-    RGBLUTImageRepresentationHandler(final int selectedBandZeroBase, final ImageSegment segment, final IOReaderFunction readerFunc) {
+    RGBLUTImageRepresentationHandler(final int selectedBandZeroBase, final ImageSegment segment, final IOReaderFunction readerFunc,
+            final IOBulkReaderFunction bulkReaderFunc) {
         selectedBand = selectedBandZeroBase;
         if (segment.getImageCompression().equals(ImageCompression.NOTCOMPRESSEDMASK)) {
             colourModel = new IndexColorModel(segment.getActualBitsPerPixelPerBand(),
@@ -50,6 +53,7 @@ class RGBLUTImageRepresentationHandler implements ImageRepresentationHandler {
                     segment.getImageBandZeroBase(selectedBandZeroBase).getLUTZeroBase(2).getEntries());
         }
         reader = readerFunc;
+        bulkReader = bulkReaderFunc;
     }
 
     @Override
@@ -62,11 +66,35 @@ class RGBLUTImageRepresentationHandler implements ImageRepresentationHandler {
         }
     }
 
+    @Override
+    public void renderPixelBands(final DataBuffer dataBuffer, final int firstPixelIndex, final int numPixels,
+            final ImageInputStream imageInputStream, final int firstBandIndex, final int numInterleavedBands) throws IOException {
+        int[] samples = new int[numPixels * numInterleavedBands];
+        bulkReader.apply(imageInputStream, samples, samples.length);
+        int selectedBandOffset = selectedBand - firstBandIndex;
+        if ((selectedBandOffset < 0) || (selectedBandOffset >= numInterleavedBands)) {
+            return;
+        }
+        for (int i = 0; i < numPixels; ++i) {
+            dataBuffer.setElem(firstPixelIndex + i, samples[i * numInterleavedBands + selectedBandOffset]);
+        }
+    }
+
+    @Override
+    public boolean isBandUsed(final int bandIndex) {
+        return bandIndex == selectedBand;
+    }
+
     @Override
     public void renderPadPixel(final ImageMask imageMask, final DataBuffer data, final int pixelIndex) {
         // Handled by the colour model.
     }
 
+    @Override
+    public void renderPadPixels(final ImageMask imageMask, final DataBuffer data, final int firstPixelIndex, final int numPixels) {
+        // Handled by the colour model.
+    }
+
     @Override
     public BufferedImage createBufferedImage(final int width, final int height) {
         return new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED, colourModel);
@@ -34,4 +34,10 @@ class Rgb24ImageRepresentationHandler extends AbstractRgbImageRepresentationHand
         data.setElem(pixelIndex,
                 ALPHA_MASK | data.getElem(pixelIndex) | (imageInputStream.read() << bandMapping.get(bandIndex)));
     }
+
+    @Override
+    protected final void readSamples(final ImageInputStream imageInputStream, final int[] samples, final int numSamples)
+            throws IOException {
+        readUnsignedBytes(imageInputStream, samples, numSamples);
+    }
 }
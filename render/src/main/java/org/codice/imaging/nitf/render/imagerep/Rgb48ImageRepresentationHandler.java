@@ -56,4 +56,14 @@ class Rgb48ImageRepresentationHandler extends AbstractRgbImageRepresentationHand
                 ALPHA_MASK | data.getElem(pixelIndex) | (pixelBandValue
                         << bandMapping.get(bandIndex)));
     }
+
+    @Override
+    protected final void readSamples(final ImageInputStream imageInputStream, final int[] samples, final int numSamples)
+            throws IOException {
+        int[] values = new int[numSamples * 2];
+        readUnsignedBytes(imageInputStream, values, values.length);
+        for (int i = 0; i < numSamples; ++i) {
+            samples[i] = ((values[2 * i] << Byte.SIZE) | values[2 * i + 1]) >> bitsToDiscard;
+        }
+    }
 }
@@ -15,7 +15,10 @@
 package org.codice.imaging.nitf.render.imagerep;
 
 import java.awt.image.DataBuffer;
+import java.io.IOException;
+import javax.imageio.stream.ImageInputStream;
 import org.codice.imaging.nitf.render.ImageMask;
+import org.codice.imaging.nitf.render.datareader.IOBulkReaderFunction;
 import org.codice.imaging.nitf.render.datareader.IOReaderFunction;
 
 /**
@@ -24,10 +27,57 @@ import org.codice.imaging.nitf.render.datareader.IOReaderFunction;
 abstract class SharedMonoImageRepresentationHandler implements ImageRepresentationHandler {
     protected final int selectedBandZeroBase;
     protected final IOReaderFunction reader;
+    protected final IOBulkReaderFunction bulkReader;
 
-    SharedMonoImageRepresentationHandler(final int selectedBand, final IOReaderFunction readerFunc) {
+    SharedMonoImageRepresentationHandler(final int selectedBand, final IOReaderFunction readerFunc,
+            final IOBulkReaderFunction bulkReaderFunc) {
         this.selectedBandZeroBase = selectedBand;
         this.reader = readerFunc;
+        this.bulkReader = bulkReaderFunc;
+    }
+
+    @Override
+    public final void renderPixelBands(final DataBuffer dataBuffer, final int firstPixelIndex, final int numPixels,
+            final ImageInputStream imageInputStream, final int firstBandIndex, final int numInterleavedBands) throws IOException {
+        int selectedBandOffset = selectedBandZeroBase - firstBandIndex;
+        if ((numInterleavedBands == 1) && (selectedBandOffset == 0)
+                && readSelectedBandDirect(dataBuffer, firstPixelIndex, numPixels, imageInputStream)) {
+            return;
+        }
+        int[] samples = new int[numPixels * numInterleavedBands];
+        bulkReader.apply(imageInputStream, samples, samples.length);
+        if ((selectedBandOffset < 0) || (selectedBandOffset >= numInterleavedBands)) {
+            return;
+        }
+        for (int i = 0; i < numPixels; ++i) {
+            dataBuffer.setElem(firstPixelIndex + i, getPixelValue(samples[i * numInterleavedBands + selectedBandOffset]));
+        }
+    }
+
+    /**
+     * Convert a sample value for the selected band into the pixel value to store.
+     *
+     * @param sample the sample value, as read from the image data.
+     * @return the value to store in the data buffer.
+     */
+    protected abstract int getPixelValue(int sample);
+
+    /**
+     * Read values for the selected band straight into the data buffer, if the data layout allows that.
+     *
+     * @param dataBuffer the buffer that contains the pixel data.
+     * @param firstPixelIndex the index of the first pixel being rendered.
+     * @param numPixels the number of consecutive pixels being rendered.
+     * @param imageInputStream the stream that contains the image data.
+     * @return true if the values were read, or false if the values need to be read and converted using bulkReader.
+     * @throws IOException if there is a problem reading from the imageInputStream
+     */
+    protected abstract boolean readSelectedBandDirect(DataBuffer dataBuffer, int firstPixelIndex, int numPixels,
+            ImageInputStream imageInputStream) throws IOException;
+
+    @Override
+    public final boolean isBandUsed(final int bandIndex) {
+        return bandIndex == selectedBandZeroBase;
     }
 
     @Override
@@ -37,4 +87,9 @@ abstract class SharedMonoImageRepresentationHandler implements ImageRepresentati
         }
     }
 
+    @Override
+    public void renderPadPixels(final ImageMask imageMask, final DataBuffer data, final int firstPixelIndex, final int numPixels) {
+        PadPixels.replace(data, firstPixelIndex, numPixels, imageMask.getPadPixelValue(), 0x00);
+    }
+
 }
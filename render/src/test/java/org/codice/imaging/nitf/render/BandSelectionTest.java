@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.util.Random;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageRepresentation;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Checks rendering of selected bands of multiband images.
+ */
+public class BandSelectionTest {
+
+    private static final int NUM_BANDS = 6;
+    private static final int BLOCK_WIDTH = 8;
+    private static final int BLOCK_HEIGHT = 4;
+    private static final int NUM_ROWS = 2 * BLOCK_HEIGHT;
+    private static final int NUM_COLUMNS = 3 * BLOCK_WIDTH;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int ALPHA = 0xFF000000;
+
+    private static final int[] FALSE_COLOUR = {4, 1, 2};
+
+    @Test
+    public void checkSingleBandMatchesData() throws IOException {
+        // A single block, band sequential, so each band is a plane of the data.
+        byte[] data = createData();
+        for (int band = 0; band < NUM_BANDS; ++band) {
+            ImageSegment segment = createSegment(ImageMode.BANDSEQUENTIAL, NUM_ROWS, NUM_COLUMNS, data);
+            BufferedImage img = new NitfRenderer().renderToClosestDataModel(segment, null, 1, new int[]{band});
+            assertEquals(BufferedImage.TYPE_BYTE_GRAY, img.getType());
+            Raster raster = img.getRaster();
+            for (int y = 0; y < NUM_ROWS; ++y) {
+                for (int x = 0; x < NUM_COLUMNS; ++x) {
+                    assertEquals(data[(band * NUM_ROWS + y) * NUM_COLUMNS + x] & BYTE_MASK, raster.getSample(x, y, 0));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void checkBandSequential() throws IOException {
+        checkFalseColourMatchesSingleBands(ImageMode.BANDSEQUENTIAL);
+    }
+
+    @Test
+    public void checkBlockInterleve() throws IOException {
+        checkFalseColourMatchesSingleBands(ImageMode.BLOCKINTERLEVE);
+    }
+
+    @Test
+    public void checkRowInterleve() throws IOException {
+        checkFalseColourMatchesSingleBands(ImageMode.ROWINTERLEVE);
+    }
+
+    @Test
+    public void checkPixelInterleve() throws IOException {
+        checkFalseColourMatchesSingleBands(ImageMode.PIXELINTERLEVE);
+    }
+
+    @Test
+    public void checkCacheKeepsBandSelectionsApart() throws IOException {
+        byte[] data = createData();
+        NitfRenderer renderer = new NitfRenderer(null, new DecodedBlockCache(1024 * 1024));
+        BufferedImage first = renderer.renderRegion(createSegment(ImageMode.BLOCKINTERLEVE, BLOCK_HEIGHT, BLOCK_WIDTH, data), null, 1,
+                new int[]{0, 1, 2});
+        BufferedImage second = renderer.renderRegion(createSegment(ImageMode.BLOCKINTERLEVE, BLOCK_HEIGHT, BLOCK_WIDTH, data), null, 1,
+                new int[]{2, 1, 0});
+        int firstPixel = first.getRGB(0, 0);
+        int secondPixel = second.getRGB(0, 0);
+        assertEquals(firstPixel & BYTE_MASK, (secondPixel >> (2 * Byte.SIZE)) & BYTE_MASK);
+        assertEquals((firstPixel >> (2 * Byte.SIZE)) & BYTE_MASK, secondPixel & BYTE_MASK);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkTwoBands() throws IOException {
+        new NitfRenderer().renderRegion(createSegment(ImageMode.BANDSEQUENTIAL, BLOCK_HEIGHT, BLOCK_WIDTH, createData()), null, 1,
+                new int[]{0, 1});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkBandOutOfRange() throws IOException {
+        new NitfRenderer().renderRegion(createSegment(ImageMode.BANDSEQUENTIAL, BLOCK_HEIGHT, BLOCK_WIDTH, createData()), null, 1,
+                new int[]{0, 1, NUM_BANDS});
+    }
+
+    private void checkFalseColourMatchesSingleBands(final ImageMode mode) throws IOException {
+        byte[] data = createData();
+        BufferedImage composite = new NitfRenderer().renderRegion(createSegment(mode, BLOCK_HEIGHT, BLOCK_WIDTH, data), null, 1, FALSE_COLOUR);
+        BufferedImage closest = new NitfRenderer().renderToClosestDataModel(createSegment(mode, BLOCK_HEIGHT, BLOCK_WIDTH, data), null, 1,
+                FALSE_COLOUR);
+        Raster[] singleBands = new Raster[FALSE_COLOUR.length];
+        for (int i = 0; i < FALSE_COLOUR.length; ++i) {
+            singleBands[i] = new NitfRenderer().renderToClosestDataModel(createSegment(mode, BLOCK_HEIGHT, BLOCK_WIDTH, data), null, 1,
+                    new int[]{FALSE_COLOUR[i]}).getRaster();
+        }
+        for (int y = 0; y < NUM_ROWS; ++y) {
+            for (int x = 0; x < NUM_COLUMNS; ++x) {
+                int expected = ALPHA | (singleBands[0].getSample(x, y, 0) << (2 * Byte.SIZE))
+                        | (singleBands[1].getSample(x, y, 0) << Byte.SIZE) | singleBands[2].getSample(x, y, 0);
+                assertEquals(mode + " at " + x + "," + y, expected, composite.getRGB(x, y));
+                assertEquals(mode + " at " + x + "," + y, expected, closest.getRGB(x, y));
+            }
+        }
+    }
+
+    private static byte[] createData() {
+        byte[] data = new byte[NUM_ROWS * NUM_COLUMNS * NUM_BANDS];
+        new Random(NUM_BANDS).nextBytes(data);
+        return data;
+    }
+
+    private static ImageSegment createSegment(final ImageMode mode, final int blockHeight, final int blockWidth, final byte[] data) {
+        String[] bands = new String[NUM_BANDS];
+        for (int i = 0; i < NUM_BANDS; ++i) {
+            bands[i] = "";
+        }
+        return SyntheticImageSegment.create(ImageRepresentation.MULTIBAND, bands, 8, 8, mode, NUM_ROWS, NUM_COLUMNS, blockHeight,
+                blockWidth, data);
+    }
+}
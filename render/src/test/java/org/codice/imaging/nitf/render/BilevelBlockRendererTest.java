@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Checks decoding of hand coded bi-level (ITU-T T.4) blocks.
+ *
+ * The block data is written as strings of codeword bits, which are packed into bytes with zero fill at the end.
+ */
+public class BilevelBlockRendererTest {
+
+    private static final String EOL = "000000000001";
+    private static final String EOL_2D_ROW = EOL + "0";
+
+    private static final String HORIZONTAL = "001";
+    private static final String VERTICAL_ONE_RIGHT = "011";
+
+    private static final String WHITE_4 = "1011";
+    private static final String WHITE_6 = "1110";
+    private static final String WHITE_8 = "10011";
+    private static final String WHITE_10 = "00111";
+    private static final String WHITE_MAKEUP_64 = "11011";
+
+    private static final String BLACK_4 = "011";
+    private static final String BLACK_10 = "0000100";
+    private static final String BLACK_26 = "000011001010";
+    private static final String BLACK_30 = "000001101000";
+    private static final String BLACK_MAKEUP_64 = "0000001111";
+
+    private static final int WHITE = 1;
+    private static final int BLACK = 0;
+
+    @Test
+    public void checkHorizontalModeMakeupCodes() throws IOException {
+        // Row 0: white 70 (64 + 6), black 30. Row 1: white 10, black 90 (64 + 26).
+        ImageInputStream data = createData(EOL_2D_ROW + HORIZONTAL + WHITE_MAKEUP_64 + WHITE_6 + BLACK_30
+                + EOL_2D_ROW + HORIZONTAL + WHITE_10 + BLACK_MAKEUP_64 + BLACK_26);
+        BilevelBlockRenderer renderer = createRenderer("2DS", 100, 2, data);
+        BufferedImage img = renderer.getNextImageBlock();
+        checkRow(img, 0, 70, 100);
+        checkRow(img, 1, 10, 100);
+    }
+
+    @Test
+    public void checkVerticalModePastEndOfRow() throws IOException {
+        // The reference row for the first row is all white, so b1 is the end of the row, and a1 would be past it.
+        checkBadChangingElement(EOL_2D_ROW + VERTICAL_ONE_RIGHT);
+    }
+
+    @Test
+    public void checkHorizontalModePastEndOfRow() throws IOException {
+        checkBadChangingElement(EOL_2D_ROW + HORIZONTAL + WHITE_10 + BLACK_10);
+    }
+
+    @Test
+    public void checkReadAheadIsUndone() throws IOException {
+        // Each block is one row of 8 pixels, and is not a whole number of bytes, so the second block starts mid-byte.
+        String firstBlock = EOL + WHITE_8;
+        String secondBlock = EOL + WHITE_4 + BLACK_4;
+        ImageInputStream data = createData(firstBlock + secondBlock);
+        BilevelBlockRenderer renderer = createRenderer("1D", 8, 1, data);
+
+        checkRow(renderer.getNextImageBlock(), 0, 8, 8);
+        assertEquals(firstBlock.length() / Byte.SIZE, data.getStreamPosition());
+        assertEquals(firstBlock.length() % Byte.SIZE, data.getBitOffset());
+
+        checkRow(renderer.getNextImageBlock(), 0, 4, 8);
+        int numBits = firstBlock.length() + secondBlock.length();
+        assertEquals(numBits / Byte.SIZE, data.getStreamPosition());
+        assertEquals(numBits % Byte.SIZE, data.getBitOffset());
+    }
+
+    private void checkBadChangingElement(final String bits) throws IOException {
+        BilevelBlockRenderer renderer = createRenderer("2DS", 16, 1, createData(bits));
+        try {
+            renderer.getNextImageBlock();
+            fail("Expected IOException for a bad changing element");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Bad changing element at row0"));
+        }
+    }
+
+    private static void checkRow(final BufferedImage img, final int row, final int numWhite, final int width) {
+        assertEquals(width, img.getWidth());
+        for (int x = 0; x < width; ++x) {
+            int expected = BLACK;
+            if (x < numWhite) {
+                expected = WHITE;
+            }
+            assertEquals("row " + row + " at " + x, expected, img.getRaster().getSample(x, row, 0));
+        }
+    }
+
+    private static BilevelBlockRenderer createRenderer(final String compressionRate, final int width, final int height,
+            final ImageInputStream data) throws IOException {
+        ImageSegment segment = Mockito.mock(ImageSegment.class);
+        Mockito.when(segment.getActualBitsPerPixelPerBand()).thenReturn(1);
+        Mockito.when(segment.getCompressionRate()).thenReturn(compressionRate);
+        Mockito.when(segment.getNumberOfPixelsPerBlockHorizontal()).thenReturn((long) width);
+        Mockito.when(segment.getNumberOfPixelsPerBlockVertical()).thenReturn((long) height);
+        BilevelBlockRenderer renderer = new BilevelBlockRenderer();
+        renderer.setImageSegment(segment, data);
+        return renderer;
+    }
+
+    private static ImageInputStream createData(final String bits) {
+        byte[] bytes = new byte[(bits.length() + Byte.SIZE - 1) / Byte.SIZE];
+        for (int i = 0; i < bits.length(); ++i) {
+            if (bits.charAt(i) == '1') {
+                bytes[i / Byte.SIZE] |= 0x80 >> (i % Byte.SIZE);
+            }
+        }
+        return new MemoryCacheImageInputStream(new ByteArrayInputStream(bytes));
+    }
+}
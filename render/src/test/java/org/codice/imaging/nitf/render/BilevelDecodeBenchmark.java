@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.codice.imaging.nitf.core.SlottedParseStrategy;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageCompression;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import static org.junit.Assert.assertFalse;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Benchmark for decoding the bilevel (C1) JITC samples.
+ *
+ * This is not run as part of the normal test suite (the class name does not
+ * match the surefire patterns). Run it with:
+ * mvn test -pl render -Dtest=BilevelDecodeBenchmark -Dslf4jtest.print.level=INFO
+ */
+public class BilevelDecodeBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BilevelDecodeBenchmark.class);
+
+    private static final String[] SAMPLES = {
+        "/JitcNitf20Samples/U_1036A.NTF",
+        "/JitcNitf20Samples/U_1050A.NTF",
+        "/JitcNitf20Samples/U_1123A.NTF",
+        "/JitcNitf20Samples/U_4003B.NTF",
+        "/JitcNitf20Samples/U_4004B.NTF",
+        "/JitcNitf21Samples/i_3041a.ntf",
+        "/JitcNitf21Samples/ns3038a.nsf",
+        "/JitcNitf21Samples/ns3050a.nsf"
+    };
+
+    private static final int WARMUP_PASSES = 5;
+    private static final int MEASURED_PASSES = 20;
+
+    @Test
+    public void decodeCorpus() throws NitfFormatException, IOException {
+        List<ImageSegment> corpus = loadCorpus();
+        assertFalse(corpus.isEmpty());
+
+        long checksum = 0;
+        for (int i = 0; i < WARMUP_PASSES; ++i) {
+            checksum += decodeAll(corpus);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_PASSES; ++i) {
+            checksum += decodeAll(corpus);
+        }
+        long elapsed = System.nanoTime() - start;
+        long pixels = (long) MEASURED_PASSES * countPixels(corpus);
+        LOGGER.info(String.format("Bilevel corpus of %d segments: %.2f ms per pass, %.1f Mpixel/s (checksum %d)",
+                corpus.size(), elapsed / 1e6 / MEASURED_PASSES, pixels * 1e3 / elapsed, checksum));
+    }
+
+    private List<ImageSegment> loadCorpus() throws NitfFormatException {
+        List<ImageSegment> corpus = new ArrayList<>();
+        for (String sample : SAMPLES) {
+            if (getClass().getResource(sample) == null) {
+                continue;
+            }
+            SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.IMAGE_DATA);
+            NitfParser.parse(new NitfInputStreamReader(getClass().getResourceAsStream(sample)), parseStrategy);
+            for (ImageSegment imageSegment : parseStrategy.getDataSource().getImageSegments()) {
+                if (imageSegment.getImageCompression() == ImageCompression.BILEVEL) {
+                    corpus.add(imageSegment);
+                }
+            }
+        }
+        return corpus;
+    }
+
+    private static long countPixels(final List<ImageSegment> corpus) {
+        long pixels = 0;
+        for (ImageSegment imageSegment : corpus) {
+            pixels += imageSegment.getNumberOfRows() * imageSegment.getNumberOfColumns();
+        }
+        return pixels;
+    }
+
+    private long decodeAll(final List<ImageSegment> corpus) throws IOException {
+        long checksum = 0;
+        for (ImageSegment imageSegment : corpus) {
+            imageSegment.getData().seek(0);
+            BufferedImage img = new NitfRenderer().renderToClosestDataModel(imageSegment);
+            DataBuffer pixelData = img.getRaster().getDataBuffer();
+            for (int i = 0; i < pixelData.getSize(); ++i) {
+                checksum += pixelData.getElem(i);
+            }
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageRepresentation;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Checks that rendering one row of blocks at a time gives the same pixels as rendering the whole image.
+ */
+public class BlockRowRenderTest {
+
+    private static final int BLOCK_WIDTH = 16;
+    private static final int BLOCK_HEIGHT = 8;
+    private static final int NUM_BLOCK_ROWS = 3;
+    private static final int NUM_BLOCK_COLUMNS = 4;
+    // Not a multiple of the block size, so the last row of blocks gives a shorter strip.
+    private static final int NUM_ROWS = NUM_BLOCK_ROWS * BLOCK_HEIGHT - 3;
+    private static final int NUM_COLUMNS = NUM_BLOCK_COLUMNS * BLOCK_WIDTH - 5;
+
+    @Test
+    public void checkMono8BlockInterleve() throws IOException {
+        checkBlockRowsMatchFullRender(ImageRepresentation.MONOCHROME, new String[]{"M"}, 8, ImageMode.BLOCKINTERLEVE, null);
+    }
+
+    @Test
+    public void checkMono16RowInterleve() throws IOException {
+        checkBlockRowsMatchFullRender(ImageRepresentation.MONOCHROME, new String[]{"M"}, 16, ImageMode.ROWINTERLEVE, null);
+    }
+
+    @Test
+    public void checkRgbPixelInterleve() throws IOException {
+        checkBlockRowsMatchFullRender(ImageRepresentation.RGBTRUECOLOUR, new String[]{"R", "G", "B"}, 8, ImageMode.PIXELINTERLEVE, null);
+    }
+
+    @Test
+    public void checkRgbBandSequential() throws IOException {
+        checkBlockRowsMatchFullRender(ImageRepresentation.RGBTRUECOLOUR, new String[]{"R", "G", "B"}, 8, ImageMode.BANDSEQUENTIAL, null);
+    }
+
+    @Test
+    public void checkMono1BlockInterleve() throws IOException {
+        checkBlockRowsMatchFullRender(ImageRepresentation.MONOCHROME, new String[]{"M"}, 1, ImageMode.BLOCKINTERLEVE, null);
+    }
+
+    @Test
+    public void checkParallelBlockRows() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            checkBlockRowsMatchFullRender(ImageRepresentation.RGBTRUECOLOUR, new String[]{"R", "G", "B"}, 8, ImageMode.BANDSEQUENTIAL,
+                    executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void checkConsumerFailureStopsRendering() throws IOException {
+        byte[] data = createData(1, 8);
+        new NitfRenderer().renderBlockRows(SyntheticImageSegment.create(ImageRepresentation.MONOCHROME, new String[]{"M"}, 8,
+                ImageMode.BLOCKINTERLEVE, NUM_ROWS, NUM_COLUMNS, BLOCK_HEIGHT, BLOCK_WIDTH, data), (blockRow, firstRow, strip) -> {
+                    throw new IOException("disk full");
+                });
+    }
+
+    private void checkBlockRowsMatchFullRender(final ImageRepresentation representation, final String[] bands, final int nbpp,
+            final ImageMode mode, final ExecutorService executor) throws IOException {
+        byte[] data = createData(bands.length, nbpp);
+        final Raster full = new NitfRenderer().renderToClosestDataModel(SyntheticImageSegment.create(representation, bands, nbpp, mode,
+                NUM_ROWS, NUM_COLUMNS, BLOCK_HEIGHT, BLOCK_WIDTH, data)).getRaster();
+        final int[] nextBlockRow = new int[1];
+        new NitfRenderer(executor).renderBlockRows(SyntheticImageSegment.create(representation, bands, nbpp, mode, NUM_ROWS, NUM_COLUMNS,
+                BLOCK_HEIGHT, BLOCK_WIDTH, data), (blockRow, firstRow, strip) -> {
+            assertEquals(nextBlockRow[0]++, blockRow);
+            assertEquals(blockRow * BLOCK_HEIGHT, firstRow);
+            assertEquals(NUM_COLUMNS, strip.getWidth());
+            assertEquals(Math.min(BLOCK_HEIGHT, NUM_ROWS - firstRow), strip.getHeight());
+            checkStrip(full, strip, firstRow);
+        });
+        assertEquals(NUM_BLOCK_ROWS, nextBlockRow[0]);
+    }
+
+    private void checkStrip(final Raster full, final BufferedImage strip, final int firstRow) {
+        Raster stripRaster = strip.getRaster();
+        for (int y = 0; y < strip.getHeight(); ++y) {
+            for (int x = 0; x < strip.getWidth(); ++x) {
+                assertArrayEquals("at " + x + "," + (firstRow + y), full.getPixel(x, firstRow + y, (int[]) null),
+                        stripRaster.getPixel(x, y, (int[]) null));
+            }
+        }
+    }
+
+    private static byte[] createData(final int numBands, final int nbpp) {
+        byte[] data = new byte[NUM_BLOCK_ROWS * BLOCK_HEIGHT * NUM_BLOCK_COLUMNS * BLOCK_WIDTH * numBands * nbpp / Byte.SIZE];
+        new Random(numBands * nbpp).nextBytes(data);
+        return data;
+    }
+}
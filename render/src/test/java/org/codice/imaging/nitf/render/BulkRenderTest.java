@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageRepresentation;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.render.imagerep.ImageRepresentationHandler;
+import org.codice.imaging.nitf.render.imagerep.ImageRepresentationHandlerFactory;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Checks that bulk (row at a time) decoding matches pixel at a time decoding.
+ */
+public class BulkRenderTest {
+
+    private static final int NUM_PIXELS = 37;
+
+    @Test
+    public void checkMono8() throws IOException {
+        checkBulkMatchesPerPixel(ImageRepresentation.MONOCHROME, new String[]{"M"}, 8, 8);
+    }
+
+    @Test
+    public void checkMono7In8() throws IOException {
+        checkBulkMatchesPerPixel(ImageRepresentation.MONOCHROME, new String[]{"M"}, 8, 7);
+    }
+
+    @Test
+    public void checkMono16() throws IOException {
+        checkBulkMatchesPerPixel(ImageRepresentation.MONOCHROME, new String[]{"M"}, 16, 16);
+    }
+
+    @Test
+    public void checkMono11In16() throws IOException {
+        checkBulkMatchesPerPixel(ImageRepresentation.MONOCHROME, new String[]{"M"}, 16, 11);
+    }
+
+    @Test
+    public void checkMono12() throws IOException {
+        checkBulkMatchesPerPixel(ImageRepresentation.MONOCHROME, new String[]{"M"}, 12, 12);
+    }
+
+    @Test
+    public void checkMono1() throws IOException {
+        checkBulkMatchesPerPixel(ImageRepresentation.MONOCHROME, new String[]{"M"}, 1, 1);
+    }
+
+    @Test
+    public void checkMultibandMono8() throws IOException {
+        checkBulkMatchesPerPixel(ImageRepresentation.MULTIBAND, new String[]{"", "M", ""}, 8, 8);
+    }
+
+    @Test
+    public void checkRgb24() throws IOException {
+        checkBulkMatchesPerPixel(ImageRepresentation.RGBTRUECOLOUR, new String[]{"R", "G", "B"}, 8, 8);
+    }
+
+    @Test
+    public void checkRgb48() throws IOException {
+        checkBulkMatchesPerPixel(ImageRepresentation.RGBTRUECOLOUR, new String[]{"B", "G", "R"}, 16, 11);
+    }
+
+    private void checkBulkMatchesPerPixel(final ImageRepresentation representation, final String[] bandRepresentations,
+            final int nbpp, final int abpp) throws IOException {
+        int numBands = bandRepresentations.length;
+        byte[] data = new byte[NUM_PIXELS * numBands * 2];
+        new Random(nbpp * 100 + abpp).nextBytes(data);
+        ImageSegment segment = SyntheticImageSegment.create(representation, bandRepresentations, nbpp, abpp,
+                ImageMode.PIXELINTERLEVE, 1, NUM_PIXELS, 1, NUM_PIXELS, data);
+        ImageRepresentationHandler handler = ImageRepresentationHandlerFactory.forImageSegment(segment);
+
+        // Pixel interleaved
+        DataBuffer expected = handler.createBufferedImage(NUM_PIXELS, 1).getRaster().getDataBuffer();
+        ImageInputStream expectedStream = new MemoryCacheImageInputStream(new ByteArrayInputStream(data));
+        for (int pixel = 0; pixel < NUM_PIXELS; ++pixel) {
+            for (int band = 0; band < numBands; ++band) {
+                handler.renderPixelBand(expected, pixel, expectedStream, band);
+            }
+        }
+        BufferedImage actualImage = handler.createBufferedImage(NUM_PIXELS, 1);
+        DataBuffer actual = actualImage.getRaster().getDataBuffer();
+        ImageInputStream actualStream = new MemoryCacheImageInputStream(new ByteArrayInputStream(data));
+        handler.renderPixelBands(actual, 0, NUM_PIXELS, actualStream, 0, numBands);
+        checkSame(expected, actual);
+        assertEquals(expectedStream.getStreamPosition(), actualStream.getStreamPosition());
+        assertEquals(expectedStream.getBitOffset(), actualStream.getBitOffset());
+
+        // Band at a time, split into two runs
+        expected = handler.createBufferedImage(NUM_PIXELS, 1).getRaster().getDataBuffer();
+        expectedStream = new MemoryCacheImageInputStream(new ByteArrayInputStream(data));
+        for (int band = 0; band < numBands; ++band) {
+            for (int pixel = 0; pixel < NUM_PIXELS; ++pixel) {
+                handler.renderPixelBand(expected, pixel, expectedStream, band);
+            }
+        }
+        actual = handler.createBufferedImage(NUM_PIXELS, 1).getRaster().getDataBuffer();
+        actualStream = new MemoryCacheImageInputStream(new ByteArrayInputStream(data));
+        int split = NUM_PIXELS / 2;
+        for (int band = 0; band < numBands; ++band) {
+            handler.renderPixelBands(actual, 0, split, actualStream, band, 1);
+            handler.renderPixelBands(actual, split, NUM_PIXELS - split, actualStream, band, 1);
+        }
+        checkSame(expected, actual);
+        assertEquals(expectedStream.getStreamPosition(), actualStream.getStreamPosition());
+    }
+
+    private void checkSame(final DataBuffer expected, final DataBuffer actual) {
+        for (int i = 0; i < NUM_PIXELS; ++i) {
+            assertEquals("pixel " + i, expected.getElem(i), actual.getElem(i));
+        }
+    }
+}
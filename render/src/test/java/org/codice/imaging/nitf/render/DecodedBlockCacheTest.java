@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageRepresentation;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Tests for the decoded block cache.
+ */
+public class DecodedBlockCacheTest {
+
+    private static final int BLOCK_SIZE = 16;
+    private static final int NUM_ROWS = 2 * BLOCK_SIZE;
+    private static final int NUM_COLUMNS = 3 * BLOCK_SIZE;
+    private static final int BLOCK_BYTES = BLOCK_SIZE * BLOCK_SIZE;
+
+    @Test
+    public void checkLeastRecentlyUsedEviction() {
+        ImageSegment segment = Mockito.mock(ImageSegment.class);
+        DecodedBlockCache cache = new DecodedBlockCache(2 * BLOCK_BYTES);
+        BufferedImage first = createBlock();
+        BufferedImage second = createBlock();
+        BufferedImage third = createBlock();
+
+        cache.put(segment, 0, 0, null, first);
+        cache.put(segment, 0, 1, null, second);
+        assertSame(first, cache.get(segment, 0, 0, null));
+        cache.put(segment, 0, 2, null, third);
+
+        assertNull(cache.get(segment, 0, 1, null));
+        assertSame(first, cache.get(segment, 0, 0, null));
+        assertSame(third, cache.get(segment, 0, 2, null));
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2, cache.getNumberOfBlocks());
+        assertEquals(2 * BLOCK_BYTES, cache.getSizeInBytes());
+    }
+
+    @Test
+    public void checkKeys() {
+        ImageSegment segment = Mockito.mock(ImageSegment.class);
+        ImageSegment otherSegment = Mockito.mock(ImageSegment.class);
+        DecodedBlockCache cache = new DecodedBlockCache(10 * BLOCK_BYTES);
+        BufferedImage block = createBlock();
+
+        cache.put(segment, 1, 2, new int[]{0, 2}, block);
+        assertSame(block, cache.get(segment, 1, 2, new int[]{0, 2}));
+        assertNull(cache.get(segment, 1, 2, null));
+        assertNull(cache.get(segment, 1, 2, new int[]{0, 1}));
+        assertNull(cache.get(segment, 2, 1, new int[]{0, 2}));
+        assertNull(cache.get(otherSegment, 1, 2, new int[]{0, 2}));
+    }
+
+    @Test
+    public void checkInvalidateAndClear() {
+        ImageSegment segment = Mockito.mock(ImageSegment.class);
+        ImageSegment otherSegment = Mockito.mock(ImageSegment.class);
+        DecodedBlockCache cache = new DecodedBlockCache(10 * BLOCK_BYTES);
+        cache.put(segment, 0, 0, null, createBlock());
+        cache.put(otherSegment, 0, 0, null, createBlock());
+
+        cache.invalidate(segment);
+        assertNull(cache.get(segment, 0, 0, null));
+        assertEquals(1, cache.getNumberOfBlocks());
+        assertEquals(BLOCK_BYTES, cache.getSizeInBytes());
+
+        cache.clear();
+        assertEquals(0, cache.getNumberOfBlocks());
+        assertEquals(0, cache.getSizeInBytes());
+    }
+
+    @Test
+    public void checkOversizedBlockNotCached() {
+        ImageSegment segment = Mockito.mock(ImageSegment.class);
+        DecodedBlockCache cache = new DecodedBlockCache(BLOCK_BYTES - 1);
+        cache.put(segment, 0, 0, null, createBlock());
+        assertEquals(0, cache.getNumberOfBlocks());
+        assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    public void checkSizeOfIntBlock() {
+        ImageSegment segment = Mockito.mock(ImageSegment.class);
+        DecodedBlockCache cache = new DecodedBlockCache(10 * BLOCK_BYTES);
+        cache.put(segment, 0, 0, null, new BufferedImage(BLOCK_SIZE, BLOCK_SIZE, BufferedImage.TYPE_INT_ARGB));
+        assertEquals(4 * BLOCK_BYTES, cache.getSizeInBytes());
+    }
+
+    @Test
+    public void checkRenderUsesCachedBlocks() throws IOException {
+        byte[] data = new byte[NUM_ROWS * NUM_COLUMNS];
+        new Random(1).nextBytes(data);
+        ImageSegment segment = SyntheticImageSegment.create(ImageRepresentation.MONOCHROME, new String[]{"M"}, 8, 8,
+                ImageMode.BLOCKINTERLEVE, NUM_ROWS, NUM_COLUMNS, BLOCK_SIZE, BLOCK_SIZE, data);
+        DecodedBlockCache cache = new DecodedBlockCache(1024 * 1024);
+        NitfRenderer renderer = new NitfRenderer(null, cache);
+
+        BufferedImage expected = renderer.renderToClosestDataModel(segment);
+        assertEquals(0, cache.getHits());
+        assertEquals(6, cache.getMisses());
+        assertEquals(6, cache.getNumberOfBlocks());
+
+        // Cached blocks are not read again, so replacing the data does not change the output.
+        segment.setData(new MemoryCacheImageInputStream(new ByteArrayInputStream(new byte[data.length])));
+        BufferedImage actual = renderer.renderToClosestDataModel(segment);
+        assertEquals(6, cache.getHits());
+        assertSameData(expected, actual);
+
+        Rectangle region = new Rectangle(BLOCK_SIZE + 3, 5, BLOCK_SIZE, BLOCK_SIZE);
+        segment.setData(new MemoryCacheImageInputStream(new ByteArrayInputStream(new byte[data.length])));
+        BufferedImage chip = renderer.renderToClosestDataModel(segment, region);
+        assertEquals(6 + 4, cache.getHits());
+        assertSameData(expected.getSubimage(region.x, region.y, region.width, region.height), chip);
+    }
+
+    private static void assertSameData(final BufferedImage expected, final BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); ++y) {
+            for (int x = 0; x < expected.getWidth(); ++x) {
+                assertEquals(expected.getRaster().getSample(x, y, 0), actual.getRaster().getSample(x, y, 0));
+            }
+        }
+    }
+
+    private static BufferedImage createBlock() {
+        BufferedImage block = new BufferedImage(BLOCK_SIZE, BLOCK_SIZE, BufferedImage.TYPE_BYTE_GRAY);
+        assertEquals(DataBuffer.TYPE_BYTE, block.getRaster().getDataBuffer().getDataType());
+        return block;
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferUShort;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageRepresentation;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.render.imagerep.ImageRepresentationHandler;
+import org.codice.imaging.nitf.render.imagerep.ImageRepresentationHandlerFactory;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests for the image mask block queries and pad pixel handling.
+ */
+public class ImageMaskTest {
+
+    private static final int NOT_RECORDED = 0xFFFFFFFF;
+
+    private static final byte PAD_VALUE = 7;
+
+    @Test
+    public void checkBlockMask() throws IOException {
+        // Four blocks, where the second is not recorded and the last is past 2 GB.
+        ImageSegment segment = createMaskedSegment(ImageMode.BLOCKINTERLEVE, 1, 0, NOT_RECORDED, 16, 0x90000000);
+        ImageMask mask = new ImageMask(segment, segment.getData());
+        assertTrue(mask.hasBlockOffsets());
+        assertFalse(mask.isMaskedBlock(0, 0));
+        assertTrue(mask.isMaskedBlock(1, 0));
+        assertTrue(mask.isBlockPresent(0, 0));
+        assertFalse(mask.isBlockPresent(1, 0));
+        assertTrue(mask.isBlockPresent(3, 0));
+        assertFalse(mask.isBlockPresent(4, 0));
+        assertFalse(mask.isBlockPresent(0, 1));
+        assertEquals(0, mask.getBlockOffset(0, 0));
+        assertEquals(-1, mask.getBlockOffset(1, 0));
+        assertEquals(16, mask.getBlockOffset(2, 0));
+        assertEquals(16 * Byte.SIZE, mask.getBlockBitOffset(2, 0));
+        assertEquals(0x90000000L, mask.getBlockOffset(3, 0));
+        assertEquals(26, mask.getBlockDataOffset());
+        assertFalse(mask.hasPixelMasks());
+    }
+
+    @Test
+    public void checkBandSequentialMask() throws IOException {
+        ImageSegment segment = createMaskedSegment(ImageMode.BANDSEQUENTIAL, 2, 0, 16, 32, 48, NOT_RECORDED, 64, NOT_RECORDED, 80);
+        ImageMask mask = new ImageMask(segment, segment.getData());
+        assertTrue(mask.isMaskedBlock(0, 1));
+        assertFalse(mask.isMaskedBlock(1, 1));
+        assertTrue(mask.isMaskedBlock(2, 1));
+        assertFalse(mask.isBlockPresent(0, 1));
+        assertTrue(mask.isBlockPresent(1, 1));
+        assertFalse(mask.isBlockPresent(0, 2));
+        assertEquals(48, mask.getBlockOffset(3, 0));
+        assertEquals(-1, mask.getBlockOffset(0, 1));
+        assertEquals(64, mask.getBlockOffset(1, 1));
+        assertEquals(80, mask.getBlockOffset(3, 1));
+    }
+
+    @Test
+    public void checkBlockDataOffset() throws IOException {
+        // The blocked image data offset is taken from the mask, even if there is a gap between the mask and the blocks.
+        ByteBuffer mask = ByteBuffer.allocate(10 + 4 * 4);
+        mask.putInt(64);
+        mask.putShort((short) 4);
+        mask.putShort((short) 0);
+        mask.putShort((short) 0);
+        for (int offset : new int[] {0, 4, 8, 12}) {
+            mask.putInt(offset);
+        }
+        ImageSegment segment = SyntheticImageSegment.create(ImageRepresentation.MONOCHROME, new String[] {"M"}, 8, 8,
+                ImageMode.BLOCKINTERLEVE, 4, 4, 2, 2, mask.array());
+        assertEquals(64, new ImageMask(segment, segment.getData()).getBlockDataOffset());
+    }
+
+    @Test
+    public void checkRegularLayout() {
+        ImageSegment segment = SyntheticImageSegment.create(ImageRepresentation.MONOCHROME, new String[] {"M"}, 8, 8,
+                ImageMode.BLOCKINTERLEVE, 4, 4, 2, 2, new byte[16]);
+        ImageMask mask = new ImageMask(segment);
+        assertFalse(mask.hasBlockOffsets());
+        assertFalse(mask.isMaskedBlock(3, 0));
+        assertTrue(mask.isBlockPresent(3, 0));
+        assertFalse(mask.isBlockPresent(-1, 0));
+        assertEquals(12, mask.getBlockOffset(3, 0));
+        assertEquals(0, mask.getBlockDataOffset());
+    }
+
+    @Test
+    public void checkRegularBandSequentialLayout() {
+        // Each band of every block comes before the next band of any block.
+        ImageSegment segment = SyntheticImageSegment.create(ImageRepresentation.RGBTRUECOLOUR, new String[] {"R", "G", "B"}, 8, 8,
+                ImageMode.BANDSEQUENTIAL, 4, 4, 2, 2, new byte[48]);
+        ImageMask mask = new ImageMask(segment);
+        assertEquals(4, mask.getBlockOffset(1, 0));
+        assertEquals(16 + 12, mask.getBlockOffset(3, 1));
+        assertEquals(32, mask.getBlockOffset(0, 2));
+        assertEquals(-1, mask.getBlockOffset(0, 3));
+    }
+
+    @Test
+    public void checkRegularUnalignedLayout() {
+        // Four 1 bit pixels per block, so the second block starts in the middle of the first byte.
+        ImageSegment segment = SyntheticImageSegment.create(ImageRepresentation.MONOCHROME, new String[] {"M"}, 1, 1,
+                ImageMode.BLOCKINTERLEVE, 4, 4, 2, 2, new byte[2]);
+        ImageMask mask = new ImageMask(segment);
+        assertEquals(4, mask.getBlockBitOffset(1, 0));
+        assertEquals(0, mask.getBlockOffset(1, 0));
+        assertEquals(12, mask.getBlockBitOffset(3, 0));
+    }
+
+    @Test
+    public void checkPadPixelMask() throws IOException {
+        // Second block has no pad pixels.
+        ImageSegment segment = createPadMaskedSegment(new int[] {0, 4, 8, 12}, new int[] {0, NOT_RECORDED, 0, 0});
+        ImageMask mask = new ImageMask(segment, segment.getData());
+        assertTrue(mask.hasPixelMasks());
+        assertEquals(PAD_VALUE, mask.getPadPixelValue());
+        assertTrue(mask.hasPadPixels(0));
+        assertFalse(mask.hasPadPixels(1));
+        assertTrue(mask.hasPadPixels(2));
+        assertEquals(12, mask.getBlockOffset(3, 0));
+    }
+
+    @Test
+    public void checkBulkPadPixels() throws IOException {
+        ImageSegment segment = createPadMaskedSegment(new int[] {0, 4, 8, 12}, new int[] {0, 0, 0, 0});
+        ImageMask mask = new ImageMask(segment, segment.getData());
+        checkBulkPadPixels(mask, new DataBufferByte(new byte[] {1, PAD_VALUE, 3, PAD_VALUE, 5, PAD_VALUE}, 6),
+                ImageRepresentation.MONOCHROME, 8);
+        checkBulkPadPixels(mask, new DataBufferUShort(new short[] {1, PAD_VALUE, 3, PAD_VALUE, 5, PAD_VALUE}, 6),
+                ImageRepresentation.MONOCHROME, 16);
+        checkBulkPadPixels(mask, new DataBufferInt(new int[] {1, PAD_VALUE, 3, PAD_VALUE, 5, PAD_VALUE}, 6),
+                ImageRepresentation.RGBTRUECOLOUR, 8);
+    }
+
+    private void checkBulkPadPixels(final ImageMask mask, final DataBuffer data, final ImageRepresentation representation,
+            final int nbpp) {
+        String[] bands = {"M"};
+        if (representation == ImageRepresentation.RGBTRUECOLOUR) {
+            bands = new String[] {"R", "G", "B"};
+        }
+        ImageRepresentationHandler handler = ImageRepresentationHandlerFactory.forImageSegment(SyntheticImageSegment.create(
+                representation, bands, nbpp, nbpp, ImageMode.BLOCKINTERLEVE, 4, 4, 2, 2, new byte[0]));
+        int[] expected = new int[data.getSize()];
+        for (int i = 0; i < expected.length; ++i) {
+            expected[i] = data.getElem(i);
+        }
+        for (int i = 1; i < 5; ++i) {
+            handler.renderPadPixel(mask, new ExpectedBuffer(expected), i);
+        }
+        handler.renderPadPixels(mask, data, 1, 4);
+        for (int i = 0; i < expected.length; ++i) {
+            assertEquals("pixel " + i, expected[i], data.getElem(i));
+        }
+    }
+
+    /**
+     * Data buffer backed by an int array, that renderPadPixel() updates one element at a time.
+     */
+    private static final class ExpectedBuffer extends DataBuffer {
+        private final int[] mValues;
+
+        ExpectedBuffer(final int[] values) {
+            super(DataBuffer.TYPE_INT, values.length);
+            mValues = values;
+        }
+
+        @Override
+        public int getElem(final int bank, final int i) {
+            return mValues[i];
+        }
+
+        @Override
+        public void setElem(final int bank, final int i, final int val) {
+            mValues[i] = val;
+        }
+    }
+
+    private ImageSegment createPadMaskedSegment(final int[] blockOffsets, final int[] padOffsets) {
+        ByteBuffer mask = ByteBuffer.allocate(11 + 4 * (blockOffsets.length + padOffsets.length));
+        mask.putInt(mask.capacity());
+        mask.putShort((short) 4);
+        mask.putShort((short) 4);
+        mask.putShort((short) 8);
+        mask.put((byte) PAD_VALUE);
+        for (int offset : blockOffsets) {
+            mask.putInt(offset);
+        }
+        for (int offset : padOffsets) {
+            mask.putInt(offset);
+        }
+        return SyntheticImageSegment.create(ImageRepresentation.MONOCHROME, new String[] {"M"}, 8, 8, ImageMode.BLOCKINTERLEVE,
+                4, 4, 2, 2, mask.array());
+    }
+
+    private ImageSegment createMaskedSegment(final ImageMode mode, final int numBands, final int... blockOffsets) {
+        ByteBuffer mask = ByteBuffer.allocate(10 + 4 * blockOffsets.length);
+        mask.putInt(10 + 4 * blockOffsets.length);
+        mask.putShort((short) 4);
+        mask.putShort((short) 0);
+        mask.putShort((short) 0);
+        for (int offset : blockOffsets) {
+            mask.putInt(offset);
+        }
+        String[] bands = new String[numBands];
+        for (int i = 0; i < numBands; ++i) {
+            bands[i] = "M";
+        }
+        return SyntheticImageSegment.create(ImageRepresentation.MONOCHROME, bands, 8, 8, mode, 4, 4, 2, 2, mask.array());
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.io.ByteArrayInputStream;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+/**
+ * Tests for the pool of ImageReaders.
+ */
+public class ImageReaderPoolTest {
+
+    private static final String JPEG = "image/jpeg";
+
+    @Test
+    public void checkReaderReused() {
+        ImageReaderPool pool = new ImageReaderPool(2);
+        ImageReader reader = pool.acquire(JPEG);
+        assertEquals(0, pool.getNumIdleReaders(JPEG));
+        pool.release(JPEG, reader);
+        assertEquals(1, pool.getNumIdleReaders(JPEG));
+        assertSame(reader, pool.acquire(JPEG));
+        assertEquals(0, pool.getNumIdleReaders(JPEG));
+    }
+
+    @Test
+    public void checkReaderReset() {
+        ImageReaderPool pool = new ImageReaderPool(2);
+        ImageReader reader = pool.acquire(JPEG);
+        ImageInputStream input = new MemoryCacheImageInputStream(new ByteArrayInputStream(new byte[0]));
+        reader.setInput(input);
+        pool.release(JPEG, reader);
+        assertNull(pool.acquire(JPEG).getInput());
+    }
+
+    @Test
+    public void checkPoolBounded() {
+        ImageReaderPool pool = new ImageReaderPool(2);
+        ImageReader first = pool.acquire(JPEG);
+        ImageReader second = pool.acquire(JPEG);
+        ImageReader third = pool.acquire(JPEG);
+        assertNotSame(first, second);
+        assertNotSame(second, third);
+        pool.release(JPEG, first);
+        pool.release(JPEG, second);
+        pool.release(JPEG, third);
+        assertEquals(2, pool.getNumIdleReaders(JPEG));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void checkUnknownMediaType() {
+        new ImageReaderPool(2).acquire("image/x-not-a-real-type");
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.codice.imaging.nitf.core.SlottedParseStrategy;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageRepresentation;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Tests for laying out and rendering several image segments in the common coordinate system.
+ */
+public class ImageSegmentMosaicTest {
+
+    private static final int TRANSPARENT = 0;
+
+    private static final int[][] VIEWPORTS = {
+        {0, 0, 36, 24, 1},
+        {0, 0, 36, 24, 3},
+        {19, 3, 10, 12, 1},
+        {-5, -7, 50, 40, 4},
+        {21, 5, 7, 9, 2},
+        {1, 1, 17, 13, 5}
+    };
+
+    @Test
+    public void checkLayout() {
+        ImageSegment base = createSegment(24, 32, 1, 0, 0, 0, 10);
+        ImageSegment top = createSegment(8, 16, 3, 1, 4, 20, 200);
+        ImageSegment middle = createSegment(8, 8, 2, 3, 2, 2, 100);
+        ImageSegmentMosaic mosaic = new ImageSegmentMosaic(new NitfRenderer(), Arrays.asList(top, middle, base));
+
+        assertEquals(Arrays.asList(base, middle, top), mosaic.getImageSegments());
+        assertEquals(new Point(0, 0), mosaic.getLocation(base));
+        assertEquals(new Point(20, 4), mosaic.getLocation(top));
+        assertEquals(new Point(22, 6), mosaic.getLocation(middle));
+        assertEquals(new Rectangle(0, 0, 36, 24), mosaic.getBounds());
+    }
+
+    @Test
+    public void checkUnresolvedAttachment() {
+        ImageSegment first = createSegment(8, 8, 1, 2, 10, 10, 10);
+        ImageSegment second = createSegment(8, 8, 2, 1, 5, 5, 20);
+        ImageSegment third = createSegment(8, 8, 3, 9, 1, 2, 30);
+        ImageSegmentMosaic mosaic = new ImageSegmentMosaic(new NitfRenderer(), Arrays.asList(first, second, third));
+
+        assertEquals(new Point(10, 10), mosaic.getLocation(first));
+        assertEquals(new Point(5, 5), mosaic.getLocation(second));
+        assertEquals(new Point(2, 1), mosaic.getLocation(third));
+    }
+
+    @Test
+    public void checkDisplayOrder() throws IOException {
+        ImageSegment base = createSegment(24, 32, 1, 0, 0, 0, 10);
+        ImageSegment top = createSegment(8, 16, 3, 1, 4, 20, 200);
+        ImageSegment middle = createSegment(8, 8, 2, 3, 2, 2, 100);
+        BufferedImage img = new ImageSegmentMosaic(new NitfRenderer(), Arrays.asList(top, middle, base)).render();
+
+        assertEquals(36, img.getWidth());
+        assertEquals(24, img.getHeight());
+        assertEquals(gray(10), img.getRGB(0, 0));
+        assertEquals(gray(10), img.getRGB(19, 4));
+        assertEquals(gray(200), img.getRGB(25, 8));
+        assertEquals(gray(200), img.getRGB(35, 11));
+        assertEquals(gray(100), img.getRGB(25, 12));
+        assertEquals(gray(10), img.getRGB(31, 13));
+        assertEquals(TRANSPARENT, img.getRGB(33, 13));
+        assertEquals(TRANSPARENT, img.getRGB(35, 23));
+    }
+
+    @Test
+    public void checkViewportsMatchFullRender() throws IOException {
+        ImageSegment base = createSegment(24, 32, 1, 0, 0, 0, 10);
+        ImageSegment top = createSegment(8, 16, 3, 1, 4, 20, 200);
+        ImageSegment middle = createSegment(8, 8, 2, 3, 2, 2, 100);
+        ImageSegmentMosaic mosaic = new ImageSegmentMosaic(new NitfRenderer(), Arrays.asList(base, top, middle));
+        checkViewportsMatchFullRender(mosaic);
+    }
+
+    @Test
+    public void checkOnlyIntersectingSegmentsAreRendered() throws IOException {
+        ImageSegment base = createSegment(24, 32, 1, 0, 0, 0, 10);
+        ImageSegment unreadable = SyntheticImageSegment.create(ImageRepresentation.MONOCHROME, new String[]{"M"}, 8, 8,
+                ImageMode.BLOCKINTERLEVE, 8, 8, 8, 8, new byte[0]);
+        unreadable.setImageDisplayLevel(2);
+        unreadable.setImageLocationColumn(100);
+        ImageSegmentMosaic mosaic = new ImageSegmentMosaic(new NitfRenderer(), Arrays.asList(base, unreadable));
+
+        BufferedImage img = mosaic.render(new Rectangle(0, 0, 32, 24), 1);
+        assertEquals(gray(10), img.getRGB(31, 23));
+    }
+
+    @Test
+    public void checkJitcQuadrants() throws IOException, NitfFormatException {
+        List<ImageSegment> imageSegments = parse("/JitcNitf21Samples/ns3361c.nsf");
+        ImageSegmentMosaic mosaic = new ImageSegmentMosaic(new NitfRenderer(), imageSegments);
+        assertEquals(new Rectangle(0, 0, 512, 512), mosaic.getBounds());
+
+        BufferedImage full = mosaic.render();
+        for (ImageSegment imageSegment : imageSegments) {
+            imageSegment.getData().seek(0);
+            BufferedImage segmentImage = new NitfRenderer().renderRegion(imageSegment, null);
+            Point location = mosaic.getLocation(imageSegment);
+            for (int y = 0; y < segmentImage.getHeight(); y += 17) {
+                for (int x = 0; x < segmentImage.getWidth(); x += 13) {
+                    assertEquals(segmentImage.getRGB(x, y), full.getRGB(location.x + x, location.y + y));
+                }
+            }
+        }
+        BufferedImage viewport = mosaic.render(new Rectangle(200, 230, 100, 60), 3);
+        for (int y = 0; y < viewport.getHeight(); ++y) {
+            for (int x = 0; x < viewport.getWidth(); ++x) {
+                assertEquals(full.getRGB(200 + x * 3, 230 + y * 3), viewport.getRGB(x, y));
+            }
+        }
+    }
+
+    private void checkViewportsMatchFullRender(final ImageSegmentMosaic mosaic) throws IOException {
+        Rectangle bounds = mosaic.getBounds();
+        BufferedImage full = mosaic.render();
+        for (int[] v : VIEWPORTS) {
+            Rectangle viewport = new Rectangle(v[0], v[1], v[2], v[3]);
+            int subsampling = v[4];
+            BufferedImage img = mosaic.render(viewport, subsampling);
+            assertEquals((viewport.width + subsampling - 1) / subsampling, img.getWidth());
+            assertEquals((viewport.height + subsampling - 1) / subsampling, img.getHeight());
+            for (int y = 0; y < img.getHeight(); ++y) {
+                for (int x = 0; x < img.getWidth(); ++x) {
+                    int ccsX = viewport.x + x * subsampling;
+                    int ccsY = viewport.y + y * subsampling;
+                    int expected = TRANSPARENT;
+                    if (bounds.contains(ccsX, ccsY)) {
+                        expected = full.getRGB(ccsX - bounds.x, ccsY - bounds.y);
+                    }
+                    assertEquals(viewport + " / " + subsampling + " at " + x + "," + y, expected, img.getRGB(x, y));
+                }
+            }
+        }
+    }
+
+    private static ImageSegment createSegment(final int numRows, final int numColumns, final int displayLevel,
+            final int attachmentLevel, final int locationRow, final int locationColumn, final int value) {
+        byte[] data = new byte[numRows * numColumns];
+        Arrays.fill(data, (byte) value);
+        ImageSegment segment = SyntheticImageSegment.create(ImageRepresentation.MONOCHROME, new String[]{"M"}, 8, 8,
+                ImageMode.BLOCKINTERLEVE, numRows, numColumns, 8, 8, data);
+        segment.setImageDisplayLevel(displayLevel);
+        segment.setAttachmentLevel(attachmentLevel);
+        segment.setImageLocationRow(locationRow);
+        segment.setImageLocationColumn(locationColumn);
+        return segment;
+    }
+
+    private static int gray(final int value) {
+        return 0xFF000000 | (value << 16) | (value << 8) | value;
+    }
+
+    private List<ImageSegment> parse(final String resourceName) throws NitfFormatException {
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.IMAGE_DATA);
+        NitfParser.parse(new NitfInputStreamReader(getClass().getResourceAsStream(resourceName)), parseStrategy);
+        return parseStrategy.getDataSource().getImageSegments();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+import org.codice.imaging.nitf.core.SlottedParseStrategy;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import org.junit.Test;
+
+/**
+ * Checks reading of the JPEG 2000 codestream main header, using the JITC JPEG 2000 samples.
+ */
+public class Jpeg2000CodestreamTest {
+
+    @Test
+    public void checkRawCodestream() throws IOException, NitfFormatException {
+        Jpeg2000Codestream codestream = Jpeg2000Codestream.read(loadSegment("/JitcJpeg2000/file9_j2c.ntf"));
+        assertEquals(768, codestream.getWidth());
+        assertEquals(512, codestream.getHeight());
+        assertEquals(1, codestream.getNumComponents());
+        assertEquals(6, codestream.getNumResolutionLevels());
+        assertEquals(1, codestream.getNumTilesHorizontal());
+        assertEquals(1, codestream.getNumTilesVertical());
+        assertEquals(new Rectangle(0, 0, 768, 512), codestream.getTileRectangle(0, 0));
+    }
+
+    @Test
+    public void checkJP2File() throws IOException, NitfFormatException {
+        for (String sample : new String[] {"/JitcJpeg2000/file9_jp2_1place.ntf", "/JitcJpeg2000/file9_jp2_2places.ntf"}) {
+            Jpeg2000Codestream codestream = Jpeg2000Codestream.read(loadSegment(sample));
+            assertEquals(768, codestream.getWidth());
+            assertEquals(512, codestream.getHeight());
+            assertEquals(6, codestream.getNumResolutionLevels());
+        }
+    }
+
+    @Test
+    public void checkTiledCodestream() throws IOException, NitfFormatException {
+        Jpeg2000Codestream codestream = Jpeg2000Codestream.read(loadSegment("/JitcJpeg2000/p1_04a.ntf"));
+        assertEquals(8, codestream.getNumTilesHorizontal());
+        assertEquals(8, codestream.getNumTilesVertical());
+        assertEquals(4, codestream.getNumResolutionLevels());
+        assertEquals(new Rectangle(128, 256, 128, 128), codestream.getTileRectangle(2, 1));
+        checkTilesCoverImage(codestream);
+    }
+
+    @Test
+    public void checkTileGridOffset() throws IOException, NitfFormatException {
+        Jpeg2000Codestream codestream = Jpeg2000Codestream.read(loadSegment("/JitcJpeg2000/p1_05b.ntf"));
+        assertEquals(512, codestream.getWidth());
+        assertEquals(512, codestream.getHeight());
+        assertEquals(3, codestream.getNumComponents());
+        assertEquals(15, codestream.getNumTilesHorizontal());
+        assertEquals(15, codestream.getNumTilesVertical());
+        assertEquals(new Rectangle(509, 508, 3, 4), codestream.getTileRectangle(14, 14));
+        checkTilesCoverImage(codestream);
+    }
+
+    @Test
+    public void checkResolutionLevels() throws IOException, NitfFormatException {
+        NitfRenderer renderer = new NitfRenderer();
+        assertEquals(8, renderer.getNumberOfResolutionLevels(loadSegment("/JitcJpeg2000/p0_08a.ntf")));
+        assertEquals(1, renderer.getNumberOfResolutionLevels(loadSegment("/JitcNitf21Samples/i_3309a.ntf")));
+    }
+
+    @Test
+    public void checkSampledRenderRestoresPosition() throws IOException, NitfFormatException {
+        // There is no JPEG 2000 reader on the test classpath, so this only runs where one has been plugged in.
+        assumeTrue(ImageIO.getImageReadersByMIMEType("image/jp2").hasNext());
+        ImageSegment segment = loadSegment("/JitcJpeg2000/p1_04a.ntf");
+        segment.getData().seek(5);
+        BufferedImage img = new NitfRenderer().renderRegion(segment, new Rectangle(100, 200, 300, 100), 4);
+        assertEquals(75, img.getWidth());
+        assertEquals(25, img.getHeight());
+        assertEquals(5, segment.getData().getStreamPosition());
+    }
+
+    private void checkTilesCoverImage(final Jpeg2000Codestream codestream) {
+        Rectangle image = new Rectangle(0, 0, codestream.getWidth(), codestream.getHeight());
+        long area = 0;
+        for (int row = 0; row < codestream.getNumTilesVertical(); ++row) {
+            for (int column = 0; column < codestream.getNumTilesHorizontal(); ++column) {
+                Rectangle tile = codestream.getTileRectangle(row, column);
+                assertTrue(image.contains(tile));
+                area += (long) tile.width * tile.height;
+            }
+        }
+        assertEquals((long) image.width * image.height, area);
+    }
+
+    private ImageSegment loadSegment(final String sample) throws NitfFormatException {
+        assertNotNull("Test file missing: " + sample, getClass().getResource(sample));
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.IMAGE_DATA);
+        NitfParser.parse(new NitfInputStreamReader(getClass().getResourceAsStream(sample)), parseStrategy);
+        return parseStrategy.getDataSource().getImageSegments().get(0);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.codice.imaging.nitf.core.SlottedParseStrategy;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Checks random access and parallel decoding of blocked JPEG (C3 / M3) images.
+ */
+public class JpegBlockIndexTest {
+
+    private static final String BLOCKED_JPEG = "/JitcNitf21Samples/i_3309a.ntf";
+    private static final String MASKED_JPEG = "/JitcNitf21Samples/ns3301j.nsf";
+
+    @Test
+    public void checkIndex() throws IOException, NitfFormatException {
+        ImageSegment segment = loadSegment(MASKED_JPEG);
+        JpegBlockIndex index = JpegBlockIndex.build(segment);
+        int numBlocks = segment.getNumberOfBlocksPerRow() * segment.getNumberOfBlocksPerColumn();
+        int numRecorded = 0;
+        for (int i = 0; i < numBlocks; ++i) {
+            if (index.isRecorded(i)) {
+                numRecorded++;
+                assertEquals(0xFF, index.readBlock(segment.getData(), i).read());
+            }
+        }
+        assertTrue(numRecorded > 0);
+        assertTrue(numRecorded < numBlocks);
+        assertFalse(index.isRecorded(0));
+    }
+
+    @Test
+    public void checkTiles() throws IOException, NitfFormatException {
+        checkTilesMatchFullRender(BLOCKED_JPEG);
+    }
+
+    @Test
+    public void checkMaskedTiles() throws IOException, NitfFormatException {
+        checkTilesMatchFullRender(MASKED_JPEG);
+    }
+
+    @Test
+    public void checkParallelRender() throws IOException, NitfFormatException {
+        checkParallelRenderMatchesSequential(BLOCKED_JPEG);
+    }
+
+    @Test
+    public void checkParallelMaskedRender() throws IOException, NitfFormatException {
+        checkParallelRenderMatchesSequential(MASKED_JPEG);
+    }
+
+    @Test
+    public void checkBlockRows() throws IOException, NitfFormatException {
+        checkBlockRowsMatchFullRender(BLOCKED_JPEG);
+    }
+
+    @Test
+    public void checkMaskedBlockRows() throws IOException, NitfFormatException {
+        checkBlockRowsMatchFullRender(MASKED_JPEG);
+    }
+
+    private void checkTilesMatchFullRender(final String sample) throws IOException, NitfFormatException {
+        ImageSegment segment = loadSegment(sample);
+        Raster fullRaster = new NitfRenderer().renderToClosestDataModel(segment).getRaster();
+        NitfRenderer renderer = new NitfRenderer();
+        // Read the blocks backwards, to check that each one is located independently of the blocks before it.
+        for (int row = segment.getNumberOfBlocksPerColumn() - 1; row >= 0; --row) {
+            for (int column = segment.getNumberOfBlocksPerRow() - 1; column >= 0; --column) {
+                Raster tile = renderer.getTile(segment, row, column);
+                int maxX = Math.min(tile.getMinX() + tile.getWidth(), fullRaster.getWidth());
+                int maxY = Math.min(tile.getMinY() + tile.getHeight(), fullRaster.getHeight());
+                for (int y = tile.getMinY(); y < maxY; ++y) {
+                    for (int x = tile.getMinX(); x < maxX; ++x) {
+                        assertArrayEquals("block " + row + "," + column + " at " + x + "," + y, fullRaster.getPixel(x, y, (int[]) null),
+                                tile.getPixel(x, y, (int[]) null));
+                    }
+                }
+            }
+        }
+    }
+
+    private void checkParallelRenderMatchesSequential(final String sample) throws IOException, NitfFormatException {
+        ImageSegment segment = loadSegment(sample);
+        BufferedImage sequential = new NitfRenderer().render(segment);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            segment.getData().seek(0);
+            BufferedImage parallel = new NitfRenderer(executor).render(segment);
+            assertEquals(sequential.getWidth(), parallel.getWidth());
+            assertEquals(sequential.getHeight(), parallel.getHeight());
+            for (int y = 0; y < sequential.getHeight(); ++y) {
+                for (int x = 0; x < sequential.getWidth(); ++x) {
+                    assertEquals(sequential.getRGB(x, y), parallel.getRGB(x, y));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void checkBlockRowsMatchFullRender(final String sample) throws IOException, NitfFormatException {
+        ImageSegment segment = loadSegment(sample);
+        NitfRenderer renderer = new NitfRenderer();
+        BufferedImage full = renderer.renderToClosestDataModel(segment);
+        long position = segment.getData().getStreamPosition();
+        int[] numStrips = new int[1];
+        // The blocks are read using the index that the full render built, so the stream is not read sequentially.
+        renderer.renderBlockRows(segment, (rowIndex, firstRow, strip) -> {
+            for (int y = 0; y < strip.getHeight(); ++y) {
+                for (int x = 0; x < strip.getWidth(); ++x) {
+                    assertEquals("row " + rowIndex + " at " + x + "," + (firstRow + y), full.getRGB(x, firstRow + y), strip.getRGB(x, y));
+                }
+            }
+            numStrips[0]++;
+        });
+        assertEquals(segment.getNumberOfBlocksPerColumn(), numStrips[0]);
+        assertEquals(position, segment.getData().getStreamPosition());
+    }
+
+    private ImageSegment loadSegment(final String sample) throws NitfFormatException {
+        assertNotNull("Test file missing: " + sample, getClass().getResource(sample));
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.IMAGE_DATA);
+        NitfParser.parse(new NitfInputStreamReader(getClass().getResourceAsStream(sample)), parseStrategy);
+        return parseStrategy.getDataSource().getImageSegments().get(0);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import org.codice.imaging.nitf.core.SlottedParseStrategy;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageCompression;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import static org.junit.Assert.assertFalse;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Benchmark for rendering many small JPEG (C3) image segments, where creating the image reader is a large part of the
+ * cost.
+ *
+ * This is not run as part of the normal test suite (the class name does not
+ * match the surefire patterns). Run it with:
+ * mvn test -pl render -Dtest=JpegRenderBenchmark -Dslf4jtest.print.level=INFO
+ */
+public class JpegRenderBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JpegRenderBenchmark.class);
+
+    private static final String[] SAMPLES = {
+        "/JitcNitf20Samples/U_1122A.NTF",
+        "/JitcNitf21Samples/i_3025b.ntf",
+        "/JitcNitf21Samples/ns3010a.nsf",
+        "/fromGDAL/two_images_jpeg.ntf"
+    };
+
+    private static final long MAX_PIXELS = 128 * 128;
+
+    private static final int WARMUP_PASSES = 50;
+    private static final int MEASURED_PASSES = 500;
+
+    @Test
+    public void renderCorpus() throws NitfFormatException, IOException {
+        List<ImageSegment> corpus = loadCorpus();
+        assertFalse(corpus.isEmpty());
+
+        long checksum = 0;
+        for (int i = 0; i < WARMUP_PASSES; ++i) {
+            checksum += renderAll(corpus);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_PASSES; ++i) {
+            checksum += renderAll(corpus);
+        }
+        long elapsed = System.nanoTime() - start;
+        long renders = (long) MEASURED_PASSES * corpus.size();
+        LOGGER.info(String.format("Small JPEG corpus of %d segments: %.1f us per render (checksum %d)",
+                corpus.size(), elapsed / 1e3 / renders, checksum));
+
+        start = System.nanoTime();
+        for (int i = 0; i < renders; ++i) {
+            lookupReader().dispose();
+        }
+        elapsed = System.nanoTime() - start;
+        LOGGER.info(String.format("Looking up and creating a JPEG ImageReader through ImageIO: %.1f us", elapsed / 1e3 / renders));
+    }
+
+    private List<ImageSegment> loadCorpus() throws NitfFormatException {
+        List<ImageSegment> corpus = new ArrayList<>();
+        for (String sample : SAMPLES) {
+            if (getClass().getResource(sample) == null) {
+                continue;
+            }
+            SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.IMAGE_DATA);
+            NitfParser.parse(new NitfInputStreamReader(getClass().getResourceAsStream(sample)), parseStrategy);
+            for (ImageSegment imageSegment : parseStrategy.getDataSource().getImageSegments()) {
+                if ((imageSegment.getImageCompression() == ImageCompression.JPEG)
+                        && (imageSegment.getNumberOfRows() * imageSegment.getNumberOfColumns() <= MAX_PIXELS)) {
+                    corpus.add(imageSegment);
+                }
+            }
+        }
+        return corpus;
+    }
+
+    private long renderAll(final List<ImageSegment> corpus) throws IOException {
+        long checksum = 0;
+        for (ImageSegment imageSegment : corpus) {
+            imageSegment.getData().seek(0);
+            BufferedImage img = new NitfRenderer().renderToClosestDataModel(imageSegment);
+            checksum += img.getRaster().getSample(img.getWidth() / 2, img.getHeight() / 2, 0);
+        }
+        return checksum;
+    }
+
+    private static ImageReader lookupReader() {
+        Iterator<ImageReader> imageReaders = ImageIO.getImageReadersByMIMEType("image/jpeg");
+        return imageReaders.next();
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Random;
+import javax.imageio.ImageIO;
+import org.codice.imaging.nitf.core.SlottedParseStrategy;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageRepresentation;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests for the tiled RenderedImage view of an image segment.
+ */
+public class NitfRenderedImageTest {
+
+    private static final int BLOCK_WIDTH = 16;
+    private static final int BLOCK_HEIGHT = 8;
+    private static final int NUM_ROWS = 20;
+    private static final int NUM_COLUMNS = 40;
+    private static final long CACHE_SIZE = 64L * 1024 * 1024;
+
+    @Test
+    public void checkTileGrid() {
+        NitfRenderedImage image = new NitfRenderedImage(new NitfRenderer(), createSegment(createData()));
+        assertEquals(NUM_COLUMNS, image.getWidth());
+        assertEquals(NUM_ROWS, image.getHeight());
+        assertEquals(BLOCK_WIDTH, image.getTileWidth());
+        assertEquals(BLOCK_HEIGHT, image.getTileHeight());
+        assertEquals(3, image.getNumXTiles());
+        assertEquals(3, image.getNumYTiles());
+        assertEquals(0, image.getMinTileX());
+        assertEquals(0, image.getTileGridXOffset());
+        assertEquals(BLOCK_WIDTH, image.getSampleModel().getWidth());
+
+        Raster tile = image.getTile(2, 1);
+        assertEquals(new Rectangle(2 * BLOCK_WIDTH, BLOCK_HEIGHT, BLOCK_WIDTH, BLOCK_HEIGHT), tile.getBounds());
+        assertEquals(image.getSampleModel(), tile.getSampleModel());
+    }
+
+    @Test
+    public void checkDataMatchesRender() throws IOException {
+        byte[] data = createData();
+        Raster expected = new NitfRenderer().renderToClosestDataModel(createSegment(data)).getRaster();
+        NitfRenderedImage image = new NitfRenderedImage(new NitfRenderer(), createSegment(data));
+        checkSameAs(expected, image.getData(), image.getData().getBounds());
+        Rectangle region = new Rectangle(BLOCK_WIDTH - 3, BLOCK_HEIGHT - 2, BLOCK_WIDTH + 6, 9);
+        checkSameAs(expected, image.getData(region), region);
+        Raster copy = image.copyData(Raster.createWritableRaster(image.getSampleModel().createCompatibleSampleModel(5, 4), new Point(30, 15)));
+        checkSameAs(expected, copy, new Rectangle(30, 15, 5, 4));
+    }
+
+    @Test
+    public void checkOnlyRequestedTilesAreDecoded() {
+        byte[] data = createFirstBlockData();
+        NitfRenderedImage image = new NitfRenderedImage(new NitfRenderer(), createSegment(data));
+        Raster region = image.getData(new Rectangle(2, 3, 5, 4));
+        assertEquals(data[3 * BLOCK_WIDTH + 2] & 0xFF, region.getSample(2, 3, 0));
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void checkMissingTile() {
+        new NitfRenderedImage(new NitfRenderer(), createSegment(createFirstBlockData())).getTile(1, 1);
+    }
+
+    @Test
+    public void checkJpegTilesMatchDecodedBlocks() throws IOException, NitfFormatException {
+        ImageSegment segment = loadSegment("/JitcNitf21Samples/i_3309a.ntf");
+        // ImageIO writers read a few rows at a time, so the renderer caches decoded blocks.
+        NitfRenderer renderer = new NitfRenderer(null, new DecodedBlockCache(CACHE_SIZE));
+        NitfRenderedImage image = new NitfRenderedImage(renderer, segment);
+        assertTrue(image.getNumXTiles() * image.getNumYTiles() > 1);
+        Raster copy = image.copyData(null);
+        NitfRenderer uncachedRenderer = new NitfRenderer();
+        for (int tileY = 0; tileY < image.getNumYTiles(); tileY++) {
+            for (int tileX = 0; tileX < image.getNumXTiles(); tileX++) {
+                Raster block = uncachedRenderer.getTile(segment, tileY, tileX);
+                Rectangle overlap = block.getBounds().intersection(copy.getBounds());
+                checkSameAs(block, copy.createChild(overlap.x, overlap.y, overlap.width, overlap.height, overlap.x, overlap.y, null), overlap);
+            }
+        }
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        assertTrue(ImageIO.write(image, "png", png));
+        BufferedImage written = ImageIO.read(new ByteArrayInputStream(png.toByteArray()));
+        checkSameAs(copy, written.getRaster(), copy.getBounds());
+    }
+
+    private static void checkSameAs(final Raster expected, final Raster actual, final Rectangle region) {
+        assertEquals(region, actual.getBounds());
+        for (int y = region.y; y < region.y + region.height; y++) {
+            assertArrayEquals("row " + y, expected.getPixels(region.x, y, region.width, 1, (int[]) null),
+                    actual.getPixels(region.x, y, region.width, 1, (int[]) null));
+        }
+    }
+
+    private static byte[] createData() {
+        byte[] data = new byte[3 * BLOCK_HEIGHT * 3 * BLOCK_WIDTH];
+        new Random(NUM_ROWS).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * Only the first block is in the image data, so reading any other block fails.
+     */
+    private static byte[] createFirstBlockData() {
+        return Arrays.copyOf(createData(), BLOCK_WIDTH * BLOCK_HEIGHT);
+    }
+
+    private static ImageSegment createSegment(final byte[] data) {
+        return SyntheticImageSegment.create(ImageRepresentation.MONOCHROME, new String[]{"M"}, 8, 8, ImageMode.BLOCKINTERLEVE,
+                NUM_ROWS, NUM_COLUMNS, BLOCK_HEIGHT, BLOCK_WIDTH, data);
+    }
+
+    private ImageSegment loadSegment(final String resourceName) throws NitfFormatException {
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.IMAGE_DATA);
+        NitfParser.parse(new NitfInputStreamReader(getClass().getResourceAsStream(resourceName)), parseStrategy);
+        return parseStrategy.getDataSource().getImageSegments().get(0);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import org.codice.imaging.nitf.render.datareader.PackedSampleUnpacker;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Checks bulk unpacking of 1 and 12 bit samples against reading one sample at a time.
+ */
+public class PackedSampleUnpackerTest {
+
+    private static final int NUM_BYTES = 64;
+    private static final int TWELVE_BITS = 12;
+
+    private final byte[] packed = createData();
+
+    @Test
+    public void checkUnpack1() throws IOException {
+        for (int firstBit = 0; firstBit < 2 * Byte.SIZE; ++firstBit) {
+            int numSamples = NUM_BYTES * Byte.SIZE - firstBit;
+            for (int count : new int[]{0, 1, 7, 9, numSamples}) {
+                byte[] samples = new byte[count + 2];
+                PackedSampleUnpacker.unpack1(packed, firstBit, samples, 2, count);
+                ImageInputStream reference = createStream(firstBit);
+                for (int i = 0; i < count; ++i) {
+                    assertEquals("bit " + firstBit + " sample " + i, reference.readBit(), samples[i + 2]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void checkUnpack12() throws IOException {
+        for (int firstBit = 0; firstBit < 2 * Byte.SIZE; ++firstBit) {
+            int numSamples = (NUM_BYTES * Byte.SIZE - firstBit) / TWELVE_BITS;
+            for (int count : new int[]{0, 1, 2, 3, numSamples}) {
+                short[] samples = new short[count + 1];
+                PackedSampleUnpacker.unpack12(packed, firstBit, samples, 1, count);
+                ImageInputStream reference = createStream(firstBit);
+                for (int i = 0; i < count; ++i) {
+                    assertEquals("bit " + firstBit + " sample " + i, reference.readBits(TWELVE_BITS), samples[i + 1]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void checkReadLeavesStreamAtNextSample() throws IOException {
+        ImageInputStream stream = createStream(0);
+        ImageInputStream reference = createStream(0);
+        byte[] bits = new byte[5];
+        short[] shorts = new short[3];
+        PackedSampleUnpacker.read1(stream, bits, 0, bits.length);
+        PackedSampleUnpacker.read12(stream, shorts, 0, shorts.length);
+        PackedSampleUnpacker.read12(stream, shorts, 0, 2);
+        reference.readBits(bits.length);
+        reference.readBits(TWELVE_BITS * (shorts.length + 2));
+        assertEquals(reference.getStreamPosition(), stream.getStreamPosition());
+        assertEquals(reference.getBitOffset(), stream.getBitOffset());
+        assertEquals(reference.readBits(TWELVE_BITS), stream.readBits(TWELVE_BITS));
+    }
+
+    private ImageInputStream createStream(final int firstBit) throws IOException {
+        ImageInputStream stream = new MemoryCacheImageInputStream(new ByteArrayInputStream(packed));
+        stream.readBits(firstBit);
+        return stream;
+    }
+
+    private static byte[] createData() {
+        byte[] data = new byte[NUM_BYTES];
+        new Random(TWELVE_BITS).nextBytes(data);
+        return data;
+    }
+}
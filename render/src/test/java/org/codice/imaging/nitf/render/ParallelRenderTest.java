@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageRepresentation;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that parallel block decoding gives the same output as sequential decoding.
+ */
+public class ParallelRenderTest {
+
+    private static final int BLOCK_SIZE = 16;
+    private static final int NUM_ROWS = 3 * BLOCK_SIZE;
+    private static final int NUM_COLUMNS = 4 * BLOCK_SIZE;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void checkMono8BlockInterleve() throws IOException {
+        checkParallelMatchesSequential(ImageRepresentation.MONOCHROME, new String[]{"M"}, 8, ImageMode.BLOCKINTERLEVE);
+    }
+
+    @Test
+    public void checkMono16RowInterleve() throws IOException {
+        checkParallelMatchesSequential(ImageRepresentation.MONOCHROME, new String[]{"M"}, 16, ImageMode.ROWINTERLEVE);
+    }
+
+    @Test
+    public void checkRgbPixelInterleve() throws IOException {
+        checkParallelMatchesSequential(ImageRepresentation.RGBTRUECOLOUR, new String[]{"R", "G", "B"}, 8, ImageMode.PIXELINTERLEVE);
+    }
+
+    @Test
+    public void checkRgbBandSequential() throws IOException {
+        checkParallelMatchesSequential(ImageRepresentation.RGBTRUECOLOUR, new String[]{"R", "G", "B"}, 8, ImageMode.BANDSEQUENTIAL);
+    }
+
+    @Test
+    public void checkMultibandRowInterleve() throws IOException {
+        checkParallelMatchesSequential(ImageRepresentation.MULTIBAND, new String[]{"", "M"}, 8, ImageMode.ROWINTERLEVE);
+    }
+
+    @Test
+    public void checkMono1SequentialFallback() throws IOException {
+        checkParallelMatchesSequential(ImageRepresentation.MONOCHROME, new String[]{"M"}, 1, ImageMode.BLOCKINTERLEVE);
+    }
+
+    private void checkParallelMatchesSequential(final ImageRepresentation representation, final String[] bands, final int nbpp,
+            final ImageMode mode) throws IOException {
+        byte[] data = new byte[NUM_ROWS * NUM_COLUMNS * bands.length * nbpp / Byte.SIZE];
+        new Random(nbpp).nextBytes(data);
+
+        ImageSegment sequentialSegment = SyntheticImageSegment.create(representation, bands, nbpp, nbpp, mode,
+                NUM_ROWS, NUM_COLUMNS, BLOCK_SIZE, BLOCK_SIZE, data);
+        BufferedImage expected = new NitfRenderer().renderToClosestDataModel(sequentialSegment);
+
+        ImageSegment parallelSegment = SyntheticImageSegment.create(representation, bands, nbpp, nbpp, mode,
+                NUM_ROWS, NUM_COLUMNS, BLOCK_SIZE, BLOCK_SIZE, data);
+        BufferedImage actual = new NitfRenderer(executor).renderToClosestDataModel(parallelSegment);
+
+        DataBuffer expectedData = expected.getRaster().getDataBuffer();
+        DataBuffer actualData = actual.getRaster().getDataBuffer();
+        assertEquals(expectedData.getSize(), actualData.getSize());
+        for (int i = 0; i < expectedData.getSize(); ++i) {
+            assertEquals("element " + i, expectedData.getElem(i), actualData.getElem(i));
+        }
+        assertEquals(sequentialSegment.getData().getStreamPosition(), parallelSegment.getData().getStreamPosition());
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageRepresentation;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.render.imagerep.ImageRepresentationHandlerFactory;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Checks that decoding blocks directly into the output raster gives the same pixels as drawing each block.
+ */
+public class RasterAssemblyTest {
+
+    private static final int BLOCK_WIDTH = 16;
+    private static final int BLOCK_HEIGHT = 8;
+    // Not a multiple of the block size, so the last row and column of blocks are partly outside the image.
+    private static final int NUM_ROWS = 3 * BLOCK_HEIGHT - 3;
+    private static final int NUM_COLUMNS = 4 * BLOCK_WIDTH - 5;
+    private static final int NUM_BLOCK_ROWS = 3;
+    private static final int NUM_BLOCK_COLUMNS = 4;
+    // The output image includes the image location, so check that blocks are placed in the same way.
+    private static final int LOCATION_ROW = 7;
+    private static final int LOCATION_COLUMN = 3;
+
+    @Test
+    public void checkMono8BlockInterleve() throws IOException {
+        checkSameAsDrawnBlocks(ImageRepresentation.MONOCHROME, new String[]{"M"}, 8, ImageMode.BLOCKINTERLEVE);
+    }
+
+    @Test
+    public void checkMono16RowInterleve() throws IOException {
+        checkSameAsDrawnBlocks(ImageRepresentation.MONOCHROME, new String[]{"M"}, 16, ImageMode.ROWINTERLEVE);
+    }
+
+    @Test
+    public void checkMono1BlockInterleve() throws IOException {
+        checkSameAsDrawnBlocks(ImageRepresentation.MONOCHROME, new String[]{"M"}, 1, ImageMode.BLOCKINTERLEVE);
+    }
+
+    @Test
+    public void checkRgbPixelInterleve() throws IOException {
+        checkSameAsDrawnBlocks(ImageRepresentation.RGBTRUECOLOUR, new String[]{"R", "G", "B"}, 8, ImageMode.PIXELINTERLEVE);
+    }
+
+    @Test
+    public void checkRgbBandSequential() throws IOException {
+        checkSameAsDrawnBlocks(ImageRepresentation.RGBTRUECOLOUR, new String[]{"R", "G", "B"}, 8, ImageMode.BANDSEQUENTIAL);
+    }
+
+    @Test
+    public void checkParallelAssembly() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            byte[] data = createData(3, 8);
+            BufferedImage expected = renderByDrawingBlocks(locate(SyntheticImageSegment.create(ImageRepresentation.RGBTRUECOLOUR,
+                    new String[]{"R", "G", "B"}, 8, ImageMode.BLOCKINTERLEVE, NUM_ROWS, NUM_COLUMNS, BLOCK_HEIGHT, BLOCK_WIDTH, data)));
+            BufferedImage actual = new NitfRenderer(executor).renderToClosestDataModel(locate(SyntheticImageSegment.create(
+                    ImageRepresentation.RGBTRUECOLOUR, new String[]{"R", "G", "B"}, 8, ImageMode.BLOCKINTERLEVE, NUM_ROWS, NUM_COLUMNS,
+                    BLOCK_HEIGHT, BLOCK_WIDTH, data)));
+            checkSamePixels(expected, actual, new Rectangle(0, 0, expected.getWidth(), expected.getHeight()));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void checkSameAsDrawnBlocks(final ImageRepresentation representation, final String[] bands, final int nbpp,
+            final ImageMode mode) throws IOException {
+        byte[] data = createData(bands.length, nbpp);
+        BufferedImage expected = renderByDrawingBlocks(locate(SyntheticImageSegment.create(representation, bands, nbpp, mode, NUM_ROWS,
+                NUM_COLUMNS, BLOCK_HEIGHT, BLOCK_WIDTH, data)));
+
+        BufferedImage actual = new NitfRenderer().renderToClosestDataModel(locate(SyntheticImageSegment.create(representation, bands, nbpp,
+                mode, NUM_ROWS, NUM_COLUMNS, BLOCK_HEIGHT, BLOCK_WIDTH, data)));
+        assertEquals(expected.getType(), actual.getType());
+        checkSamePixels(expected, actual, new Rectangle(0, 0, expected.getWidth(), expected.getHeight()));
+
+        // A region that covers parts of several blocks, and the edge of the image.
+        Rectangle region = new Rectangle(BLOCK_WIDTH - 3, BLOCK_HEIGHT + 1, 2 * BLOCK_WIDTH + 10, BLOCK_HEIGHT + 10);
+        BufferedImage chip = new NitfRenderer().renderToClosestDataModel(locate(SyntheticImageSegment.create(representation, bands, nbpp,
+                mode, NUM_ROWS, NUM_COLUMNS, BLOCK_HEIGHT, BLOCK_WIDTH, data)), region);
+        Rectangle clipped = region.intersection(new Rectangle(0, 0, NUM_COLUMNS, NUM_ROWS));
+        checkSamePixels(expected, chip, clipped);
+    }
+
+    private BufferedImage renderByDrawingBlocks(final ImageSegment segment) throws IOException {
+        BufferedImage img = ImageRepresentationHandlerFactory.forImageSegment(segment).createBufferedImage(LOCATION_COLUMN + NUM_COLUMNS,
+                LOCATION_ROW + NUM_ROWS);
+        Graphics2D graphics = img.createGraphics();
+        try {
+            new NitfRenderer().render(segment, graphics);
+        } finally {
+            graphics.dispose();
+        }
+        return img;
+    }
+
+    private void checkSamePixels(final BufferedImage expected, final BufferedImage actual, final Rectangle expectedArea) {
+        assertEquals(expectedArea.width, actual.getWidth());
+        assertEquals(expectedArea.height, actual.getHeight());
+        Raster expectedRaster = expected.getRaster();
+        Raster actualRaster = actual.getRaster();
+        for (int y = 0; y < actual.getHeight(); ++y) {
+            for (int x = 0; x < actual.getWidth(); ++x) {
+                assertArrayEquals(expectedArea + " at " + x + "," + y,
+                        expectedRaster.getPixel(expectedArea.x + x, expectedArea.y + y, (int[]) null),
+                        actualRaster.getPixel(x, y, (int[]) null));
+            }
+        }
+    }
+
+    private static byte[] createData(final int numBands, final int nbpp) {
+        byte[] data = new byte[NUM_BLOCK_ROWS * BLOCK_HEIGHT * NUM_BLOCK_COLUMNS * BLOCK_WIDTH * numBands * nbpp / Byte.SIZE];
+        new Random(numBands * nbpp).nextBytes(data);
+        return data;
+    }
+
+    private static ImageSegment locate(final ImageSegment segment) {
+        segment.setImageLocationRow(LOCATION_ROW);
+        segment.setImageLocationColumn(LOCATION_COLUMN);
+        return segment;
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import org.codice.imaging.nitf.core.SlottedParseStrategy;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageRepresentation;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.image.PixelValueType;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests for reading raw sample values.
+ */
+public class RawSampleReaderTest {
+
+    private static final int BLOCK_WIDTH = 16;
+    private static final int BLOCK_HEIGHT = 8;
+    private static final int NUM_ROWS = 20;
+    private static final int NUM_COLUMNS = 40;
+    private static final int NUM_BANDS = 3;
+
+    private static final Rectangle[] REGIONS = {
+        null,
+        new Rectangle(5, 3, 1, 1),
+        new Rectangle(BLOCK_WIDTH, BLOCK_HEIGHT, BLOCK_WIDTH, BLOCK_HEIGHT),
+        new Rectangle(BLOCK_WIDTH - 3, BLOCK_HEIGHT - 2, BLOCK_WIDTH + 8, 9),
+        new Rectangle(NUM_COLUMNS - 7, NUM_ROWS - 5, 7, 5)
+    };
+
+    private static final int[][] BAND_SELECTIONS = {{}, {1}, {2, 0}};
+
+    /**
+     * Write the value of a sample.
+     */
+    @FunctionalInterface
+    private interface SampleWriter {
+        void write(DataOutputStream stream, int value) throws IOException;
+    }
+
+    @Test
+    public void checkShortsInEachImageMode() throws IOException {
+        for (ImageMode mode : new ImageMode[]{ImageMode.BLOCKINTERLEVE, ImageMode.PIXELINTERLEVE, ImageMode.ROWINTERLEVE,
+            ImageMode.BANDSEQUENTIAL}) {
+            ImageSegment segment = createSegment(mode, Short.SIZE, PixelValueType.INTEGER, DataOutputStream::writeShort);
+            RawSampleReader reader = new RawSampleReader(segment);
+            for (Rectangle region : REGIONS) {
+                for (int[] bands : BAND_SELECTIONS) {
+                    short[] samples = reader.readShorts(region, bands);
+                    checkSamples(mode + " " + region, region, bands, samples.length, 1, (i) -> samples[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void checkBytes() throws IOException {
+        ImageSegment segment = createSegment(ImageMode.PIXELINTERLEVE, Byte.SIZE, PixelValueType.INTEGER,
+                (stream, value) -> stream.writeByte(value % 251));
+        byte[] samples = new RawSampleReader(segment).readBytes(REGIONS[3], 2, 1);
+        checkSamples("bytes", REGIONS[3], new int[]{2, 1}, samples.length, 1, (i) -> samples[i] & 0xFF, 251);
+    }
+
+    @Test
+    public void checkInts() throws IOException {
+        ImageSegment segment = createSegment(ImageMode.ROWINTERLEVE, 32, PixelValueType.SIGNEDINTEGER,
+                (stream, value) -> stream.writeInt(-value));
+        int[] samples = new RawSampleReader(segment).readInts(REGIONS[3]);
+        checkSamples("ints", REGIONS[3], new int[]{}, samples.length, 1, (i) -> -samples[i]);
+    }
+
+    @Test
+    public void checkFloats() throws IOException {
+        ImageSegment segment = createSegment(ImageMode.BLOCKINTERLEVE, 32, PixelValueType.REAL,
+                (stream, value) -> stream.writeFloat(value + 0.5f));
+        float[] samples = new RawSampleReader(segment).readFloats(REGIONS[3], 1);
+        checkSamples("floats", REGIONS[3], new int[]{1}, samples.length, 1, (i) -> (int) (samples[i] - 0.5f));
+        for (float sample : samples) {
+            assertEquals(0.5f, sample - (int) sample, 0.0f);
+        }
+    }
+
+    @Test
+    public void checkDoubles() throws IOException {
+        ImageSegment segment = createSegment(ImageMode.BANDSEQUENTIAL, 64, PixelValueType.REAL,
+                (stream, value) -> stream.writeDouble(value / 4.0));
+        double[] samples = new RawSampleReader(segment).readDoubles(null, 0, 2);
+        checkSamples("doubles", null, new int[]{0, 2}, samples.length, 1, (i) -> (int) (samples[i] * 4.0));
+    }
+
+    @Test
+    public void checkComplex() throws IOException {
+        ImageSegment segment = createSegment(ImageMode.PIXELINTERLEVE, 64, PixelValueType.COMPLEX,
+                (stream, value) -> {
+                    stream.writeFloat(value);
+                    stream.writeFloat(-value);
+                });
+        float[] samples = new RawSampleReader(segment).readFloats(REGIONS[3], 2, 0);
+        checkSamples("complex real", REGIONS[3], new int[]{2, 0}, samples.length, 2, (i) -> (int) samples[2 * i]);
+        checkSamples("complex imaginary", REGIONS[3], new int[]{2, 0}, samples.length, 2, (i) -> (int) -samples[2 * i + 1]);
+    }
+
+    @Test
+    public void checkStreamStateRestored() throws IOException, NitfFormatException {
+        // The samples are big-endian whatever the stream byte order, and the stream is left as it was.
+        ImageSegment segment = createSegment(ImageMode.BLOCKINTERLEVE, Short.SIZE, PixelValueType.INTEGER, DataOutputStream::writeShort);
+        segment.getData().setByteOrder(ByteOrder.LITTLE_ENDIAN);
+        segment.getData().seek(5);
+        short[] samples = new RawSampleReader(segment).readShorts(REGIONS[3]);
+        checkSamples("little-endian stream", REGIONS[3], new int[]{}, samples.length, 1, (i) -> samples[i]);
+        assertEquals(5, segment.getData().getStreamPosition());
+        assertEquals(ByteOrder.LITTLE_ENDIAN, segment.getData().getByteOrder());
+
+        // Reading the image mask the first time does not move the stream either.
+        ImageSegment maskedSegment = loadSegment("/JitcNitf21Samples/ns3301e.nsf");
+        maskedSegment.getData().seek(7);
+        new RawSampleReader(maskedSegment).readBytes(new Rectangle(60, 50, 10, 10));
+        assertEquals(7, maskedSegment.getData().getStreamPosition());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void checkWrongSampleType() throws IOException {
+        ImageSegment segment = createSegment(ImageMode.BLOCKINTERLEVE, Short.SIZE, PixelValueType.INTEGER, DataOutputStream::writeShort);
+        new RawSampleReader(segment).readFloats(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkRegionOutsideImage() throws IOException {
+        ImageSegment segment = createSegment(ImageMode.BLOCKINTERLEVE, Short.SIZE, PixelValueType.INTEGER, DataOutputStream::writeShort);
+        new RawSampleReader(segment).readShorts(new Rectangle(NUM_COLUMNS - 1, 0, 2, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkBandOutsideImage() throws IOException {
+        ImageSegment segment = createSegment(ImageMode.BLOCKINTERLEVE, Short.SIZE, PixelValueType.INTEGER, DataOutputStream::writeShort);
+        new RawSampleReader(segment).readShorts(null, NUM_BANDS);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void checkCompressedImage() throws NitfFormatException {
+        new RawSampleReader(loadSegment("/JitcNitf21Samples/i_3309a.ntf"));
+    }
+
+    @Test
+    public void checkSixteenBitMatchesRender() throws IOException, NitfFormatException {
+        ImageSegment segment = loadSegment("/fromGDAL/rgb16.ntf");
+        short[] samples = new RawSampleReader(segment).readShorts(null);
+        segment.getData().seek(0);
+        Raster raster = new NitfRenderer().renderToClosestDataModel(segment).getRaster();
+        int numPixels = raster.getWidth() * raster.getHeight();
+        // The rendered image only keeps the top 8 bits of each sample.
+        for (int band = 0; band < NUM_BANDS; band++) {
+            for (int y = 0; y < raster.getHeight(); y++) {
+                for (int x = 0; x < raster.getWidth(); x++) {
+                    assertEquals(raster.getSample(x, y, band), (samples[band * numPixels + y * raster.getWidth() + x] & 0xFFFF) >> Byte.SIZE);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void checkMaskedImagesMatchRender() throws IOException, NitfFormatException {
+        for (String resource : new String[]{"/JitcNitf21Samples/ns3301b.nsf", "/JitcNitf21Samples/i_3301k.ntf",
+            "/JitcNitf21Samples/ns3301e.nsf"}) {
+            ImageSegment segment = loadSegment(resource);
+            RawSampleReader reader = new RawSampleReader(segment);
+            Rectangle region = new Rectangle(60, 50, 150, 150);
+            byte[] samples = reader.readBytes(region);
+            segment.getData().seek(0);
+            BufferedImage image = new NitfRenderer().renderRegion(segment, region);
+            int numPixels = region.width * region.height;
+            int numMatched = 0;
+            for (int y = 0; y < region.height; y++) {
+                for (int x = 0; x < region.width; x++) {
+                    int argb = image.getRGB(x, y);
+                    int index = y * region.width + x;
+                    if ((argb >>> 24) == 0) {
+                        continue;
+                    }
+                    assertEquals(resource, (argb >> 16) & 0xFF, samples[index] & 0xFF);
+                    assertEquals(resource, (argb >> 8) & 0xFF, samples[numPixels + index] & 0xFF);
+                    assertEquals(resource, argb & 0xFF, samples[2 * numPixels + index] & 0xFF);
+                    numMatched++;
+                }
+            }
+            assertTrue(resource, numMatched > 0);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SampleAccessor {
+        int get(int index);
+    }
+
+    private static void checkSamples(final String message, final Rectangle region, final int[] bands, final int numValues,
+            final int valuesPerSample, final SampleAccessor accessor) {
+        checkSamples(message, region, bands, numValues, valuesPerSample, accessor, Integer.MAX_VALUE);
+    }
+
+    private static void checkSamples(final String message, final Rectangle region, final int[] bands, final int numValues,
+            final int valuesPerSample, final SampleAccessor accessor, final int modulus) {
+        Rectangle expectedRegion = region;
+        if (expectedRegion == null) {
+            expectedRegion = new Rectangle(0, 0, NUM_COLUMNS, NUM_ROWS);
+        }
+        int[] expectedBands = bands;
+        if (expectedBands.length == 0) {
+            expectedBands = new int[]{0, 1, 2};
+        }
+        assertEquals(message, expectedRegion.width * expectedRegion.height * expectedBands.length * valuesPerSample, numValues);
+        int index = 0;
+        for (int band : expectedBands) {
+            for (int y = 0; y < expectedRegion.height; y++) {
+                for (int x = 0; x < expectedRegion.width; x++) {
+                    int expected = valueAt(band, expectedRegion.y + y, expectedRegion.x + x) % modulus;
+                    assertEquals(message + " band " + band + " at " + x + "," + y, expected, accessor.get(index));
+                    index++;
+                }
+            }
+        }
+    }
+
+    private static int valueAt(final int band, final int row, final int column) {
+        return band * 10000 + row * 100 + column;
+    }
+
+    private static ImageSegment createSegment(final ImageMode mode, final int nbpp, final PixelValueType pixelValueType,
+            final SampleWriter writer) throws IOException {
+        int numBlockRows = (NUM_ROWS + BLOCK_HEIGHT - 1) / BLOCK_HEIGHT;
+        int numBlockColumns = (NUM_COLUMNS + BLOCK_WIDTH - 1) / BLOCK_WIDTH;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream stream = new DataOutputStream(bytes);
+        int numBandPasses = 1;
+        if (mode == ImageMode.BANDSEQUENTIAL) {
+            numBandPasses = NUM_BANDS;
+        }
+        for (int bandPass = 0; bandPass < numBandPasses; bandPass++) {
+            for (int blockRow = 0; blockRow < numBlockRows; blockRow++) {
+                for (int blockColumn = 0; blockColumn < numBlockColumns; blockColumn++) {
+                    writeBlock(stream, mode, bandPass, blockRow * BLOCK_HEIGHT, blockColumn * BLOCK_WIDTH, writer);
+                }
+            }
+        }
+        ImageSegment segment = SyntheticImageSegment.create(ImageRepresentation.MULTIBAND, new String[]{"", "", ""}, nbpp, nbpp, mode,
+                NUM_ROWS, NUM_COLUMNS, BLOCK_HEIGHT, BLOCK_WIDTH, bytes.toByteArray());
+        segment.setPixelValueType(pixelValueType);
+        return segment;
+    }
+
+    private static void writeBlock(final DataOutputStream stream, final ImageMode mode, final int bandPass, final int firstRow,
+            final int firstColumn, final SampleWriter writer) throws IOException {
+        switch (mode) {
+            case BLOCKINTERLEVE:
+                for (int band = 0; band < NUM_BANDS; band++) {
+                    for (int y = 0; y < BLOCK_HEIGHT; y++) {
+                        for (int x = 0; x < BLOCK_WIDTH; x++) {
+                            writer.write(stream, valueAt(band, firstRow + y, firstColumn + x));
+                        }
+                    }
+                }
+                break;
+            case PIXELINTERLEVE:
+                for (int y = 0; y < BLOCK_HEIGHT; y++) {
+                    for (int x = 0; x < BLOCK_WIDTH; x++) {
+                        for (int band = 0; band < NUM_BANDS; band++) {
+                            writer.write(stream, valueAt(band, firstRow + y, firstColumn + x));
+                        }
+                    }
+                }
+                break;
+            case ROWINTERLEVE:
+                for (int y = 0; y < BLOCK_HEIGHT; y++) {
+                    for (int band = 0; band < NUM_BANDS; band++) {
+                        for (int x = 0; x < BLOCK_WIDTH; x++) {
+                            writer.write(stream, valueAt(band, firstRow + y, firstColumn + x));
+                        }
+                    }
+                }
+                break;
+            default:
+                for (int y = 0; y < BLOCK_HEIGHT; y++) {
+                    for (int x = 0; x < BLOCK_WIDTH; x++) {
+                        writer.write(stream, valueAt(bandPass, firstRow + y, firstColumn + x));
+                    }
+                }
+                break;
+        }
+    }
+
+    private ImageSegment loadSegment(final String resourceName) throws NitfFormatException {
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.IMAGE_DATA);
+        NitfParser.parse(new NitfInputStreamReader(getClass().getResourceAsStream(resourceName)), parseStrategy);
+        return parseStrategy.getDataSource().getImageSegments().get(0);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageRepresentation;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Checks that rendering a region gives the same pixels as rendering the whole image.
+ */
+public class RegionRenderTest {
+
+    private static final int BLOCK_WIDTH = 16;
+    private static final int BLOCK_HEIGHT = 8;
+    private static final int NUM_ROWS = 3 * BLOCK_HEIGHT;
+    private static final int NUM_COLUMNS = 4 * BLOCK_WIDTH;
+
+    private static final Rectangle[] REGIONS = {
+        new Rectangle(0, 0, NUM_COLUMNS, NUM_ROWS),
+        new Rectangle(5, 3, 1, 1),
+        new Rectangle(BLOCK_WIDTH, BLOCK_HEIGHT, BLOCK_WIDTH, BLOCK_HEIGHT),
+        new Rectangle(BLOCK_WIDTH - 3, BLOCK_HEIGHT - 2, 2 * BLOCK_WIDTH, 2),
+        new Rectangle(NUM_COLUMNS - 7, NUM_ROWS - 5, 20, 20)
+    };
+
+    @Test
+    public void checkMono8BlockInterleve() throws IOException {
+        checkRegionsMatchFullRender(ImageRepresentation.MONOCHROME, new String[]{"M"}, 8, ImageMode.BLOCKINTERLEVE);
+    }
+
+    @Test
+    public void checkMono16RowInterleve() throws IOException {
+        checkRegionsMatchFullRender(ImageRepresentation.MONOCHROME, new String[]{"M"}, 16, ImageMode.ROWINTERLEVE);
+    }
+
+    @Test
+    public void checkRgbPixelInterleve() throws IOException {
+        checkRegionsMatchFullRender(ImageRepresentation.RGBTRUECOLOUR, new String[]{"R", "G", "B"}, 8, ImageMode.PIXELINTERLEVE);
+    }
+
+    @Test
+    public void checkRgbBandSequential() throws IOException {
+        checkRegionsMatchFullRender(ImageRepresentation.RGBTRUECOLOUR, new String[]{"R", "G", "B"}, 8, ImageMode.BANDSEQUENTIAL);
+    }
+
+    @Test
+    public void checkMono1BlockInterleve() throws IOException {
+        checkRegionsMatchFullRender(ImageRepresentation.MONOCHROME, new String[]{"M"}, 1, ImageMode.BLOCKINTERLEVE);
+    }
+
+    @Test
+    public void checkParallelRegion() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            byte[] data = createData(1, 8);
+            BufferedImage full = new NitfRenderer().renderToClosestDataModel(SyntheticImageSegment.create(ImageRepresentation.MONOCHROME,
+                    new String[]{"M"}, 8, ImageMode.BLOCKINTERLEVE, NUM_ROWS, NUM_COLUMNS, BLOCK_HEIGHT, BLOCK_WIDTH, data));
+            for (Rectangle region : REGIONS) {
+                BufferedImage chip = new NitfRenderer(executor).renderToClosestDataModel(SyntheticImageSegment.create(
+                        ImageRepresentation.MONOCHROME, new String[]{"M"}, 8, ImageMode.BLOCKINTERLEVE, NUM_ROWS, NUM_COLUMNS, BLOCK_HEIGHT,
+                        BLOCK_WIDTH, data), region);
+                checkSameAsFullImage(full, chip, region);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void checkArgbRegion() throws IOException {
+        byte[] data = createData(3, 8);
+        BufferedImage full = new NitfRenderer().render(SyntheticImageSegment.create(ImageRepresentation.RGBTRUECOLOUR,
+                new String[]{"R", "G", "B"}, 8, ImageMode.BLOCKINTERLEVE, NUM_ROWS, NUM_COLUMNS, BLOCK_HEIGHT, BLOCK_WIDTH, data));
+        Rectangle region = new Rectangle(BLOCK_WIDTH + 1, 2, BLOCK_WIDTH, BLOCK_HEIGHT);
+        BufferedImage chip = new NitfRenderer().renderRegion(SyntheticImageSegment.create(ImageRepresentation.RGBTRUECOLOUR,
+                new String[]{"R", "G", "B"}, 8, ImageMode.BLOCKINTERLEVE, NUM_ROWS, NUM_COLUMNS, BLOCK_HEIGHT, BLOCK_WIDTH, data), region);
+        assertEquals(BufferedImage.TYPE_INT_ARGB, chip.getType());
+        checkSameAsFullImage(full, chip, region);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkRegionOutsideImage() throws IOException {
+        byte[] data = createData(1, 8);
+        new NitfRenderer().renderRegion(SyntheticImageSegment.create(ImageRepresentation.MONOCHROME, new String[]{"M"}, 8,
+                ImageMode.BLOCKINTERLEVE, NUM_ROWS, NUM_COLUMNS, BLOCK_HEIGHT, BLOCK_WIDTH, data),
+                new Rectangle(NUM_COLUMNS, 0, 10, 10));
+    }
+
+    private void checkRegionsMatchFullRender(final ImageRepresentation representation, final String[] bands, final int nbpp,
+            final ImageMode mode) throws IOException {
+        byte[] data = createData(bands.length, nbpp);
+        BufferedImage full = new NitfRenderer().renderToClosestDataModel(SyntheticImageSegment.create(representation, bands, nbpp, mode,
+                NUM_ROWS, NUM_COLUMNS, BLOCK_HEIGHT, BLOCK_WIDTH, data));
+        for (Rectangle region : REGIONS) {
+            ImageSegment segment = SyntheticImageSegment.create(representation, bands, nbpp, mode, NUM_ROWS, NUM_COLUMNS, BLOCK_HEIGHT,
+                    BLOCK_WIDTH, data);
+            BufferedImage chip = new NitfRenderer().renderToClosestDataModel(segment, region);
+            checkSameAsFullImage(full, chip, region);
+        }
+    }
+
+    private void checkSameAsFullImage(final BufferedImage full, final BufferedImage chip, final Rectangle region) {
+        Rectangle expectedBounds = region.intersection(new Rectangle(0, 0, NUM_COLUMNS, NUM_ROWS));
+        assertEquals(expectedBounds.width, chip.getWidth());
+        assertEquals(expectedBounds.height, chip.getHeight());
+        Raster fullRaster = full.getRaster();
+        Raster chipRaster = chip.getRaster();
+        for (int y = 0; y < chip.getHeight(); ++y) {
+            for (int x = 0; x < chip.getWidth(); ++x) {
+                assertArrayEquals(region + " at " + x + "," + y,
+                        fullRaster.getPixel(expectedBounds.x + x, expectedBounds.y + y, (int[]) null),
+                        chipRaster.getPixel(x, y, (int[]) null));
+            }
+        }
+    }
+
+    private static byte[] createData(final int numBands, final int nbpp) {
+        byte[] data = new byte[NUM_ROWS * NUM_COLUMNS * numBands * nbpp / Byte.SIZE];
+        new Random(numBands * nbpp).nextBytes(data);
+        return data;
+    }
+}
@@ -251,7 +251,9 @@ public class RenderJitcTest extends RenderTestSupport {
 
     @Test
     public void testU_3058B() throws IOException, NitfFormatException {
-        testOneFile("U_3058B.NTF", "JitcNitf20Samples");
+        // The reference has the masked blocks as the first LUT colour, which render() leaves transparent, so only the
+        // closest data model is compared here. VectorQuantizationTileTest checks the masked blocks in render().
+        testOneFileRenderToClosestDataModel("U_3058B.NTF", "JitcNitf20Samples");
     }
 
     @Test
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+import org.codice.imaging.nitf.core.SlottedParseStrategy;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assume.assumeTrue;
+import org.junit.Test;
+
+/**
+ * Checks single block (tile) decoding of the JITC samples against rendering the whole image.
+ *
+ * The tiles are read before the image is rendered, from a renderer that has not seen the segment, so this also checks
+ * that reading a tile leaves the image data stream where it was.
+ */
+public class SampleTileTest {
+
+    @Test
+    public void checkMaskedMono() throws IOException, NitfFormatException {
+        checkTilesMatchFullRender("/JitcNitf21Samples/ns3301e.nsf");
+    }
+
+    @Test
+    public void checkMaskedBlockInterleve() throws IOException, NitfFormatException {
+        checkTilesMatchFullRender("/JitcNitf21Samples/ns3301b.nsf");
+    }
+
+    @Test
+    public void checkMaskedRowInterleve() throws IOException, NitfFormatException {
+        checkTilesMatchFullRender("/JitcNitf21Samples/i_3301k.ntf");
+    }
+
+    @Test
+    public void checkMaskedPadPixels() throws IOException, NitfFormatException {
+        checkTilesMatchFullRender("/JitcNitf21Samples/v_3301f.ntf");
+    }
+
+    @Test
+    public void checkBilevel() throws IOException, NitfFormatException {
+        checkTilesMatchFullRender("/JitcNitf21Samples/ns3050a.nsf");
+    }
+
+    @Test
+    public void checkJpeg2000() throws IOException, NitfFormatException {
+        // There is no JPEG 2000 reader on the test classpath, so this only runs where one has been plugged in.
+        assumeTrue(ImageIO.getImageReadersByMIMEType("image/jp2").hasNext());
+        checkTilesMatchFullRender("/JitcJpeg2000/p1_04a.ntf");
+    }
+
+    private void checkTilesMatchFullRender(final String sample) throws IOException, NitfFormatException {
+        ImageSegment segment = loadSegment(sample);
+        NitfRenderer renderer = new NitfRenderer();
+        int blockWidth = (int) segment.getNumberOfPixelsPerBlockHorizontal();
+        int blockHeight = (int) segment.getNumberOfPixelsPerBlockVertical();
+        BufferedImage[][] tiles = new BufferedImage[segment.getNumberOfBlocksPerColumn()][segment.getNumberOfBlocksPerRow()];
+        // Read the blocks backwards, to check that each one is located independently of the blocks before it.
+        for (int row = segment.getNumberOfBlocksPerColumn() - 1; row >= 0; --row) {
+            for (int column = segment.getNumberOfBlocksPerRow() - 1; column >= 0; --column) {
+                tiles[row][column] = renderer.getTileImage(segment, row, column);
+                assertEquals(sample + " stream position after block " + row + "," + column, 0, segment.getData().getStreamPosition());
+            }
+        }
+        // Bi-level blocks are decoded into a different data model, so the tiles are compared by colour.
+        BufferedImage full = renderer.renderToClosestDataModel(segment);
+        for (int y = 0; y < segment.getNumberOfRows(); ++y) {
+            for (int x = 0; x < segment.getNumberOfColumns(); ++x) {
+                BufferedImage tile = tiles[y / blockHeight][x / blockWidth];
+                assertEquals(sample + " at " + x + "," + y, full.getRGB(x, y), tile.getRGB(x % blockWidth, y % blockHeight));
+            }
+        }
+    }
+
+    private ImageSegment loadSegment(final String sample) throws NitfFormatException, IOException {
+        assertNotNull("Test file missing: " + sample, getClass().getResource(sample));
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.IMAGE_DATA);
+        NitfParser.parse(new NitfInputStreamReader(getClass().getResourceAsStream(sample)), parseStrategy);
+        ImageSegment segment = parseStrategy.getDataSource().getImageSegments().get(0);
+        segment.getData().seek(0);
+        return segment;
+    }
+}
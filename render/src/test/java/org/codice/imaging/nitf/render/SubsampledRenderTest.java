@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageRepresentation;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Checks that subsampled rendering gives the same pixels as subsampling the full resolution image.
+ */
+public class SubsampledRenderTest {
+
+    private static final int BLOCK_WIDTH = 12;
+    private static final int BLOCK_HEIGHT = 8;
+    private static final int NUM_ROWS = 3 * BLOCK_HEIGHT;
+    private static final int NUM_COLUMNS = 4 * BLOCK_WIDTH;
+
+    private static final int[] FACTORS = {1, 2, 3, 5, 16, 100};
+
+    private static final Rectangle[] REGIONS = {
+        null,
+        new Rectangle(7, 3, 30, 17),
+        new Rectangle(BLOCK_WIDTH - 1, BLOCK_HEIGHT + 1, BLOCK_WIDTH, 2)
+    };
+
+    @Test
+    public void checkMono8BlockInterleve() throws IOException {
+        checkSubsampledMatchesFullRender(ImageRepresentation.MONOCHROME, new String[]{"M"}, 8, ImageMode.BLOCKINTERLEVE);
+    }
+
+    @Test
+    public void checkMono16RowInterleve() throws IOException {
+        checkSubsampledMatchesFullRender(ImageRepresentation.MONOCHROME, new String[]{"M"}, 16, ImageMode.ROWINTERLEVE);
+    }
+
+    @Test
+    public void checkRgbPixelInterleve() throws IOException {
+        checkSubsampledMatchesFullRender(ImageRepresentation.RGBTRUECOLOUR, new String[]{"R", "G", "B"}, 8, ImageMode.PIXELINTERLEVE);
+    }
+
+    @Test
+    public void checkRgbBandSequential() throws IOException {
+        checkSubsampledMatchesFullRender(ImageRepresentation.RGBTRUECOLOUR, new String[]{"R", "G", "B"}, 8, ImageMode.BANDSEQUENTIAL);
+    }
+
+    @Test
+    public void checkRgbRowInterleve() throws IOException {
+        checkSubsampledMatchesFullRender(ImageRepresentation.RGBTRUECOLOUR, new String[]{"R", "G", "B"}, 8, ImageMode.ROWINTERLEVE);
+    }
+
+    @Test
+    public void checkMono1UnalignedRows() throws IOException {
+        checkSubsampledMatchesFullRender(ImageRepresentation.MONOCHROME, new String[]{"M"}, 1, ImageMode.BLOCKINTERLEVE);
+    }
+
+    @Test
+    public void checkParallelSubsampling() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            byte[] data = createData(3, 8);
+            BufferedImage full = new NitfRenderer().renderToClosestDataModel(SyntheticImageSegment.create(ImageRepresentation.RGBTRUECOLOUR,
+                    new String[]{"R", "G", "B"}, 8, ImageMode.BLOCKINTERLEVE, NUM_ROWS, NUM_COLUMNS, BLOCK_HEIGHT, BLOCK_WIDTH, data));
+            for (int factor : FACTORS) {
+                BufferedImage sampled = new NitfRenderer(executor).renderToClosestDataModel(SyntheticImageSegment.create(
+                        ImageRepresentation.RGBTRUECOLOUR, new String[]{"R", "G", "B"}, 8, ImageMode.BLOCKINTERLEVE, NUM_ROWS, NUM_COLUMNS,
+                        BLOCK_HEIGHT, BLOCK_WIDTH, data), null, factor);
+                checkSamples(full, sampled, null, factor);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void checkStreamPositionAfterSubsampling() throws IOException {
+        byte[] data = createData(1, 8);
+        ImageSegment segment = SyntheticImageSegment.create(ImageRepresentation.MONOCHROME, new String[]{"M"}, 8, ImageMode.BLOCKINTERLEVE,
+                NUM_ROWS, NUM_COLUMNS, BLOCK_HEIGHT, BLOCK_WIDTH, data);
+        new NitfRenderer().renderRegion(segment, null, 4);
+        assertEquals(data.length, segment.getData().getStreamPosition());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkBadFactor() throws IOException {
+        byte[] data = createData(1, 8);
+        new NitfRenderer().renderRegion(SyntheticImageSegment.create(ImageRepresentation.MONOCHROME, new String[]{"M"}, 8,
+                ImageMode.BLOCKINTERLEVE, NUM_ROWS, NUM_COLUMNS, BLOCK_HEIGHT, BLOCK_WIDTH, data), null, 0);
+    }
+
+    private void checkSubsampledMatchesFullRender(final ImageRepresentation representation, final String[] bands, final int nbpp,
+            final ImageMode mode) throws IOException {
+        byte[] data = createData(bands.length, nbpp);
+        BufferedImage full = new NitfRenderer().renderToClosestDataModel(SyntheticImageSegment.create(representation, bands, nbpp, mode,
+                NUM_ROWS, NUM_COLUMNS, BLOCK_HEIGHT, BLOCK_WIDTH, data));
+        for (Rectangle region : REGIONS) {
+            for (int factor : FACTORS) {
+                ImageSegment segment = SyntheticImageSegment.create(representation, bands, nbpp, mode, NUM_ROWS, NUM_COLUMNS, BLOCK_HEIGHT,
+                        BLOCK_WIDTH, data);
+                BufferedImage sampled = new NitfRenderer().renderToClosestDataModel(segment, region, factor);
+                checkSamples(full, sampled, region, factor);
+            }
+        }
+    }
+
+    private void checkSamples(final BufferedImage full, final BufferedImage sampled, final Rectangle region, final int factor) {
+        Rectangle bounds = new Rectangle(0, 0, NUM_COLUMNS, NUM_ROWS);
+        if (region != null) {
+            bounds = region.intersection(bounds);
+        }
+        String description = region + " / " + factor;
+        assertEquals(description, (bounds.width + factor - 1) / factor, sampled.getWidth());
+        assertEquals(description, (bounds.height + factor - 1) / factor, sampled.getHeight());
+        Raster fullRaster = full.getRaster();
+        Raster sampledRaster = sampled.getRaster();
+        for (int y = 0; y < sampled.getHeight(); ++y) {
+            for (int x = 0; x < sampled.getWidth(); ++x) {
+                assertArrayEquals(description + " at " + x + "," + y,
+                        fullRaster.getPixel(bounds.x + x * factor, bounds.y + y * factor, (int[]) null),
+                        sampledRaster.getPixel(x, y, (int[]) null));
+            }
+        }
+    }
+
+    private static byte[] createData(final int numBands, final int nbpp) {
+        byte[] data = new byte[NUM_ROWS * NUM_COLUMNS * numBands * nbpp / Byte.SIZE];
+        new Random(numBands * nbpp).nextBytes(data);
+        return data;
+    }
+}
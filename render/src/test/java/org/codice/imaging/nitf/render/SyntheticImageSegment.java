@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.io.ByteArrayInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import org.codice.imaging.nitf.core.common.FileType;
+import org.codice.imaging.nitf.core.image.ImageBand;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageRepresentation;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import org.codice.imaging.nitf.core.image.ImageSegmentFactory;
+import org.codice.imaging.nitf.core.image.PixelJustification;
+import org.codice.imaging.nitf.core.image.PixelValueType;
+
+/**
+ * Builds uncompressed image segments from synthetic data, for rendering tests.
+ */
+public class SyntheticImageSegment {
+
+    /**
+     * Create an image segment.
+     *
+     * @param representation the image representation (IREP)
+     * @param bandRepresentations the band representation (IREPBANDn) for each band
+     * @param numBitsPerPixelPerBand NBPP
+     * @param actualBitsPerPixelPerBand ABPP
+     * @param mode the image mode (IMODE)
+     * @param numRows the number of rows in the image
+     * @param numColumns the number of columns in the image
+     * @param blockHeight the number of rows in each block
+     * @param blockWidth the number of columns in each block
+     * @param data the image data
+     * @return image segment with the data attached
+     */
+    public static ImageSegment create(final ImageRepresentation representation, final String[] bandRepresentations,
+            final int numBitsPerPixelPerBand, final int actualBitsPerPixelPerBand, final ImageMode mode,
+            final int numRows, final int numColumns, final int blockHeight, final int blockWidth, final byte[] data) {
+        ImageSegment segment = ImageSegmentFactory.getDefault(FileType.NITF_TWO_ONE);
+        segment.setImageRepresentation(representation);
+        for (String bandRepresentation : bandRepresentations) {
+            ImageBand band = new ImageBand();
+            band.setImageRepresentation(bandRepresentation);
+            segment.addImageBand(band);
+        }
+        if (numBitsPerPixelPerBand == 1) {
+            segment.setPixelValueType(PixelValueType.BILEVEL);
+        } else {
+            segment.setPixelValueType(PixelValueType.INTEGER);
+        }
+        segment.setNumberOfBitsPerPixelPerBand(numBitsPerPixelPerBand);
+        segment.setActualBitsPerPixelPerBand(actualBitsPerPixelPerBand);
+        segment.setPixelJustification(PixelJustification.RIGHT);
+        segment.setImageMode(mode);
+        segment.setNumberOfRows(numRows);
+        segment.setNumberOfColumns(numColumns);
+        segment.setNumberOfPixelsPerBlockVerticalRaw(blockHeight);
+        segment.setNumberOfPixelsPerBlockHorizontalRaw(blockWidth);
+        segment.setNumberOfBlocksPerColumn((numRows + blockHeight - 1) / blockHeight);
+        segment.setNumberOfBlocksPerRow((numColumns + blockWidth - 1) / blockWidth);
+        segment.setData(new MemoryCacheImageInputStream(new ByteArrayInputStream(data)));
+        segment.setDataLength(data.length);
+        return segment;
+    }
+
+    /**
+     * Create an image segment where every bit of each pixel is significant (ABPP equal to NBPP).
+     *
+     * @param representation the image representation (IREP)
+     * @param bandRepresentations the band representation (IREPBANDn) for each band
+     * @param numBitsPerPixelPerBand NBPP and ABPP
+     * @param mode the image mode (IMODE)
+     * @param numRows the number of rows in the image
+     * @param numColumns the number of columns in the image
+     * @param blockHeight the number of rows in each block
+     * @param blockWidth the number of columns in each block
+     * @param data the image data
+     * @return image segment with the data attached
+     */
+    public static ImageSegment create(final ImageRepresentation representation, final String[] bandRepresentations,
+            final int numBitsPerPixelPerBand, final ImageMode mode, final int numRows, final int numColumns, final int blockHeight,
+            final int blockWidth, final byte[] data) {
+        return create(representation, bandRepresentations, numBitsPerPixelPerBand, numBitsPerPixelPerBand, mode, numRows, numColumns,
+                blockHeight, blockWidth, data);
+    }
+}
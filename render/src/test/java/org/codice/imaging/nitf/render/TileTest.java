@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.codice.imaging.nitf.core.image.ImageMode;
+import org.codice.imaging.nitf.core.image.ImageRepresentation;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Checks that single block (tile) decoding gives the same pixels as rendering the whole image.
+ */
+public class TileTest {
+
+    private static final int BLOCK_WIDTH = 12;
+    private static final int BLOCK_HEIGHT = 8;
+    private static final int BLOCKS_PER_ROW = 4;
+    private static final int BLOCKS_PER_COLUMN = 3;
+
+    @Test
+    public void checkMono8BlockInterleve() throws IOException {
+        checkTilesMatchFullRender(ImageRepresentation.MONOCHROME, new String[]{"M"}, 8, ImageMode.BLOCKINTERLEVE, BLOCK_HEIGHT, BLOCK_WIDTH);
+    }
+
+    @Test
+    public void checkMono16RowInterleve() throws IOException {
+        checkTilesMatchFullRender(ImageRepresentation.MONOCHROME, new String[]{"M"}, 16, ImageMode.ROWINTERLEVE, BLOCK_HEIGHT, BLOCK_WIDTH);
+    }
+
+    @Test
+    public void checkRgbPixelInterleve() throws IOException {
+        checkTilesMatchFullRender(ImageRepresentation.RGBTRUECOLOUR, new String[]{"R", "G", "B"}, 8, ImageMode.PIXELINTERLEVE,
+                BLOCK_HEIGHT, BLOCK_WIDTH);
+    }
+
+    @Test
+    public void checkRgbBandSequential() throws IOException {
+        checkTilesMatchFullRender(ImageRepresentation.RGBTRUECOLOUR, new String[]{"R", "G", "B"}, 8, ImageMode.BANDSEQUENTIAL,
+                BLOCK_HEIGHT, BLOCK_WIDTH);
+    }
+
+    @Test
+    public void checkMono1UnalignedBlocks() throws IOException {
+        // 5 x 3 one bit pixels, so most blocks do not start on a byte boundary.
+        checkTilesMatchFullRender(ImageRepresentation.MONOCHROME, new String[]{"M"}, 1, ImageMode.BLOCKINTERLEVE, 3, 5);
+    }
+
+    @Test
+    public void checkTileAsync() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            byte[] data = createData(3, 8, BLOCK_HEIGHT, BLOCK_WIDTH);
+            BufferedImage full = new NitfRenderer().renderToClosestDataModel(SyntheticImageSegment.create(ImageRepresentation.RGBTRUECOLOUR,
+                    new String[]{"R", "G", "B"}, 8, ImageMode.BLOCKINTERLEVE, BLOCKS_PER_COLUMN * BLOCK_HEIGHT,
+                    BLOCKS_PER_ROW * BLOCK_WIDTH, BLOCK_HEIGHT, BLOCK_WIDTH, data));
+            ImageSegment segment = SyntheticImageSegment.create(ImageRepresentation.RGBTRUECOLOUR, new String[]{"R", "G", "B"}, 8,
+                    ImageMode.BLOCKINTERLEVE, BLOCKS_PER_COLUMN * BLOCK_HEIGHT, BLOCKS_PER_ROW * BLOCK_WIDTH, BLOCK_HEIGHT, BLOCK_WIDTH,
+                    data);
+            NitfRenderer renderer = new NitfRenderer(executor);
+            for (int row = 0; row < BLOCKS_PER_COLUMN; ++row) {
+                for (int column = 0; column < BLOCKS_PER_ROW; ++column) {
+                    checkTile(full, renderer.getTileAsync(segment, row, column).join(), row, column, BLOCK_HEIGHT, BLOCK_WIDTH);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void checkTileUsesCache() throws IOException {
+        byte[] data = createData(1, 8, BLOCK_HEIGHT, BLOCK_WIDTH);
+        ImageSegment segment = SyntheticImageSegment.create(ImageRepresentation.MONOCHROME, new String[]{"M"}, 8, ImageMode.BLOCKINTERLEVE,
+                BLOCKS_PER_COLUMN * BLOCK_HEIGHT, BLOCKS_PER_ROW * BLOCK_WIDTH, BLOCK_HEIGHT, BLOCK_WIDTH, data);
+        DecodedBlockCache cache = new DecodedBlockCache(1024 * 1024);
+        NitfRenderer renderer = new NitfRenderer(null, cache);
+        renderer.getTile(segment, 1, 2);
+        renderer.getTile(segment, 1, 2);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkBadBlockIndex() throws IOException {
+        byte[] data = createData(1, 8, BLOCK_HEIGHT, BLOCK_WIDTH);
+        new NitfRenderer().getTile(SyntheticImageSegment.create(ImageRepresentation.MONOCHROME, new String[]{"M"}, 8,
+                ImageMode.BLOCKINTERLEVE, BLOCKS_PER_COLUMN * BLOCK_HEIGHT, BLOCKS_PER_ROW * BLOCK_WIDTH, BLOCK_HEIGHT, BLOCK_WIDTH, data),
+                BLOCKS_PER_COLUMN, 0);
+    }
+
+    private void checkTilesMatchFullRender(final ImageRepresentation representation, final String[] bands, final int nbpp,
+            final ImageMode mode, final int blockHeight, final int blockWidth) throws IOException {
+        byte[] data = createData(bands.length, nbpp, blockHeight, blockWidth);
+        BufferedImage full = new NitfRenderer().renderToClosestDataModel(SyntheticImageSegment.create(representation, bands, nbpp, mode,
+                BLOCKS_PER_COLUMN * blockHeight, BLOCKS_PER_ROW * blockWidth, blockHeight, blockWidth, data));
+        ImageSegment segment = SyntheticImageSegment.create(representation, bands, nbpp, mode, BLOCKS_PER_COLUMN * blockHeight,
+                BLOCKS_PER_ROW * blockWidth, blockHeight, blockWidth, data);
+        NitfRenderer renderer = new NitfRenderer();
+        // Read the blocks backwards, to check that each one is located independently of the stream position.
+        for (int row = BLOCKS_PER_COLUMN - 1; row >= 0; --row) {
+            for (int column = BLOCKS_PER_ROW - 1; column >= 0; --column) {
+                checkTile(full, renderer.getTile(segment, row, column), row, column, blockHeight, blockWidth);
+            }
+        }
+    }
+
+    private void checkTile(final BufferedImage full, final Raster tile, final int row, final int column, final int blockHeight,
+            final int blockWidth) {
+        String description = "block " + row + "," + column;
+        assertEquals(description, column * blockWidth, tile.getMinX());
+        assertEquals(description, row * blockHeight, tile.getMinY());
+        assertEquals(description, blockWidth, tile.getWidth());
+        assertEquals(description, blockHeight, tile.getHeight());
+        Raster fullRaster = full.getRaster();
+        for (int y = tile.getMinY(); y < tile.getMinY() + tile.getHeight(); ++y) {
+            for (int x = tile.getMinX(); x < tile.getMinX() + tile.getWidth(); ++x) {
+                assertArrayEquals(description + " at " + x + "," + y, fullRaster.getPixel(x, y, (int[]) null),
+                        tile.getPixel(x, y, (int[]) null));
+            }
+        }
+    }
+
+    private static byte[] createData(final int numBands, final int nbpp, final int blockHeight, final int blockWidth) {
+        int numBits = BLOCKS_PER_COLUMN * blockHeight * BLOCKS_PER_ROW * blockWidth * numBands * nbpp;
+        byte[] data = new byte[(numBits + Byte.SIZE - 1) / Byte.SIZE];
+        new Random(numBands * nbpp).nextBytes(data);
+        return data;
+    }
+}
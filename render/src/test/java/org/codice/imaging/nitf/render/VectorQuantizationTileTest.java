@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.render;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.IOException;
+import org.codice.imaging.nitf.core.SlottedParseStrategy;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.header.NitfParser;
+import org.codice.imaging.nitf.core.image.ImageSegment;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Checks random access to vector quantized (CADRG) blocks.
+ */
+public class VectorQuantizationTileTest {
+
+    private static final String CADRG = "/fromOSGEO/cadrg/001zc013.on1";
+    private static final String CADRG_WITH_MASK = "/JitcNitf20Samples/U_3058B.NTF";
+
+    @Test
+    public void checkTiles() throws IOException, NitfFormatException {
+        checkTilesMatchFullRender(CADRG);
+    }
+
+    @Test
+    public void checkMaskedTiles() throws IOException, NitfFormatException {
+        checkTilesMatchFullRender(CADRG_WITH_MASK);
+    }
+
+    @Test
+    public void checkMaskedBlocksNotDrawn() throws IOException, NitfFormatException {
+        ImageSegment segment = loadSegment(CADRG_WITH_MASK);
+        VectorQuantizationCodebook codebook = VectorQuantizationCodebook.read(segment, segment.getData());
+        segment.getData().seek(0);
+        BufferedImage rendered = new NitfRenderer().render(segment);
+        segment.getData().seek(0);
+        BufferedImage closest = new NitfRenderer().renderToClosestDataModel(segment);
+        int blockWidth = (int) segment.getNumberOfPixelsPerBlockHorizontal();
+        int blockHeight = (int) segment.getNumberOfPixelsPerBlockVertical();
+        int numMasked = 0;
+        for (int row = 0; row < segment.getNumberOfBlocksPerColumn(); ++row) {
+            for (int column = 0; column < segment.getNumberOfBlocksPerRow(); ++column) {
+                boolean recorded = codebook.isRecorded(row * segment.getNumberOfBlocksPerRow() + column);
+                if (!recorded) {
+                    numMasked++;
+                }
+                for (int y = row * blockHeight; y < (row + 1) * blockHeight; ++y) {
+                    for (int x = column * blockWidth; x < (column + 1) * blockWidth; ++x) {
+                        if (recorded) {
+                            assertEquals("at " + x + "," + y, closest.getRGB(x, y), rendered.getRGB(x, y));
+                        } else {
+                            // Masked blocks are left transparent by render().
+                            assertEquals("at " + x + "," + y, 0, rendered.getRGB(x, y));
+                        }
+                    }
+                }
+            }
+        }
+        assertTrue(numMasked > 0);
+    }
+
+    @Test
+    public void checkRegion() throws IOException, NitfFormatException {
+        ImageSegment segment = loadSegment(CADRG);
+        BufferedImage full = new NitfRenderer().render(segment);
+        // A region in the last block, so the earlier blocks are not needed.
+        Rectangle region = new Rectangle((int) segment.getNumberOfColumns() - 100, (int) segment.getNumberOfRows() - 50, 80, 40);
+        segment.getData().seek(0);
+        BufferedImage part = new NitfRenderer().renderRegion(segment, region, 1);
+        for (int y = 0; y < region.height; ++y) {
+            for (int x = 0; x < region.width; ++x) {
+                assertEquals(full.getRGB(region.x + x, region.y + y), part.getRGB(x, y));
+            }
+        }
+    }
+
+    private void checkTilesMatchFullRender(final String sample) throws IOException, NitfFormatException {
+        ImageSegment segment = loadSegment(sample);
+        BufferedImage full = new NitfRenderer().renderToClosestDataModel(segment);
+        Raster fullRaster = full.getRaster();
+        NitfRenderer renderer = new NitfRenderer();
+        // Read the blocks backwards, to check that each one is located independently of the stream position.
+        for (int row = segment.getNumberOfBlocksPerColumn() - 1; row >= 0; --row) {
+            for (int column = segment.getNumberOfBlocksPerRow() - 1; column >= 0; --column) {
+                Raster tile = renderer.getTile(segment, row, column);
+                for (int y = tile.getMinY(); y < tile.getMinY() + tile.getHeight(); ++y) {
+                    for (int x = tile.getMinX(); x < tile.getMinX() + tile.getWidth(); ++x) {
+                        assertArrayEquals("block " + row + "," + column + " at " + x + "," + y, fullRaster.getPixel(x, y, (int[]) null),
+                                tile.getPixel(x, y, (int[]) null));
+                    }
+                }
+            }
+        }
+    }
+
+    private ImageSegment loadSegment(final String sample) throws NitfFormatException {
+        assertNotNull("Test file missing: " + sample, getClass().getResource(sample));
+        SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.IMAGE_DATA);
+        NitfParser.parse(new NitfInputStreamReader(getClass().getResourceAsStream(sample)), parseStrategy);
+        return parseStrategy.getDataSource().getImageSegments().get(0);
+    }
+}
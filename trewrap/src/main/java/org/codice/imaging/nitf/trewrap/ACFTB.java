@@ -290,8 +290,7 @@ public class ACFTB extends FlatTreWrapper {
      * @throws NitfFormatException if there is a parsing issue
      */
     public final double getEntryLocationLatitude() throws NitfFormatException {
-        String entloc = getFieldValue("ENTLOC");
-        return parseLatitudeFromLocation(entloc);
+        return getDecodedValue("ENTLOC#latitude", () -> parseLatitudeFromLocation(getFieldValue("ENTLOC")));
     }
 
     private double parseLatitudeFromLocation(final String location) throws NumberFormatException {
@@ -336,8 +335,7 @@ public class ACFTB extends FlatTreWrapper {
      * @throws NitfFormatException if there is a parsing issue
      */
     public final double getEntryLocationLongitude() throws NitfFormatException {
-        String entloc = getFieldValue("ENTLOC");
-        return parseLongitudeFromLocation(entloc);
+        return getDecodedValue("ENTLOC#longitude", () -> parseLongitudeFromLocation(getFieldValue("ENTLOC")));
     }
 
     private double parseLongitudeFromLocation(final String location) throws NumberFormatException {
@@ -467,8 +465,7 @@ public class ACFTB extends FlatTreWrapper {
      * @throws NitfFormatException if there is a parsing issue
      */
     public final double getExitLocationLatitude() throws NitfFormatException {
-        String exitloc = getFieldValue("EXITLOC");
-        return parseLatitudeFromLocation(exitloc);
+        return getDecodedValue("EXITLOC#latitude", () -> parseLatitudeFromLocation(getFieldValue("EXITLOC")));
     }
 
     /**
@@ -494,8 +491,7 @@ public class ACFTB extends FlatTreWrapper {
      * @throws NitfFormatException if there is a parsing issue
      */
     public final double getExitLocationLongitude() throws NitfFormatException {
-        String exitloc = getFieldValue("EXITLOC");
-        return parseLongitudeFromLocation(exitloc);
+        return getDecodedValue("EXITLOC#longitude", () -> parseLongitudeFromLocation(getFieldValue("EXITLOC")));
     }
 
     private boolean locationHasData(final String location) {
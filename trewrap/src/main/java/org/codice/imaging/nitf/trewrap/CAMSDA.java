@@ -104,8 +104,7 @@ public class CAMSDA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final int getNumberOfCamerasInCameraSetForTRE(final int cameraSetIndex) throws NitfFormatException {
-        TreGroup cameraSet = getCameraSetTreBased(cameraSetIndex);
-        return cameraSet.getIntValue("NUM_CAMERAS_IN_SET");
+        return getNumberOfCamerasInCameraSetTreBased(cameraSetIndex);
     }
 
     /**
@@ -122,8 +121,7 @@ public class CAMSDA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final int getNumberOfCamerasInCameraSet(final int cameraSetIndex) throws NitfFormatException {
-        TreGroup cameraSet = getCameraSetCollectionBased(cameraSetIndex);
-        return cameraSet.getIntValue("NUM_CAMERAS_IN_SET");
+        return getNumberOfCamerasInCameraSetTreBased(toTreCameraSetIndex(cameraSetIndex));
     }
 
     /**
@@ -148,8 +146,7 @@ public class CAMSDA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final String getCameraID(final int cameraSetIndex, final int cameraIndex) throws NitfFormatException {
-        TreGroup camera = getCameraCollectionBased(cameraSetIndex, cameraIndex);
-        return camera.getFieldValue("CAMERA_ID");
+        return getCameraValue(toTreCameraSetIndex(cameraSetIndex), cameraIndex, "CAMERAS/CAMERA_ID", "CAMERA_ID");
     }
 
     /**
@@ -173,8 +170,7 @@ public class CAMSDA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final String getCameraIDForCameraSetInTRE(final int cameraSetIndex, final int cameraIndex) throws NitfFormatException {
-        TreGroup camera = getCameraTreBased(cameraSetIndex, cameraIndex);
-        return camera.getFieldValue("CAMERA_ID");
+        return getCameraValue(cameraSetIndex, cameraIndex, "CAMERAS/CAMERA_ID", "CAMERA_ID");
     }
 
     /**
@@ -202,8 +198,7 @@ public class CAMSDA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final String getCameraDescription(final int cameraSetIndex, final int cameraIndex) throws NitfFormatException {
-        TreGroup camera = getCameraCollectionBased(cameraSetIndex, cameraIndex);
-        return camera.getFieldValue("CAMERA_DESC").trim();
+        return getCameraTrimmedValue(toTreCameraSetIndex(cameraSetIndex), cameraIndex, "CAMERAS/CAMERA_DESC#trimmed", "CAMERA_DESC");
     }
 
     /**
@@ -230,8 +225,7 @@ public class CAMSDA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final String getCameraDescriptionForCameraSetInTRE(final int cameraSetIndex, final int cameraIndex) throws NitfFormatException {
-        TreGroup camera = getCameraTreBased(cameraSetIndex, cameraIndex);
-        return camera.getFieldValue("CAMERA_DESC").trim();
+        return getCameraTrimmedValue(cameraSetIndex, cameraIndex, "CAMERAS/CAMERA_DESC#trimmed", "CAMERA_DESC");
     }
 
     /**
@@ -257,8 +251,7 @@ public class CAMSDA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final String getLayerID(final int cameraSetIndex, final int cameraIndex) throws NitfFormatException {
-        TreGroup camera = getCameraCollectionBased(cameraSetIndex, cameraIndex);
-        return camera.getFieldValue("LAYER_ID").trim();
+        return getCameraTrimmedValue(toTreCameraSetIndex(cameraSetIndex), cameraIndex, "CAMERAS/LAYER_ID#trimmed", "LAYER_ID");
     }
 
     /**
@@ -283,8 +276,7 @@ public class CAMSDA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final String getLayerIDForCameraSetInTRE(final int cameraSetIndex, final int cameraIndex) throws NitfFormatException {
-        TreGroup camera = getCameraTreBased(cameraSetIndex, cameraIndex);
-        return camera.getFieldValue("LAYER_ID").trim();
+        return getCameraTrimmedValue(cameraSetIndex, cameraIndex, "CAMERAS/LAYER_ID#trimmed", "LAYER_ID");
     }
 
     /**
@@ -308,8 +300,7 @@ public class CAMSDA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final int getImageDisplayLevel(final int cameraSetIndex, final int cameraIndex) throws NitfFormatException {
-        TreGroup camera = getCameraCollectionBased(cameraSetIndex, cameraIndex);
-        return camera.getIntValue("IDLVL");
+        return getCameraIntValue(toTreCameraSetIndex(cameraSetIndex), cameraIndex, "CAMERAS/IDLVL#integer", "IDLVL");
     }
 
     /**
@@ -332,8 +323,7 @@ public class CAMSDA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final int getImageDisplayLevelForCameraSetInTRE(final int cameraSetIndex, final int cameraIndex) throws NitfFormatException {
-        TreGroup camera = getCameraTreBased(cameraSetIndex, cameraIndex);
-        return camera.getIntValue("IDLVL");
+        return getCameraIntValue(cameraSetIndex, cameraIndex, "CAMERAS/IDLVL#integer", "IDLVL");
     }
 
     /**
@@ -357,8 +347,7 @@ public class CAMSDA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final int getImageAttachmentLevel(final int cameraSetIndex, final int cameraIndex) throws NitfFormatException {
-        TreGroup camera = getCameraCollectionBased(cameraSetIndex, cameraIndex);
-        return camera.getIntValue("IALVL");
+        return getCameraIntValue(toTreCameraSetIndex(cameraSetIndex), cameraIndex, "CAMERAS/IALVL#integer", "IALVL");
     }
 
     /**
@@ -382,8 +371,7 @@ public class CAMSDA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final int getImageAttachmentLevelForCameraSetInTRE(final int cameraSetIndex, final int cameraIndex) throws NitfFormatException {
-        TreGroup camera = getCameraTreBased(cameraSetIndex, cameraIndex);
-        return camera.getIntValue("IALVL");
+        return getCameraIntValue(cameraSetIndex, cameraIndex, "CAMERAS/IALVL#integer", "IALVL");
     }
 
     /**
@@ -408,9 +396,7 @@ public class CAMSDA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final int getImageLocationRow(final int cameraSetIndex, final int cameraIndex) throws NitfFormatException {
-        TreGroup camera = getCameraCollectionBased(cameraSetIndex, cameraIndex);
-        String iloc = camera.getFieldValue("ILOC");
-        return Integer.parseInt(iloc.substring(0, "RRRRR".length()));
+        return getCameraImageLocationRow(toTreCameraSetIndex(cameraSetIndex), cameraIndex);
     }
     /**
      * Get the image location row for a given camera in a given camera set in
@@ -435,9 +421,7 @@ public class CAMSDA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final int getImageLocationRowForCameraSetInTRE(final int cameraSetIndex, final int cameraIndex) throws NitfFormatException {
-        TreGroup camera = getCameraTreBased(cameraSetIndex, cameraIndex);
-        String iloc = camera.getFieldValue("ILOC");
-        return Integer.parseInt(iloc.substring(0, "RRRRR".length()));
+        return getCameraImageLocationRow(cameraSetIndex, cameraIndex);
     }
 
     /**
@@ -462,9 +446,7 @@ public class CAMSDA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final int getImageLocationColumn(final int cameraSetIndex, final int cameraIndex) throws NitfFormatException {
-        TreGroup camera = getCameraCollectionBased(cameraSetIndex, cameraIndex);
-        String iloc = camera.getFieldValue("ILOC");
-        return Integer.parseInt(iloc.substring("RRRRR".length()));
+        return getCameraImageLocationColumn(toTreCameraSetIndex(cameraSetIndex), cameraIndex);
     }
 
     /**
@@ -490,9 +472,7 @@ public class CAMSDA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final int getImageLocationColumnForCameraSetInTRE(final int cameraSetIndex, final int cameraIndex) throws NitfFormatException {
-        TreGroup camera = getCameraTreBased(cameraSetIndex, cameraIndex);
-        String iloc = camera.getFieldValue("ILOC");
-        return Integer.parseInt(iloc.substring("RRRRR".length()));
+        return getCameraImageLocationColumn(cameraSetIndex, cameraIndex);
     }
 
     /**
@@ -519,8 +499,7 @@ public class CAMSDA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final int getNumRows(final int cameraSetIndex, final int cameraIndex) throws NitfFormatException {
-        TreGroup camera = getCameraCollectionBased(cameraSetIndex, cameraIndex);
-        return camera.getIntValue("NROWS");
+        return getCameraIntValue(toTreCameraSetIndex(cameraSetIndex), cameraIndex, "CAMERAS/NROWS#integer", "NROWS");
     }
 
     /**
@@ -546,8 +525,7 @@ public class CAMSDA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final int getNumRowsForCameraSetInTRE(final int cameraSetIndex, final int cameraIndex) throws NitfFormatException {
-        TreGroup camera = getCameraTreBased(cameraSetIndex, cameraIndex);
-        return camera.getIntValue("NROWS");
+        return getCameraIntValue(cameraSetIndex, cameraIndex, "CAMERAS/NROWS#integer", "NROWS");
     }
 
     /**
@@ -574,8 +552,7 @@ public class CAMSDA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final int getNumColumns(final int cameraSetIndex, final int cameraIndex) throws NitfFormatException {
-        TreGroup camera = getCameraCollectionBased(cameraSetIndex, cameraIndex);
-        return camera.getIntValue("NCOLS");
+        return getCameraIntValue(toTreCameraSetIndex(cameraSetIndex), cameraIndex, "CAMERAS/NCOLS#integer", "NCOLS");
     }
 
     /**
@@ -601,8 +578,52 @@ public class CAMSDA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final int getNumColumnsForCameraSetInTRE(final int cameraSetIndex, final int cameraIndex) throws NitfFormatException {
-        TreGroup camera = getCameraTreBased(cameraSetIndex, cameraIndex);
-        return camera.getIntValue("NCOLS");
+        return getCameraIntValue(cameraSetIndex, cameraIndex, "CAMERAS/NCOLS#integer", "NCOLS");
+    }
+
+    private int toTreCameraSetIndex(final int cameraSetIndex) throws NitfFormatException {
+        return cameraSetIndex - (getIndexOfFirstCameraSetInTRE() - 1);
+    }
+
+    private int getNumberOfCamerasInCameraSetTreBased(final int cameraSetIndex) throws NitfFormatException {
+        return getDecodedValue("CAMERA_SETS/NUM_CAMERAS_IN_SET#integer", cameraSetIndex, this::countCameraSets,
+                () -> getCameraSetTreBased(cameraSetIndex).getIntValue("NUM_CAMERAS_IN_SET"));
+    }
+
+    private String getCameraValue(final int cameraSetIndex, final int cameraIndex, final String key, final String fieldName)
+            throws NitfFormatException {
+        return getCameraDecodedValue(cameraSetIndex, cameraIndex, key, () -> getCameraTreBased(cameraSetIndex, cameraIndex).getFieldValue(fieldName));
+    }
+
+    private String getCameraTrimmedValue(final int cameraSetIndex, final int cameraIndex, final String key, final String fieldName)
+            throws NitfFormatException {
+        return getCameraDecodedValue(cameraSetIndex, cameraIndex, key,
+                () -> getCameraTreBased(cameraSetIndex, cameraIndex).getFieldValue(fieldName).trim());
+    }
+
+    private int getCameraIntValue(final int cameraSetIndex, final int cameraIndex, final String key, final String fieldName)
+            throws NitfFormatException {
+        return getCameraDecodedValue(cameraSetIndex, cameraIndex, key, () -> getCameraTreBased(cameraSetIndex, cameraIndex).getIntValue(fieldName));
+    }
+
+    private int getCameraImageLocationRow(final int cameraSetIndex, final int cameraIndex) throws NitfFormatException {
+        return getCameraDecodedValue(cameraSetIndex, cameraIndex, "CAMERAS/ILOC#row",
+                () -> Integer.parseInt(getCameraTreBased(cameraSetIndex, cameraIndex).getFieldValue("ILOC").substring(0, "RRRRR".length())));
+    }
+
+    private int getCameraImageLocationColumn(final int cameraSetIndex, final int cameraIndex) throws NitfFormatException {
+        return getCameraDecodedValue(cameraSetIndex, cameraIndex, "CAMERAS/ILOC#column",
+                () -> Integer.parseInt(getCameraTreBased(cameraSetIndex, cameraIndex).getFieldValue("ILOC").substring("RRRRR".length())));
+    }
+
+    private <T> T getCameraDecodedValue(final int cameraSetIndex, final int cameraIndex, final String key, final FieldDecoder<T> decoder)
+            throws NitfFormatException {
+        return getDecodedValue(key, cameraSetIndex, this::countCameraSets, cameraIndex,
+                () -> getCameraSetTreBased(cameraSetIndex).getEntry("CAMERAS").getGroups().size(), decoder);
+    }
+
+    private int countCameraSets() throws NitfFormatException {
+        return mTre.getEntry("CAMERA_SETS").getGroups().size();
     }
 
     private TreGroup getCameraSetTreBased(final int cameraSetIndex) throws NitfFormatException {
@@ -611,17 +632,8 @@ public class CAMSDA extends TreWrapper {
         return cameraSet;
     }
 
-    private TreGroup getCameraSetCollectionBased(final int cameraSetIndex) throws NitfFormatException {
-        return getCameraSetTreBased(cameraSetIndex - (getIndexOfFirstCameraSetInTRE() - 1));
-    }
-
     private TreGroup getCameraTreBased(final int cameraSetIndex, final int cameraIndex) throws NitfFormatException {
         TreGroup cameraSet = getCameraSetTreBased(cameraSetIndex);
         return cameraSet.getEntry("CAMERAS").getGroups().get(cameraIndex);
     }
-
-    private TreGroup getCameraCollectionBased(final int cameraSetIndex, final int cameraIndex) throws NitfFormatException {
-        TreGroup cameraSet = getCameraSetCollectionBased(cameraSetIndex);
-        return cameraSet.getEntry("CAMERAS").getGroups().get(cameraIndex);
-    }
 }
@@ -62,6 +62,7 @@ public abstract class FlatTreWrapper extends TreWrapper {
      * @throws NitfFormatException if there is a parsing error.
      */
     protected final void addOrUpdateEntry(final String fieldName, final String value, final String fieldType) throws NitfFormatException {
+        clearDecodedValues();
         for (TreEntry entry : mTre.getEntries()) {
             if (entry.getName().equals(fieldName)) {
                 mTre.getEntry(fieldName).setFieldValue(value);
@@ -340,8 +340,7 @@ public class MSTGTA extends FlatTreWrapper {
      * @throws NitfFormatException if there was a problem during parsing.
      */
     public final double getTargetLocationLatitude() throws NitfFormatException {
-        String targetLocation = getFieldValue("TGT_LOC");
-        return parseLatitudeFromLocation(targetLocation);
+        return getDecodedValue("TGT_LOC#latitude", () -> parseLatitudeFromLocation(getFieldValue("TGT_LOC")));
     }
 
     /**
@@ -361,8 +360,7 @@ public class MSTGTA extends FlatTreWrapper {
      * @throws NitfFormatException if there was a problem during parsing.
      */
     public final double getTargetLocationLongitude() throws NitfFormatException {
-        String targetLocation = getFieldValue("TGT_LOC");
-        return parseLongitudeFromLocation(targetLocation);
+        return getDecodedValue("TGT_LOC#longitude", () -> parseLongitudeFromLocation(getFieldValue("TGT_LOC")));
     }
 
     private double parseLatitudeFromLocation(final String location) throws NumberFormatException {
@@ -128,8 +128,7 @@ public class MTIMFA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final String getCameraID(final int cameraIndex) throws NitfFormatException {
-        TreGroup camera = getCamera(cameraIndex);
-        return camera.getFieldValue("CAMERA_ID");
+        return getDecodedValue("CAMERAS/CAMERA_ID", cameraIndex, this::countCameras, () -> getCamera(cameraIndex).getFieldValue("CAMERA_ID"));
     }
 
     /**
@@ -157,8 +156,8 @@ public class MTIMFA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final int getNumTemporalBlocks(final int cameraIndex) throws NitfFormatException {
-        TreGroup camera = getCamera(cameraIndex);
-        return camera.getIntValue("NUM_TEMP_BLOCKS");
+        return getDecodedValue("CAMERAS/NUM_TEMP_BLOCKS#integer", cameraIndex, this::countCameras,
+                () -> getCamera(cameraIndex).getIntValue("NUM_TEMP_BLOCKS"));
     }
 
     /**
@@ -174,8 +173,7 @@ public class MTIMFA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final ZonedDateTime getStartTimestamp(final int cameraIndex, final int temporalBlockIndex) throws NitfFormatException {
-        TreGroup tempBlock = getTemporalBlock(cameraIndex, temporalBlockIndex);
-        return parseAsZonedDateTime(TIMESTAMP_NANO_FORMATTER, tempBlock.getFieldValue("START_TIMESTAMP"));
+        return getTemporalBlockTimestamp(cameraIndex, temporalBlockIndex, "TEMPORAL_BLOCKS/START_TIMESTAMP#timestamp", "START_TIMESTAMP");
     }
 
     /**
@@ -195,8 +193,7 @@ public class MTIMFA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final ZonedDateTime getEndTimestamp(final int cameraIndex, final int temporalBlockIndex) throws NitfFormatException {
-        TreGroup tempBlock = getTemporalBlock(cameraIndex, temporalBlockIndex);
-        return parseAsZonedDateTime(TIMESTAMP_NANO_FORMATTER, tempBlock.getFieldValue("END_TIMESTAMP"));
+        return getTemporalBlockTimestamp(cameraIndex, temporalBlockIndex, "TEMPORAL_BLOCKS/END_TIMESTAMP#timestamp", "END_TIMESTAMP");
     }
 
     /**
@@ -213,8 +210,8 @@ public class MTIMFA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final int getImageSegmentIndex(final int cameraIndex, final int temporalBlockIndex) throws NitfFormatException {
-        TreGroup tempBlock = getTemporalBlock(cameraIndex, temporalBlockIndex);
-        return tempBlock.getIntValue("IMAGE_SEG_INDEX");
+        return getTemporalBlockDecodedValue(cameraIndex, temporalBlockIndex, "TEMPORAL_BLOCKS/IMAGE_SEG_INDEX#integer",
+                () -> getTemporalBlock(cameraIndex, temporalBlockIndex).getIntValue("IMAGE_SEG_INDEX"));
     }
 
     /**
@@ -226,10 +223,31 @@ public class MTIMFA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final boolean hasValidTimestamps(final int cameraIndex, final int temporalBlockIndex) throws NitfFormatException {
-        TreGroup temporalBlock = getTemporalBlock(cameraIndex, temporalBlockIndex);
-        return ((!temporalBlock.getFieldValue("START_TIMESTAMP").trim().isEmpty())
-                && (!temporalBlock.getFieldValue("END_TIMESTAMP").trim().isEmpty())
-                && (!temporalBlock.getFieldValue("IMAGE_SEG_INDEX").trim().isEmpty()));
+        return ((!getTemporalBlockValue(cameraIndex, temporalBlockIndex, "TEMPORAL_BLOCKS/START_TIMESTAMP", "START_TIMESTAMP").trim().isEmpty())
+                && (!getTemporalBlockValue(cameraIndex, temporalBlockIndex, "TEMPORAL_BLOCKS/END_TIMESTAMP", "END_TIMESTAMP").trim().isEmpty())
+                && (!getTemporalBlockValue(cameraIndex, temporalBlockIndex, "TEMPORAL_BLOCKS/IMAGE_SEG_INDEX", "IMAGE_SEG_INDEX").trim().isEmpty()));
+    }
+
+    private String getTemporalBlockValue(final int cameraIndex, final int temporalBlockIndex, final String key, final String fieldName)
+            throws NitfFormatException {
+        return getTemporalBlockDecodedValue(cameraIndex, temporalBlockIndex, key,
+                () -> getTemporalBlock(cameraIndex, temporalBlockIndex).getFieldValue(fieldName));
+    }
+
+    private ZonedDateTime getTemporalBlockTimestamp(final int cameraIndex, final int temporalBlockIndex, final String key, final String fieldName)
+            throws NitfFormatException {
+        return getTemporalBlockDecodedValue(cameraIndex, temporalBlockIndex, key,
+                () -> parseAsZonedDateTime(TIMESTAMP_NANO_FORMATTER, getTemporalBlock(cameraIndex, temporalBlockIndex).getFieldValue(fieldName)));
+    }
+
+    private <T> T getTemporalBlockDecodedValue(final int cameraIndex, final int temporalBlockIndex, final String key,
+            final FieldDecoder<T> decoder) throws NitfFormatException {
+        return getDecodedValue(key, cameraIndex, this::countCameras, temporalBlockIndex,
+                () -> getCamera(cameraIndex).getEntry("TEMPORAL_BLOCKS").getGroups().size(), decoder);
+    }
+
+    private int countCameras() throws NitfFormatException {
+        return mTre.getEntry("CAMERAS").getGroups().size();
     }
 
     private TreGroup getCamera(final int cameraIndex) throws NitfFormatException {
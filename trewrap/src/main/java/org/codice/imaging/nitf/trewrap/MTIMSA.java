@@ -162,10 +162,10 @@ public class MTIMSA extends TreWrapper {
      * @throws NitfFormatException if there was an issue during parsing
      */
     public final double getNominalFrameRate() throws NitfFormatException {
-        if (mTre.getFieldValue("NOMINAL_FRAME_RATE").trim().equals("NaN")) {
+        if (getValueAsTrimmedString("NOMINAL_FRAME_RATE").equals("NaN")) {
             return -1.0;
         }
-        return mTre.getDoubleValue("NOMINAL_FRAME_RATE");
+        return getValueAsDouble("NOMINAL_FRAME_RATE");
     }
 
     /**
@@ -274,9 +274,16 @@ public class MTIMSA extends TreWrapper {
      * @throws NitfFormatException if there was an issue during parsing.
      */
     public final BigInteger getDeltaTime(final long deltaItemIndex) throws NitfFormatException {
-        List<TreGroup> deltaTimes = mTre.getEntry("DELTA_TIME").getGroups();
-        TreGroup deltaTimeGroup = deltaTimes.get((int) deltaItemIndex);
-        return deltaTimeGroup.getBigIntegerValue("DT");
+        BigInteger[] deltaTimes = getDecodedValue("DELTA_TIME/DT#bigInteger", () -> {
+            // Every delta time is decoded on first access, since they are usually all wanted.
+            List<TreGroup> deltaTimeGroups = mTre.getEntry("DELTA_TIME").getGroups();
+            BigInteger[] values = new BigInteger[deltaTimeGroups.size()];
+            for (int i = 0; i < values.length; ++i) {
+                values[i] = deltaTimeGroups.get(i).getBigIntegerValue("DT");
+            }
+            return values;
+        });
+        return deltaTimes[(int) deltaItemIndex];
     }
 
     /**
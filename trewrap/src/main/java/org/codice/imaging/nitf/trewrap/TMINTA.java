@@ -75,9 +75,8 @@ public class TMINTA extends TreWrapper {
      * @throws NitfFormatException if there is a parsing issue.
      */
     public final int getTimeIntervalIndex(final int i) throws NitfFormatException {
-        List<TreGroup> intervals = mTre.getEntry("TIME INTERVALS").getGroups();
-        TreGroup interval = intervals.get(i);
-        return interval.getIntValue("TIME_INTERVAL_INDEX");
+        return getDecodedValue("TIME INTERVALS/TIME_INTERVAL_INDEX#integer", i, this::countIntervals,
+                () -> getInterval(i).getIntValue("TIME_INTERVAL_INDEX"));
     }
 
     /**
@@ -96,7 +95,7 @@ public class TMINTA extends TreWrapper {
      * value.
      */
     public final ZonedDateTime getStartTimeStamp(final int i) throws NitfFormatException {
-        return getTimestamp(i, "START_TIMESTAMP");
+        return getTimestamp(i, "TIME INTERVALS/START_TIMESTAMP#timestamp", "START_TIMESTAMP");
     }
 
     /**
@@ -119,13 +118,20 @@ public class TMINTA extends TreWrapper {
      * value.
      */
     public final ZonedDateTime getEndTimeStamp(final int i) throws NitfFormatException {
-        return getTimestamp(i, "END_TIMESTAMP");
+        return getTimestamp(i, "TIME INTERVALS/END_TIMESTAMP#timestamp", "END_TIMESTAMP");
+    }
+
+    private ZonedDateTime getTimestamp(final int i, final String key, final String fieldLabel) throws NitfFormatException {
+        return getDecodedValue(key, i, this::countIntervals,
+                () -> parseAsZonedDateTime(TIMESTAMP_NANO_FORMATTER, getInterval(i).getFieldValue(fieldLabel)));
     }
 
-    private ZonedDateTime getTimestamp(final int i, final String fieldLabel) throws NitfFormatException {
+    private TreGroup getInterval(final int i) throws NitfFormatException {
         List<TreGroup> intervals = mTre.getEntry("TIME INTERVALS").getGroups();
-        TreGroup interval = intervals.get(i);
-        String startTimeStamp = interval.getFieldValue(fieldLabel);
-        return parseAsZonedDateTime(TIMESTAMP_NANO_FORMATTER, startTimeStamp);
+        return intervals.get(i);
+    }
+
+    private int countIntervals() throws NitfFormatException {
+        return mTre.getEntry("TIME INTERVALS").getGroups().size();
     }
 }
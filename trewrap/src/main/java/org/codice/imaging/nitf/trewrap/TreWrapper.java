@@ -15,14 +15,25 @@
 package org.codice.imaging.nitf.trewrap;
 
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import org.codice.imaging.nitf.core.common.NitfFormatException;
 import org.codice.imaging.nitf.core.tre.Tre;
+import org.codice.imaging.nitf.core.tre.TreEntry;
 import org.codice.imaging.nitf.core.tre.TreFactory;
+import org.codice.imaging.nitf.core.tre.TreGroup;
 import org.codice.imaging.nitf.core.tre.TreParser;
 import org.codice.imaging.nitf.core.tre.TreSource;
 import org.slf4j.Logger;
@@ -30,11 +41,22 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Parent class for TRE wrappers.
+ *
+ * Decoded values are cached on first access. The cache is safe to read from
+ * several threads at once; if two threads ask for the same value at the same
+ * time it may be decoded twice, but both get an equal result and only one is
+ * retained.
  */
 public abstract class TreWrapper {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TreWrapper.class);
 
+    private static final ZoneId UTC = ZoneId.of("UTC");
+
+    private static final Object NULL_VALUE = new Object();
+
+    private static TreParser sharedTreParser = null;
+
     /**
      * Internal constant for date formatting / parsing in four digit year, month, day convention.
      */
@@ -64,6 +86,58 @@ public abstract class TreWrapper {
 
     private String mTag;
 
+    private final ConcurrentMap<ValueKind, ConcurrentMap<String, Object>> mDecodedValues = new ConcurrentHashMap<>();
+
+    private volatile Map<String, Object> mAllFieldValues = null;
+
+    /**
+     * The kinds of decoded value held in the per-wrapper cache.
+     */
+    private enum ValueKind {
+        RAW,
+        TRIMMED_STRING,
+        INTEGER,
+        LONG_INTEGER,
+        BIG_INTEGER,
+        DOUBLE,
+        LOCAL_DATE,
+        ZONED_DATE_TIME,
+        CUSTOM,
+        LOOPED
+    }
+
+    /**
+     * A date/time value together with the formatter it was parsed with.
+     */
+    private static final class FormattedDateTime {
+
+        private final DateTimeFormatter mFormatter;
+
+        private final ZonedDateTime mValue;
+
+        FormattedDateTime(final DateTimeFormatter formatter, final ZonedDateTime value) {
+            mFormatter = formatter;
+            mValue = value;
+        }
+    }
+
+    /**
+     * Decoder for a value derived from one or more TRE fields.
+     *
+     * @param <T> the type of the decoded value.
+     */
+    @FunctionalInterface
+    protected interface FieldDecoder<T> {
+
+        /**
+         * Decode the value.
+         *
+         * @return the decoded value, which may be null.
+         * @throws NitfFormatException if the field was not found or a parsing issue occurs.
+         */
+        T decode() throws NitfFormatException;
+    }
+
     /**
      * Construct a new TRE wrapper around an existing TRE.
      * @param tre the existing TRE
@@ -101,7 +175,7 @@ public abstract class TreWrapper {
      * @throws NitfFormatException if the field was not found or a parsing issue occurs.
      */
     protected final String getValueAsTrimmedString(final String fieldName) throws NitfFormatException {
-        return getFieldValue(fieldName).trim();
+        return getCachedValue(ValueKind.TRIMMED_STRING, fieldName, () -> getFieldValue(fieldName).trim());
     }
 
     /**
@@ -112,7 +186,7 @@ public abstract class TreWrapper {
      * @throws NitfFormatException if the field was not found or a parsing issue occurs.
      */
     protected final int getValueAsInteger(final String fieldName) throws NitfFormatException {
-        return mTre.getIntValue(fieldName);
+        return getCachedValue(ValueKind.INTEGER, fieldName, () -> mTre.getIntValue(fieldName));
     }
 
     /**
@@ -123,7 +197,7 @@ public abstract class TreWrapper {
      * @throws NitfFormatException if the field was not found or a parsing issue occurs.
      */
     protected final long getValueAsLongInteger(final String fieldName) throws NitfFormatException {
-        return mTre.getLongValue(fieldName);
+        return getCachedValue(ValueKind.LONG_INTEGER, fieldName, () -> mTre.getLongValue(fieldName));
     }
 
     /**
@@ -134,7 +208,7 @@ public abstract class TreWrapper {
      * @throws NitfFormatException if the field was not found or a parsing issue occurs.
      */
     protected final BigInteger getValueAsBigInteger(final String fieldName) throws NitfFormatException {
-        return mTre.getBigIntegerValue(fieldName);
+        return getCachedValue(ValueKind.BIG_INTEGER, fieldName, () -> mTre.getBigIntegerValue(fieldName));
     }
 
     /**
@@ -145,11 +219,13 @@ public abstract class TreWrapper {
      * @throws NitfFormatException if the field was not found or a parsing issue occurs.
      */
     protected final double getValueAsDouble(final String fieldName) throws NitfFormatException {
-        String val = getFieldValue(fieldName);
-        if ("NaN".equalsIgnoreCase(val.trim())) {
-            return Double.NaN;
-        }
-        return Double.parseDouble(val);
+        return getCachedValue(ValueKind.DOUBLE, fieldName, () -> {
+            String val = getFieldValue(fieldName);
+            if ("NaN".equalsIgnoreCase(val.trim())) {
+                return Double.NaN;
+            }
+            return Double.parseDouble(val);
+        });
     }
 
     /**
@@ -161,14 +237,16 @@ public abstract class TreWrapper {
      * @throws NitfFormatException if he field was not found or a parsing issue occurs.
      */
     protected final LocalDate getValueAsLocalDate(final String fieldName) throws NitfFormatException {
-        String dob = mTre.getFieldValue(fieldName);
-        try {
-            LocalDate dt = LocalDate.parse(dob, CENTURY_DATE_FORMATTER);
-            return dt;
-        } catch (DateTimeParseException ex) {
-            LOGGER.debug(String.format("Could not parse %s as a local date: %s", dob, ex.getMessage()));
-            return null;
-        }
+        return getCachedValue(ValueKind.LOCAL_DATE, fieldName, () -> {
+            String dob = getFieldValue(fieldName);
+            try {
+                LocalDate dt = LocalDate.parse(dob, CENTURY_DATE_FORMATTER);
+                return dt;
+            } catch (DateTimeParseException ex) {
+                LOGGER.debug(String.format("Could not parse %s as a local date: %s", dob, ex.getMessage()));
+                return null;
+            }
+        });
     }
 
     /**
@@ -181,8 +259,20 @@ public abstract class TreWrapper {
      * @throws NitfFormatException if he field was not found or a parsing issue occurs.
      */
     protected final ZonedDateTime getValueAsZonedDateTime(final String fieldName, final DateTimeFormatter formatter) throws NitfFormatException {
-        String dateTimeString = mTre.getFieldValue(fieldName);
-        return parseAsZonedDateTime(formatter, dateTimeString);
+        ConcurrentMap<String, Object> cache = getCache(ValueKind.ZONED_DATE_TIME);
+        FormattedDateTime cached = (FormattedDateTime) cache.get(fieldName);
+        if ((cached != null) && (cached.mFormatter == formatter)) {
+            return cached.mValue;
+        }
+        FormattedDateTime decoded = new FormattedDateTime(formatter, parseAsZonedDateTime(formatter, getFieldValue(fieldName)));
+        if (cached == null) {
+            cached = (FormattedDateTime) cache.putIfAbsent(fieldName, decoded);
+            if ((cached != null) && (cached.mFormatter == formatter)) {
+                return cached.mValue;
+            }
+        }
+        cache.put(fieldName, decoded);
+        return decoded.mValue;
     }
 
     /**
@@ -195,7 +285,7 @@ public abstract class TreWrapper {
      */
     protected final ZonedDateTime parseAsZonedDateTime(final DateTimeFormatter formatter, final String dateTimeString) {
         try {
-            DateTimeFormatter dtf = formatter.withZone(ZoneId.of("UTC"));
+            DateTimeFormatter dtf = formatter.withZone(UTC);
             ZonedDateTime zdt = ZonedDateTime.parse(dateTimeString, dtf);
             return zdt;
         } catch (DateTimeParseException ex) {
@@ -212,7 +302,190 @@ public abstract class TreWrapper {
      * @throws NitfFormatException if the field was not found or a parsing issue occurs.
      */
     public final String getFieldValue(final String fieldName) throws NitfFormatException {
-        return mTre.getFieldValue(fieldName);
+        return getCachedValue(ValueKind.RAW, fieldName, () -> mTre.getFieldValue(fieldName));
+    }
+
+    /**
+     * Retrieve a value derived from one or more fields, decoding it only on first access.
+     *
+     * @param <T> the type of the decoded value.
+     * @param key the key for the value, which must be unique within this wrapper.
+     * @param decoder the decoder to use if the value has not already been decoded.
+     * @return the decoded value.
+     * @throws NitfFormatException if the field was not found or a parsing issue occurs.
+     */
+    protected final <T> T getDecodedValue(final String key, final FieldDecoder<T> decoder) throws NitfFormatException {
+        return getCachedValue(ValueKind.CUSTOM, key, decoder);
+    }
+
+    /**
+     * Retrieve a value from a looped field, decoding it only on first access.
+     *
+     * The values for each key are held in one array, with an element for each loop iteration, so the key should be a
+     * constant (e.g. a string literal) rather than built for each index.
+     *
+     * @param <T> the type of the decoded value.
+     * @param key the key for the looped field, which must be unique within this wrapper.
+     * @param index the zero-based loop index.
+     * @param count decoder for the number of loop iterations, used on first access.
+     * @param decoder the decoder to use if the value at the index has not already been decoded.
+     * @return the decoded value.
+     * @throws NitfFormatException if the field was not found or a parsing issue occurs.
+     */
+    protected final <T> T getDecodedValue(final String key, final int index, final FieldDecoder<Integer> count,
+            final FieldDecoder<T> decoder) throws NitfFormatException {
+        AtomicReferenceArray<Object> values = getCachedValue(ValueKind.LOOPED, key, () -> new AtomicReferenceArray<>(count.decode()));
+        return getIndexedValue(values, index, decoder);
+    }
+
+    /**
+     * Retrieve a value from a field in a nested loop, decoding it only on first access.
+     *
+     * This is the same as getDecodedValue(String, int, FieldDecoder, FieldDecoder), with an array of values for the
+     * inner loop held for each iteration of the outer loop.
+     *
+     * @param <T> the type of the decoded value.
+     * @param key the key for the looped field, which must be unique within this wrapper.
+     * @param outerIndex the zero-based index in the outer loop.
+     * @param outerCount decoder for the number of iterations of the outer loop.
+     * @param innerIndex the zero-based index in the inner loop.
+     * @param innerCount decoder for the number of iterations of the inner loop, for the outer index.
+     * @param decoder the decoder to use if the value at the indexes has not already been decoded.
+     * @return the decoded value.
+     * @throws NitfFormatException if the field was not found or a parsing issue occurs.
+     */
+    protected final <T> T getDecodedValue(final String key, final int outerIndex, final FieldDecoder<Integer> outerCount,
+            final int innerIndex, final FieldDecoder<Integer> innerCount, final FieldDecoder<T> decoder) throws NitfFormatException {
+        AtomicReferenceArray<Object> innerValues = getDecodedValue(key, outerIndex, outerCount,
+                () -> new AtomicReferenceArray<>(innerCount.decode()));
+        return getIndexedValue(innerValues, innerIndex, decoder);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T getIndexedValue(final AtomicReferenceArray<Object> values, final int index, final FieldDecoder<T> decoder)
+            throws NitfFormatException {
+        if ((index < 0) || (index >= values.length())) {
+            // Not cached, so that the decoder reports the bad index in the same way as an uncached lookup.
+            return decoder.decode();
+        }
+        Object value = values.get(index);
+        if (value == null) {
+            T decodedValue = decoder.decode();
+            Object cachedValue = decodedValue;
+            if (decodedValue == null) {
+                cachedValue = NULL_VALUE;
+            }
+            if (values.compareAndSet(index, null, cachedValue)) {
+                return decodedValue;
+            }
+            value = values.get(index);
+        }
+        if (value == NULL_VALUE) {
+            return null;
+        }
+        return (T) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getCachedValue(final ValueKind kind, final String key, final FieldDecoder<T> decoder) throws NitfFormatException {
+        ConcurrentMap<String, Object> cache = getCache(kind);
+        Object value = cache.get(key);
+        if (value == null) {
+            // Not computeIfAbsent: decoders can throw and can recurse into this cache.
+            T decodedValue = decoder.decode();
+            Object cachedValue = decodedValue;
+            if (decodedValue == null) {
+                cachedValue = NULL_VALUE;
+            }
+            value = cache.putIfAbsent(key, cachedValue);
+            if (value == null) {
+                return decodedValue;
+            }
+        }
+        if (value == NULL_VALUE) {
+            return null;
+        }
+        return (T) value;
+    }
+
+    private ConcurrentMap<String, Object> getCache(final ValueKind kind) {
+        return mDecodedValues.computeIfAbsent(kind, k -> new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Discard any values that have already been decoded.
+     *
+     * Decoded values are cached on first access. This is done automatically
+     * when a value is changed through the wrapper, but needs to be called if
+     * the underlying TRE (from getTRE()) is modified directly.
+     */
+    public final void clearDecodedValues() {
+        mDecodedValues.clear();
+        mAllFieldValues = null;
+    }
+
+    /**
+     * Decode all of the fields in the TRE in one pass.
+     *
+     * This is intended for exporters that need every field. The result maps
+     * field names to values, in the order they occur in the TRE. Fields with
+     * "integer" or "UINT" type are returned as Long (or BigInteger if too
+     * large), fields with "real" type as Double, and other fields as trimmed
+     * strings. Fields that cannot be converted (e.g. space filled numeric
+     * fields) are also returned as trimmed strings. Looped structures are
+     * returned as a List of Maps, one per iteration.
+     *
+     * @return unmodifiable map of field name to decoded value.
+     * @throws NitfFormatException if a parsing issue occurs.
+     */
+    public final Map<String, Object> decodeAllFields() throws NitfFormatException {
+        Map<String, Object> allFieldValues = mAllFieldValues;
+        if (allFieldValues == null) {
+            allFieldValues = Collections.unmodifiableMap(decodeEntries(mTre.getEntries()));
+            mAllFieldValues = allFieldValues;
+        }
+        return allFieldValues;
+    }
+
+    private Map<String, Object> decodeEntries(final List<TreEntry> entries) throws NitfFormatException {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (TreEntry entry : entries) {
+            if (entry.getFieldValue() != null) {
+                values.put(entry.getName(), decodeEntry(entry));
+            } else if (entry.getGroups() != null) {
+                List<Map<String, Object>> groupValues = new ArrayList<>();
+                for (TreGroup group : entry.getGroups()) {
+                    groupValues.add(Collections.unmodifiableMap(decodeEntries(group.getEntries())));
+                }
+                values.put(entry.getName(), Collections.unmodifiableList(groupValues));
+            }
+        }
+        return values;
+    }
+
+    private Object decodeEntry(final TreEntry entry) throws NitfFormatException {
+        String trimmedValue = entry.getFieldValue().trim();
+        String dataType = entry.getDataType();
+        if ("UINT".equals(dataType)) {
+            return new BigInteger(1, entry.getFieldValue().getBytes(StandardCharsets.ISO_8859_1));
+        }
+        try {
+            if ("integer".equals(dataType)) {
+                BigInteger value = new BigInteger(trimmedValue);
+                if (value.bitLength() < Long.SIZE) {
+                    return value.longValue();
+                }
+                return value;
+            } else if ("real".equals(dataType)) {
+                if ("NaN".equalsIgnoreCase(trimmedValue)) {
+                    return Double.NaN;
+                }
+                return Double.parseDouble(trimmedValue);
+            }
+        } catch (NumberFormatException ex) {
+            LOGGER.debug(String.format("Could not decode %s value %s as %s", entry.getName(), trimmedValue, dataType));
+        }
+        return trimmedValue;
     }
 
     /**
@@ -224,8 +497,14 @@ public abstract class TreWrapper {
      * @throws NitfFormatException if there is a parsing or serialisation problem.
      */
     public final byte[] serialize() throws NitfFormatException {
-        TreParser parser = new TreParser();
-        return parser.serializeTRE(mTre);
+        return getSharedTreParser().serializeTRE(mTre);
+    }
+
+    private static synchronized TreParser getSharedTreParser() throws NitfFormatException {
+        if (sharedTreParser == null) {
+            sharedTreParser = new TreParser();
+        }
+        return sharedTreParser;
     }
 
     /**
@@ -35,7 +35,7 @@ public final class ACFTBSceneSource extends SensorLookup {
      * Constructor for this lookup class.
      */
     private ACFTBSceneSource() {
-        try (InputStream inputStream = ACFTBSceneSource.class.getResourceAsStream("/ACFTB_SENSOR_SOURCE_sensor.xml")) {
+        try (InputStream inputStream = ACFTBSceneSource.class.getResourceAsStream("/ACFTB_SCENE_SOURCE_sensor.xml")) {
             super.parseSensorLookup(inputStream);
         } catch (IOException e) {
             //This will only occur when inputStream.close() throws an exception.
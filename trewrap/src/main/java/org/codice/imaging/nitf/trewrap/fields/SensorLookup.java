@@ -15,6 +15,7 @@
 package org.codice.imaging.nitf.trewrap.fields;
 
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -27,9 +28,13 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Field / description lookup for sensor specific TRE fields.
+ *
+ * The lookup table is immutable once built, so it can be shared between
+ * threads and wrapper instances without locking. Registering a new lookup
+ * replaces the table with an updated copy. Sensor and value keys are interned.
  */
 public class SensorLookup {
-    private final Map<String, Map<String, String>> sensorMap = new HashMap<>();
+    private volatile Map<String, Map<String, String>> sensorMap = Collections.emptyMap();
     private String mField;
     private String mTre;
 
@@ -60,29 +65,44 @@ public class SensorLookup {
      * @param xmlStream the XML to read.
      */
     protected final void parseSensorLookup(final InputStream xmlStream) {
+        Map<String, Map<String, String>> parsedMap = new HashMap<>();
         try {
             XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(xmlStream);
             reader.next();
             mTre = reader.getAttributeValue("", "tre");
             mField = reader.getAttributeValue("", "field");
-            String sensor = null;
+            Map<String, String> mapForSensor = null;
             while (reader.hasNext()) {
                 reader.next();
                 if (reader.getEventType() == XMLStreamConstants.START_ELEMENT) {
                     if ("Sensor".equals(reader.getLocalName())) {
-                        sensor = reader.getAttributeValue("", "ident");
-                        sensorMap.put(sensor, new HashMap<>());
+                        mapForSensor = new HashMap<>();
+                        parsedMap.put(reader.getAttributeValue("", "ident").intern(), mapForSensor);
                     }
                     if ("Value".equals(reader.getLocalName())) {
                         String value = reader.getAttributeValue("", "value");
                         String description = reader.getAttributeValue("", "description");
-                        sensorMap.get(sensor).put(value, description);
+                        mapForSensor.put(value.intern(), description);
                     }
                 }
             }
         } catch (XMLStreamException ex) {
             LOGGER.warn(String.format("Problem parsing XML for %s:%s. %s", mTre, mField, ex.toString()));
         }
+        synchronized (this) {
+            for (Map.Entry<String, Map<String, String>> entry : sensorMap.entrySet()) {
+                parsedMap.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+            sensorMap = freeze(parsedMap);
+        }
+    }
+
+    private static Map<String, Map<String, String>> freeze(final Map<String, Map<String, String>> map) {
+        Map<String, Map<String, String>> frozenMap = new HashMap<>();
+        for (Map.Entry<String, Map<String, String>> entry : map.entrySet()) {
+            frozenMap.put(entry.getKey(), Collections.unmodifiableMap(new HashMap<>(entry.getValue())));
+        }
+        return Collections.unmodifiableMap(frozenMap);
     }
 
     /**
@@ -110,17 +130,17 @@ public class SensorLookup {
      * @return the description corresponding to the field, or null if not found.
      */
     public final String lookupDescription(final String sensorId, final String field) {
-        if (!sensorMap.containsKey(sensorId)) {
+        Map<String, String> mapForSensor = sensorMap.get(sensorId);
+        if (mapForSensor == null) {
             return null;
         }
-        Map<String, String> mapForSensor = sensorMap.get(sensorId);
-        return mapForSensor.getOrDefault(field, null);
+        return mapForSensor.get(field);
     }
 
     /**
      * Get the set of known sensors for this lookup.
      *
-     * @return Set of String identifying each known sensor id.
+     * @return unmodifiable Set of String identifying each known sensor id.
      */
     public final Set<String> getKnownSensors() {
         return sensorMap.keySet();
@@ -135,10 +155,14 @@ public class SensorLookup {
      * @param fieldValue field value that will be looked up.
      * @param textDescription description corresponding to the field value.
      */
-    protected final void registerNewLookup(final String sensorId, final String fieldValue, final String textDescription) {
-        if (!getKnownSensors().contains(sensorId)) {
-            sensorMap.put(sensorId, new HashMap<>());
+    protected final synchronized void registerNewLookup(final String sensorId, final String fieldValue, final String textDescription) {
+        Map<String, Map<String, String>> updatedMap = new HashMap<>(sensorMap);
+        Map<String, String> mapForSensor = new HashMap<>();
+        if (updatedMap.containsKey(sensorId)) {
+            mapForSensor.putAll(updatedMap.get(sensorId));
         }
-        sensorMap.get(sensorId).put(fieldValue, textDescription);
+        mapForSensor.put(fieldValue.intern(), textDescription);
+        updatedMap.put(sensorId.intern(), Collections.unmodifiableMap(mapForSensor));
+        sensorMap = Collections.unmodifiableMap(updatedMap);
     }
 }
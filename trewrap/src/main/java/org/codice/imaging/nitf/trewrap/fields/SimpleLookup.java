@@ -15,6 +15,7 @@
 package org.codice.imaging.nitf.trewrap.fields;
 
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import javax.xml.stream.XMLInputFactory;
@@ -26,10 +27,14 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Basic field / description lookup for simple (non-sensor specific) TRE fields.
+ *
+ * The lookup table is immutable once built, so it can be shared between
+ * threads and wrapper instances without locking. Registering a new lookup
+ * replaces the table with an updated copy. Value keys are interned.
  */
 public class SimpleLookup {
 
-    private final Map<String, String> fieldToDescriptionMap = new HashMap<>();
+    private volatile Map<String, String> fieldToDescriptionMap = Collections.emptyMap();
     private String mField;
     private String mTre;
 
@@ -60,6 +65,7 @@ public class SimpleLookup {
      * @param xmlStream - an InputStream containing the simple lookup data.
      */
     protected final void parseSimpleLookup(final InputStream xmlStream) {
+        Map<String, String> parsedMap = new HashMap<>();
         try {
             XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(xmlStream);
             reader.next();
@@ -70,12 +76,17 @@ public class SimpleLookup {
                 if (reader.getEventType() == XMLStreamConstants.START_ELEMENT) {
                     String value = reader.getAttributeValue("", "value");
                     String description = reader.getAttributeValue("", "description");
-                    fieldToDescriptionMap.put(value, description);
+                    parsedMap.put(value.intern(), description);
                 }
             }
         } catch (XMLStreamException ex) {
             LOGGER.warn(String.format("Problem parsing XML for %s:%s. %s", mTre, mField, ex.toString()));
         }
+        synchronized (this) {
+            Map<String, String> updatedMap = new HashMap<>(fieldToDescriptionMap);
+            updatedMap.putAll(parsedMap);
+            fieldToDescriptionMap = Collections.unmodifiableMap(updatedMap);
+        }
     }
 
     /**
@@ -84,7 +95,7 @@ public class SimpleLookup {
      * @return the description corresponding to the field, or null if not found.
      */
     public final String lookupDescription(final String fieldValue) {
-        return fieldToDescriptionMap.getOrDefault(fieldValue, null);
+        return fieldToDescriptionMap.get(fieldValue);
     }
 
     /**
@@ -95,8 +106,10 @@ public class SimpleLookup {
      * @param fieldValue field value that will be look up.
      * @param textDescription description corresponding to the field value.
      */
-    protected final void registerNewLookup(final String fieldValue, final String textDescription) {
-        fieldToDescriptionMap.put(fieldValue, textDescription);
+    protected final synchronized void registerNewLookup(final String fieldValue, final String textDescription) {
+        Map<String, String> updatedMap = new HashMap<>(fieldToDescriptionMap);
+        updatedMap.put(fieldValue.intern(), textDescription);
+        fieldToDescriptionMap = Collections.unmodifiableMap(updatedMap);
     }
 
 }
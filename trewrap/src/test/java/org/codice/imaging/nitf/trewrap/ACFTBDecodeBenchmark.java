@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ */
+package org.codice.imaging.nitf.trewrap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.stream.XMLStreamException;
+import org.codice.imaging.nitf.core.DataSource;
+import org.codice.imaging.nitf.core.SlottedParseStrategy;
+import org.codice.imaging.nitf.core.common.NitfFormatException;
+import org.codice.imaging.nitf.core.common.NitfInputStreamReader;
+import org.codice.imaging.nitf.core.common.TaggedRecordExtensionHandler;
+import org.codice.imaging.nitf.core.header.NitfParser;
+import org.codice.imaging.nitf.core.tre.Tre;
+import org.codice.imaging.nitf.trewrap.fields.SensorLookup;
+import static org.junit.Assert.assertFalse;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Benchmark for decoding ACFTB sensor-dependent descriptions across the sample files.
+ *
+ * This is not run as part of the normal test suite (the class name does not
+ * match the surefire patterns). Run it with:
+ * mvn test -pl trewrap -Dtest=ACFTBDecodeBenchmark -Dslf4jtest.print.level=INFO
+ */
+public class ACFTBDecodeBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ACFTBDecodeBenchmark.class);
+
+    private static final String[] SAMPLES = {
+        "/fromVTS/GHSarNITF21_good.ntf",
+        "/autzen-utm10.ntf"
+    };
+
+    private static final int WARMUP_PASSES = 2000;
+    private static final int MEASURED_PASSES = 20000;
+
+    @Test
+    public void decodeCorpus() throws NitfFormatException, XMLStreamException, IOException {
+        List<Tre> corpus = loadCorpus();
+        assertFalse(corpus.isEmpty());
+
+        long start = System.nanoTime();
+        SensorLookup freshLookup = new SensorLookup(SensorLookup.class.getResourceAsStream("/ACFTB_MPLAN_sensor.xml"));
+        long tableLoadNanos = System.nanoTime() - start;
+
+        long checksum = 0;
+        for (int i = 0; i < WARMUP_PASSES; ++i) {
+            checksum += decodeAll(corpus);
+        }
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_PASSES; ++i) {
+            checksum += decodeAll(corpus);
+        }
+        long elapsed = System.nanoTime() - start;
+        long decodes = (long) MEASURED_PASSES * corpus.size();
+        LOGGER.info(String.format("ACFTB corpus of %d TREs, %d sensors: %.1f ns per wrapper decode (checksum %d)",
+                corpus.size(), freshLookup.getKnownSensors().size(), (double) elapsed / decodes, checksum));
+        LOGGER.info(String.format("Loading one lookup table from XML: %.1f us", tableLoadNanos / 1000.0));
+    }
+
+    private List<Tre> loadCorpus() throws NitfFormatException {
+        List<Tre> corpus = new ArrayList<>();
+        for (String sample : SAMPLES) {
+            if (getClass().getResource(sample) == null) {
+                continue;
+            }
+            SlottedParseStrategy parseStrategy = new SlottedParseStrategy(SlottedParseStrategy.HEADERS_ONLY);
+            NitfParser.parse(new NitfInputStreamReader(getClass().getResourceAsStream(sample)), parseStrategy);
+            DataSource dataSource = parseStrategy.getDataSource();
+            addACFTBs(dataSource.getNitfHeader(), corpus);
+            dataSource.getImageSegments().forEach(imageSegment -> addACFTBs(imageSegment, corpus));
+        }
+        return corpus;
+    }
+
+    private static void addACFTBs(final TaggedRecordExtensionHandler treHandler, final List<Tre> corpus) {
+        for (Tre tre : treHandler.getTREsRawStructure().getTREs()) {
+            if ("ACFTB".equals(tre.getName().trim())) {
+                corpus.add(tre);
+            }
+        }
+    }
+
+    private long decodeAll(final List<Tre> corpus) throws NitfFormatException, XMLStreamException, IOException {
+        long decodedLength = 0;
+        for (Tre tre : corpus) {
+            ACFTB acftb = new ACFTB(tre);
+            decodedLength += length(acftb.getSensorIdentificationDecoded());
+            decodedLength += length(acftb.getSceneSourceDecoded());
+            decodedLength += length(acftb.getMissionPlanModeDecoded());
+        }
+        return decodedLength;
+    }
+
+    private static int length(final String s) {
+        if (s == null) {
+            return 0;
+        }
+        return s.length();
+    }
+}
@@ -2,9 +2,19 @@ package org.codice.imaging.nitf.trewrap;
 
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.codice.imaging.nitf.core.common.NitfFormatException;
 import org.codice.imaging.nitf.core.tre.Tre;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
@@ -55,4 +65,58 @@ public class AIMIDB_WrapTest extends SharedTreTestSupport {
         assertEquals("AS", aimidb.getCountryCode());
         assertEquals("3520S14904E", aimidb.getLocation());
     }
+
+    @Test
+    public void decodedValuesAreCached() throws NitfFormatException {
+        Tre tre = parseTRE(mTestData, "AIMIDB");
+        AIMIDB aimidb = new AIMIDB(tre);
+        ZonedDateTime acquisitionDate = aimidb.getAcquisitionDate();
+        assertSame(acquisitionDate, aimidb.getAcquisitionDate());
+        assertEquals(4, aimidb.getImageOperationNumber());
+
+        tre.getEntry("OP_NUM").setFieldValue("007");
+        assertEquals(4, aimidb.getImageOperationNumber());
+        aimidb.clearDecodedValues();
+        assertEquals(7, aimidb.getImageOperationNumber());
+        assertNotSame(acquisitionDate, aimidb.getAcquisitionDate());
+        assertEquals(acquisitionDate, aimidb.getAcquisitionDate());
+    }
+
+    @Test
+    public void decodedValuesCanBeReadConcurrently() throws NitfFormatException, InterruptedException, ExecutionException {
+        Tre tre = parseTRE(mTestData, "AIMIDB");
+        AIMIDB aimidb = new AIMIDB(tre);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<ZonedDateTime>> results = new ArrayList<>();
+            for (int i = 0; i < 16; ++i) {
+                results.add(executor.submit((Callable<ZonedDateTime>) () -> {
+                    assertEquals(4, aimidb.getImageOperationNumber());
+                    assertEquals("3520S14904E", aimidb.getLocation());
+                    return aimidb.getAcquisitionDate();
+                }));
+            }
+            ZonedDateTime acquisitionDate = aimidb.getAcquisitionDate();
+            for (Future<ZonedDateTime> result : results) {
+                assertEquals(acquisitionDate, result.get());
+            }
+            assertSame(acquisitionDate, aimidb.getAcquisitionDate());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void decodeAllFields() throws NitfFormatException {
+        Tre tre = parseTRE(mTestData, "AIMIDB");
+        AIMIDB aimidb = new AIMIDB(tre);
+        Map<String, Object> fields = aimidb.decodeAllFields();
+        assertEquals(tre.getEntries().size(), fields.size());
+        assertEquals("20160807212836", fields.get("ACQUISITION_DATE"));
+        assertEquals("NOT AVAIL.", fields.get("MISSION_IDENTIFICATION"));
+        assertEquals(4L, fields.get("OP_NUM"));
+        assertEquals(12345L, fields.get("START_TILE_ROW"));
+        assertEquals("3520S14904E", fields.get("LOCATION"));
+        assertSame(fields, aimidb.decodeAllFields());
+    }
 }
@@ -16,6 +16,7 @@ package org.codice.imaging.nitf.trewrap;
 
 import org.codice.imaging.nitf.core.common.NitfFormatException;
 import org.codice.imaging.nitf.core.tre.Tre;
+import org.codice.imaging.nitf.core.tre.TreGroup;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
@@ -90,4 +91,22 @@ public class CAMSDA_WrapTest extends SharedTreTestSupport {
         assertEquals(4000, camsda.getNumColumns(3, 0));
         assertEquals(4000, camsda.getNumColumnsForCameraSetInTRE(0, 0));
     }
+
+    @Test
+    public final void cameraValuesAreCached() throws NitfFormatException {
+        Tre tre = parseTRE(mOffsetTestData, "CAMSDA");
+        CAMSDA camsda = new CAMSDA(tre);
+        assertEquals(5000, camsda.getNumRows(3, 0));
+        assertEquals(6, camsda.getImageLocationRow(3, 0));
+
+        TreGroup camera = tre.getEntry("CAMERA_SETS").getGroups().get(0).getEntry("CAMERAS").getGroups().get(0);
+        camera.getEntry("NROWS").setFieldValue("00006000");
+        camera.getEntry("ILOC").setFieldValue("0000800007");
+        assertEquals(5000, camsda.getNumRowsForCameraSetInTRE(0, 0));
+        assertEquals(6, camsda.getImageLocationRowForCameraSetInTRE(0, 0));
+        camsda.clearDecodedValues();
+        assertEquals(6000, camsda.getNumRows(3, 0));
+        assertEquals(8, camsda.getImageLocationRow(3, 0));
+        assertEquals(7, camsda.getImageLocationColumn(3, 0));
+    }
 }
@@ -21,6 +21,8 @@ import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
 import static javax.xml.bind.DatatypeConverter.parseHexBinary;
 import org.codice.imaging.nitf.core.common.NitfFormatException;
 import org.codice.imaging.nitf.core.tre.Tre;
@@ -100,4 +102,49 @@ public class MTIMSA_WrapTest extends SharedTreTestSupport {
         ZonedDateTime expectedFrame3Time = ZonedDateTime.of(2016, 7, 22, 21, 25, 34, 552345678, ZoneId.of("UTC"));
         assertEquals(expectedFrame3Time, mtimsa.getFrameTime(3));
     }
+
+    @Test
+    public void decodeAllFieldsNaNAltData() throws IOException, NitfFormatException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        baos.write("MTIMSA0016100199fa238862-73ed-41fc-8d52-bfc7a954428c00295cb5511-7350-479b-9c8a-f028aba01e84000003004NaN                   20160716215756.012345678".getBytes(StandardCharsets.ISO_8859_1));
+        baos.write(parseHexBinary("0000000001312D00"));
+        baos.write(parseHexBinary("03"));
+        baos.write(parseHexBinary("01020304"));
+        baos.write(parseHexBinary("00000003"));
+        baos.write(parseHexBinary("4e0245"));
+        baos.write(parseHexBinary("fe0245"));
+        baos.write(parseHexBinary("3e0245"));
+        Tre tre = parseTRE(new ByteArrayInputStream(baos.toByteArray()), 172, "MTIMSA");
+        tre.getEntry("TIME_INTERVAL_INDEX").setFieldValue("      ");
+        MTIMSA mtimsa = new MTIMSA(tre);
+        Map<String, Object> fields = mtimsa.decodeAllFields();
+        assertEquals(1L, fields.get("IMAGE_SEG_INDEX"));
+        assertEquals("fa238862-73ed-41fc-8d52-bfc7a954428c", fields.get("LAYER_ID"));
+        assertEquals("", fields.get("TIME_INTERVAL_INDEX"));
+        assertTrue(Double.isNaN((Double) fields.get("NOMINAL_FRAME_RATE")));
+        assertEquals("", fields.get("REFERENCE_FRAME_NUM"));
+        assertEquals(BigInteger.valueOf(20000000L), fields.get("DT_MULTIPLIER"));
+        assertEquals(BigInteger.valueOf(3L), fields.get("NUMBER_DT"));
+        List<?> deltaTimes = (List<?>) fields.get("DELTA_TIME");
+        assertEquals(3, deltaTimes.size());
+        assertEquals(BigInteger.valueOf(16646725L), ((Map<?, ?>) deltaTimes.get(1)).get("DT"));
+    }
+
+    @Test
+    public void decodeAllFieldsRealValue() throws IOException, NitfFormatException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        baos.write("MTIMSA0015300199fa238862-73ed-41fc-8d52-bfc7a954428c00295cb5511-7350-479b-9c8a-f028aba01e840000030045.0000000E+0100000000620160716215756.012345678".getBytes(StandardCharsets.ISO_8859_1));
+        baos.write(parseHexBinary("0000000001312D00"));
+        baos.write(parseHexBinary("01"));
+        baos.write(parseHexBinary("01020304"));
+        baos.write(parseHexBinary("00000001"));
+        baos.write(parseHexBinary("4e"));
+        Tre tre = parseTRE(new ByteArrayInputStream(baos.toByteArray()), 164, "MTIMSA");
+        tre.getEntry("TIME_INTERVAL_INDEX").setFieldValue("99999999999999999999");
+        MTIMSA mtimsa = new MTIMSA(tre);
+        Map<String, Object> fields = mtimsa.decodeAllFields();
+        assertEquals(50.0, (Double) fields.get("NOMINAL_FRAME_RATE"), 0.00001);
+        assertEquals(new BigInteger("99999999999999999999"), fields.get("TIME_INTERVAL_INDEX"));
+        assertEquals(4L, fields.get("TEMP_BLOCK_INDEX"));
+    }
 }